@@ -0,0 +1,172 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 10:12:40 pm
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory stand-ins and fixtures shared by the benchmarks: repositories backed by
+ * plain collections instead of R2DBC, exchanges that never touch the network, and
+ * JSON payloads of a given size.
+ */
+final class BenchmarkSupport {
+
+	/** Upstream bodies are delivered in chunks of this size, as Netty typically does. */
+	static final int CHUNK_SIZE = 8 * 1024;
+
+	// Shared like in the server; MockServerWebExchange creates a codec configurer per exchange
+	private static final ServerCodecConfigurer CODECS = ServerCodecConfigurer.create();
+	private static final DefaultWebSessionManager SESSIONS = new DefaultWebSessionManager();
+	private static final AcceptHeaderLocaleContextResolver LOCALES = new AcceptHeaderLocaleContextResolver();
+
+	private BenchmarkSupport() {
+	}
+
+	/** Same Jackson configuration as the application context. */
+	static ObjectMapper objectMapper() {
+		return Jackson2ObjectMapperBuilder.json().build();
+	}
+
+	/**
+	 * Metrics with the application's defaults. Exchanges without a route, as most
+	 * benchmarks build them, are not timed; see GatewayMetricsBenchmark for the cost.
+	 */
+	static GatewayMetrics metrics(MeterRegistry registry) {
+		return new GatewayMetrics(registry, true, true, new double[0], Duration.ofMillis(1), Duration.ofSeconds(30), 1000);
+	}
+
+	static GatewayMetrics metrics() {
+		return metrics(new SimpleMeterRegistry());
+	}
+
+	/** Tracing as filters see it for requests that are not traced, see TracingFilterBenchmark. */
+	static GatewayTracing tracing() {
+		return new GatewayTracing(OpenTelemetry.noop(), new TracingPolicyResolver(objectMapper(), new RoutePolicyCaches(), 0, "", false), true);
+	}
+
+	/**
+	 * An in-memory implementation of a Spring Data repository interface. Only the
+	 * methods in {@code handlers} are implemented; any other call fails.
+	 */
+	@SuppressWarnings("unchecked")
+	static <R> R repository(Class<R> type, Map<String, Function<Object[], Object>> handlers) {
+		return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			Function<Object[], Object> handler = handlers.get(method.getName());
+			if (handler != null) {
+				return handler.apply(args);
+			}
+			if (method.getName().equals("toString")) {
+				return "InMemory" + type.getSimpleName();
+			}
+			throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+		});
+	}
+
+	/**
+	 * A GET exchange from the given client address whose response body is discarded.
+	 *
+	 * @param headers Extra request headers, as alternating names and values.
+	 */
+	static ServerWebExchange exchange(String path, String clientIp, String... headers) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path)
+				.remoteAddress(new InetSocketAddress(clientIp, 40000))
+				.header("X-Trace-ID", "0190b1c2-7d4e-7000-8000-00000000beef");
+		for (int i = 0; i + 1 < headers.length; i += 2) {
+			request.header(headers[i], headers[i + 1]);
+		}
+		MockServerHttpResponse response = new MockServerHttpResponse();
+		response.setWriteHandler(Flux::then);
+		return new DefaultServerWebExchange(request.build(), response, SESSIONS, CODECS, LOCALES);
+	}
+
+	/** The end of the chain: an upstream that answers 200 with no body. */
+	static GatewayFilterChain emptyUpstream() {
+		return exchange -> {
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+			return Mono.empty();
+		};
+	}
+
+	/** The end of the chain: an upstream that answers 200 with the given JSON body chunks. */
+	static GatewayFilterChain jsonUpstream(List<byte[]> chunks) {
+		return exchange -> {
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+			exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			exchange.getResponse().getHeaders().setContentLength(chunks.stream().mapToLong(chunk -> chunk.length).sum());
+			return exchange.getResponse().writeWith(Flux.fromIterable(chunks).map(BenchmarkSupport::wrap));
+		};
+	}
+
+	private static DataBuffer wrap(byte[] chunk) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(chunk);
+	}
+
+	/** A JSON array of small objects, at least {@code size} bytes long, split into chunks. */
+	static List<byte[]> jsonPayload(int size) {
+		StringBuilder json = new StringBuilder(size + 128).append('[');
+		for (int i = 0; json.length() < size; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"id\":").append(i)
+					.append(",\"name\":\"item-").append(i)
+					.append("\",\"tags\":[\"alpha\",\"beta\"],\"price\":").append(i % 100).append(".5,\"active\":true}");
+		}
+		byte[] bytes = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+		List<byte[]> chunks = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+			chunks.add(Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + CHUNK_SIZE)));
+		}
+		return chunks;
+	}
+
+	/** Payload sizes by benchmark parameter name. */
+	static int payloadSize(String name) {
+		return switch (name) {
+			case "small" -> 200;
+			case "16KB" -> 16 * 1024;
+			case "100KB" -> 100 * 1024;
+			case "5MB" -> 5 * 1024 * 1024;
+			default -> throw new IllegalArgumentException("Unknown payload size: " + name);
+		};
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:58:12 pm
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+/**
+ * Cost of timing a request into a Prometheus registry with histogram buckets:
+ * {@code cached} through {@link GatewayMetrics}, which keeps the timers of each route,
+ * and {@code lookup} building the tags and finding the timer in the registry for every
+ * request, as {@code Timer.builder(...).register(...)} on the request path would.
+ * Run with 8 threads, as requests of many event loops record into the same timers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class GatewayMetricsBenchmark {
+
+	private static final long DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(12);
+
+	private PrometheusMeterRegistry registry;
+	private GatewayMetrics metrics;
+	private ServerWebExchange exchange;
+
+	@Setup
+	public void setUp() {
+		registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		metrics = BenchmarkSupport.metrics(registry);
+		Route route = Route.async()
+				.id("orders")
+				.uri("lb://orders")
+				.predicate(exchange -> true)
+				.build();
+		exchange = BenchmarkSupport.exchange("/api/orders/42", "192.168.1.20");
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		exchange.getResponse().setStatusCode(HttpStatus.OK);
+	}
+
+	@Benchmark
+	public void cached() {
+		metrics.recordRequest(exchange, DURATION_NANOS, null);
+	}
+
+	@Benchmark
+	public void lookup() {
+		Route route = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		Timer.builder("gateway.requests")
+				.tags("route", route.getId(), "upstream", route.getUri().getHost(),
+						"status", (exchange.getResponse().getStatusCode().value() / 100) + "xx")
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(registry)
+				.record(DURATION_NANOS, TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 10:31:08 pm
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+
+import com.nopaper.work.gateway.entity.IpBlacklist;
+import com.nopaper.work.gateway.filter.IpBlacklistFilter;
+import com.nopaper.work.gateway.repository.IpBlacklistRepository;
+import com.nopaper.work.gateway.services.IpBlacklistIndex;
+import com.nopaper.work.gateway.services.SecurityService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link IpBlacklistFilter} against a blacklist of 10,000 addresses and 100 ranges,
+ * for a clean client, a listed address and an address inside a listed range.
+ * {@code baseline} measures building the exchange and running the rest of the chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpBlacklistFilterBenchmark {
+
+	@Param({ "clean", "listed", "range" })
+	public String client;
+
+	private IpBlacklistIndex index;
+	private IpBlacklistFilter filter;
+	private GatewayFilterChain upstream;
+	private String clientIp;
+
+	@Setup
+	public void setUp() throws Exception {
+		List<IpBlacklist> rows = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			rows.add(entry("10.0." + (i / 250) + "." + (i % 250 + 1)));
+		}
+		for (int i = 0; i < 100; i++) {
+			rows.add(entry("172.16." + i + ".0/24"));
+		}
+		Set<String> listed = new HashSet<>();
+		rows.forEach(row -> listed.add(row.getIpAddress()));
+
+		IpBlacklistRepository repository = BenchmarkSupport.repository(IpBlacklistRepository.class, Map.of(
+				"findAll", args -> Flux.fromIterable(rows),
+				"findByLastModifiedDateAfter", args -> Flux.empty(),
+				"existsByIpAddress", args -> Mono.just(listed.contains((String) args[0]))));
+		index = new IpBlacklistIndex(repository, new SimpleMeterRegistry(), Duration.ofHours(1), Duration.ofHours(1), 0.001);
+		index.start();
+		awaitIndex();
+
+		filter = new IpBlacklistFilter(new SecurityService(repository), index, BenchmarkSupport.tracing(),
+				BenchmarkSupport.metrics());
+		upstream = BenchmarkSupport.emptyUpstream();
+		clientIp = switch (client) {
+			case "clean" -> "192.168.1.20";
+			case "listed" -> "10.0.3.7";
+			case "range" -> "172.16.5.9";
+			default -> throw new IllegalArgumentException(client);
+		};
+	}
+
+	@TearDown
+	public void tearDown() {
+		index.stop();
+	}
+
+	@Benchmark
+	public Void baseline() {
+		return upstream.filter(BenchmarkSupport.exchange("/api/orders", clientIp)).block();
+	}
+
+	@Benchmark
+	public Void filter() {
+		return filter.filter(BenchmarkSupport.exchange("/api/orders", clientIp), upstream).block();
+	}
+
+	private void awaitIndex() throws Exception {
+		InetAddress inRange = InetAddress.getByName("172.16.0.1");
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (index.matchingRange(inRange) == null) {
+			if (System.nanoTime() > deadline) {
+				throw new IllegalStateException("The IP blacklist index was not built");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static IpBlacklist entry(String ipAddress) {
+		IpBlacklist entry = new IpBlacklist();
+		entry.setIpAddress(ipAddress);
+		entry.setReason("benchmark");
+		return entry;
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 7:02:18 am
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.crypto.RouteKeys;
+import com.nopaper.work.gateway.crypto.StreamingAesGcm;
+import com.nopaper.work.gateway.entity.RouteKey;
+import com.nopaper.work.gateway.filter.PayloadEncryptionFilter;
+import com.nopaper.work.gateway.repository.RouteKeyRepository;
+import com.nopaper.work.gateway.repository.RouteRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link StreamingAesGcm} encrypting and decrypting a body delivered in Netty-sized
+ * chunks, and {@link PayloadEncryptionFilter} encrypting a JSON upstream response, for a
+ * small body, one segment, 100 KB and 5 MB, with the route's key and with keys derived
+ * for 100 tenants. Bytes per second are the payload size
+ * times the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PayloadEncryptionBenchmark {
+
+	private static final String KEY = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+	@Param({ "small", "16KB", "100KB", "5MB" })
+	public String payload;
+
+	private SecretKey key;
+	private List<byte[]> plaintext;
+	private List<byte[]> ciphertext;
+	private PayloadEncryptionFilter filter;
+	private GatewayFilterChain upstream;
+	private Route route;
+
+	@Setup
+	public void setUp() {
+		RouteKey row = new RouteKey();
+		row.setRouteId("benchmark");
+		row.setKeyVersion(1);
+		row.setKeyMaterial(KEY);
+		RouteKeys keys = new RouteKeys(
+				BenchmarkSupport.repository(RouteKeyRepository.class,
+						Map.of("findByRouteIdOrderByKeyVersionDesc", args -> Flux.just(row))),
+				BenchmarkSupport.repository(RouteRepository.class, Map.of()),
+				new SimpleMeterRegistry(), Duration.ofMinutes(5), 10_000);
+		key = RouteKeys.parse(KEY);
+		plaintext = BenchmarkSupport.jsonPayload(BenchmarkSupport.payloadSize(payload));
+		ciphertext = rechunk(collect(StreamingAesGcm.encrypt(chunks(plaintext), key, DefaultDataBufferFactory.sharedInstance)));
+		filter = new PayloadEncryptionFilter(keys, true, "X-Tenant-ID");
+		upstream = BenchmarkSupport.jsonUpstream(plaintext);
+		route = Route.async()
+				.id("benchmark")
+				.uri(URI.create("http://localhost"))
+				.predicate(exchange -> true)
+				.metadata(Map.of(RouteKeys.METADATA_KEY, true))
+				.build();
+	}
+
+	@Benchmark
+	public long encrypt() {
+		return drain(StreamingAesGcm.encrypt(chunks(plaintext), key, DefaultDataBufferFactory.sharedInstance));
+	}
+
+	@Benchmark
+	public long decrypt() {
+		return drain(StreamingAesGcm.decrypt(chunks(ciphertext), key, DefaultDataBufferFactory.sharedInstance));
+	}
+
+	@Benchmark
+	public Void filter() {
+		ServerWebExchange exchange = BenchmarkSupport.exchange("/api/orders", "192.168.1.20");
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return filter.filter(exchange, upstream).block();
+	}
+
+	/** As {@link #filter()}, with the tenant's key derived from the route's. */
+	@Benchmark
+	public Void filterForTenant() {
+		ServerWebExchange exchange = BenchmarkSupport.exchange("/api/orders", "192.168.1.20",
+				"X-Tenant-ID", "tenant-" + ThreadLocalRandom.current().nextInt(100));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return filter.filter(exchange, upstream).block();
+	}
+
+	private static Flux<DataBuffer> chunks(List<byte[]> chunks) {
+		return Flux.fromIterable(chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+	}
+
+	/** Releases the body chunk by chunk, counting its bytes. */
+	private static long drain(Flux<DataBuffer> body) {
+		long[] length = new long[1];
+		body.doOnNext(buffer -> {
+			length[0] += buffer.readableByteCount();
+			DataBufferUtils.release(buffer);
+		}).blockLast();
+		return length[0];
+	}
+
+	private static byte[] collect(Flux<DataBuffer> body) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		body.doOnNext(buffer -> {
+			byte[] chunk = new byte[buffer.readableByteCount()];
+			buffer.read(chunk);
+			DataBufferUtils.release(buffer);
+			bytes.writeBytes(chunk);
+		}).blockLast();
+		return bytes.toByteArray();
+	}
+
+	private static List<byte[]> rechunk(byte[] bytes) {
+		List<byte[]> chunks = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += BenchmarkSupport.CHUNK_SIZE) {
+			chunks.add(Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + BenchmarkSupport.CHUNK_SIZE)));
+		}
+		return chunks;
+	}
+}
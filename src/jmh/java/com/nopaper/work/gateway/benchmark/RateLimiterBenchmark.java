@@ -0,0 +1,115 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 1:31:44 am
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+
+import com.nopaper.work.gateway.ratelimit.ConcurrencyLimiter;
+import com.nopaper.work.gateway.ratelimit.HybridRateLimiter;
+import com.nopaper.work.gateway.ratelimit.SlidingWindowRateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One admission decision of each in-process limiter, from four threads at once, for a
+ * single hot key and for traffic spread over 1,000 keys. Limits are set high enough
+ * that requests are admitted, which is the path that updates state; the concurrency
+ * limiter's permit is released straight away.
+ * <p>
+ * {@code hybrid} is the synchronized token bucket for comparison; the sliding window
+ * and the concurrency limiter are lock-free.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+	private static final String ROUTE_ID = "bench";
+
+	@Param({ "hybrid", "slidingWindow", "concurrency" })
+	public String limiter;
+
+	@Param({ "1", "1000" })
+	public int keyCount;
+
+	private RateLimiter<?> rateLimiter;
+	private ConcurrencyLimiter concurrencyLimiter;
+	private String[] keys;
+
+	/** Where each thread is in the key list. */
+	@State(Scope.Thread)
+	public static class Client {
+
+		int next;
+	}
+
+	@Setup
+	public void setUp() {
+		ConfigurationService configurationService = new ConfigurationService(new DefaultListableBeanFactory(),
+				ApplicationConversionService::getSharedInstance, () -> null);
+		AbstractRateLimiter<?> configured = switch (limiter) {
+			// Never synced: without start() there is no Redis traffic
+			case "hybrid" -> configure(new HybridRateLimiter(null, configurationService, new SimpleMeterRegistry(), 0.1,
+					Duration.ofMillis(250), Duration.ofMinutes(2)), HybridRateLimiter.CONFIGURATION_PROPERTY_NAME,
+					Map.of("replenishRate", "100000000", "burstCapacity", "100000000"));
+			case "slidingWindow" -> configure(new SlidingWindowRateLimiter(null, configurationService, Duration.ofMinutes(2)),
+					SlidingWindowRateLimiter.CONFIGURATION_PROPERTY_NAME, Map.of("limit", "1000000", "window", "1s", "mode", "local"));
+			case "concurrency" -> concurrencyLimiter = configure(new ConcurrencyLimiter(configurationService),
+					ConcurrencyLimiter.CONFIGURATION_PROPERTY_NAME, Map.of("maxInFlight", "1000"));
+			default -> throw new IllegalArgumentException("Unknown limiter: " + limiter);
+		};
+		rateLimiter = configured;
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "10.0." + (i / 250) + "." + (i % 250 + 1);
+		}
+	}
+
+	@Benchmark
+	public boolean isAllowed(Client client) {
+		String key = keys[client.next++ % keys.length];
+		boolean allowed = rateLimiter.isAllowed(ROUTE_ID, key).block().isAllowed();
+		if (concurrencyLimiter != null && allowed) {
+			concurrencyLimiter.release(ROUTE_ID, key);
+		}
+		return allowed;
+	}
+
+	// Binds the settings the way the gateway does when it loads a route
+	private static <L extends AbstractRateLimiter<?>> L configure(L limiter, String prefix, Map<String, String> settings) {
+		Map<String, Object> args = new HashMap<>();
+		settings.forEach((name, value) -> args.put(prefix + "." + name, value));
+		limiter.onApplicationEvent(new FilterArgsEvent(RateLimiterBenchmark.class, ROUTE_ID, args));
+		return limiter;
+	}
+}
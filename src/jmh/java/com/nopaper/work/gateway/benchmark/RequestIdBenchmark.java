@@ -0,0 +1,54 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 9:21:36 am
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nopaper.work.gateway.tracing.RequestIds;
+
+/**
+ * Request ids made by 64 threads at once, as many event loops as a large host runs:
+ * {@code randomUuid} is what {@code RequestLoggingFilter} did before, a random UUID as
+ * text for the request id and another for the trace id; {@code requestId} is
+ * {@link RequestIds}, and {@code requestIdAsText} adds the formatting done when the
+ * request is logged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class RequestIdBenchmark {
+
+	@Benchmark
+	public String randomUuid() {
+		String requestId = UUID.randomUUID().toString();
+		String traceId = UUID.randomUUID().toString();
+		return requestId.length() > traceId.length() ? requestId : traceId;
+	}
+
+	@Benchmark
+	public UUID requestId() {
+		return RequestIds.next();
+	}
+
+	@Benchmark
+	public String requestIdAsText() {
+		return RequestIds.next().toString();
+	}
+}
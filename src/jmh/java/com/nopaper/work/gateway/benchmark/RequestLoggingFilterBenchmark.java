@@ -0,0 +1,80 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 10:44:51 pm
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.util.unit.DataSize;
+
+import com.nopaper.work.gateway.filter.RequestLoggingFilter;
+import com.nopaper.work.gateway.repository.RequestLogRepository;
+import com.nopaper.work.gateway.services.LoggingService;
+import com.nopaper.work.gateway.services.RequestLogWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link RequestLoggingFilter} with the batched {@link RequestLogWriter} draining into
+ * an in-memory repository, so the request path cost is measured without a database.
+ * {@code baseline} measures building the exchange and running the rest of the chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLoggingFilterBenchmark {
+
+	private RequestLogWriter writer;
+	private RequestLoggingFilter filter;
+	private GatewayFilterChain upstream;
+
+	@Setup
+	public void setUp() {
+		RequestLogRepository repository = BenchmarkSupport.repository(RequestLogRepository.class, Map.of(
+				"insertAll", args -> Mono.just((long) ((List<?>) args[0]).size())));
+		writer = new RequestLogWriter(repository, new SimpleMeterRegistry(), 10_000, 500, Duration.ofMillis(50),
+				RequestLogWriter.OverflowPolicy.DROP, 10, false, Path.of("target"), DataSize.ofMegabytes(1), 2);
+		writer.start();
+		filter = new RequestLoggingFilter(new LoggingService(writer, BenchmarkSupport.objectMapper()),
+				BenchmarkSupport.metrics());
+		upstream = BenchmarkSupport.emptyUpstream();
+	}
+
+	@TearDown
+	public void tearDown() {
+		writer.stop();
+	}
+
+	@Benchmark
+	public Void baseline() {
+		return upstream.filter(BenchmarkSupport.exchange("/api/orders/42", "192.168.1.20")).block();
+	}
+
+	@Benchmark
+	public Void filter() {
+		return filter.filter(BenchmarkSupport.exchange("/api/orders/42", "192.168.1.20"), upstream).block();
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:02:14 pm
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.cache.ResponseCachePolicyResolver;
+import com.nopaper.work.gateway.configurations.RouteDefinitionCompiler;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+import com.nopaper.work.gateway.entity.Routes;
+import com.nopaper.work.gateway.ratelimit.RateLimitPolicyResolver;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+import com.nopaper.work.gateway.transformer.ResponsePolicyResolver;
+
+/**
+ * Turning a {@link Routes} row into a {@link RouteDefinition}: from the raw columns
+ * ({@code convertToRouteDefinition}, what {@code DynamicRoutingDefinitionLocator} did
+ * for every row on every reload), from the stored compiled form, and for an unchanged
+ * row whose definition is already held in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteDefinitionBenchmark {
+
+	private RouteDefinitionCompiler compiler;
+	private Routes source;
+	private Routes compiled;
+
+	@Setup
+	public void setUp() {
+		ObjectMapper objectMapper = BenchmarkSupport.objectMapper();
+		RoutePolicyCaches policyCaches = new RoutePolicyCaches();
+		compiler = new RouteDefinitionCompiler(objectMapper, new ResponsePolicyResolver(objectMapper, policyCaches, DataSize.ofMegabytes(10)),
+				new ResponseCachePolicyResolver(objectMapper, policyCaches, Duration.ofSeconds(60), Duration.ZERO, DataSize.ofMegabytes(1)),
+				new RateLimitPolicyResolver(objectMapper, policyCaches),
+				new TracingPolicyResolver(objectMapper, policyCaches, 0.01, "", false), "hybridRateLimiter");
+		source = route();
+		compiled = compiler.prepareForWrite(route());
+	}
+
+	@Benchmark
+	public RouteDefinition convertToRouteDefinition() {
+		return compiler.convertToRouteDefinition(source);
+	}
+
+	@Benchmark
+	public RouteDefinition loadCompiled() {
+		compiler.evict(compiled.getRouteId());
+		return compiler.load(compiled).block();
+	}
+
+	@Benchmark
+	public RouteDefinition loadUnchanged() {
+		return compiler.load(compiled).block();
+	}
+
+	private static Routes route() {
+		Routes route = new Routes();
+		route.setRouteId("order-service");
+		route.setUri("lb://ORDER-SERVICE");
+		route.setPredicates("[{\"name\":\"Path\",\"args\":{\"_genkey_0\":\"/api/orders/**\"}},"
+				+ "{\"name\":\"Method\",\"args\":{\"_genkey_0\":\"GET\",\"_genkey_1\":\"POST\"}}]");
+		route.setFilters("[{\"name\":\"StripPrefix\",\"args\":{\"parts\":\"1\"}},"
+				+ "{\"name\":\"AddRequestHeader\",\"args\":{\"name\":\"X-Gateway\",\"value\":\"nopaper\"}}]");
+		route.setRateLimitEnabled(true);
+		route.setRateLimitReplenishRate(10);
+		route.setRateLimitBurstCapacity(20);
+		route.setKeyResolverName("ipKeyResolver");
+		route.setEncryptionKey("YmVuY2htYXJrLWtleS0wMTIzNDU2Nzg5YWJjZGVmZ2g=");
+		route.setResponsePolicy("{\"contentTypes\":[\"application/json\"],\"maxBufferSize\":\"2MB\"}");
+		route.setEnabled(true);
+		return route;
+	}
+}
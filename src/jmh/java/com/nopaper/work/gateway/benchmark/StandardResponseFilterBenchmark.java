@@ -0,0 +1,90 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 10:53:27 pm
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.filter.StandardResponseFilter;
+import com.nopaper.work.gateway.transformer.ResponsePolicyResolver;
+import com.nopaper.work.gateway.transformer.ResponseTransformerFactory;
+import com.nopaper.work.gateway.transformer.StandardTransformers;
+
+/**
+ * {@link StandardResponseFilter} wrapping a JSON upstream response with each standard
+ * transformer profile, in both envelope modes, for small, 100 KB and 5 MB bodies.
+ * {@code baseline} measures building the exchange and writing the unwrapped body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StandardResponseFilterBenchmark {
+
+	private static final UUID REQUEST_ID = UUID.fromString("0190b1c2-7d4e-7000-8000-00000000cafe");
+
+	@Param({ "DEFAULT", "OWASP", "LTI" })
+	public String profile;
+
+	@Param({ "small", "100KB", "5MB" })
+	public String payload;
+
+	@Param({ "STREAMING", "BUFFERED" })
+	public StandardResponseFilter.EnvelopeMode mode;
+
+	private StandardResponseFilter filter;
+	private GatewayFilterChain upstream;
+
+	@Setup
+	public void setUp() {
+		ObjectMapper objectMapper = BenchmarkSupport.objectMapper();
+		ResponseTransformerFactory transformers = new ResponseTransformerFactory(
+				List.of(StandardTransformers.DEFAULT, StandardTransformers.OWASP, StandardTransformers.LTI));
+		ResponsePolicyResolver policies = new ResponsePolicyResolver(objectMapper, new RoutePolicyCaches(), DataSize.ofMegabytes(16));
+		filter = new StandardResponseFilter(transformers, policies, objectMapper, BenchmarkSupport.tracing(),
+				BenchmarkSupport.metrics(), mode);
+		upstream = BenchmarkSupport.jsonUpstream(BenchmarkSupport.jsonPayload(BenchmarkSupport.payloadSize(payload)));
+	}
+
+	@Benchmark
+	public Void baseline() {
+		return upstream.filter(exchange()).block();
+	}
+
+	@Benchmark
+	public Void filter() {
+		return filter.filter(exchange(), upstream).block();
+	}
+
+	private ServerWebExchange exchange() {
+		ServerWebExchange exchange = BenchmarkSupport.exchange("/api/orders", "192.168.1.20",
+				ResponseTransformerFactory.PROFILE_HEADER, profile);
+		exchange.getAttributes().put(GatewayConstant.REQUEST_ID_ATTR, REQUEST_ID);
+		return exchange;
+	}
+}
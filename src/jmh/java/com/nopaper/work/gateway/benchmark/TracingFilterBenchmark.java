@@ -0,0 +1,140 @@
+/**
+ * @package com.nopaper.work.gateway.benchmark -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 11:48:30 am
+ * @git
+ */
+package com.nopaper.work.gateway.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+import com.nopaper.work.gateway.filter.TracingFilter;
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+import com.nopaper.work.gateway.tracing.RouteSampler;
+import com.nopaper.work.gateway.tracing.TailSamplingSpanProcessor;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import reactor.core.publisher.Mono;
+
+/**
+ * What tracing adds to a request: {@link TracingFilter} with a traced blacklist check,
+ * upstream call and {@code traceparent} written into the upstream headers, exporting in
+ * batches to an exporter that discards the spans. {@code baseline} runs the same chain
+ * without {@code TracingFilter}, so nothing is traced.
+ * <p>
+ * {@code sampling} is {@code off} for {@code gateway.tracing.enabled=false},
+ * {@code unsampled} for a request head sampling passes over, {@code tail} for one only
+ * recorded for tail sampling, and {@code sampled} for one that is exported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TracingFilterBenchmark {
+
+	@Param({ "off", "unsampled", "tail", "sampled" })
+	public String sampling;
+
+	private SdkTracerProvider provider;
+	private TracingFilter filter;
+	private GatewayFilterChain chain;
+	private Route route;
+
+	@Setup
+	public void setUp() {
+		TracingPolicyResolver resolver = new TracingPolicyResolver(BenchmarkSupport.objectMapper(), new RoutePolicyCaches(),
+				"sampled".equals(sampling) ? 1 : 0, "tail".equals(sampling) ? "10s" : "", false);
+		SpanExporter discard = new SpanExporter() {
+			@Override
+			public CompletableResultCode export(Collection<SpanData> spans) {
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode flush() {
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode shutdown() {
+				return CompletableResultCode.ofSuccess();
+			}
+		};
+		provider = SdkTracerProvider.builder()
+				.setSampler(new RouteSampler(resolver.defaultPolicy()))
+				.addSpanProcessor(new TailSamplingSpanProcessor(
+						BatchSpanProcessor.builder(discard).setExportUnsampledSpans(true).build(), 10_000))
+				.build();
+		OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+				.setTracerProvider(provider)
+				.setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+				.build();
+		GatewayTracing tracing = new GatewayTracing(openTelemetry, resolver, !"off".equals(sampling));
+		filter = new TracingFilter(tracing);
+
+		GatewayFilterChain upstream = BenchmarkSupport.emptyUpstream();
+		GatewayFilterChain sendUpstream = exchange -> {
+			tracing.inject(exchange, new HttpHeaders());
+			return upstream.filter(exchange);
+		};
+		GatewayFilterChain routeUpstream = exchange -> tracing.traceUpstream(exchange, sendUpstream);
+		chain = exchange -> tracing.traceUntilHandOff(exchange, "blacklist check", routeUpstream,
+				(checked, next) -> next.filter(checked));
+		route = Route.async()
+				.id("orders")
+				.uri("http://orders:8080")
+				.predicate(exchange -> true)
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		provider.shutdown().join(10, TimeUnit.SECONDS);
+	}
+
+	@Benchmark
+	public Void baseline() {
+		return chain.filter(exchange()).block();
+	}
+
+	@Benchmark
+	public Void filter() {
+		return filter.filter(exchange(), chain).block();
+	}
+
+	private ServerWebExchange exchange() {
+		ServerWebExchange exchange = BenchmarkSupport.exchange("/api/orders/42", "192.168.1.20");
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+}
@@ -0,0 +1,271 @@
+/**
+ * @package com.nopaper.work.gateway.loadtest -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:24:03 pm
+ * @git
+ */
+package com.nopaper.work.gateway.loadtest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Open-loop load generator. Requests are started on a fixed schedule derived from the
+ * offered rate, and latency is measured from the scheduled start rather than the actual
+ * one, so a stalled gateway shows up in the percentiles instead of silently lowering
+ * the load (coordinated omission).
+ * <p>
+ * Each scenario sends from its own loopback addresses, so the gateway sees distinct
+ * client IPs for the blacklist and the rate limiter. Linux routes all of 127.0.0.0/8 to
+ * the loopback interface; on macOS the addresses have to be added as aliases first.
+ */
+final class LoadDriver implements AutoCloseable {
+
+	/** Distinct client IPs sharing the rate-limited route, each with its own token bucket. */
+	static final int RATE_LIMITED_KEYS = 4;
+
+	private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * One kind of request in the mix.
+	 *
+	 * @param name    Name used in the mix setting and the report.
+	 * @param uri     Path and query sent to the gateway.
+	 * @param headers Extra request headers.
+	 * @param sources Client addresses, used in turn.
+	 */
+	record Scenario(String name, String uri, Map<String, String> headers, List<InetAddress> sources) {
+	}
+
+	/** Latencies and status codes of one scenario, for the measured part of the run. */
+	static final class Outcome {
+
+		private final Recorder latencies = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+		private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+		private final LongAdder errors = new LongAdder();
+
+		void record(long latencyMicros, int status) {
+			latencies.recordValue(Math.min(latencyMicros, HIGHEST_LATENCY_MICROS));
+			statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+		}
+
+		void error() {
+			errors.increment();
+		}
+
+		Histogram histogram() {
+			return latencies.getIntervalHistogram();
+		}
+
+		Map<Integer, Long> statuses() {
+			Map<Integer, Long> counts = new TreeMap<>();
+			statuses.forEach((status, count) -> counts.put(status, count.sum()));
+			return counts;
+		}
+
+		long errors() {
+			return errors.sum();
+		}
+	}
+
+	private final LoadTestSettings settings;
+	private final String baseUrl;
+	private final List<Scenario> scenarios;
+	private final int[] cumulativeWeights;
+	private final Map<InetAddress, ConnectionProvider> providers = new LinkedHashMap<>();
+	private final Map<InetAddress, HttpClient> clients = new LinkedHashMap<>();
+	private final AtomicLong inFlight = new AtomicLong();
+
+	LoadDriver(LoadTestSettings settings, String baseUrl) {
+		this.settings = settings;
+		this.baseUrl = baseUrl;
+		Map<String, Scenario> known = scenarios(settings);
+		this.scenarios = new ArrayList<>();
+		this.cumulativeWeights = new int[settings.mix().size()];
+		int total = 0;
+		for (Map.Entry<String, Integer> entry : settings.mix().entrySet()) {
+			Scenario scenario = known.get(entry.getKey());
+			if (scenario == null) {
+				throw new IllegalArgumentException("Unknown scenario " + entry.getKey() + ", expected one of " + known.keySet());
+			}
+			total += entry.getValue();
+			cumulativeWeights[scenarios.size()] = total;
+			scenarios.add(scenario);
+		}
+		for (Scenario scenario : scenarios) {
+			scenario.sources().forEach(this::client);
+		}
+	}
+
+	/**
+	 * The scenarios the seeded routes and blacklist in {@code loadtest/data.sql} are made for.
+	 */
+	static Map<String, Scenario> scenarios(LoadTestSettings settings) {
+		List<InetAddress> clean = List.of(address("127.0.0.1"));
+		List<InetAddress> blacklisted = new ArrayList<>();
+		blacklisted.add(address("127.0.0.66"));
+		for (int host = 1; host <= 3; host++) {
+			blacklisted.add(address("127.0.66." + host));
+		}
+		List<InetAddress> limited = new ArrayList<>();
+		for (int host = 1; host <= RATE_LIMITED_KEYS; host++) {
+			limited.add(address("127.0.1." + host));
+		}
+
+		Map<String, Scenario> scenarios = new LinkedHashMap<>();
+		scenarios.put("default", new Scenario("default", "/lt/default/items", Map.of(), clean));
+		scenarios.put("owasp", new Scenario("owasp", "/lt/default/items", Map.of("X-Compliance-Profile", "OWASP"), clean));
+		scenarios.put("lti", new Scenario("lti", "/lt/lti/items", Map.of(), clean));
+		scenarios.put("large", new Scenario("large", "/lt/raw/items?bytes=" + settings.largeBytes().toBytes(), Map.of(), clean));
+		scenarios.put("blacklisted", new Scenario("blacklisted", "/lt/default/items", Map.of(), blacklisted));
+		scenarios.put("limited", new Scenario("limited", "/lt/limited/items", Map.of(), limited));
+		// Not in the default mix: one tenant under a per-tenant and a global tier, and the alternative limiters
+		scenarios.put("tiered", new Scenario("tiered", "/lt/tiered/items", Map.of("X-API-Key", "lt-tenant"), limited));
+		scenarios.put("window", new Scenario("window", "/lt/window/items", Map.of(), limited));
+		// Slow upstream, so that requests overlap and run into the in-flight cap
+		scenarios.put("concurrent", new Scenario("concurrent", "/lt/concurrent/items?latencyMs=500", Map.of(), limited));
+		// One in fifty answers takes a second longer, well past the p95 the route hedges after
+		scenarios.put("hedged", new Scenario("hedged", "/lt/hedged/items?slowPercent=2&slowMs=1000", Map.of(), clean));
+		// One in five answers is a 503; the route retries within its budget
+		scenarios.put("flaky", new Scenario("flaky", "/lt/flaky/items?failPercent=20", Map.of(), clean));
+		// Same slow answer every time, fresh for a second and then revalidated in the background
+		scenarios.put("cached", new Scenario("cached", "/lt/cached/items?latencyMs=50", Map.of(), clean));
+		// Responses encrypted with the route's key, which the driver does not decrypt
+		scenarios.put("encrypted", new Scenario("encrypted", "/lt/encrypted/items", Map.of(), clean));
+		// The same with a key derived for the tenant
+		scenarios.put("tenant-encrypted", new Scenario("tenant-encrypted", "/lt/encrypted/items",
+				Map.of("X-Tenant-ID", "lt-tenant"), clean));
+		// Every request traced and exported, continuing the caller's trace
+		scenarios.put("traced", new Scenario("traced", "/lt/traced/items",
+				Map.of("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"), clean));
+		return scenarios;
+	}
+
+	/**
+	 * Sends one request and waits for its status, e.g. to check that the gateway is ready.
+	 */
+	int probe(Scenario scenario) {
+		return send(scenario, scenario.sources().get(0)).onErrorReturn(-1).block(Duration.ofSeconds(10));
+	}
+
+	/**
+	 * Offers {@link LoadTestSettings#rate()} requests per second for the warm-up and the
+	 * measured duration, then waits for outstanding responses.
+	 *
+	 * @return The outcome of each scenario during the measured duration.
+	 */
+	Map<String, Outcome> run() {
+		Map<String, Outcome> outcomes = new LinkedHashMap<>();
+		scenarios.forEach(scenario -> outcomes.put(scenario.name(), new Outcome()));
+		Outcome[] outcomeByScenario = scenarios.stream().map(scenario -> outcomes.get(scenario.name())).toArray(Outcome[]::new);
+		int[] nextSource = new int[scenarios.size()];
+		SplittableRandom random = new SplittableRandom(42);
+
+		long start = System.nanoTime();
+		long measureFrom = start + settings.warmup().toNanos();
+		long end = measureFrom + settings.duration().toNanos();
+		for (long sequence = 0;; sequence++) {
+			long scheduled = start + sequence * 1_000_000_000L / settings.rate();
+			if (scheduled >= end) {
+				break;
+			}
+			long wait;
+			while ((wait = scheduled - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+
+			int index = pick(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+			Scenario scenario = scenarios.get(index);
+			InetAddress source = scenario.sources().get(nextSource[index]++ % scenario.sources().size());
+			Outcome outcome = scheduled >= measureFrom ? outcomeByScenario[index] : null;
+
+			inFlight.incrementAndGet();
+			send(scenario, source)
+					.doFinally(signal -> inFlight.decrementAndGet())
+					.subscribe(status -> {
+						if (outcome != null) {
+							outcome.record((System.nanoTime() - scheduled) / 1_000, status);
+						}
+					}, error -> {
+						if (outcome != null) {
+							outcome.error();
+						}
+					});
+		}
+
+		// Requests still waiting for a connection or a response end with an error by then
+		long drainDeadline = System.nanoTime() + RESPONSE_TIMEOUT.multipliedBy(2).toNanos();
+		while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		return outcomes;
+	}
+
+	private int pick(int value) {
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (value < cumulativeWeights[i]) {
+				return i;
+			}
+		}
+		return cumulativeWeights.length - 1;
+	}
+
+	private Mono<Integer> send(Scenario scenario, InetAddress source) {
+		return client(source)
+				.headers(headers -> scenario.headers().forEach(headers::set))
+				.get()
+				.uri(scenario.uri())
+				.response((response, content) -> content.then(Mono.just(response.status().code())))
+				.single();
+	}
+
+	private HttpClient client(InetAddress source) {
+		return clients.computeIfAbsent(source, address -> {
+			// One pool per source address; pooled connections are bound to the address they were opened from
+			ConnectionProvider provider = ConnectionProvider.builder("loadtest-" + address.getHostAddress())
+					.maxConnections(settings.connections())
+					.pendingAcquireMaxCount(-1)
+					.pendingAcquireTimeout(RESPONSE_TIMEOUT)
+					.build();
+			providers.put(address, provider);
+			return HttpClient.create(provider)
+					.baseUrl(baseUrl)
+					.responseTimeout(RESPONSE_TIMEOUT)
+					.bindAddress(() -> new InetSocketAddress(address, 0));
+		});
+	}
+
+	private static InetAddress address(String literal) {
+		try {
+			return InetAddress.getByName(literal);
+		} catch (UnknownHostException e) {
+			throw new IllegalArgumentException(literal, e);
+		}
+	}
+
+	@Override
+	public void close() {
+		providers.values().forEach(provider -> provider.disposeLater().block(Duration.ofSeconds(5)));
+	}
+}
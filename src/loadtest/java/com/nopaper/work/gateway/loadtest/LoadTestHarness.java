@@ -0,0 +1,159 @@
+/**
+ * @package com.nopaper.work.gateway.loadtest -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:47:20 pm
+ * @git
+ */
+package com.nopaper.work.gateway.loadtest;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.nopaper.work.gateway.GatewayApplication;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Runs the gateway in-process with everything it depends on replaced by local
+ * stand-ins, drives it with {@link LoadDriver} and reports latency percentiles and
+ * throughput for the current git revision.
+ * <p>
+ * Stand-ins, wired up through the {@code loadtest} profile
+ * (application-loadtest.properties):
+ * <ul>
+ * <li>PostgreSQL: in-memory H2 over R2DBC, seeded with the load-test routes and blacklist.</li>
+ * <li>Redis: a real redis-server started from the binaries bundled with embedded-redis, no container needed.</li>
+ * <li>Eureka: static {@code spring.cloud.discovery.client.simple} instances.</li>
+ * <li>Services: {@link StubUpstream} servers with configurable latency and body size.</li>
+ * <li>OTLP collector: the first stub, which takes the exported spans like any other request.</li>
+ * </ul>
+ * Run it with {@code ./mvnw -Ploadtest verify}, see the loadtest profile in pom.xml.
+ */
+public final class LoadTestHarness {
+
+	static final String PROFILE = "loadtest";
+	static final String STUB_SERVICE = "loadtest-stub";
+
+	private static final Duration READY_TIMEOUT = Duration.ofSeconds(60);
+
+	private LoadTestHarness() {
+	}
+
+	public static void main(String[] args) {
+		int status = 0;
+		try {
+			run(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+			status = 1;
+		}
+		// Lettuce and Netty event loops are not daemon threads
+		System.exit(status);
+	}
+
+	private static void run(String[] args) throws Exception {
+		// Devtools would relaunch main() in a restart class loader and hand it the gateway's arguments
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		LoadTestSettings settings = LoadTestSettings.parse(args);
+		String revision = settings.revision() != null ? settings.revision() : gitRevision();
+
+		int redisPort = freePort();
+		RedisServer redis = RedisServer.newRedisServer()
+				.bind("127.0.0.1")
+				.port(redisPort)
+				.setting("save \"\"")
+				.setting("appendonly no")
+				.onShutdownForceStop(true)
+				.build();
+		redis.start();
+		List<StubUpstream> stubs = new ArrayList<>();
+		ConfigurableApplicationContext gateway = null;
+		try {
+			List<String> gatewayArgs = new ArrayList<>();
+			gatewayArgs.add("--server.port=0");
+			gatewayArgs.add("--spring.data.redis.port=" + redisPort);
+			for (int i = 0; i < settings.stubs(); i++) {
+				Duration latency = i == 0 ? settings.stubLatency().plus(settings.stubSlow()) : settings.stubLatency();
+				StubUpstream stub = new StubUpstream(latency, settings.stubJitter(),
+						(int) settings.stubBytes().toBytes());
+				stubs.add(stub);
+				gatewayArgs.add("--spring.cloud.discovery.client.simple.instances." + STUB_SERVICE + "[" + i + "].uri=http://127.0.0.1:"
+						+ stub.port());
+			}
+			gatewayArgs.add("--gateway.tracing.otlp.endpoint=http://127.0.0.1:" + stubs.get(0).port() + "/v1/traces");
+
+			SpringApplication application = new SpringApplication(GatewayApplication.class);
+			application.setAdditionalProfiles(PROFILE);
+			gateway = application.run(gatewayArgs.toArray(String[]::new));
+			int port = gateway.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+			try (LoadDriver driver = new LoadDriver(settings, "http://127.0.0.1:" + port)) {
+				awaitReady(driver, settings);
+				System.out.printf("Gateway %s ready on port %d; offering %d req/s for %s after %s of warm-up.%n",
+						revision, port, settings.rate(), settings.duration(), settings.warmup());
+
+				LoadTestReport report = LoadTestReport.of(revision, settings, driver.run());
+				report.print(System.out);
+				Path file = report.write(settings.reportDir());
+				System.out.println("Report written to " + file);
+			}
+		} finally {
+			if (gateway != null) {
+				gateway.close();
+			}
+			stubs.forEach(StubUpstream::close);
+			redis.stop();
+		}
+	}
+
+	/**
+	 * Waits until routes are loaded and the blacklist index is built, so that the
+	 * warm-up measures the steady state instead of startup.
+	 */
+	private static void awaitReady(LoadDriver driver, LoadTestSettings settings) throws InterruptedException {
+		Map<String, LoadDriver.Scenario> scenarios = LoadDriver.scenarios(settings);
+		long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+		int routed;
+		int blocked;
+		do {
+			routed = driver.probe(scenarios.get("default"));
+			blocked = driver.probe(scenarios.get("blacklisted"));
+			if (routed == 200 && blocked == 403) {
+				return;
+			}
+			TimeUnit.MILLISECONDS.sleep(250);
+		} while (System.nanoTime() < deadline);
+		throw new IllegalStateException("Gateway not ready after " + READY_TIMEOUT + ": routed request answered " + routed
+				+ ", blacklisted request answered " + blocked);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static String gitRevision() {
+		try {
+			Process git = new ProcessBuilder("git", "describe", "--always", "--dirty").redirectErrorStream(true).start();
+			String revision = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+			return git.waitFor() == 0 && !revision.isEmpty() ? revision : "unknown";
+		} catch (IOException e) {
+			return "unknown";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "unknown";
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * @package com.nopaper.work.gateway.loadtest -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:38:51 pm
+ * @git
+ */
+package com.nopaper.work.gateway.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Result of a load-test run: latency percentiles, throughput and status codes per
+ * scenario and in total, tagged with the git revision that was measured.
+ *
+ * @param revision  Revision of the gateway under test.
+ * @param finishedAt When the run ended.
+ * @param settings  Knobs the run was made with, as given on the command line.
+ * @param total     All scenarios together.
+ * @param scenarios Each scenario on its own, in mix order.
+ */
+record LoadTestReport(String revision, Instant finishedAt, Map<String, Object> settings, Result total,
+		Map<String, Result> scenarios) {
+
+	/**
+	 * Figures of one scenario or of the whole run. Latencies are in milliseconds and
+	 * include time spent waiting for a connection.
+	 */
+	record Result(long requests, long errors, double throughput, double p50, double p90, double p99, double p999,
+			double max, Map<Integer, Long> statuses) {
+
+		static Result of(Histogram histogram, long errors, Map<Integer, Long> statuses, double seconds) {
+			return new Result(histogram.getTotalCount(), errors, round(histogram.getTotalCount() / seconds),
+					millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+					millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+					millis(histogram.getMaxValue()), statuses);
+		}
+
+		private static double millis(long micros) {
+			return round(micros / 1_000.0);
+		}
+
+		private static double round(double value) {
+			return Math.round(value * 100) / 100.0;
+		}
+	}
+
+	static LoadTestReport of(String revision, LoadTestSettings settings, Map<String, LoadDriver.Outcome> outcomes) {
+		double seconds = settings.duration().toNanos() / 1e9;
+		Histogram all = new Histogram(3);
+		long errors = 0;
+		Map<Integer, Long> statuses = new TreeMap<>();
+		Map<String, Result> scenarios = new LinkedHashMap<>();
+		outcomes.forEach((name, outcome) -> {
+			Histogram histogram = outcome.histogram();
+			all.add(histogram);
+			scenarios.put(name, Result.of(histogram, outcome.errors(), outcome.statuses(), seconds));
+		});
+		for (Result result : scenarios.values()) {
+			errors += result.errors();
+			result.statuses().forEach((status, count) -> statuses.merge(status, count, Long::sum));
+		}
+
+		Map<String, Object> knobs = new LinkedHashMap<>();
+		knobs.put("rate", settings.rate());
+		knobs.put("warmup", settings.warmup().toString());
+		knobs.put("duration", settings.duration().toString());
+		knobs.put("connections", settings.connections());
+		knobs.put("mix", settings.mix());
+		knobs.put("stubs", settings.stubs());
+		knobs.put("stubLatency", settings.stubLatency().toString());
+		knobs.put("stubJitter", settings.stubJitter().toString());
+		knobs.put("stubSlow", settings.stubSlow().toString());
+		knobs.put("stubBytes", settings.stubBytes().toBytes());
+		knobs.put("largeBytes", settings.largeBytes().toBytes());
+		return new LoadTestReport(revision, Instant.now(), knobs, Result.of(all, errors, statuses, seconds), scenarios);
+	}
+
+	void print(PrintStream out) {
+		out.printf("%nGateway load test @ %s, %d req/s offered for %s%n%n", revision, settings.get("rate"),
+				settings.get("duration"));
+		out.printf("%-12s %9s %9s %9s %9s %9s %9s %9s  %s%n", "scenario", "requests", "req/s", "p50 ms", "p99 ms",
+				"p99.9 ms", "max ms", "errors", "statuses");
+		scenarios.forEach((name, result) -> print(out, name, result));
+		print(out, "total", total);
+		out.println();
+	}
+
+	private static void print(PrintStream out, String name, Result result) {
+		out.printf("%-12s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9d  %s%n", name, result.requests(), result.throughput(),
+				result.p50(), result.p99(), result.p999(), result.max(), result.errors(), result.statuses());
+	}
+
+	/**
+	 * Writes the report as JSON, named after the revision and the time of the run so
+	 * that runs of different revisions can be compared side by side.
+	 */
+	Path write(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Path file = directory.resolve("loadtest-" + revision + "-" + finishedAt.getEpochSecond() + ".json");
+		new ObjectMapper()
+				.findAndRegisterModules()
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.enable(SerializationFeature.INDENT_OUTPUT)
+				.writeValue(file.toFile(), this);
+		return file;
+	}
+}
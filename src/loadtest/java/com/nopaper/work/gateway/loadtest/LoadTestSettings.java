@@ -0,0 +1,103 @@
+/**
+ * @package com.nopaper.work.gateway.loadtest -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:05:18 pm
+ * @git
+ */
+package com.nopaper.work.gateway.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Knobs of a load-test run, given as {@code name=value} arguments, e.g.
+ * {@code rate=2000 duration=60s stub.latency=20ms}. Durations and sizes use the same
+ * notation as application.properties.
+ *
+ * @param rate         Requests per second offered to the gateway, independent of how fast it answers.
+ * @param warmup       Load applied before measuring, so that JIT, pools and caches settle.
+ * @param duration     Measured part of the run.
+ * @param connections  Maximum connections per client address.
+ * @param mix          Scenario name to relative weight, see {@link LoadDriver}.
+ * @param stubs        Number of stub upstream servers registered under the {@code loadtest-stub} service.
+ * @param stubLatency  Fixed latency added by the stubs to every response.
+ * @param stubJitter   Uniformly distributed extra latency, from zero up to this value.
+ * @param stubSlow     Latency added on top by the first stub only, a pod with a noisy neighbour.
+ * @param stubBytes    Default response body size of the stubs.
+ * @param largeBytes   Response body size used by the {@code large} scenario.
+ * @param revision     Revision the report is tagged with; defaults to {@code git describe}.
+ * @param reportDir    Directory the JSON report is written to.
+ */
+record LoadTestSettings(int rate, Duration warmup, Duration duration, int connections, Map<String, Integer> mix,
+		int stubs, Duration stubLatency, Duration stubJitter, Duration stubSlow, DataSize stubBytes, DataSize largeBytes,
+		String revision, Path reportDir) {
+
+	private static final Set<String> NAMES = Set.of("rate", "warmup", "duration", "connections", "mix", "stubs",
+			"stub.latency", "stub.jitter", "stub.slow", "stub.bytes", "large.bytes", "revision", "report.dir");
+
+	static final String DEFAULT_MIX = "default:35,owasp:15,lti:10,large:5,blacklisted:10,limited:25";
+
+	static LoadTestSettings parse(String... args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Expected name=value but got: " + arg);
+			}
+			String name = arg.substring(0, separator).trim();
+			if (!NAMES.contains(name)) {
+				throw new IllegalArgumentException("Unknown load-test setting " + name + ", expected one of " + NAMES);
+			}
+			values.put(name, arg.substring(separator + 1).trim());
+		}
+
+		LoadTestSettings settings = new LoadTestSettings(
+				Integer.parseInt(values.getOrDefault("rate", "500")),
+				duration(values.getOrDefault("warmup", "10s")),
+				duration(values.getOrDefault("duration", "30s")),
+				Integer.parseInt(values.getOrDefault("connections", "64")),
+				mix(values.getOrDefault("mix", DEFAULT_MIX)),
+				Integer.parseInt(values.getOrDefault("stubs", "2")),
+				duration(values.getOrDefault("stub.latency", "5ms")),
+				duration(values.getOrDefault("stub.jitter", "5ms")),
+				duration(values.getOrDefault("stub.slow", "0ms")),
+				DataSize.parse(values.getOrDefault("stub.bytes", "2KB")),
+				DataSize.parse(values.getOrDefault("large.bytes", "256KB")),
+				values.get("revision"),
+				Path.of(values.getOrDefault("report.dir", "target/loadtest")));
+
+		if (settings.rate() <= 0 || settings.stubs() <= 0 || settings.connections() <= 0) {
+			throw new IllegalArgumentException("rate, stubs and connections must be positive");
+		}
+		return settings;
+	}
+
+	private static Duration duration(String value) {
+		return DurationStyle.detectAndParse(value);
+	}
+
+	private static Map<String, Integer> mix(String value) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String entry : value.split(",")) {
+			String[] parts = entry.trim().split(":");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Expected scenario:weight in mix but got: " + entry);
+			}
+			int weight = Integer.parseInt(parts[1].trim());
+			if (weight > 0) {
+				weights.put(parts[0].trim(), weight);
+			}
+		}
+		if (weights.isEmpty()) {
+			throw new IllegalArgumentException("mix has no scenario with a positive weight");
+		}
+		return weights;
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * @package com.nopaper.work.gateway.loadtest -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:12:46 pm
+ * @git
+ */
+package com.nopaper.work.gateway.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Backend the load-test routes forward to. Answers every path with a JSON object of a
+ * given size after a given latency, so that the cost measured is the gateway's own.
+ * <p>
+ * Defaults come from the settings and can be overridden per request with the
+ * {@code bytes} and {@code latencyMs} query parameters. {@code slowPercent} and
+ * {@code slowMs} make that share of requests slower, like a replica having a bad
+ * moment, and {@code failPercent} answers that share with 503.
+ * <p>
+ * Every body has an {@code ETag}, its size, and a request whose {@code If-None-Match}
+ * matches it is answered with 304, so that cached routes can be revalidated.
+ */
+final class StubUpstream implements AutoCloseable {
+
+	private static final byte[] BODY_PREFIX = "{\"items\":\"".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] BODY_SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final Duration latency;
+	private final Duration jitter;
+	private final int defaultBytes;
+	private final Map<Integer, byte[]> bodies = new ConcurrentHashMap<>();
+	private final DisposableServer server;
+
+	StubUpstream(Duration latency, Duration jitter, int defaultBytes) {
+		this.latency = latency;
+		this.jitter = jitter;
+		this.defaultBytes = defaultBytes;
+		this.server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.handle(this::handle)
+				.bindNow();
+	}
+
+	int port() {
+		return server.port();
+	}
+
+	private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+		Map<String, List<String>> query = new QueryStringDecoder(request.uri()).parameters();
+		int bytes = query.containsKey("bytes") ? Integer.parseInt(query.get("bytes").get(0)) : defaultBytes;
+		long delayMs = query.containsKey("latencyMs") ? Long.parseLong(query.get("latencyMs").get(0)) : delayMs();
+		if (hit(query, "slowPercent")) {
+			delayMs += query.containsKey("slowMs") ? Long.parseLong(query.get("slowMs").get(0)) : 1_000;
+		}
+		byte[] body = bodies.computeIfAbsent(bytes, StubUpstream::body);
+		String etag = "\"" + bytes + "\"";
+		if (hit(query, "failPercent")) {
+			response.status(HttpResponseStatus.SERVICE_UNAVAILABLE);
+			body = new byte[0];
+		} else if (etag.equals(request.requestHeaders().get(HttpHeaderNames.IF_NONE_MATCH))) {
+			response.status(HttpResponseStatus.NOT_MODIFIED);
+			body = new byte[0];
+		}
+
+		Mono<Void> send = response
+				.header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+				.header(HttpHeaderNames.ETAG, etag)
+				.header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(body.length))
+				.sendByteArray(Mono.just(body))
+				.then();
+		// Drain the request body before answering, as a real service would
+		Mono<Void> handled = request.receive().then().then(send);
+		return delayMs > 0 ? Mono.delay(Duration.ofMillis(delayMs)).then(handled) : handled;
+	}
+
+	private static boolean hit(Map<String, List<String>> query, String percent) {
+		return query.containsKey(percent) && ThreadLocalRandom.current().nextInt(100) < Integer.parseInt(query.get(percent).get(0));
+	}
+
+	private long delayMs() {
+		long jitterMs = jitter.toMillis();
+		return latency.toMillis() + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+	}
+
+	/** A JSON object of exactly {@code size} bytes, or the smallest possible one. */
+	private static byte[] body(int size) {
+		int padding = Math.max(0, size - BODY_PREFIX.length - BODY_SUFFIX.length);
+		byte[] body = new byte[BODY_PREFIX.length + padding + BODY_SUFFIX.length];
+		System.arraycopy(BODY_PREFIX, 0, body, 0, BODY_PREFIX.length);
+		Arrays.fill(body, BODY_PREFIX.length, BODY_PREFIX.length + padding, (byte) 'x');
+		System.arraycopy(BODY_SUFFIX, 0, body, BODY_PREFIX.length + padding, BODY_SUFFIX.length);
+		return body;
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+}
@@ -0,0 +1,110 @@
+-- Routes and blacklist entries exercised by the scenarios in LoadDriver.
+-- Every route points at the stub upstreams through discovery (lb://loadtest-stub).
+-- Source addresses are loopback aliases the driver binds to, so each scenario has its own client IP.
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, enabled, response_policy,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-default', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/default/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, TRUE, NULL, 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, enabled, response_policy,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-lti', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/lti/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, TRUE, '{"profile":"LTI"}', 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, enabled, response_policy,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-raw', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/raw/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, TRUE, '{"wrap":false}', 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, ratelimit_replenish_rate,
+        ratelimit_burst_capacity, key_resolver_name, enabled, created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-limited', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/limited/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        TRUE, 20, 40, 'ipKeyResolver', TRUE, 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, rate_limit_tiers, enabled,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-tiered', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/tiered/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        TRUE, '{"tiers":[{"name":"lt-tenant","key":"apiKey","replenishRate":20,"burstCapacity":40},{"name":"lt-global","key":"","replenishRate":50,"burstCapacity":100}]}',
+        TRUE, 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, rate_limiter_name, rate_limiter_args,
+        key_resolver_name, enabled, created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-window', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/window/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        TRUE, 'slidingWindowRateLimiter', '{"limit":30,"window":"10s"}', 'ipKeyResolver', TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, rate_limiter_name, rate_limiter_args,
+        key_resolver_name, enabled, created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-concurrent', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/concurrent/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        TRUE, 'concurrencyLimiter', '{"maxInFlight":2}', 'ipKeyResolver', TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, resilience, enabled,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-hedged', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/hedged/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, '{"hedge":{"minDelay":"5ms"},"retry":{"enabled":false,"budget":0.1}}', TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, resilience, enabled,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-flaky', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/flaky/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, '{"circuitBreaker":{"failureRate":0.6},"retry":{"maxRetries":2,"backoff":"10ms","budget":0.3}}', TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, response_cache, enabled,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-cached', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/cached/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, '{"ttl":"1s","staleWhileRevalidate":"5s"}', TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, payload_encryption, enabled,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-encrypted', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/encrypted/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, TRUE, TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+-- Head-samples every request and tail-samples the slow ones
+INSERT INTO gateway.routes (route_id, uri, predicates, filters, rate_limit_enabled, tracing, enabled,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-traced', 'lb://loadtest-stub',
+        '[{"name":"Path","args":{"pattern":"/lt/traced/**"}}]',
+        '[{"name":"StripPrefix","args":{"parts":"2"}}]',
+        FALSE, '{"sampleRate":1.0,"keepSlowerThan":"50ms","keepErrors":true}', TRUE,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+-- Mid-rotation: version 2 encrypts, version 1 still decrypts for a day
+INSERT INTO gateway.route_keys (route_id, key_version, key_material, expires_at,
+        created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('lt-encrypted', 1, 'AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=', DATEADD('DAY', 1, CURRENT_TIMESTAMP),
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP),
+       ('lt-encrypted', 2, 'HyAhIiMkJSYnKCkqKywtLi8wMTIzNDU2Nzg5Ojs8PT4=', NULL,
+        'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.ip_blacklist (ip_address, reason, created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('127.0.0.66', 'load test: listed address', 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
+
+INSERT INTO gateway.ip_blacklist (ip_address, reason, created_by, created_date, last_modified_by, last_modified_date)
+VALUES ('127.0.66.0/24', 'load test: listed range', 'SYSTEM', CURRENT_TIMESTAMP, 'SYSTEM', CURRENT_TIMESTAMP);
@@ -0,0 +1,73 @@
+-- H2 version of the gateway tables, for the load-test profile only.
+CREATE SCHEMA IF NOT EXISTS gateway;
+
+CREATE TABLE IF NOT EXISTS gateway.routes (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    route_id                  VARCHAR(255) NOT NULL UNIQUE,
+    uri                       VARCHAR(1024) NOT NULL,
+    predicates                TEXT,
+    filters                   TEXT,
+    rate_limit_enabled        BOOLEAN DEFAULT FALSE NOT NULL,
+    ratelimit_replenish_rate  INTEGER,
+    ratelimit_burst_capacity  INTEGER,
+    ratelimit_allowed_error   DOUBLE PRECISION,
+    encryption_key            VARCHAR(255),
+    payload_encryption        BOOLEAN DEFAULT FALSE NOT NULL,
+    enabled                   BOOLEAN DEFAULT TRUE NOT NULL,
+    key_resolver_name         VARCHAR(255),
+    rate_limiter_name         VARCHAR(255),
+    rate_limiter_args         TEXT,
+    priority                  VARCHAR(32),
+    resilience                TEXT,
+    rate_limit_key            VARCHAR(255),
+    rate_limit_tiers          TEXT,
+    response_policy           TEXT,
+    response_cache            TEXT,
+    tracing                   TEXT,
+    compiled_definition       TEXT,
+    definition_hash           VARCHAR(64),
+    created_by                VARCHAR(255),
+    created_date              TIMESTAMP WITH TIME ZONE,
+    last_modified_by          VARCHAR(255),
+    last_modified_date        TIMESTAMP WITH TIME ZONE
+);
+
+CREATE TABLE IF NOT EXISTS gateway.route_keys (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    route_id                  VARCHAR(255) NOT NULL,
+    key_version               INTEGER NOT NULL,
+    key_material              VARCHAR(255) NOT NULL,
+    expires_at                TIMESTAMP WITH TIME ZONE,
+    created_by                VARCHAR(255),
+    created_date              TIMESTAMP WITH TIME ZONE,
+    last_modified_by          VARCHAR(255),
+    last_modified_date        TIMESTAMP WITH TIME ZONE,
+    UNIQUE (route_id, key_version)
+);
+
+CREATE TABLE IF NOT EXISTS gateway.ip_blacklist (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ip_address                VARCHAR(64) NOT NULL,
+    reason                    VARCHAR(255),
+    created_by                VARCHAR(255),
+    created_date              TIMESTAMP WITH TIME ZONE,
+    last_modified_by          VARCHAR(255),
+    last_modified_date        TIMESTAMP WITH TIME ZONE
+);
+
+CREATE TABLE IF NOT EXISTS gateway.request_logs (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    request_id                VARCHAR(64),
+    trace_id                  VARCHAR(64),
+    http_method               VARCHAR(16),
+    uri                       TEXT,
+    status_code               INTEGER,
+    client_ip                 VARCHAR(64),
+    request_headers           TEXT,
+    response_headers          TEXT,
+    duration_ms               BIGINT,
+    created_by                VARCHAR(255),
+    created_date              TIMESTAMP WITH TIME ZONE,
+    last_modified_by          VARCHAR(255),
+    last_modified_date        TIMESTAMP WITH TIME ZONE
+);
@@ -0,0 +1,281 @@
+/**
+ * @package com.nopaper.work.gateway.cache -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 5:12:56 am
+ * @git
+ */
+package com.nopaper.work.gateway.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+/**
+ * A response held by the response cache: the status, headers and final body as the
+ * client received it, i.e. after {@code StandardResponseFilter} wrapped it, and the
+ * times up to which it is fresh, may be served stale and is kept at all.
+ * <p>
+ * Freshness follows the upstream's {@code Cache-Control} where it gives one
+ * ({@code s-maxage}, {@code max-age}, {@code stale-while-revalidate}) and the route's
+ * {@link ResponseCachePolicy} otherwise. Responses marked {@code no-store} or
+ * {@code private}, responses that set cookies and responses that vary on request
+ * headers the route does not key on are not cached. {@code no-cache} and
+ * {@code must-revalidate} are honoured by revalidating before every use, which needs an
+ * {@code ETag} or {@code Last-Modified}. Entries with either validator are kept for
+ * another {@code ttl} after they ran out, so that they can be revalidated with a
+ * conditional request instead of fetched again.
+ * <p>
+ * All times are epoch milliseconds.
+ */
+public final class CachedResponse {
+
+    private static final int FORMAT = 1;
+
+    // Describe the connection or this particular response, rather than the resource
+    private static final Set<String> UNSTORED_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "content-length", "age", "date",
+            GatewayConstant.CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+    // Quota left to the client that filled the entry, which would mislead every other client
+    private static final String RATE_LIMIT_HEADER_PREFIX = "x-ratelimit-";
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long storedAt;
+    private final long freshUntil;
+    private final long staleUntil;
+    private final long keepUntil;
+
+    private CachedResponse(int status, HttpHeaders headers, byte[] body, long storedAt, long freshUntil, long staleUntil,
+            long keepUntil)
+    {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.storedAt = storedAt;
+        this.freshUntil = freshUntil;
+        this.staleUntil = staleUntil;
+        this.keepUntil = keepUntil;
+    }
+
+    /**
+     * The entry for a response, or {@code null} if the response must not be cached.
+     *
+     * @param headers Response headers as sent to the client.
+     */
+    public static CachedResponse of(int status, HttpHeaders headers, byte[] body, ResponseCachePolicy policy, long now) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE) || !isKeyedOn(headers.getVary(), policy)) {
+            return null;
+        }
+        long lifetime = policy.ttl().toMillis();
+        long staleFor = policy.staleWhileRevalidate().toMillis();
+        boolean noCache = false;
+        boolean mustRevalidate = false;
+        long sharedMaxAge = -1;
+        for (String directive : directives(headers)) {
+            String name = directive;
+            String value = null;
+            int equals = directive.indexOf('=');
+            if (equals > 0) {
+                name = directive.substring(0, equals).trim();
+                value = directive.substring(equals + 1).trim().replace("\"", "");
+            }
+            switch (name) {
+                case "no-store", "private" -> {
+                    return null;
+                }
+                case "no-cache" -> noCache = true;
+                case "must-revalidate", "proxy-revalidate" -> mustRevalidate = true;
+                case "s-maxage" -> sharedMaxAge = seconds(value, sharedMaxAge);
+                case "max-age" -> lifetime = seconds(value, lifetime / 1000) * 1000;
+                case "stale-while-revalidate" -> staleFor = seconds(value, staleFor / 1000) * 1000;
+                default -> {
+                    // Directives that do not concern a shared cache
+                }
+            }
+        }
+        if (sharedMaxAge >= 0) {
+            lifetime = sharedMaxAge * 1000;
+        }
+        boolean validators = headers.getETag() != null || headers.containsKey(HttpHeaders.LAST_MODIFIED);
+        if (noCache) {
+            lifetime = 0;
+        }
+        if (noCache || mustRevalidate) {
+            staleFor = 0;
+        }
+        if (lifetime <= 0 && !validators) {
+            return null;
+        }
+        HttpHeaders stored = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (isStored(name)) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        long freshUntil = now + Math.max(0, lifetime);
+        long staleUntil = freshUntil + staleFor;
+        return new CachedResponse(status, stored, body, now, freshUntil, staleUntil,
+                validators ? staleUntil + policy.ttl().toMillis() : staleUntil);
+    }
+
+    /**
+     * The entry after the upstream answered a conditional request for it with 304: its
+     * headers updated from the 304, and its freshness started over. {@code null} if the
+     * updated response must no longer be cached.
+     */
+    public CachedResponse revalidated(HttpHeaders notModified, ResponseCachePolicy policy, long now) {
+        HttpHeaders merged = new HttpHeaders();
+        merged.putAll(headers);
+        notModified.forEach((name, values) -> {
+            if (isStored(name)) {
+                merged.put(name, values);
+            }
+        });
+        return of(status, merged, body, policy, now);
+    }
+
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    /** Whether it may be served while a background revalidation is under way. */
+    public boolean isServableStale(long now) {
+        return now < staleUntil;
+    }
+
+    public boolean isKept(long now) {
+        return now < keepUntil;
+    }
+
+    public boolean hasValidators() {
+        return headers.getETag() != null || headers.containsKey(HttpHeaders.LAST_MODIFIED);
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public long storedAt() {
+        return storedAt;
+    }
+
+    public long keepUntil() {
+        return keepUntil;
+    }
+
+    /** Approximate size in memory, for the local tier's size bound. */
+    public int weight() {
+        int weight = body.length + 64;
+        for (var header : headers.entrySet()) {
+            weight += header.getKey().length() * 2;
+            for (String value : header.getValue()) {
+                weight += value.length() * 2;
+            }
+        }
+        return weight;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT);
+            out.writeInt(status);
+            out.writeLong(storedAt);
+            out.writeLong(freshUntil);
+            out.writeLong(staleUntil);
+            out.writeLong(keepUntil);
+            out.writeInt(headers.size());
+            for (var header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize a cached response", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Reads an entry written by {@link #toBytes()}, or returns {@code null} if it is in another format. */
+    public static CachedResponse fromBytes(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != FORMAT) {
+            return null;
+        }
+        int status = in.readInt();
+        long storedAt = in.readLong();
+        long freshUntil = in.readLong();
+        long staleUntil = in.readLong();
+        long keepUntil = in.readLong();
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = in.readInt(); i > 0; i--) {
+            String name = in.readUTF();
+            List<String> values = new ArrayList<>();
+            for (int j = in.readInt(); j > 0; j--) {
+                values.add(in.readUTF());
+            }
+            headers.put(name, values);
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new CachedResponse(status, headers, body, storedAt, freshUntil, staleUntil, keepUntil);
+    }
+
+    private static boolean isStored(String header) {
+        String name = header.toLowerCase(Locale.ROOT);
+        return !UNSTORED_HEADERS.contains(name) && !name.startsWith(RATE_LIMIT_HEADER_PREFIX);
+    }
+
+    private static List<String> directives(HttpHeaders headers) {
+        List<String> directives = new ArrayList<>();
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                if (!directive.isBlank()) {
+                    directives.add(directive.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static long seconds(String value, long otherwise) {
+        try {
+            return value != null ? Math.max(0, Long.parseLong(value)) : otherwise;
+        } catch (NumberFormatException e) {
+            return otherwise;
+        }
+    }
+
+    // A response that varies on a request header the key leaves out cannot be shared between those requests
+    private static boolean isKeyedOn(List<String> vary, ResponseCachePolicy policy) {
+        for (String header : vary) {
+            if (header.equals("*") || !policy.varies(header)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
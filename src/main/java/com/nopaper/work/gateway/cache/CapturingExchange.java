@@ -0,0 +1,194 @@
+/**
+ * @package com.nopaper.work.gateway.cache -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 5:38:02 am
+ * @git
+ */
+package com.nopaper.work.gateway.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Copy of a GET exchange that is run through the rest of the filter chain once more,
+ * after the client was already answered from the cache, to revalidate the entry in the
+ * background. Nothing reaches the client: the response only records status, headers and
+ * up to {@code maxBodyBytes} of body.
+ * <p>
+ * The copy has its own attributes, taken before the exchange was routed, and its own
+ * request headers, to which the conditional headers are added.
+ */
+public final class CapturingExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final ServerHttpRequest request;
+    private final CapturingResponse response;
+
+    public CapturingExchange(ServerWebExchange exchange, Map<String, Object> attributes, HttpHeaders conditionalHeaders,
+            long maxBodyBytes)
+    {
+        super(exchange);
+        this.attributes = new ConcurrentHashMap<>(attributes);
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(exchange.getRequest().getHeaders());
+        headers.putAll(conditionalHeaders);
+        this.request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public MultiValueMap<String, HttpCookie> getCookies() {
+                return new LinkedMultiValueMap<>();
+            }
+
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+        this.response = new CapturingResponse(exchange.getResponse(), maxBodyBytes);
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public ServerHttpRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    public HttpStatusCode statusCode() {
+        return response.status;
+    }
+
+    public HttpHeaders responseHeaders() {
+        return response.headers;
+    }
+
+    /** The body written, or {@code null} if it was larger than the limit. */
+    public byte[] body() {
+        return response.overflow ? null : response.body.toByteArray();
+    }
+
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final MultiValueMap<String, ResponseCookie> cookies = new LinkedMultiValueMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final long maxBodyBytes;
+        private HttpStatusCode status;
+        private boolean overflow;
+
+        CapturingResponse(ServerHttpResponse delegate, long maxBodyBytes) {
+            super(delegate);
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        @Deprecated
+        public boolean setRawStatusCode(Integer value) {
+            this.status = value != null ? HttpStatusCode.valueOf(value) : null;
+            return true;
+        }
+
+        @Override
+        @Deprecated
+        public Integer getRawStatusCode() {
+            return status != null ? status.value() : null;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public MultiValueMap<String, ResponseCookie> getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public void addCookie(ResponseCookie cookie) {
+            cookies.add(cookie.getName(), cookie);
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+            // Never committed, the client was answered already
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body).doOnNext(buffer -> {
+                try {
+                    int length = buffer.readableByteCount();
+                    if (!overflow && this.body.size() + length <= maxBodyBytes) {
+                        byte[] bytes = new byte[length];
+                        buffer.read(bytes);
+                        this.body.writeBytes(bytes);
+                    } else {
+                        overflow = true;
+                    }
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            }).then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.concat(body));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+    }
+}
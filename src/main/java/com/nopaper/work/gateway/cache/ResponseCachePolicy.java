@@ -0,0 +1,39 @@
+/**
+ * @package com.nopaper.work.gateway.cache -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 5:01:44 am
+ * @git
+ */
+package com.nopaper.work.gateway.cache;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * How {@code ResponseCacheFilter} caches the GET responses of one route. The upstream's
+ * own {@code Cache-Control} takes precedence over the durations here.
+ *
+ * @param ttl                  How long a response is fresh if the upstream does not say.
+ * @param staleWhileRevalidate How long after that it may still be served while it is revalidated in the background.
+ * @param varyHeaders          Request headers that are part of the cache key, besides method, path and query.
+ * @param maxEntryBytes        Largest body that is cached; larger responses are passed through.
+ */
+public record ResponseCachePolicy(Duration ttl, Duration staleWhileRevalidate, List<String> varyHeaders, long maxEntryBytes) {
+
+    /** Key of the cache policy JSON in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "response_cache";
+
+    public ResponseCachePolicy {
+        varyHeaders = List.copyOf(varyHeaders);
+    }
+
+    /** Whether the request header is part of the cache key. */
+    public boolean varies(String header) {
+        for (String varied : varyHeaders) {
+            if (varied.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
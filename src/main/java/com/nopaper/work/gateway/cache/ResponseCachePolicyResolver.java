@@ -0,0 +1,84 @@
+/**
+ * @package com.nopaper.work.gateway.cache -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 5:04:29 am
+ * @git
+ */
+package com.nopaper.work.gateway.cache;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nopaper.work.gateway.configurations.RoutePolicyCache;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+
+/**
+ * Parses the {@code response_cache} column of a route and finds the cache policy of a
+ * route, through a {@link RoutePolicyCache}.
+ * <p>
+ * The column holds JSON such as
+ * {@code {"ttl": "30s", "staleWhileRevalidate": "1m", "varyHeaders": ["Accept-Language"], "maxEntrySize": "256KB"}};
+ * omitted fields take the defaults from {@code gateway.response-cache.*}.
+ */
+@Component
+public class ResponseCachePolicyResolver {
+
+    private record PolicyDocument(String ttl, String staleWhileRevalidate, List<String> varyHeaders, String maxEntrySize) {}
+
+    private final ObjectReader documentReader;
+    private final ResponseCachePolicy defaultPolicy;
+    private final RoutePolicyCache<ResponseCachePolicy> policies;
+
+    public ResponseCachePolicyResolver(
+            ObjectMapper objectMapper,
+            RoutePolicyCaches policyCaches,
+            @Value("${gateway.response-cache.default-ttl:60s}") Duration defaultTtl,
+            @Value("${gateway.response-cache.default-stale-while-revalidate:0s}") Duration defaultStaleWhileRevalidate,
+            @Value("${gateway.response-cache.max-entry-size:1MB}") DataSize maxEntrySize)
+    {
+        this.documentReader = objectMapper.readerFor(PolicyDocument.class);
+        this.defaultPolicy = new ResponseCachePolicy(defaultTtl, defaultStaleWhileRevalidate, List.of(), maxEntrySize.toBytes());
+        // Responses of routes with an invalid policy are not cached
+        this.policies = policyCaches.create(ResponseCachePolicy.METADATA_KEY, this::parse, null, null);
+    }
+
+    /** Cache policy of the route, or {@code null} if its responses are not cached. */
+    public ResponseCachePolicy resolve(Route route) {
+        return policies.resolve(route);
+    }
+
+    /**
+     * Parses a {@code response_cache} column.
+     *
+     * @throws IllegalArgumentException if the JSON or one of its values is invalid.
+     */
+    public ResponseCachePolicy parse(String json) {
+        try {
+            PolicyDocument document = documentReader.readValue(json);
+            ResponseCachePolicy policy = new ResponseCachePolicy(
+                    document.ttl() != null ? DurationStyle.detectAndParse(document.ttl()) : defaultPolicy.ttl(),
+                    document.staleWhileRevalidate() != null
+                            ? DurationStyle.detectAndParse(document.staleWhileRevalidate())
+                            : defaultPolicy.staleWhileRevalidate(),
+                    document.varyHeaders() != null ? document.varyHeaders() : defaultPolicy.varyHeaders(),
+                    document.maxEntrySize() != null
+                            ? DataSize.parse(document.maxEntrySize()).toBytes()
+                            : defaultPolicy.maxEntryBytes());
+            if (policy.ttl().isNegative() || policy.staleWhileRevalidate().isNegative() || policy.maxEntryBytes() <= 0) {
+                throw new IllegalArgumentException("Response cache durations must not be negative, nor the entry size zero");
+            }
+            return policy;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed response cache policy: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * @package com.nopaper.work.gateway.cache -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 5:27:31 am
+ * @git
+ */
+package com.nopaper.work.gateway.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Where the response cache keeps its entries: a size-bounded local tier in front of a
+ * Redis tier shared by all gateway nodes.
+ * <p>
+ * The local tier is a Caffeine cache, bounded by the bytes its entries hold and evicting
+ * by W-TinyLFU, so that one sweep over many cold keys does not push out the hot ones.
+ * A local miss falls through to Redis, and an entry found there is kept locally too.
+ * New entries go to both; the Redis write is not waited for. Redis lookups give up after
+ * {@code gateway.response-cache.redis-timeout}, and a Redis that is down only costs the
+ * shared tier, never the request. Entries are removed from both tiers once they are no
+ * longer {@link CachedResponse#isKept kept}.
+ */
+@Component
+@Slf4j
+public class ResponseCacheStore {
+
+    private final Cache<String, CachedResponse> local;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final boolean redisEnabled;
+    private final Duration redisTimeout;
+
+    public ResponseCacheStore(
+            ReactiveRedisConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.response-cache.local.max-size:64MB}") DataSize localMaxSize,
+            @Value("${gateway.response-cache.redis.enabled:true}") boolean redisEnabled,
+            @Value("${gateway.response-cache.redis.timeout:50ms}") Duration redisTimeout)
+    {
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(localMaxSize.toBytes())
+                .<String, CachedResponse>weigher((key, entry) -> key.length() * 2 + entry.weight())
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse entry, long currentTime) {
+                        return keptFor(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse entry, long currentTime, long currentDuration) {
+                        return keptFor(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "gateway.response_cache.local");
+        this.redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build());
+        this.redisEnabled = redisEnabled;
+        this.redisTimeout = redisTimeout;
+    }
+
+    /** The entry under the key, from the local tier or else from Redis; empty if there is none. */
+    public Mono<CachedResponse> get(String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse entry = local.getIfPresent(key);
+        if (entry != null && entry.isKept(now)) {
+            return Mono.just(entry);
+        }
+        if (!redisEnabled) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue().get(redisKey(key))
+                .timeout(redisTimeout)
+                .mapNotNull(bytes -> {
+                    try {
+                        CachedResponse shared = CachedResponse.fromBytes(bytes);
+                        if (shared != null && shared.isKept(System.currentTimeMillis())) {
+                            local.put(key, shared);
+                            return shared;
+                        }
+                    } catch (IOException e) {
+                        log.warn("Ignoring unreadable response cache entry {}: {}", key, e.getMessage());
+                    }
+                    return null;
+                })
+                .onErrorResume(e -> {
+                    log.debug("Response cache lookup in Redis failed for {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public void put(String key, CachedResponse entry) {
+        local.put(key, entry);
+        if (!redisEnabled) {
+            return;
+        }
+        long keepFor = entry.keepUntil() - System.currentTimeMillis();
+        if (keepFor > 0) {
+            redisTemplate.opsForValue().set(redisKey(key), entry.toBytes(), Duration.ofMillis(keepFor))
+                    .subscribe(null, e -> log.debug("Response cache write to Redis failed for {}: {}", key, e.getMessage()));
+        }
+    }
+
+    public void remove(String key) {
+        local.invalidate(key);
+        if (redisEnabled) {
+            redisTemplate.delete(redisKey(key))
+                    .subscribe(null, e -> log.debug("Response cache delete in Redis failed for {}: {}", key, e.getMessage()));
+        }
+    }
+
+    private static long keptFor(CachedResponse entry) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.keepUntil() - System.currentTimeMillis()));
+    }
+
+    // Keys hold paths, queries and header values of any length; Redis gets a digest of them
+    private static String redisKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return GatewayConstant.RESPONSE_CACHE_KEY_PREFIX + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
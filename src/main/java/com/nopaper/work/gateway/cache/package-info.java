@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.cache -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:58:10 am
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.cache;
@@ -7,166 +7,368 @@
 package com.nopaper.work.gateway.configurations;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nopaper.work.gateway.constants.GatewayConstant;
 import com.nopaper.work.gateway.entity.Routes;
 import com.nopaper.work.gateway.repository.RouteRepository;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.gateway.filter.FilterDefinition;
-import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
-import java.net.URI;
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 @Slf4j
 //@RequiredArgsConstructor
 public class DynamicRoutingDefinitionLocator implements RouteDefinitionLocator {
 
+    /**
+     * Shape of the shared Redis entry: the route table together with the cluster
+     * version it was built from, so stale entries can be detected.
+     */
+    private record CachedRoutes(long version, List<RouteDefinition> routes) {}
+
+    // Deletes the lease only if this node still holds it
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
     private final RouteRepository apiRouteRepository;
+    private final RouteDefinitionCompiler routeCompiler;
     private final ReactiveRedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
     private final Duration cacheTtl;
+    private final Duration snapshotTtl;
+    private final Duration reloadLeaseTtl;
+    private final Duration reloadPollInterval;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // The current in-process route table. Swapped atomically, never mutated.
+    private final AtomicReference<RouteSnapshot> snapshot = new AtomicReference<>();
+    // The reload currently running on this node, shared by every caller that needs it
+    private final AtomicReference<Mono<RouteSnapshot>> inFlightReload = new AtomicReference<>();
+    // Identifies this node as the holder of the cluster-wide reload lease
+    private final String leaseToken = UUID.randomUUID().toString();
+    private final Counter snapshotRebuilds;
+    private final Counter snapshotDeltas;
     
     public DynamicRoutingDefinitionLocator(
             RouteRepository apiRouteRepository,
+            RouteDefinitionCompiler routeCompiler,
             ReactiveRedisTemplate<String, String> redisTemplate,
             ObjectMapper objectMapper,
-            @Value("${gateway.routes.cache-ttl}") Duration cacheTtl)
+            MeterRegistry meterRegistry,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${gateway.routes.cache-ttl}") Duration cacheTtl,
+            @Value("${gateway.routes.snapshot-ttl:${gateway.routes.cache-ttl}}") Duration snapshotTtl,
+            @Value("${gateway.routes.reload-lease-ttl:10s}") Duration reloadLeaseTtl,
+            @Value("${gateway.routes.reload-poll-interval:250ms}") Duration reloadPollInterval)
     {
         this.apiRouteRepository = apiRouteRepository;
+        this.routeCompiler = routeCompiler;
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
         this.cacheTtl = cacheTtl;
+        this.snapshotTtl = snapshotTtl;
+        this.reloadLeaseTtl = reloadLeaseTtl;
+        this.reloadPollInterval = reloadPollInterval;
+
+        this.snapshotRebuilds = Counter.builder("gateway.routes.snapshot.rebuilds")
+                .description("Number of times the in-process route snapshot was rebuilt from Redis or PostgreSQL")
+                .register(meterRegistry);
+        this.snapshotDeltas = Counter.builder("gateway.routes.snapshot.deltas")
+                .description("Number of route changes applied in place to the route snapshot")
+                .register(meterRegistry);
+        TimeGauge.builder("gateway.routes.snapshot.age", snapshot, TimeUnit.MILLISECONDS,
+                        ref -> ref.get() == null ? Double.NaN : ref.get().age().toMillis())
+                .description("Age of the in-process route snapshot")
+                .register(meterRegistry);
+        Gauge.builder("gateway.routes.snapshot.version", snapshot, ref -> ref.get() == null ? 0 : ref.get().version())
+                .description("Version of the in-process route snapshot")
+                .register(meterRegistry);
     }
 
     @Override
     public Flux<RouteDefinition> getRouteDefinitions() {
+        // Serve straight from the heap while the snapshot is fresh
+        RouteSnapshot current = snapshot.get();
+        if (current == null) {
+            // Cold start or invalidated: every caller waits on the same reload
+            return reload().flatMapIterable(RouteSnapshot::routes);
+        }
+        if (current.isExpired(snapshotTtl)) {
+            // Keep serving the stale copy while a single background reload runs
+            reload().subscribe(
+                    fresh -> {
+                        if (!fresh.routes().equals(current.routes())) {
+                            eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+                        }
+                    },
+                    error -> { /* already logged by loadSnapshot */ });
+        }
+        return Flux.fromIterable(current.routes());
+    }
+
+    /**
+     * Joins the reload already running on this node, or starts one. The reload is
+     * subscribed independently of the callers, so a cancelled caller does not abort
+     * it for the others.
+     */
+    private Mono<RouteSnapshot> reload() {
+        return Mono.defer(() -> {
+            Mono<RouteSnapshot> running = inFlightReload.get();
+            if (running != null) {
+                return running;
+            }
+            Sinks.One<RouteSnapshot> result = Sinks.one();
+            Mono<RouteSnapshot> shared = result.asMono();
+            if (!inFlightReload.compareAndSet(null, shared)) {
+                return reload();
+            }
+            loadSnapshot()
+                    .doFinally(signal -> inFlightReload.compareAndSet(shared, null))
+                    .subscribe(result::tryEmitValue, result::tryEmitError);
+            return shared;
+        });
+    }
+
+    /**
+     * Drops the in-process snapshot so the next {@link #getRouteDefinitions()} call
+     * reloads the routes from Redis or PostgreSQL.
+     */
+    public void invalidate() {
+        RouteSnapshot dropped = snapshot.getAndSet(null);
+        if (dropped != null) {
+            log.info("Invalidated route snapshot v{} ({} routes).", dropped.version(), dropped.routes().size());
+        }
+    }
+
+    /**
+     * Returns the snapshot currently held in memory, or {@code null} if none is loaded.
+     */
+    public RouteSnapshot currentSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Applies a single route change to the current snapshot without reloading the
+     * whole table. A change that does not directly follow the snapshot version means
+     * a message was missed, so the snapshot is dropped and fully reloaded instead.
+     *
+     * @param event The change received on the route-updates channel.
+     * @return A Mono that completes once the change has been applied or skipped.
+     */
+    public Mono<Void> applyChange(RouteChangeEvent event) {
+        return Mono.defer(() -> {
+            RouteSnapshot current = snapshot.get();
+            if (current == null) {
+                // Nothing loaded yet; the next full load will include this change
+                return Mono.empty();
+            }
+            if (event.version() <= current.version()) {
+                log.debug("Ignoring route change v{} for {}; snapshot is already at v{}.",
+                        event.version(), event.routeId(), current.version());
+                return Mono.empty();
+            }
+            if (event.version() != current.version() + 1) {
+                log.warn("Route change v{} does not follow snapshot v{}. Falling back to a full reload.",
+                        event.version(), current.version());
+                invalidate();
+                return Mono.empty();
+            }
+
+            if (event.type() == RouteChangeEvent.Type.DELETE) {
+                routeCompiler.evict(event.routeId());
+            }
+            Mono<RouteDefinition> changedRoute = event.type() == RouteChangeEvent.Type.DELETE
+                    ? Mono.empty()
+                    : apiRouteRepository.findByRouteId(event.routeId()).flatMap(this::convertToRouteDefinition);
+
+            return changedRoute
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(route -> {
+                        RouteSnapshot next = current.withRoute(event.routeId(), route.orElse(null), event.version());
+                        if (!snapshot.compareAndSet(current, next)) {
+                            // The snapshot was swapped while we were loading; re-check against the new one
+                            return applyChange(event);
+                        }
+                        snapshotDeltas.increment();
+                        log.info("Applied {} of route {} to snapshot v{}.", event.type(), event.routeId(), next.version());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private Mono<RouteSnapshot> loadSnapshot() {
         // Try to get from cache first, otherwise fetch from DB and cache the result
-        return redisTemplate.opsForValue().get(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY)
-                .flatMapMany(this::deserializeRoutes)
-                .switchIfEmpty(fetchFromDbAndCache())
+        return currentClusterVersion()
+                .flatMap(version -> readSharedCache(version)
+                        .switchIfEmpty(Mono.defer(() -> rebuildSharedCache(version))))
+                .map(this::publishSnapshot)
                 .doOnError(error -> log.error("Failed to load routes, either from cache or DB.", error));
     }
 
-    private Flux<RouteDefinition> fetchFromDbAndCache() {
+    private Mono<CachedRoutes> readSharedCache(long version) {
+        return redisTemplate.opsForValue().get(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY)
+                .flatMap(this::deserializeRoutes)
+                // An entry older than the latest published change is stale
+                .filter(cached -> cached.version() >= version);
+    }
+
+    /**
+     * Rebuilds the shared Redis entry from PostgreSQL. Only the node holding the
+     * reload lease queries the database; the others poll Redis until the entry
+     * appears, and only fall back to the database themselves once the lease expires.
+     */
+    private Mono<CachedRoutes> rebuildSharedCache(long version) {
+        return redisTemplate.opsForValue()
+                .setIfAbsent(GatewayConstant.GATEWAY_ROUTES_LEASE_KEY, leaseToken, reloadLeaseTtl)
+                .onErrorResume(error -> {
+                    log.warn("Could not acquire the route reload lease, rebuilding locally: {}", error.getMessage());
+                    return Mono.just(true);
+                })
+                .flatMap(acquired -> {
+                    if (Boolean.TRUE.equals(acquired)) {
+                        return fetchFromDbAndCache(version)
+                                .doFinally(signal -> releaseLease().subscribe());
+                    }
+                    log.info("Another node is rebuilding the route cache. Waiting for it.");
+                    long attempts = Math.max(1, reloadLeaseTtl.toMillis() / Math.max(1, reloadPollInterval.toMillis()));
+                    return readSharedCache(version)
+                            .repeatWhenEmpty(polls -> polls.take(attempts).delayElements(reloadPollInterval))
+                            .switchIfEmpty(Mono.defer(() -> {
+                                log.warn("Route cache was not rebuilt within {}. Loading from PostgreSQL.", reloadLeaseTtl);
+                                return fetchFromDbAndCache(version);
+                            }));
+                });
+    }
+
+    private Mono<Long> releaseLease() {
+        return redisTemplate.execute(RELEASE_LEASE_SCRIPT,
+                        List.of(GatewayConstant.GATEWAY_ROUTES_LEASE_KEY), List.of(leaseToken))
+                .next()
+                .onErrorResume(error -> {
+                    log.warn("Could not release the route reload lease: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> currentClusterVersion() {
+        return redisTemplate.opsForValue().get(GatewayConstant.GATEWAY_ROUTES_VERSION_KEY)
+                .map(Long::parseLong)
+                .onErrorResume(NumberFormatException.class, e -> {
+                    log.warn("Ignoring malformed route version in Redis: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Swaps in a reloaded snapshot, unless a change applied while the reload ran has
+     * already moved the snapshot past the version it was read at; that snapshot is
+     * kept, as replacing it would lose the change. A reload of the same version
+     * replaces the snapshot, so that an expired one is renewed.
+     */
+    private RouteSnapshot publishSnapshot(CachedRoutes cachedRoutes) {
+        RouteSnapshot next = RouteSnapshot.of(cachedRoutes.version(), cachedRoutes.routes());
+        RouteSnapshot current;
+        do {
+            current = snapshot.get();
+            if (current != null && current.version() > next.version()) {
+                log.info("Kept route snapshot v{}; the reload read v{}.", current.version(), next.version());
+                return current;
+            }
+        } while (!snapshot.compareAndSet(current, next));
+        snapshotRebuilds.increment();
+        log.info("Published route snapshot v{} with {} routes.", next.version(), next.routes().size());
+        return next;
+    }
+
+    private Mono<CachedRoutes> fetchFromDbAndCache(long version) {
         log.info("Cache empty or expired. Fetching routes from PostgreSQL.");
         return apiRouteRepository.findAll()
                 .flatMap(this::convertToRouteDefinition)
                 .collectList()
-                .doOnNext(this::cacheRouteDefinitions)
-                .flatMapMany(Flux::fromIterable);
+                .doOnNext(routeDefinitions -> routeCompiler.retainOnly(
+                        routeDefinitions.stream().map(RouteDefinition::getId).toList()))
+                .map(routeDefinitions -> new CachedRoutes(version, routeDefinitions))
+                .flatMap(this::cacheRouteDefinitions);
     }
 
-    private void cacheRouteDefinitions(List<RouteDefinition> routeDefinitions) {
-        log.info("Caching {} routes with TTL: {}", routeDefinitions.size(), cacheTtl);
+    private Mono<CachedRoutes> cacheRouteDefinitions(CachedRoutes routeDefinitions) {
+        log.info("Caching {} routes (v{}) with TTL: {}", routeDefinitions.routes().size(), routeDefinitions.version(), cacheTtl);
         try {
             String serializedRoutes = objectMapper.writeValueAsString(routeDefinitions);
-            redisTemplate.opsForValue()
+            return redisTemplate.opsForValue()
                          .set(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY, serializedRoutes, cacheTtl)
-                         .subscribe();
+                         .onErrorResume(error -> {
+                             log.error("Could not write routes to the Redis cache.", error);
+                             return Mono.just(false);
+                         })
+                         .thenReturn(routeDefinitions);
         } catch (JsonProcessingException e) {
             log.error("Could not serialize routes for caching.", e);
+            return Mono.just(routeDefinitions);
         }
     }
 
-    private Flux<RouteDefinition> deserializeRoutes(String serializedRoutes) {
+    private Mono<CachedRoutes> deserializeRoutes(String serializedRoutes) {
         log.info("Loading routes from Redis cache.");
         try {
-            TypeReference<List<RouteDefinition>> typeRef = new TypeReference<>() {};
-            List<RouteDefinition> routeDefinitions = objectMapper.readValue(serializedRoutes, typeRef);
-            return Flux.fromIterable(routeDefinitions);
+            return Mono.just(objectMapper.readValue(serializedRoutes, CachedRoutes.class));
         } catch (JsonProcessingException e) {
             log.error("Could not deserialize routes from cache. Will attempt to fetch from DB.", e);
             // If deserialization fails, clear the bad cache entry and fetch from DB
-            return redisTemplate.opsForValue().delete(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY).thenMany(fetchFromDbAndCache());
+            return redisTemplate.opsForValue().delete(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY).then(Mono.empty());
         }
     }
-/*
+
     private Mono<RouteDefinition> convertToRouteDefinition(Routes apiRoute) {
-        try {
-            
-            RouteDefinition routeDefinition = new RouteDefinition();
-            
-            routeDefinition.setId(apiRoute.getRouteId());
-            routeDefinition.setUri(new URI(apiRoute.getUri()));
-            
-            // Jackson TypeReferences to correctly deserialize the JSON arrays
-            TypeReference<List<org.springframework.cloud.gateway.handler.predicate.PredicateDefinition>> predicateTypeRef = new TypeReference<>() {};
-            TypeReference<List<org.springframework.cloud.gateway.filter.FilterDefinition>> filterTypeRef = new TypeReference<>() {};
-            
-            routeDefinition.setPredicates(objectMapper.readValue(apiRoute.getPredicates(), predicateTypeRef)); // Parse predicates (e.g., Path, Method) from the JSON string
-            routeDefinition.setFilters(objectMapper.readValue(apiRoute.getFilters(), filterTypeRef)); // Parse filters and dynamically add the rate limiter if configured
-            
-            return Mono.just(routeDefinition);
-        } catch (Exception e) {
-            log.error("Failed to parse route definition from DB: {}", apiRoute.getRouteId(), e);
-            return Mono.empty();
-        }
+        String readHash = apiRoute.getDefinitionHash();
+        return routeCompiler.load(apiRoute)
+                .doOnNext(definition -> {
+                    if (routeCompiler.isStale(apiRoute, readHash)) {
+                        writeBackCompiledDefinition(apiRoute, readHash);
+                    }
+                });
     }
-*/    
-    private Mono<RouteDefinition> convertToRouteDefinition(Routes apiRoute) {
-        try {
-            RouteDefinition routeDefinition = new RouteDefinition();
-            routeDefinition.setId(apiRoute.getRouteId());
-            routeDefinition.setUri(new URI(apiRoute.getUri()));
-            
-            // Add the encryption key to the route's metadata for later retrieval in filters
-            if (StringUtils.hasText(apiRoute.getEncryptionKey())) {
-                 routeDefinition.getMetadata().put("encryption_key", apiRoute.getEncryptionKey());
-            }
-            
-            // --- Jackson TypeReferences to correctly deserialize the JSON arrays. The existing predicate and filter parsing logic ---
-            TypeReference<List<PredicateDefinition>> predicateTypeRef = new TypeReference<>() {};
-            TypeReference<List<FilterDefinition>> filterTypeRef = new TypeReference<>() {};
-
-            // Make the filter list mutable
-            List<FilterDefinition> filters = new java.util.ArrayList<>(
-                    objectMapper.readValue(apiRoute.getFilters(), filterTypeRef)
-            );
-            routeDefinition.setPredicates(objectMapper.readValue(apiRoute.getPredicates(), predicateTypeRef));
-
-            // --- ✅ Dynamically add the rate limiter filter ---
-            if (apiRoute.isRateLimitEnabled()) {
-                FilterDefinition rateLimiterFilter = new FilterDefinition();
-                rateLimiterFilter.setName("RequestRateLimiter");
-
-                Map<String, String> args = new HashMap<>();
-                // args.put("redis-rate-limiter.replenishRate", String.valueOf(apiRoute.getRateLimitReplenishRate()));
-                // args.put("redis-rate-limiter.burstCapacity", String.valueOf(apiRoute.getRateLimitBurstCapacity()));
-                // ✅ Use camelCase keys without the prefix
-                args.put("replenishRate", String.valueOf(apiRoute.getRateLimitReplenishRate()));
-                args.put("burstCapacity", String.valueOf(apiRoute.getRateLimitBurstCapacity()));
-                
-                // Use SpEL to reference the bean by the name we stored in the DB
-                log.info("Loading getKeyResolverName {}", apiRoute.getKeyResolverName());
-                args.put("key-resolver", "#{@" + apiRoute.getKeyResolverName() + "}");
-
-                rateLimiterFilter.setArgs(args);
-                filters.add(rateLimiterFilter);
-            }
 
-            routeDefinition.setFilters(filters);
-            return Mono.just(routeDefinition);
-        } catch (Exception e) {
-            log.error("Failed to parse route definition from DB: {}", apiRoute.getRouteId(), e);
-            return Mono.empty();
-        }
+    /**
+     * Stores the form a stale row was compiled to again, so that later loads read it
+     * instead of compiling the row every time. Loading does not wait for the write.
+     */
+    private void writeBackCompiledDefinition(Routes apiRoute, String readHash) {
+        apiRouteRepository.updateCompiledDefinition(apiRoute.getRouteId(), apiRoute.getCompiledDefinition(),
+                        apiRoute.getDefinitionHash(), readHash)
+                .subscribe(
+                        updated -> log.info("Recompiled stale route {}{}.", apiRoute.getRouteId(),
+                                updated > 0 ? "" : "; it was saved again meanwhile, so the new form was not stored"),
+                        error -> log.warn("Could not store the recompiled form of route {}: {}",
+                                apiRoute.getRouteId(), error.getMessage()));
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:28:51 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+import com.nopaper.work.gateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+
+/**
+ * Balances every {@code lb://} route over its instances by latency and load, see
+ * {@link com.nopaper.work.gateway.loadbalancer.ServiceLoads}.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
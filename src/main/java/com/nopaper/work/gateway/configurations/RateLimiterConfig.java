@@ -8,12 +8,19 @@ package com.nopaper.work.gateway.configurations;
 
 import java.util.Objects;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+
 import reactor.core.publisher.Mono;
 
 @Configuration
@@ -31,10 +38,65 @@ public class RateLimiterConfig {
     }
     
  // ✅ Add this bean definition
+    // Primary for RequestRateLimiter filters without a rate-limiter argument; compiled routes always name theirs
     @Bean
+    @Primary
     public RedisRateLimiter redisRateLimiter() {
         // Provide default values for replenish rate and burst capacity.
         // These are used if a route doesn't have specific rate limit values.
         return new RedisRateLimiter(10, 20);
     }
-}
\ No newline at end of file
+
+    /**
+     * Times and traces the rate limit of each request by replacing the
+     * {@code RequestRateLimiter} filter factory with one whose filters are instrumented.
+     * Static, as post-processors are created before the rest of the configuration.
+     */
+    @Bean
+    public static BeanPostProcessor instrumentedRateLimiterPostProcessor(ObjectProvider<GatewayMetrics> metrics,
+            ObjectProvider<GatewayTracing> tracing)
+    {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestRateLimiterGatewayFilterFactory factory
+                        && !(bean instanceof InstrumentedRequestRateLimiterGatewayFilterFactory)) {
+                    return new InstrumentedRequestRateLimiterGatewayFilterFactory(factory, metrics, tracing);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static final class InstrumentedRequestRateLimiterGatewayFilterFactory
+            extends RequestRateLimiterGatewayFilterFactory {
+
+        private final ObjectProvider<GatewayMetrics> metrics;
+        private final ObjectProvider<GatewayTracing> tracing;
+
+        InstrumentedRequestRateLimiterGatewayFilterFactory(RequestRateLimiterGatewayFilterFactory factory,
+                ObjectProvider<GatewayMetrics> metrics, ObjectProvider<GatewayTracing> tracing)
+        {
+            super(factory.getDefaultRateLimiter(), factory.getDefaultKeyResolver());
+            setDenyEmptyKey(factory.isDenyEmptyKey());
+            setEmptyKeyStatusCode(factory.getEmptyKeyStatusCode());
+            this.metrics = metrics;
+            this.tracing = tracing;
+        }
+
+        @Override
+        public String name() {
+            // Routes refer to the filter by the name of the factory it replaces
+            return "RequestRateLimiter";
+        }
+
+        @Override
+        public GatewayFilter apply(Config config) {
+            GatewayFilter limiter = super.apply(config);
+            GatewayMetrics gatewayMetrics = metrics.getObject();
+            GatewayTracing gatewayTracing = tracing.getObject();
+            return (exchange, chain) -> gatewayMetrics.timeUntilHandOff(exchange, GatewayMetrics.Step.RATE_LIMIT, chain,
+                    (timed, next) -> gatewayTracing.traceUntilHandOff(timed, "rate limit", next, limiter));
+        }
+    }
+}
@@ -10,34 +10,81 @@ package com.nopaper.work.gateway.configurations;
  * 
  */
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.connection.ReactiveSubscription;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
+/**
+ * Listens on the route-updates channel. Typed {@link RouteChangeEvent} messages are
+ * applied to the in-process route snapshot one by one; any other message is treated
+ * as a legacy "drop everything" signal and clears the shared cache entry as well.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class RedisRouteInvalidationListener {
 
-    private static final String INVALIDATION_CHANNEL = "route-updates";
-    private static final String GATEWAY_ROUTES_CACHE_KEY = "gateway_routes_v1";
-
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final DynamicRoutingDefinitionLocator routeDefinitionLocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
 
     @PostConstruct
     public void setupSubscription() {
-        log.info("Subscribing to Redis channel: {}", INVALIDATION_CHANNEL);
-        redisTemplate.listenTo(ChannelTopic.of(INVALIDATION_CHANNEL))
+        log.info("Subscribing to Redis channel: {}", GatewayConstant.ROUTE_UPDATES_CHANNEL);
+        redisTemplate.listenTo(ChannelTopic.of(GatewayConstant.ROUTE_UPDATES_CHANNEL))
             .map(ReactiveSubscription.Message::getMessage)
-            .doOnNext(message -> log.info("Received invalidation message. Clearing route cache."))
-            .flatMap(message -> redisTemplate.opsForValue().delete(GATEWAY_ROUTES_CACHE_KEY))
+            // Changes must be applied in order, one at a time
+            .concatMap(message -> handleMessage(message)
+                    .doOnSuccess(done -> eventPublisher.publishEvent(new RefreshRoutesEvent(this)))
+                    .onErrorResume(error -> {
+                        log.error("Error applying route update '{}'.", message, error);
+                        return Mono.empty();
+                    }))
             .subscribe(
-                success -> log.info("Route cache cleared successfully."),
+                success -> { },
                 error -> log.error("Error on cache invalidation.", error)
             );
     }
-}
\ No newline at end of file
+
+    private Mono<Void> handleMessage(String message) {
+        RouteChangeEvent event = parseEvent(message);
+        if (event != null) {
+            log.info("Received route change: {} {} (v{}).", event.type(), event.routeId(), event.version());
+            return routeDefinitionLocator.applyChange(event);
+        }
+
+        log.info("Received invalidation message. Clearing route cache.");
+        return redisTemplate.opsForValue().delete(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY)
+            .doOnNext(deleted -> {
+                // Drop the in-process snapshot too and let the gateway rebuild its routes right away
+                routeDefinitionLocator.invalidate();
+                log.info("Route cache cleared successfully.");
+            })
+            .then();
+    }
+
+    private RouteChangeEvent parseEvent(String message) {
+        if (message == null || !message.trim().startsWith("{")) {
+            return null;
+        }
+        try {
+            RouteChangeEvent event = objectMapper.readValue(message, RouteChangeEvent.class);
+            return event.type() != null && event.routeId() != null ? event : null;
+        } catch (JsonProcessingException e) {
+            log.warn("Could not parse route change message, treating it as a full invalidation: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+}
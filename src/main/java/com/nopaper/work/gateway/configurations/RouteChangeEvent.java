@@ -0,0 +1,27 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:20:40 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+/**
+ * A single route change published on the {@code route-updates} Redis channel.
+ * <p>
+ * The publisher writes the {@code routes} row, increments the
+ * {@code gateway_routes_version} key and publishes the new value as the
+ * event version, e.g. {@code {"type":"UPSERT","routeId":"orders","version":42}}.
+ * Versions let every node detect a missed message and fall back to a full reload.
+ *
+ * @param type    Whether the route was inserted/updated or deleted.
+ * @param routeId The {@code route_id} of the changed route.
+ * @param version Cluster-wide route table version after this change.
+ */
+public record RouteChangeEvent(Type type, String routeId, long version) {
+
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+}
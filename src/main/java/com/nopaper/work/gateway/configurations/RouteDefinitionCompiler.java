@@ -0,0 +1,436 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 1:14:02 pm
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nopaper.work.gateway.cache.ResponseCachePolicy;
+import com.nopaper.work.gateway.cache.ResponseCachePolicyResolver;
+import com.nopaper.work.gateway.crypto.RouteKeys;
+import com.nopaper.work.gateway.entity.Routes;
+import com.nopaper.work.gateway.ratelimit.CompositeKeyResolver;
+import com.nopaper.work.gateway.ratelimit.ConcurrencyLimiter;
+import com.nopaper.work.gateway.ratelimit.HybridRateLimiter;
+import com.nopaper.work.gateway.ratelimit.RateLimitPolicyResolver;
+import com.nopaper.work.gateway.ratelimit.RateLimitTiers;
+import com.nopaper.work.gateway.ratelimit.SlidingWindowRateLimiter;
+import com.nopaper.work.gateway.ratelimit.TieredRateLimiter;
+import com.nopaper.work.gateway.resilience.ResilienceGatewayFilterFactory;
+import com.nopaper.work.gateway.shedding.RequestPriority;
+import com.nopaper.work.gateway.tracing.TracingPolicy;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+import com.nopaper.work.gateway.transformer.ResponsePolicy;
+import com.nopaper.work.gateway.transformer.ResponsePolicyResolver;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Turns {@link Routes} rows into {@link RouteDefinition}s.
+ * <p>
+ * Routes are validated and compiled once, when they are written through
+ * {@code RouteService}: the resulting definition is stored as canonical JSON in
+ * {@code compiled_definition} together with a SHA-256 {@code definition_hash} of
+ * the source columns and {@link #COMPILER_VERSION}. On load, the hash is taken again
+ * from the row: a row whose hash matches the definition already held in memory is
+ * reused as-is, and a changed row is read from its compiled form in a single pass.
+ * Rows whose stored hash does not match (written by an older compiler, before the
+ * compiled form existed, or edited by hand) are compiled again from their
+ * {@code predicates} and {@code filters} JSON, and their new compiled form is set on
+ * the entity for the caller to write back.
+ */
+@Component
+@Slf4j
+public class RouteDefinitionCompiler {
+
+    /** Bump whenever the compiled shape changes so that stored compiled forms are compiled again. */
+    static final String COMPILER_VERSION = "9";
+
+    private static final TypeReference<List<PredicateDefinition>> PREDICATE_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<FilterDefinition>> FILTER_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Object>> ARGS_TYPE = new TypeReference<>() {};
+
+    // Rate limiter bean name -> prefix its per-route arguments are bound from
+    private static final Map<String, String> RATE_LIMITER_PROPERTIES = Map.of(
+            "redisRateLimiter", RedisRateLimiter.CONFIGURATION_PROPERTY_NAME,
+            "hybridRateLimiter", HybridRateLimiter.CONFIGURATION_PROPERTY_NAME,
+            "tieredRateLimiter", TieredRateLimiter.CONFIGURATION_PROPERTY_NAME,
+            "slidingWindowRateLimiter", SlidingWindowRateLimiter.CONFIGURATION_PROPERTY_NAME,
+            "concurrencyLimiter", ConcurrencyLimiter.CONFIGURATION_PROPERTY_NAME);
+
+    // Limiters configured by the replenish rate and burst capacity columns
+    private static final Set<String> TOKEN_BUCKET_LIMITERS = Set.of("redisRateLimiter", "hybridRateLimiter");
+    private static final String TIERED_RATE_LIMITER = "tieredRateLimiter";
+    private static final String CONCURRENCY_LIMITER = "concurrencyLimiter";
+    private static final String COMPOSITE_KEY_RESOLVER = "compositeKeyResolver";
+    private static final Pattern ARG_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9-]*");
+
+    private record CompiledRoute(String hash, RouteDefinition definition) {}
+
+    private final ObjectReader predicateReader;
+    private final ObjectReader filterReader;
+    private final ObjectReader argsReader;
+    private final ObjectReader definitionReader;
+    private final ObjectWriter definitionWriter;
+    private final ResponsePolicyResolver responsePolicyResolver;
+    private final ResponseCachePolicyResolver responseCachePolicyResolver;
+    private final RateLimitPolicyResolver rateLimitPolicyResolver;
+    private final TracingPolicyResolver tracingPolicyResolver;
+    private final String defaultRateLimiter;
+
+    // Last compiled definition per route_id, reused while the row's hash is unchanged
+    private final Map<String, CompiledRoute> compiledRoutes = new ConcurrentHashMap<>();
+
+    public RouteDefinitionCompiler(
+            ObjectMapper objectMapper,
+            ResponsePolicyResolver responsePolicyResolver,
+            ResponseCachePolicyResolver responseCachePolicyResolver,
+            RateLimitPolicyResolver rateLimitPolicyResolver,
+            TracingPolicyResolver tracingPolicyResolver,
+            @Value("${gateway.rate-limit.default-limiter:hybridRateLimiter}") String defaultRateLimiter)
+    {
+        this.predicateReader = objectMapper.readerFor(PREDICATE_LIST_TYPE);
+        this.filterReader = objectMapper.readerFor(FILTER_LIST_TYPE);
+        this.argsReader = objectMapper.readerFor(ARGS_TYPE);
+        this.definitionReader = objectMapper.readerFor(RouteDefinition.class);
+        this.definitionWriter = objectMapper.writerFor(RouteDefinition.class);
+        this.responsePolicyResolver = responsePolicyResolver;
+        this.responseCachePolicyResolver = responseCachePolicyResolver;
+        this.rateLimitPolicyResolver = rateLimitPolicyResolver;
+        this.tracingPolicyResolver = tracingPolicyResolver;
+        this.defaultRateLimiter = defaultRateLimiter;
+    }
+
+    /**
+     * Resolves the definition for a row loaded from the database. Rows that cannot be
+     * compiled are logged and skipped, so one bad row does not take the table down.
+     * A row whose stored compiled form is out of date gets its new compiled form and
+     * hash set, see {@link #isStale(Routes, String)}.
+     */
+    public Mono<RouteDefinition> load(Routes apiRoute) {
+        try {
+            return Mono.just(resolve(apiRoute));
+        } catch (Exception e) {
+            log.error("Failed to parse route definition from DB: {}", apiRoute.getRouteId(), e);
+            return Mono.empty();
+        }
+    }
+
+    /**
+     * Validates and compiles a route that is about to be written, storing the compiled
+     * form and its hash on the entity.
+     *
+     * @throws IllegalArgumentException if the route is not valid.
+     */
+    public Routes prepareForWrite(Routes apiRoute) {
+        store(apiRoute, convertToRouteDefinition(apiRoute), hash(apiRoute));
+        return apiRoute;
+    }
+
+    /**
+     * Whether {@link #load(Routes)} compiled the row again because the hash it was read
+     * with, {@code storedHash}, did not match; its new compiled form should be written back.
+     */
+    public boolean isStale(Routes apiRoute, String storedHash) {
+        return !Objects.equals(storedHash, apiRoute.getDefinitionHash());
+    }
+
+    /** Forgets the compiled definition of a deleted route. */
+    public void evict(String routeId) {
+        compiledRoutes.remove(routeId);
+    }
+
+    /** Forgets compiled definitions of routes that are no longer in the table. */
+    public void retainOnly(Collection<String> routeIds) {
+        compiledRoutes.keySet().retainAll(routeIds);
+    }
+
+    private RouteDefinition resolve(Routes apiRoute) throws IOException {
+        String hash = hash(apiRoute);
+        boolean current = hash.equals(apiRoute.getDefinitionHash()) && StringUtils.hasText(apiRoute.getCompiledDefinition());
+        CompiledRoute cached = compiledRoutes.get(apiRoute.getRouteId());
+        if (current && cached != null && cached.hash().equals(hash)) {
+            return cached.definition();
+        }
+
+        RouteDefinition definition;
+        if (current) {
+            definition = definitionReader.readValue(apiRoute.getCompiledDefinition());
+        } else {
+            definition = convertToRouteDefinition(apiRoute);
+            store(apiRoute, definition, hash);
+        }
+        compiledRoutes.put(apiRoute.getRouteId(), new CompiledRoute(hash, definition));
+        return definition;
+    }
+
+    private void store(Routes apiRoute, RouteDefinition definition, String hash) {
+        try {
+            apiRoute.setCompiledDefinition(definitionWriter.writeValueAsString(definition));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " cannot be serialized", e);
+        }
+        apiRoute.setDefinitionHash(hash);
+    }
+
+    /**
+     * Builds a definition from the raw columns of a row.
+     *
+     * @throws IllegalArgumentException if a column is missing or cannot be parsed.
+     */
+    public RouteDefinition convertToRouteDefinition(Routes apiRoute) {
+        if (!StringUtils.hasText(apiRoute.getRouteId())) {
+            throw new IllegalArgumentException("Route id is required");
+        }
+        try {
+            RouteDefinition routeDefinition = new RouteDefinition();
+            routeDefinition.setId(apiRoute.getRouteId());
+            routeDefinition.setUri(parseUri(apiRoute));
+            
+            // Mark the route for PayloadEncryptionFilter; its keys stay in gateway.route_keys, see RouteKeys
+            if (StringUtils.hasText(apiRoute.getEncryptionKey())) {
+                RouteKeys.parse(apiRoute.getEncryptionKey());
+            }
+            if (apiRoute.isPayloadEncryption() || StringUtils.hasText(apiRoute.getEncryptionKey())) {
+                routeDefinition.getMetadata().put(RouteKeys.METADATA_KEY, true);
+            }
+
+            // Validate the response policy now; StandardResponseFilter parses it once per route
+            if (StringUtils.hasText(apiRoute.getResponsePolicy())) {
+                responsePolicyResolver.parse(apiRoute.getResponsePolicy());
+                routeDefinition.getMetadata().put(ResponsePolicy.METADATA_KEY, apiRoute.getResponsePolicy());
+            }
+
+            // Validated now as well; ResponseCacheFilter parses it once per route
+            if (StringUtils.hasText(apiRoute.getResponseCache())) {
+                responseCachePolicyResolver.parse(apiRoute.getResponseCache());
+                routeDefinition.getMetadata().put(ResponseCachePolicy.METADATA_KEY, apiRoute.getResponseCache());
+            }
+
+            // Validated now as well; GatewayTracing parses it once per route
+            if (StringUtils.hasText(apiRoute.getTracing())) {
+                tracingPolicyResolver.parse(apiRoute.getTracing());
+                routeDefinition.getMetadata().put(TracingPolicy.METADATA_KEY, apiRoute.getTracing());
+            }
+
+            // Stored by its enum name so that LoadSheddingFilter needs no parsing per request
+            if (StringUtils.hasText(apiRoute.getPriority())) {
+                routeDefinition.getMetadata().put(RequestPriority.METADATA_KEY, RequestPriority.of(apiRoute.getPriority()).name());
+            }
+
+            if (!StringUtils.hasText(apiRoute.getPredicates())) {
+                throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " has no predicates");
+            }
+            routeDefinition.setPredicates(predicateReader.readValue(apiRoute.getPredicates()));
+
+            // Make the filter list mutable
+            List<FilterDefinition> filters = StringUtils.hasText(apiRoute.getFilters())
+                    ? new ArrayList<>(filterReader.<List<FilterDefinition>>readValue(apiRoute.getFilters()))
+                    : new ArrayList<>();
+
+            // --- ✅ Dynamically add the rate limiter filter ---
+            if (apiRoute.isRateLimitEnabled()) {
+                filters.add(rateLimiterFilter(apiRoute, routeDefinition.getMetadata()));
+            }
+
+            // After the rate limiter, so that refused requests are neither retried nor counted by the breaker
+            if (StringUtils.hasText(apiRoute.getResilience())) {
+                filters.add(resilienceFilter(apiRoute));
+            }
+
+            routeDefinition.setFilters(filters);
+            return routeDefinition;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " has malformed predicates, filters or rate limiter args", e);
+        }
+    }
+
+    private FilterDefinition rateLimiterFilter(Routes apiRoute, Map<String, Object> metadata) throws IOException {
+        boolean tiered = StringUtils.hasText(apiRoute.getRateLimitTiers());
+        boolean composite = tiered || apiRoute.getRateLimitKey() != null;
+        String rateLimiter = StringUtils.hasText(apiRoute.getRateLimiterName()) ? apiRoute.getRateLimiterName()
+                : tiered ? TIERED_RATE_LIMITER : defaultRateLimiter;
+        String keyResolver = StringUtils.hasText(apiRoute.getKeyResolverName()) ? apiRoute.getKeyResolverName()
+                : composite ? COMPOSITE_KEY_RESOLVER : null;
+        if (tiered != TIERED_RATE_LIMITER.equals(rateLimiter)) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId()
+                    + " must use tieredRateLimiter if, and only if, it has rate limit tiers");
+        }
+        if (composite && !COMPOSITE_KEY_RESOLVER.equals(keyResolver)) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId()
+                    + " has a rate limit key or tiers, which need compositeKeyResolver, but names " + keyResolver);
+        }
+        boolean tokenBucket = TOKEN_BUCKET_LIMITERS.contains(rateLimiter);
+        if (keyResolver == null
+                || tokenBucket && (apiRoute.getRateLimitReplenishRate() == null || apiRoute.getRateLimitBurstCapacity() == null)) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId()
+                    + " enables rate limiting without a key resolver, or without replenish rate and burst capacity for " + rateLimiter);
+        }
+        String prefix = RATE_LIMITER_PROPERTIES.get(rateLimiter);
+        if (prefix == null) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " uses unknown rate limiter " + rateLimiter
+                    + ", expected one of " + RATE_LIMITER_PROPERTIES.keySet());
+        }
+
+        // Validate the key and tiers now; compositeKeyResolver parses them once per route
+        if (apiRoute.getRateLimitKey() != null) {
+            rateLimitPolicyResolver.parseKey(apiRoute.getRateLimitKey());
+            metadata.put(CompositeKeyResolver.METADATA_KEY, apiRoute.getRateLimitKey());
+        }
+        if (tiered) {
+            rateLimitPolicyResolver.parseTiers(apiRoute.getRateLimitTiers());
+            metadata.put(RateLimitTiers.METADATA_KEY, apiRoute.getRateLimitTiers());
+        }
+
+        FilterDefinition rateLimiterFilter = new FilterDefinition();
+        // The concurrency limiter has its own filter, which hands permits back when the response completes
+        boolean concurrency = CONCURRENCY_LIMITER.equals(rateLimiter);
+        rateLimiterFilter.setName(concurrency ? "ConcurrencyLimiter" : "RequestRateLimiter");
+
+        Map<String, String> args = new HashMap<>();
+        // The limiter binds only arguments carrying its own prefix; anything else falls back to its defaults.
+        // Other limiters take their settings from rate_limiter_args, so the rate columns are ignored for them.
+        if (tokenBucket) {
+            args.put(prefix + ".replenishRate", String.valueOf(apiRoute.getRateLimitReplenishRate()));
+            args.put(prefix + ".burstCapacity", String.valueOf(apiRoute.getRateLimitBurstCapacity()));
+        }
+        if (StringUtils.hasText(apiRoute.getRateLimiterArgs())) {
+            Map<String, Object> limiterArgs = argsReader.readValue(apiRoute.getRateLimiterArgs());
+            limiterArgs.forEach((name, value) -> {
+                if (!ARG_NAME.matcher(name).matches() || value == null || value instanceof Map || value instanceof List) {
+                    throw new IllegalArgumentException("Route " + apiRoute.getRouteId()
+                            + " has an invalid rate limiter arg " + name + ": names are words and values are plain");
+                }
+                args.put(prefix + "." + name, String.valueOf(value));
+            });
+        }
+        if (apiRoute.getRateLimitAllowedError() != null) {
+            double allowedError = apiRoute.getRateLimitAllowedError();
+            if (!HybridRateLimiter.CONFIGURATION_PROPERTY_NAME.equals(prefix) || allowedError < 0 || allowedError > 1) {
+                throw new IllegalArgumentException("Route " + apiRoute.getRouteId()
+                        + " sets an allowed error, which must be between 0 and 1 and needs hybridRateLimiter");
+            }
+            args.put(prefix + ".allowedError", String.valueOf(allowedError));
+        }
+        
+        // Use SpEL to reference the beans by the names we stored in the DB
+        if (!concurrency) {
+            args.put("rate-limiter", "#{@" + rateLimiter + "}");
+        }
+        args.put("key-resolver", "#{@" + keyResolver + "}");
+
+        rateLimiterFilter.setArgs(args);
+        return rateLimiterFilter;
+    }
+
+    private FilterDefinition resilienceFilter(Routes apiRoute) throws IOException {
+        Map<String, Object> sections = argsReader.readValue(apiRoute.getResilience());
+        Map<String, String> args = new HashMap<>();
+        sections.forEach((section, settings) -> {
+            if (!ResilienceGatewayFilterFactory.SECTIONS.contains(section) || !(settings instanceof Map<?, ?> values)) {
+                throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " has an invalid resilience section " + section
+                        + ", expected objects named " + ResilienceGatewayFilterFactory.SECTIONS);
+            }
+            // Naming a section turns it on, unless it says otherwise
+            args.put(section + ".enabled", "true");
+            values.forEach((name, value) -> {
+                if (!ARG_NAME.matcher(String.valueOf(name)).matches() || value == null || value instanceof Map || value instanceof List) {
+                    throw new IllegalArgumentException("Route " + apiRoute.getRouteId()
+                            + " has an invalid resilience setting " + section + "." + name + ": names are words and values are plain");
+                }
+                args.put(section + "." + name, String.valueOf(value));
+            });
+        });
+
+        FilterDefinition resilienceFilter = new FilterDefinition();
+        resilienceFilter.setName("Resilience");
+        resilienceFilter.setArgs(args);
+        return resilienceFilter;
+    }
+
+    private URI parseUri(Routes apiRoute) {
+        try {
+            URI uri = new URI(apiRoute.getUri());
+            if (uri.getScheme() == null) {
+                throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " uri has no scheme: " + apiRoute.getUri());
+            }
+            return uri;
+        } catch (URISyntaxException | NullPointerException e) {
+            throw new IllegalArgumentException("Route " + apiRoute.getRouteId() + " has an invalid uri: " + apiRoute.getUri(), e);
+        }
+    }
+
+    /**
+     * Content hash over every column that feeds into the compiled definition.
+     */
+    String hash(Routes apiRoute) {
+        MessageDigest digest = sha256();
+        update(digest, COMPILER_VERSION);
+        update(digest, apiRoute.getRouteId());
+        update(digest, apiRoute.getUri());
+        update(digest, apiRoute.getPredicates());
+        update(digest, apiRoute.getFilters());
+        update(digest, apiRoute.isRateLimitEnabled());
+        update(digest, apiRoute.getRateLimitReplenishRate());
+        update(digest, apiRoute.getRateLimitBurstCapacity());
+        update(digest, apiRoute.getRateLimitAllowedError());
+        update(digest, apiRoute.getRateLimiterName());
+        update(digest, apiRoute.getRateLimiterArgs());
+        update(digest, apiRoute.getKeyResolverName());
+        update(digest, apiRoute.getRateLimitKey());
+        update(digest, apiRoute.getRateLimitTiers());
+        update(digest, apiRoute.isPayloadEncryption());
+        update(digest, apiRoute.getEncryptionKey());
+        update(digest, apiRoute.getResponsePolicy());
+        update(digest, apiRoute.getResponseCache());
+        update(digest, apiRoute.getPriority());
+        update(digest, apiRoute.getResilience());
+        update(digest, apiRoute.getTracing());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
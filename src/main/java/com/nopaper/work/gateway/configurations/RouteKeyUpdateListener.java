@@ -0,0 +1,47 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 8:39:12 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.stereotype.Component;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.crypto.RouteKeys;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Listens on the route-key-updates channel and reloads the keys of the route named in
+ * each message. Unlike route updates, a rotation leaves the route definitions alone,
+ * so no {@code RefreshRoutesEvent} is published.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RouteKeyUpdateListener {
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final RouteKeys routeKeys;
+
+    @PostConstruct
+    public void setupSubscription() {
+        log.info("Subscribing to Redis channel: {}", GatewayConstant.ROUTE_KEY_UPDATES_CHANNEL);
+        redisTemplate.listenTo(ChannelTopic.of(GatewayConstant.ROUTE_KEY_UPDATES_CHANNEL))
+            .map(ReactiveSubscription.Message::getMessage)
+            .subscribe(
+                routeId -> {
+                    log.info("Received key rotation of route {}.", routeId);
+                    routeKeys.refresh(routeId.trim());
+                },
+                error -> log.error("Error on route key updates.", error)
+            );
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 11:20:05 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.cloud.gateway.route.Route;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Values parsed from one {@code RouteDefinition} metadata entry, cached per route and
+ * only parsed again when the route's metadata changes. Created by {@link RoutePolicyCaches},
+ * which drops the entries of routes that no longer exist.
+ *
+ * @param <T> Type of the parsed value.
+ */
+@Slf4j
+public final class RoutePolicyCache<T> {
+
+    private record Entry<T>(Object source, T value) {}
+
+    private final String metadataKey;
+    private final Function<String, T> parser;
+    private final T absent;
+    private final T invalid;
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    RoutePolicyCache(String metadataKey, Function<String, T> parser, T absent, T invalid) {
+        this.metadataKey = metadataKey;
+        this.parser = parser;
+        this.absent = absent;
+        this.invalid = invalid;
+    }
+
+    /**
+     * Value of the route's metadata entry: parsed, or the value for routes without the
+     * entry, or the one for routes whose entry does not parse.
+     */
+    public T resolve(Route route) {
+        Object source = route.getMetadata().get(metadataKey);
+        if (source == null) {
+            entries.remove(route.getId());
+            return absent;
+        }
+        Entry<T> cached = entries.get(route.getId());
+        if (cached != null && cached.source().equals(source)) {
+            return cached.value();
+        }
+        T value;
+        try {
+            value = parser.apply(source.toString());
+        } catch (IllegalArgumentException e) {
+            // Validated when the route was written, so this only happens for rows edited by hand
+            log.warn("Ignoring invalid {} of route {}: {}", metadataKey, route.getId(), e.getMessage());
+            value = invalid;
+        }
+        entries.put(route.getId(), new Entry<>(source, value));
+        return value;
+    }
+
+    /** Value last resolved for the route, or {@code null} if it was not resolved yet. */
+    public T get(String routeId) {
+        Entry<T> cached = entries.get(routeId);
+        return cached != null ? cached.value() : null;
+    }
+
+    void retain(Set<String> routeIds) {
+        entries.keySet().retainAll(routeIds);
+    }
+}
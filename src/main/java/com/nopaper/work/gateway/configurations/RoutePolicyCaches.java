@@ -0,0 +1,60 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 11:24:51 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the {@link RoutePolicyCache}s of the policy resolvers and, whenever the routes
+ * are refreshed, drops their entries for routes that were deleted.
+ */
+@Component
+@Slf4j
+public class RoutePolicyCaches {
+
+    private final List<RoutePolicyCache<?>> caches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Cache of the values parsed from the {@code metadataKey} entry of each route.
+     *
+     * @param parser  Parses the entry, throwing {@link IllegalArgumentException} if it is invalid.
+     * @param absent  Value of routes without the entry.
+     * @param invalid Value of routes whose entry does not parse.
+     */
+    public <T> RoutePolicyCache<T> create(String metadataKey, Function<String, T> parser, T absent, T invalid) {
+        RoutePolicyCache<T> cache = new RoutePolicyCache<>(metadataKey, parser, absent, invalid);
+        caches.add(cache);
+        return cache;
+    }
+
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (event.isSuccess() && event.getSource() instanceof RouteLocator routeLocator) {
+            routeLocator.getRoutes()
+                    .map(Route::getId)
+                    .collect(Collectors.toSet())
+                    .subscribe(this::retain, error -> log.warn("Could not drop the policies of deleted routes.", error));
+        }
+    }
+
+    /** Drops the cached values of every route not in routeIds. */
+    public void retain(Set<String> routeIds) {
+        caches.forEach(cache -> cache.retain(routeIds));
+    }
+}
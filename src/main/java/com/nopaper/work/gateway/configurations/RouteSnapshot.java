@@ -0,0 +1,68 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 10:05:12 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+/**
+ * Immutable, versioned view of the route table kept on the heap by
+ * {@link DynamicRoutingDefinitionLocator}. A snapshot is never modified once
+ * published; a refresh builds a new one and swaps it in atomically.
+ *
+ * @param version       Cluster route table version this snapshot reflects.
+ * @param routes        The route definitions, in load order.
+ * @param loadedAtNanos {@link System#nanoTime()} at which the snapshot was built.
+ */
+public record RouteSnapshot(long version, List<RouteDefinition> routes, long loadedAtNanos) {
+
+    public RouteSnapshot {
+        routes = List.copyOf(routes);
+    }
+
+    public static RouteSnapshot of(long version, List<RouteDefinition> routes) {
+        return new RouteSnapshot(version, routes, System.nanoTime());
+    }
+
+    public Duration age() {
+        return Duration.ofNanos(System.nanoTime() - loadedAtNanos);
+    }
+
+    public boolean isExpired(Duration ttl) {
+        return System.nanoTime() - loadedAtNanos >= ttl.toNanos();
+    }
+
+    /**
+     * Returns a copy of this snapshot with one route replaced, appended or removed.
+     * The load time is carried over so that incremental changes do not extend the TTL.
+     *
+     * @param routeId     The id of the changed route.
+     * @param replacement The new definition, or {@code null} to remove the route.
+     * @param newVersion  The version of the resulting snapshot.
+     */
+    public RouteSnapshot withRoute(String routeId, RouteDefinition replacement, long newVersion) {
+        List<RouteDefinition> updated = new ArrayList<>(routes.size() + 1);
+        boolean replaced = false;
+        for (RouteDefinition route : routes) {
+            if (routeId.equals(route.getId())) {
+                if (replacement != null) {
+                    updated.add(replacement);
+                }
+                replaced = true;
+            } else {
+                updated.add(route);
+            }
+        }
+        if (!replaced && replacement != null) {
+            updated.add(replacement);
+        }
+        return new RouteSnapshot(newVersion, updated, loadedAtNanos);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * @package com.nopaper.work.gateway.configurations -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 10:41:19 am
+ * @git
+ */
+package com.nopaper.work.gateway.configurations;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+import com.nopaper.work.gateway.tracing.RouteSampler;
+import com.nopaper.work.gateway.tracing.TailSamplingSpanProcessor;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+
+/**
+ * Wires OpenTelemetry tracing, see {@link GatewayTracing}. Spring Boot builds the
+ * {@code OpenTelemetry} SDK from the tracer provider and propagators defined here.
+ * <p>
+ * Spans are exported over OTLP/HTTP in batches, from a background thread, so a request
+ * never waits on the collector; when the collector falls behind, spans beyond the queue
+ * are dropped rather than held.
+ */
+@Configuration
+public class TracingConfig {
+
+    /** Reads and writes W3C {@code traceparent} and {@code tracestate} headers. */
+    @Bean
+    public ContextPropagators contextPropagators() {
+        return ContextPropagators.create(W3CTraceContextPropagator.getInstance());
+    }
+
+    @Bean
+    public SdkTracerProvider sdkTracerProvider(
+            ObjectProvider<Resource> resource,
+            TracingPolicyResolver policyResolver,
+            @Value("${gateway.tracing.otlp.endpoint:http://localhost:4318/v1/traces}") String endpoint,
+            @Value("${gateway.tracing.otlp.timeout:10s}") Duration timeout,
+            @Value("${gateway.tracing.export.max-queue-size:2048}") int maxQueueSize,
+            @Value("${gateway.tracing.export.max-batch-size:512}") int maxBatchSize,
+            @Value("${gateway.tracing.export.delay:5s}") Duration delay,
+            @Value("${gateway.tracing.tail.max-pending-requests:10000}") long maxPendingRequests)
+    {
+        OtlpHttpSpanExporter exporter = OtlpHttpSpanExporter.builder()
+                .setEndpoint(endpoint)
+                .setTimeout(timeout)
+                .build();
+        BatchSpanProcessor batch = BatchSpanProcessor.builder(exporter)
+                // Tail-sampled requests are recorded without being sampled
+                .setExportUnsampledSpans(true)
+                .setMaxQueueSize(maxQueueSize)
+                .setMaxExportBatchSize(maxBatchSize)
+                .setScheduleDelay(delay)
+                .build();
+        return SdkTracerProvider.builder()
+                .setResource(resource.getIfAvailable(Resource::getDefault))
+                .setSampler(new RouteSampler(policyResolver.defaultPolicy()))
+                .addSpanProcessor(new TailSamplingSpanProcessor(batch, maxPendingRequests))
+                .build();
+    }
+
+    /**
+     * Sends the trace context of each request upstream in place of the one it came with,
+     * so that the upstream's spans are children of the gateway's.
+     */
+    @Bean
+    public HttpHeadersFilter traceContextHeadersFilter(GatewayTracing tracing) {
+        return (input, exchange) -> {
+            if (!tracing.isEnabled()) {
+                return input;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(input);
+            for (String field : W3CTraceContextPropagator.getInstance().fields()) {
+                headers.remove(field);
+            }
+            tracing.inject(exchange, headers);
+            return headers;
+        };
+    }
+}
@@ -17,6 +17,32 @@ public interface GatewayConstant {
 
 	public String ERROR_MSG = "An unknown error occured";
 	public String SUCCESS_MSG = "Request Successfully processed";
-	public String GATEWAY_ROUTES_CACHE_KEY = "gateway_routes_v1";
+	public String GATEWAY_ROUTES_CACHE_KEY = "gateway_routes_v2";
+	public String GATEWAY_ROUTES_VERSION_KEY = "gateway_routes_version";
+	public String GATEWAY_ROUTES_LEASE_KEY = "gateway_routes_reload_lease";
+	public String ROUTE_UPDATES_CHANNEL = "route-updates";
+	// Carries the route_id of a route whose encryption keys were rotated, see RouteKeyService
+	public String ROUTE_KEY_UPDATES_CHANNEL = "route-key-updates";
+	public String RATE_LIMIT_KEY_PREFIX = "gateway:rate_limit:";
+	public String RESPONSE_CACHE_KEY_PREFIX = "gateway:response_cache:";
+	// Tells clients whether the response cache answered: HIT, STALE, REVALIDATED or MISS
+	public String CACHE_STATUS_HEADER = "X-Cache";
+	// Content-Encoding of bodies encrypted with the route's key, see StreamingAesGcm
+	public String ENCRYPTED_CONTENT_CODING = "aesgcm-stream";
+	// Version of the route key an encrypted body was encrypted with, see RouteKeySet
+	public String ENCRYPTION_KEY_ID_HEADER = "X-Encryption-Key-Id";
+	// Id RequestLoggingFilter gave the request, as a java.util.UUID exchange attribute, see RequestIds
+	public String REQUEST_ID_ATTR = "requestId";
+	// Trace id of the request as a String exchange attribute: its OpenTelemetry trace, or the
+	// X-Trace-ID it arrived with if it had no traceparent; absent if it had neither and is not traced
+	public String TRACE_ID_ATTR = "traceId";
+	public String TRACE_ID_HEADER = "X-Trace-ID";
+	// OpenTelemetry Context of the request's span, and of its current upstream call, see GatewayTracing
+	public String TRACE_CONTEXT_ATTR = "traceContext";
+	public String UPSTREAM_TRACE_CONTEXT_ATTR = "upstreamTraceContext";
+	// System.nanoTime() when RequestLoggingFilter saw the request, as a Long exchange attribute
+	public String REQUEST_START_ATTR = "requestStartNanos";
+	// Subject of the caller as a String exchange attribute, set only by a filter that verified its credentials
+	public String AUTHENTICATED_SUBJECT_ATTR = "authenticatedSubject";
 	
 }
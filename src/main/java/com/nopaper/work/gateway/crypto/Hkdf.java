@@ -0,0 +1,64 @@
+/**
+ * @package com.nopaper.work.gateway.crypto -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 7:46:31 am
+ * @git
+ */
+package com.nopaper.work.gateway.crypto;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HKDF with HMAC-SHA256 (RFC 5869), which derives keys of their own from a key, for
+ * example one per tenant from a route's key. Each thread keeps its {@link Mac}.
+ */
+final class Hkdf {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int HASH_LENGTH = 32;
+    private static final byte[] NO_SALT = new byte[HASH_LENGTH];
+
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    });
+
+    private Hkdf() {
+    }
+
+    /**
+     * @param salt Optional salt; {@code null} stands for a string of zeros.
+     * @param info Binds the output to its purpose, so that different purposes get different keys.
+     */
+    static byte[] derive(byte[] inputKey, byte[] salt, byte[] info, int length) {
+        if (length <= 0 || length > 255 * HASH_LENGTH) {
+            throw new IllegalArgumentException("HKDF cannot derive " + length + " bytes");
+        }
+        Mac mac = MACS.get();
+        try {
+            mac.init(new SecretKeySpec(salt != null && salt.length > 0 ? salt : NO_SALT, HMAC));
+            byte[] pseudoRandomKey = mac.doFinal(inputKey);
+            mac.init(new SecretKeySpec(pseudoRandomKey, HMAC));
+            byte[] output = new byte[length];
+            byte[] block = new byte[0];
+            for (int offset = 0, counter = 1; offset < length; counter++) {
+                mac.update(block);
+                mac.update(info);
+                mac.update((byte) counter);
+                block = mac.doFinal();
+                int copied = Math.min(block.length, length - offset);
+                System.arraycopy(block, 0, output, offset, copied);
+                offset += copied;
+            }
+            return output;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive a key with HKDF", e);
+        }
+    }
+}
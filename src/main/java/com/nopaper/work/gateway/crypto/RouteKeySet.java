@@ -0,0 +1,52 @@
+/**
+ * @package com.nopaper.work.gateway.crypto -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 7:52:15 am
+ * @git
+ */
+package com.nopaper.work.gateway.crypto;
+
+import java.util.List;
+
+import javax.crypto.SecretKey;
+
+/**
+ * The key versions of a route, newest first. The newest encrypts; any version that has
+ * not expired decrypts, so that clients can move to a new key during the grace period
+ * of the old one.
+ *
+ * @param versions Versions that have not expired when the set was loaded, newest first.
+ */
+public record RouteKeySet(List<Version> versions) {
+
+    public static final RouteKeySet EMPTY = new RouteKeySet(List.of());
+
+    /**
+     * @param expiresAt Epoch milliseconds the version stops decrypting at, {@link Long#MAX_VALUE} if never.
+     */
+    public record Version(int id, SecretKey key, long expiresAt) {
+
+        public boolean isValid(long now) {
+            return now < expiresAt;
+        }
+    }
+
+    public boolean isEmpty() {
+        return versions.isEmpty();
+    }
+
+    /** The version that encrypts, or {@code null} if every version has expired. */
+    public Version active(long now) {
+        return !versions.isEmpty() && versions.get(0).isValid(now) ? versions.get(0) : null;
+    }
+
+    /** The version with the given id, or {@code null} if there is none or it has expired. */
+    public Version find(int id, long now) {
+        for (Version version : versions) {
+            if (version.id() == id) {
+                return version.isValid(now) ? version : null;
+            }
+        }
+        return null;
+    }
+}
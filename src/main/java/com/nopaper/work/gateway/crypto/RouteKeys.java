@@ -0,0 +1,173 @@
+/**
+ * @package com.nopaper.work.gateway.crypto -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 6:31:05 am
+ * @git
+ */
+package com.nopaper.work.gateway.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nopaper.work.gateway.entity.RouteKey;
+import com.nopaper.work.gateway.repository.RouteKeyRepository;
+import com.nopaper.work.gateway.repository.RouteRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The keys routes encrypt their payloads with, kept apart from the route definitions so
+ * that key material never travels in the compiled routes, and a rotation touches the
+ * keys of one route rather than the route table.
+ * <p>
+ * Each route's {@link RouteKeySet} is loaded from {@code gateway.route_keys} the first
+ * time it is needed, or from the route's old {@code encryption_key} column as version 0
+ * while it has no rows there. Concurrent requests for a route that is being loaded wait
+ * for the same load. Sets are reloaded in the background every
+ * {@code gateway.payload-encryption.key-refresh}, serving the old set meanwhile, and at
+ * once when a rotation is announced on {@code route-key-updates}.
+ * <p>
+ * A request that names a tenant gets a key of its own, derived from the route's key
+ * with HKDF, so that tenants cannot read one another's payloads. Derived keys are
+ * cached, at most {@code gateway.payload-encryption.derived-key-cache.max-size} of
+ * them; each is derived once however many requests need it at the same time.
+ */
+@Component
+@Slf4j
+public class RouteKeys {
+
+    /** Marks routes whose payloads are encrypted, in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "payload_encryption";
+
+    private static final String DERIVATION_LABEL = "nopaper-gateway payload key";
+
+    private record DerivedKeyId(String routeId, SecretKey key, String tenant) {}
+
+    private final RouteKeyRepository keyRepository;
+    private final RouteRepository routeRepository;
+    private final AsyncLoadingCache<String, RouteKeySet> keySets;
+    private final Cache<DerivedKeyId, SecretKey> derivedKeys;
+
+    public RouteKeys(
+            RouteKeyRepository keyRepository,
+            RouteRepository routeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.payload-encryption.key-refresh:5m}") Duration keyRefresh,
+            @Value("${gateway.payload-encryption.derived-key-cache.max-size:10000}") long derivedKeyCacheSize)
+    {
+        this.keyRepository = keyRepository;
+        this.routeRepository = routeRepository;
+        this.keySets = Caffeine.newBuilder()
+                .refreshAfterWrite(keyRefresh)
+                .buildAsync((routeId, executor) -> load(routeId).toFuture());
+        this.derivedKeys = Caffeine.newBuilder()
+                .maximumSize(derivedKeyCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, derivedKeys, "gateway.payload_encryption.derived_keys");
+    }
+
+    /** Key versions of the route; empty if it has none. */
+    public Mono<RouteKeySet> keys(String routeId) {
+        CompletableFuture<RouteKeySet> keys = keySets.get(routeId);
+        if (keys.isDone() && !keys.isCompletedExceptionally()) {
+            return Mono.just(keys.join());
+        }
+        // Cancelling one waiting request must not cancel the load the others wait for
+        return Mono.fromFuture(keys, true);
+    }
+
+    /**
+     * Key of a version for a tenant: derived from it if a tenant is given, the version's
+     * own key otherwise.
+     */
+    public SecretKey key(String routeId, RouteKeySet.Version version, String tenant) {
+        if (tenant == null) {
+            return version.key();
+        }
+        return derivedKeys.get(new DerivedKeyId(routeId, version.key(), tenant), RouteKeys::derive);
+    }
+
+    /** Reloads the keys of a route after a rotation, if they are loaded at all. */
+    public void refresh(String routeId) {
+        if (keySets.getIfPresent(routeId) != null) {
+            keySets.synchronous().refresh(routeId);
+        }
+        derivedKeys.asMap().keySet().removeIf(id -> id.routeId().equals(routeId));
+    }
+
+    /**
+     * Parses a Base64 AES key.
+     *
+     * @throws IllegalArgumentException if it is not Base64 or not an AES key length.
+     */
+    public static SecretKey parse(String encoded) {
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(encoded.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Encryption key is not Base64", e);
+        }
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("Encryption key must be 128, 192 or 256 bits, not " + key.length * 8);
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    private Mono<RouteKeySet> load(String routeId) {
+        long now = System.currentTimeMillis();
+        return keyRepository.findByRouteIdOrderByKeyVersionDesc(routeId)
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        return legacyKey(routeId);
+                    }
+                    // Once a route has rows, its old column was rotated out and no longer counts
+                    return Flux.fromIterable(rows)
+                            .filter(key -> key.getExpiresAt() == null || key.getExpiresAt().toEpochMilli() > now)
+                            .mapNotNull(this::version)
+                            .collectList()
+                            .map(RouteKeySet::new);
+                });
+    }
+
+    private RouteKeySet.Version version(RouteKey key) {
+        try {
+            return new RouteKeySet.Version(key.getKeyVersion(), parse(key.getKeyMaterial()),
+                    key.getExpiresAt() != null ? key.getExpiresAt().toEpochMilli() : Long.MAX_VALUE);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring key version {} of route {}: {}", key.getKeyVersion(), key.getRouteId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Mono<RouteKeySet> legacyKey(String routeId) {
+        return routeRepository.findByRouteId(routeId)
+                .filter(route -> StringUtils.hasText(route.getEncryptionKey()))
+                .map(route -> new RouteKeySet(List.of(new RouteKeySet.Version(0, parse(route.getEncryptionKey()), Long.MAX_VALUE))))
+                .defaultIfEmpty(RouteKeySet.EMPTY);
+    }
+
+    private static SecretKey derive(DerivedKeyId id) {
+        byte[] key = id.key().getEncoded();
+        byte[] info = (DERIVATION_LABEL + '\0' + id.routeId() + '\0' + id.tenant()).getBytes(StandardCharsets.UTF_8);
+        return new SecretKeySpec(Hkdf.derive(key, null, info, key.length), "AES");
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * @package com.nopaper.work.gateway.crypto -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 6:12:40 am
+ * @git
+ */
+package com.nopaper.work.gateway.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * AES-GCM over a body of any length, encrypted and decrypted as it streams, in the
+ * segmented form of the STREAM construction (Hoang, Reyhanitabar, Rogaway and Vizár)
+ * that Tink's streaming AEAD also uses.
+ * <p>
+ * A body is a header, one version byte, a random 32-byte salt and a random 7-byte nonce
+ * prefix, followed by segments of {@value #SEGMENT_SIZE} plaintext bytes, each sealed on
+ * its own with a 16-byte tag; the last segment is shorter or empty. As in Tink, segments
+ * are not sealed with the route's key but with a key of the body's own, derived from the
+ * route's key and the salt with HKDF, so the nonces of different bodies never meet under
+ * one key; a 7-byte prefix alone would repeat within some 2<sup>28</sup> bodies. A
+ * segment's nonce is the prefix, its 4-byte index and a byte that is 1 for the last
+ * segment only, so segments that are reordered, dropped or cut off at the end fail
+ * authentication, and every segment authenticates the header as associated data. At
+ * most one segment of a body is held in memory at a time, and plaintext is only released
+ * once its segment has been authenticated.
+ * <p>
+ * Ciphers come from the default JCA provider, whose AES and GHASH are compiled to AES-NI
+ * and carry-less multiplication instructions where the CPU has them. Creating a
+ * {@link Cipher} looks the provider up every time, so each thread keeps one and
+ * re-initializes it per segment; the key schedule is expanded once per body.
+ */
+public final class StreamingAesGcm {
+
+    public static final int SEGMENT_SIZE = 16 * 1024;
+
+    // 1 sealed every segment with the route's key itself
+    private static final byte VERSION = 2;
+    private static final int SALT_SIZE = 32;
+    private static final int NONCE_PREFIX_SIZE = 7;
+    private static final int HEADER_SIZE = 1 + SALT_SIZE + NONCE_PREFIX_SIZE;
+    private static final int NONCE_SIZE = 12;
+    private static final int TAG_SIZE = 16;
+    // Starting size of a segment buffer, so that small bodies do not take a whole segment
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private static final byte[] SEGMENT_KEY_INFO = "gateway payload segment key".getBytes(StandardCharsets.US_ASCII);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM is not available", e);
+        }
+    });
+
+    private StreamingAesGcm() {
+    }
+
+    public static Flux<DataBuffer> encrypt(Flux<DataBuffer> plaintext, SecretKey key, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> transform(plaintext, new Encryptor(key), bufferFactory));
+    }
+
+    /**
+     * Decrypts a body; the returned stream fails with {@link IllegalArgumentException} on
+     * the first segment that does not authenticate, or if the body is cut short.
+     */
+    public static Flux<DataBuffer> decrypt(Flux<DataBuffer> ciphertext, SecretKey key, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> transform(ciphertext, new Decryptor(key), bufferFactory));
+    }
+
+    /** Length of the encrypted form of a body of {@code plaintextLength} bytes. */
+    public static long ciphertextLength(long plaintextLength) {
+        long segments = Math.max(1, (plaintextLength + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        return HEADER_SIZE + plaintextLength + segments * TAG_SIZE;
+    }
+
+    /** Length of the decrypted form of a body of {@code ciphertextLength} bytes, or -1 if no body is that long. */
+    public static long plaintextLength(long ciphertextLength) {
+        long sealed = ciphertextLength - HEADER_SIZE;
+        if (sealed < TAG_SIZE) {
+            return -1;
+        }
+        long segments = (sealed + SEGMENT_SIZE + TAG_SIZE - 1) / (SEGMENT_SIZE + TAG_SIZE);
+        long last = sealed - (segments - 1) * (SEGMENT_SIZE + TAG_SIZE);
+        return last < TAG_SIZE ? -1 : sealed - segments * TAG_SIZE;
+    }
+
+    /** Key the segments of a body with {@code salt} in its header are sealed with. */
+    static SecretKey segmentKey(SecretKey routeKey, byte[] salt) {
+        byte[] key = routeKey.getEncoded();
+        return new SecretKeySpec(Hkdf.derive(key, salt, SEGMENT_KEY_INFO, key.length), "AES");
+    }
+
+    private static Flux<DataBuffer> transform(Flux<DataBuffer> input, Segmenter segmenter, DataBufferFactory bufferFactory) {
+        return input
+                .concatMapIterable(buffer -> {
+                    try {
+                        return segmenter.update(buffer);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .concatWith(Mono.fromCallable(segmenter::finish))
+                .map(bufferFactory::wrap);
+    }
+
+    /**
+     * Cuts a stream into segments of {@code segmentLength} bytes and seals each one. A full
+     * segment is only sealed once more input arrives, since the last one is sealed
+     * differently and the stream may end right after it.
+     */
+    private abstract static class Segmenter {
+
+        final byte[] header = new byte[HEADER_SIZE];
+        private final int segmentLength;
+        private byte[] segment = new byte[INITIAL_BUFFER_SIZE];
+        private int filled;
+        private int index;
+
+        Segmenter(int segmentLength) {
+            this.segmentLength = segmentLength;
+        }
+
+        List<byte[]> update(DataBuffer buffer) {
+            List<byte[]> sealed = List.of();
+            int remaining;
+            while ((remaining = buffer.readableByteCount()) > 0) {
+                if (filled == segmentLength) {
+                    if (sealed.isEmpty()) {
+                        sealed = new ArrayList<>(2);
+                    }
+                    sealed.add(seal(segment, filled, false));
+                    filled = 0;
+                }
+                int length = Math.min(remaining, segmentLength - filled);
+                if (filled + length > segment.length) {
+                    segment = Arrays.copyOf(segment, Math.min(segmentLength, Math.max(filled + length, segment.length * 2)));
+                }
+                buffer.read(segment, filled, length);
+                filled += length;
+            }
+            return sealed;
+        }
+
+        byte[] finish() {
+            return seal(segment, filled, true);
+        }
+
+        private byte[] seal(byte[] input, int length, boolean last) {
+            if (index < 0) {
+                throw new IllegalArgumentException("Body has too many segments");
+            }
+            int segmentIndex = index++;
+            return seal(input, length, segmentIndex, nonce(segmentIndex, last));
+        }
+
+        abstract byte[] seal(byte[] input, int length, int index, GCMParameterSpec nonce);
+
+        private GCMParameterSpec nonce(int index, boolean last) {
+            byte[] nonce = new byte[NONCE_SIZE];
+            System.arraycopy(header, 1 + SALT_SIZE, nonce, 0, NONCE_PREFIX_SIZE);
+            nonce[7] = (byte) (index >>> 24);
+            nonce[8] = (byte) (index >>> 16);
+            nonce[9] = (byte) (index >>> 8);
+            nonce[10] = (byte) index;
+            nonce[11] = (byte) (last ? 1 : 0);
+            return new GCMParameterSpec(TAG_SIZE * 8, nonce);
+        }
+    }
+
+    private static final class Encryptor extends Segmenter {
+
+        private final SecretKey key;
+        private boolean headerWritten;
+
+        Encryptor(SecretKey routeKey) {
+            super(SEGMENT_SIZE);
+            header[0] = VERSION;
+            byte[] random = new byte[SALT_SIZE + NONCE_PREFIX_SIZE];
+            RANDOM.nextBytes(random);
+            System.arraycopy(random, 0, header, 1, random.length);
+            this.key = segmentKey(routeKey, Arrays.copyOfRange(header, 1, 1 + SALT_SIZE));
+        }
+
+        @Override
+        byte[] seal(byte[] input, int length, int index, GCMParameterSpec nonce) {
+            // The header goes out with the first segment rather than as a write of its own
+            int offset = headerWritten ? 0 : HEADER_SIZE;
+            byte[] output = new byte[offset + length + TAG_SIZE];
+            if (!headerWritten) {
+                System.arraycopy(header, 0, output, 0, HEADER_SIZE);
+                headerWritten = true;
+            }
+            try {
+                Cipher cipher = CIPHERS.get();
+                cipher.init(Cipher.ENCRYPT_MODE, key, nonce);
+                cipher.updateAAD(header);
+                cipher.doFinal(input, 0, length, output, offset);
+                return output;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot encrypt with AES-GCM", e);
+            }
+        }
+    }
+
+    private static final class Decryptor extends Segmenter {
+
+        private final SecretKey routeKey;
+        private SecretKey key;
+        private int headerRead;
+
+        Decryptor(SecretKey routeKey) {
+            super(SEGMENT_SIZE + TAG_SIZE);
+            this.routeKey = routeKey;
+        }
+
+        @Override
+        List<byte[]> update(DataBuffer buffer) {
+            if (headerRead < HEADER_SIZE) {
+                int length = Math.min(buffer.readableByteCount(), HEADER_SIZE - headerRead);
+                buffer.read(header, headerRead, length);
+                headerRead += length;
+                if (headerRead < HEADER_SIZE) {
+                    return List.of();
+                }
+                if (header[0] != VERSION) {
+                    throw new IllegalArgumentException("Unsupported encrypted body version " + header[0]);
+                }
+                key = segmentKey(routeKey, Arrays.copyOfRange(header, 1, 1 + SALT_SIZE));
+            }
+            return super.update(buffer);
+        }
+
+        @Override
+        byte[] finish() {
+            if (headerRead < HEADER_SIZE) {
+                throw new IllegalArgumentException("Encrypted body is shorter than its header");
+            }
+            return super.finish();
+        }
+
+        @Override
+        byte[] seal(byte[] input, int length, int index, GCMParameterSpec nonce) {
+            if (length < TAG_SIZE) {
+                throw new IllegalArgumentException("Encrypted body is cut off in segment " + index);
+            }
+            try {
+                Cipher cipher = CIPHERS.get();
+                cipher.init(Cipher.DECRYPT_MODE, key, nonce);
+                cipher.updateAAD(header);
+                byte[] output = new byte[length - TAG_SIZE];
+                cipher.doFinal(input, 0, length, output, 0);
+                return output;
+            } catch (AEADBadTagException e) {
+                throw new IllegalArgumentException("Segment " + index + " of the encrypted body failed authentication", e);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot decrypt with AES-GCM", e);
+            }
+        }
+    }
+}
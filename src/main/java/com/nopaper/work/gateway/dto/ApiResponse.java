@@ -35,5 +35,5 @@ public class ApiResponse<T> {
     private String metadata; // Any additional information (like pagination).
     private Map<String, String> errors; // For validation or detailed errors
     private String path; // The request path where the error occurred OR Hyperlinks for navigation (optional).
-    private UUID trace_identity; // For internal tracing, we need to add open telemetry.
+    private UUID trace_identity; // Request id; the OpenTelemetry trace goes upstream in traceparent and into the request log
 }
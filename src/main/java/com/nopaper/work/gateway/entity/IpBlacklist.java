@@ -29,6 +29,7 @@ public class IpBlacklist extends AbstractAuditEntity {
 	@Id
 	private Long id;
 	
+	// A single address (203.0.113.7, 2001:db8::7) or a CIDR range (203.0.113.0/24, 2001:db8::/32)
 	@Column("ip_address")
 	private String ipAddress;
 	
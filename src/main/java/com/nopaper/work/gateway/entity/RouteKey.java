@@ -0,0 +1,49 @@
+/**
+ * @package com.nopaper.work.gateway.entity -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 7:38:24 am
+ * @git
+ */
+package com.nopaper.work.gateway.entity;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.nopaper.work.gateway.entity.audit.AbstractAuditEntity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * One version of the key a route's payloads are encrypted with. The newest version of a
+ * route encrypts; older ones still decrypt until they expire.
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Table(name = "route_keys", schema = "gateway")
+public class RouteKey extends AbstractAuditEntity {
+
+	private static final long serialVersionUID = -2093517722880455104L;
+
+	@Id
+	private Long id;
+
+	@Column("route_id")
+	private String routeId;
+
+	// Sent as X-Encryption-Key-Id; unique per route and only ever increasing
+	@Column("key_version")
+	private int keyVersion;
+
+	// Base64 AES key of 128, 192 or 256 bits
+	@Column("key_material")
+	private String keyMaterial;
+
+	// End of the grace period of a key that was rotated out; null while it is the newest
+	@Column("expires_at")
+	private Instant expiresAt;
+
+}
@@ -36,11 +36,62 @@ public class Routes extends AbstractAuditEntity {
     @Column("rateLimit_burst_capacity")
     private Integer rateLimitBurstCapacity;
     
+    // Fraction of the burst capacity the cluster may overshoot between Redis syncs; hybridRateLimiter only
+    @Column("rateLimit_allowed_error")
+    private Double rateLimitAllowedError;
+    
+    // Base64 AES key from before gateway.route_keys; only used while the route has no rows there
     @Column("encryption_key")
     private String encryptionKey;
     
+    // Encrypts payloads with the route's keys in gateway.route_keys, see RouteKeys
+    @Column("payload_encryption")
+    private boolean payloadEncryption;
+    
     private boolean enabled;
     
     @Column("key_resolver_name")
     private String keyResolverName;
+    
+    // Comma-separated KeyDimensions such as apiKey,route; keys the route with compositeKeyResolver
+    @Column("rate_limit_key")
+    private String rateLimitKey;
+    
+    // JSON tiered quota checked by tieredRateLimiter, see RateLimitPolicyResolver; replaces the rate columns
+    @Column("rate_limit_tiers")
+    private String rateLimitTiers;
+    
+    // RateLimiter bean, e.g. hybridRateLimiter or redisRateLimiter; null uses gateway.rate-limit.default-limiter
+    @Column("rate_limiter_name")
+    private String rateLimiterName;
+    
+    // JSON object of limiter settings, e.g. {"limit": 100, "window": "1m"} for slidingWindowRateLimiter
+    @Column("rate_limiter_args")
+    private String rateLimiterArgs;
+    
+    // JSON object with circuitBreaker, retry and hedge sections, see ResilienceGatewayFilterFactory
+    private String resilience;
+    
+    // Load-shedding class: CRITICAL, NORMAL or SHEDDABLE; null is NORMAL
+    private String priority;
+    
+    // JSON wrapping policy for successful responses, see ResponsePolicyResolver; null wraps JSON responses
+    @Column("response_policy")
+    private String responsePolicy;
+    
+    // JSON cache policy for GET responses, see ResponseCachePolicyResolver; null does not cache
+    @Column("response_cache")
+    private String responseCache;
+    
+    // JSON tracing policy, see TracingPolicyResolver; null traces by the gateway.tracing defaults
+    @Column("tracing")
+    private String tracing;
+    
+    // Canonical JSON of the compiled RouteDefinition, written by RouteService
+    @Column("compiled_definition")
+    private String compiledDefinition;
+    
+    // SHA-256 of the source columns and compiler version; rows it does not match are compiled again on load
+    @Column("definition_hash")
+    private String definitionHash;
 }
\ No newline at end of file
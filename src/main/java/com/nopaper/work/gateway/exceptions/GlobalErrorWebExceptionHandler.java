@@ -13,6 +13,7 @@ package com.nopaper.work.gateway.exceptions;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.constants.GatewayConstant;
 import com.nopaper.work.gateway.dto.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -77,14 +78,6 @@ public class GlobalErrorWebExceptionHandler implements ErrorWebExceptionHandler
     }
 
     private UUID getTraceId(ServerWebExchange exchange) {
-        Object traceIdAttr = exchange.getAttributes().get("requestId");
-        if (traceIdAttr instanceof String) {
-            try {
-                return UUID.fromString((String) traceIdAttr);
-            } catch (IllegalArgumentException e) {
-                log.warn("Could not parse requestId attribute to UUID: {}", traceIdAttr);
-            }
-        }
-        return null;
+        return exchange.getAttribute(GatewayConstant.REQUEST_ID_ATTR);
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:33:07 am
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.loadbalancer.InstanceLoad;
+import com.nopaper.work.gateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.nopaper.work.gateway.loadbalancer.Upstreams;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Keeps the {@link InstanceLoad} of the instance the load balancer chose up to date:
+ * counts the request in flight and, once the instance has answered, feeds back how long
+ * that took and whether it failed. Done here rather than through Spring Cloud's
+ * LoadBalancerLifecycle, which is not told about cancelled requests, e.g. hedges that
+ * lost the race, and would leave them counted in flight.
+ */
+@Component
+public class InstanceLoadFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (!(response instanceof PeakEwmaLoadBalancer.Choice choice)) {
+            return chain.filter(exchange);
+        }
+        InstanceLoad load = choice.load();
+        long start = System.nanoTime();
+        load.start(start);
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL || !ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+                load.abandon();
+                return;
+            }
+            long now = System.nanoTime();
+            boolean failed = signal == SignalType.ON_ERROR || Upstreams.isOverloaded(exchange.getResponse().getStatusCode());
+            load.finish(now, now - start, failed);
+        });
+    }
+
+    /**
+     * Runs right after the load balancer has chosen, so that the time measured is the
+     * instance's, up to its response headers.
+     */
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -10,7 +10,10 @@ package com.nopaper.work.gateway.filter;
  * 
  */
 
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
+import com.nopaper.work.gateway.services.IpBlacklistIndex;
 import com.nopaper.work.gateway.services.SecurityService;
+import com.nopaper.work.gateway.tracing.GatewayTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -21,11 +24,15 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.net.InetAddress;
 import java.util.Objects;
 
 /**
  * A global filter that checks if the IP address of an incoming request
- * is blacklisted. This filter runs before any routing logic.
+ * is blacklisted, either as a single address or by a CIDR range.
+ * This filter runs before any routing logic.
+ * Clean addresses are answered by the in-process {@link IpBlacklistIndex};
+ * only possible positives are confirmed through the caching service.
  */
 @Component
 @Slf4j
@@ -33,30 +40,49 @@ import java.util.Objects;
 public class IpBlacklistFilter implements GlobalFilter, Ordered {
 
     private final SecurityService securityService;
+    private final IpBlacklistIndex blacklistIndex;
+    private final GatewayTracing tracing;
+    private final GatewayMetrics metrics;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String clientIp = Objects.requireNonNull(exchange.getRequest().getRemoteAddress()).getAddress().getHostAddress();
+        return metrics.timeUntilHandOff(exchange, GatewayMetrics.Step.BLACKLIST_CHECK, chain,
+                (timed, next) -> tracing.traceUntilHandOff(timed, "blacklist check", next, this::check));
+    }
+
+    private Mono<Void> check(ServerWebExchange exchange, GatewayFilterChain chain) {
+        InetAddress address = Objects.requireNonNull(exchange.getRequest().getRemoteAddress()).getAddress();
+        String range = blacklistIndex.matchingRange(address);
+        boolean maybeListed = blacklistIndex.mightBeBlacklisted(address);
+        if (range == null && !maybeListed) {
+            // Definitely not blacklisted; no string, no cache or database round trip
+            return chain.filter(exchange);
+        }
 
-        // Check if the IP is blacklisted using the caching service
-        return securityService.isIpBlacklisted(clientIp)
+        // Confirm a matching range first, then the single address, using the caching service
+        Mono<Boolean> rangeBlacklisted = range != null ? securityService.isIpBlacklisted(range) : Mono.just(false);
+        return rangeBlacklisted
+            .flatMap(blocked -> blocked || !maybeListed
+                    ? Mono.just(blocked)
+                    : securityService.isIpBlacklisted(address.getHostAddress()))
             .flatMap(isBlacklisted -> {
                 if (isBlacklisted) {
-                    log.warn("Blocking request from blacklisted IP: {}", clientIp);
+                    log.warn("Blocking request from blacklisted IP: {}{}", address.getHostAddress(),
+                            range != null ? " (range " + range + ")" : "");
                     exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
                     return exchange.getResponse().setComplete(); // Block the request
                 }
-                log.debug("IP {} is not blacklisted. Allowing request to proceed.", clientIp);
+                log.debug("IP {} is not blacklisted. Allowing request to proceed.", address.getHostAddress());
                 return chain.filter(exchange); // Allow the request to continue
             });
     }
 
     /**
-     * Sets the order of the filter. We want this to run very early in the chain.
-     * HIGHEST_PRECEDENCE ensures it runs before almost all other filters.
+     * Sets the order of the filter. We want this to run very early in the chain,
+     * right after {@link TracingFilter} so that blocked requests are still traced.
      */
     @Override
     public int getOrder() {
-        return Ordered.HIGHEST_PRECEDENCE;
+        return Ordered.HIGHEST_PRECEDENCE + 1;
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 8:02:17 pm
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+/**
+ * Checks that a body streamed as {@link DataBuffer}s is exactly one well-formed JSON
+ * value, chunk by chunk, without holding on to the content. Built on Jackson's
+ * non-blocking parser, so it only tokenizes and never builds a tree.
+ * <p>
+ * Not thread-safe; use one instance per response.
+ */
+final class JsonStreamValidator {
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private boolean complete;
+    // Jackson's non-blocking parser takes '}' for the value or field name expected next
+    // when the input it was last fed ended with the ':' or ',' before it
+    private boolean separatorPending;
+
+    JsonStreamValidator(JsonFactory jsonFactory) throws IOException {
+        this.parser = jsonFactory.createNonBlockingByteBufferParser();
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Validates the readable bytes of a buffer without changing its read position.
+     *
+     * @throws IOException if the content seen so far is not well-formed JSON.
+     */
+    void feed(DataBuffer buffer) throws IOException {
+        try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+            while (chunks.hasNext()) {
+                ByteBuffer chunk = chunks.next();
+                boolean afterSeparator = separatorPending;
+                separatorPending = endsWithSeparator(chunk, separatorPending);
+                feeder.feedInput(chunk);
+                consumeTokens(afterSeparator);
+            }
+        }
+    }
+
+    /**
+     * Signals the end of the body.
+     *
+     * @throws IOException if the body ended before one complete JSON value.
+     */
+    void finish() throws IOException {
+        try {
+            feeder.endOfInput();
+            consumeTokens(false);
+            if (!complete) {
+                throw new JsonParseException(parser, "Unexpected end of JSON content");
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * @param afterSeparator Whether the input fed before ended with ':' or ',', which
+     *                       end any token before them, so that the next token is the one
+     *                       that must follow them.
+     */
+    private void consumeTokens(boolean afterSeparator) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (complete) {
+                throw new JsonParseException(parser, "Unexpected content after the JSON value");
+            }
+            if (afterSeparator && token == JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unexpected end of object after ':' or ','");
+            }
+            afterSeparator = false;
+            complete = parser.getParsingContext().inRoot();
+        }
+    }
+
+    /** Whether the last byte other than whitespace is ':' or ','; {@code otherwise} if there is none. */
+    private static boolean endsWithSeparator(ByteBuffer chunk, boolean otherwise) {
+        for (int i = chunk.limit() - 1; i >= chunk.position(); i--) {
+            byte b = chunk.get(i);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return b == ':' || b == ',';
+            }
+        }
+        return otherwise;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 2:14:33 am
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.loadbalancer.Upstreams;
+import com.nopaper.work.gateway.shedding.AdaptiveConcurrencyLimit;
+import com.nopaper.work.gateway.shedding.AdaptiveConcurrencyLimits;
+import com.nopaper.work.gateway.shedding.RequestPriority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Sheds load at the edge: a request is only let through if both its route and the
+ * upstream service behind it have a free slot in their {@link AdaptiveConcurrencyLimit},
+ * and is otherwise answered right away with 503 and {@code Retry-After}, before any
+ * other work is spent on it.
+ * <p>
+ * The limits follow the response times measured from the start recorded by
+ * {@link RequestLoggingFilter}, counting only requests that reached the upstream.
+ * Priority comes from the route's {@code priority} column (normal if unset); clients
+ * can lower it, never raise it, with the {@code gateway.load-shedding.priority-header}.
+ */
+@Component
+@Slf4j
+public class LoadSheddingFilter implements GlobalFilter, Ordered {
+
+    private static final String[] SCOPES = { "route", "upstream" };
+
+    private final AdaptiveConcurrencyLimits limits;
+    private final boolean enabled;
+    private final String retryAfter;
+    private final String priorityHeader;
+    // Shed requests by scope and priority
+    private final Counter[][] shed;
+
+    public LoadSheddingFilter(
+            AdaptiveConcurrencyLimits limits,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.load-shedding.enabled:true}") boolean enabled,
+            @Value("${gateway.load-shedding.retry-after:1s}") Duration retryAfter,
+            @Value("${gateway.load-shedding.priority-header:X-Request-Priority}") String priorityHeader)
+    {
+        this.limits = limits;
+        this.enabled = enabled;
+        this.retryAfter = String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+        this.priorityHeader = priorityHeader;
+        this.shed = new Counter[SCOPES.length][RequestPriority.values().length];
+        for (int scope = 0; scope < SCOPES.length; scope++) {
+            for (RequestPriority priority : RequestPriority.values()) {
+                shed[scope][priority.ordinal()] = Counter.builder("gateway.load_shed")
+                        .description("Requests turned away because a concurrency limit was reached")
+                        .tags("scope", SCOPES[scope], "priority", priority.name().toLowerCase(Locale.ROOT))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null) {
+            return chain.filter(exchange);
+        }
+        RequestPriority priority = priority(exchange, route);
+        AdaptiveConcurrencyLimit routeLimit = limits.route(route.getId());
+        AdaptiveConcurrencyLimit upstreamLimit = limits.upstream(Upstreams.service(route.getUri()));
+
+        int routeInFlight = routeLimit.tryAcquire(priority.share());
+        if (routeInFlight < 0) {
+            return shed(exchange, 0, priority);
+        }
+        int upstreamInFlight = upstreamLimit.tryAcquire(priority.share());
+        if (upstreamInFlight < 0) {
+            routeLimit.release();
+            return shed(exchange, 1, priority);
+        }
+
+        Long startedAt = exchange.getAttribute(GatewayConstant.REQUEST_START_ATTR);
+        long start = startedAt != null ? startedAt : System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            routeLimit.release();
+            upstreamLimit.release();
+            // Requests answered by the gateway itself say nothing about the upstream
+            if (signal == SignalType.CANCEL || !ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+                return;
+            }
+            long rtt = System.nanoTime() - start;
+            boolean dropped = signal == SignalType.ON_ERROR || Upstreams.isOverloaded(exchange.getResponse().getStatusCode());
+            routeLimit.onSample(rtt, routeInFlight, dropped);
+            upstreamLimit.onSample(rtt, upstreamInFlight, dropped);
+        });
+    }
+
+    private RequestPriority priority(ServerWebExchange exchange, Route route) {
+        Object configured = route.getMetadata().get(RequestPriority.METADATA_KEY);
+        RequestPriority priority = configured != null ? RequestPriority.valueOf(configured.toString()) : RequestPriority.NORMAL;
+        String requested = exchange.getRequest().getHeaders().getFirst(priorityHeader);
+        if (requested != null) {
+            try {
+                RequestPriority lowered = RequestPriority.of(requested);
+                if (lowered.compareTo(priority) > 0) {
+                    priority = lowered;
+                }
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring unknown request priority {}", requested);
+            }
+        }
+        return priority;
+    }
+
+    private Mono<Void> shed(ServerWebExchange exchange, int scope, RequestPriority priority) {
+        shed[scope][priority.ordinal()].increment();
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Runs right after {@link RequestLoggingFilter}, so that shed requests are still
+     * logged but nothing else is done for them.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 3;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 6:44:52 am
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.SecretKey;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.crypto.RouteKeySet;
+import com.nopaper.work.gateway.crypto.RouteKeys;
+import com.nopaper.work.gateway.crypto.StreamingAesGcm;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Encrypts the payloads of routes with {@code payload_encryption}: request bodies arrive
+ * encrypted and are decrypted on their way upstream, and response bodies are encrypted
+ * on their way to the client, both with {@link StreamingAesGcm} as they stream.
+ * <p>
+ * Keys come from {@link RouteKeys}. Responses are encrypted with the route's newest key
+ * and name its version in {@value GatewayConstant#ENCRYPTION_KEY_ID_HEADER}; a request
+ * body names the version it was encrypted with the same way, or is taken to use the
+ * newest, so that clients keep working with the old key while a rotation's grace period
+ * lasts. Requests carrying {@code gateway.payload-encryption.tenant-header} use their
+ * tenant's key derived from the route's instead.
+ * <p>
+ * Encrypted bodies are marked with the {@value GatewayConstant#ENCRYPTED_CONTENT_CODING}
+ * content coding, last in {@code Content-Encoding}, so that a compressed body is
+ * compressed before it is encrypted. A request body without it is refused with 415, and
+ * one that fails authentication with 400; {@code Content-Length} is translated both ways
+ * when it is known. The filter runs before {@link ResponseCacheFilter}, so cached
+ * responses are kept in the clear and encrypted afresh for every client. Error
+ * responses rendered by the gateway's error handler are not encrypted, nor are the
+ * flushes of streaming responses kept, since segments are only sent once full.
+ */
+@Component
+public class PayloadEncryptionFilter implements GlobalFilter, Ordered {
+
+    private final RouteKeys routeKeys;
+    private final boolean enabled;
+    private final String tenantHeader;
+
+    public PayloadEncryptionFilter(
+            RouteKeys routeKeys,
+            @Value("${gateway.payload-encryption.enabled:true}") boolean enabled,
+            @Value("${gateway.payload-encryption.tenant-header:X-Tenant-ID}") String tenantHeader)
+    {
+        this.routeKeys = routeKeys;
+        this.enabled = enabled;
+        this.tenantHeader = tenantHeader;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null || !route.getMetadata().containsKey(RouteKeys.METADATA_KEY)) {
+            return chain.filter(exchange);
+        }
+        return routeKeys.keys(route.getId()).flatMap(keys -> filter(exchange, chain, route.getId(), keys));
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, String routeId, RouteKeySet keys) {
+        long now = System.currentTimeMillis();
+        RouteKeySet.Version active = keys.active(now);
+        if (active == null) {
+            // Fail closed rather than pass the payload in the clear
+            return Mono.error(new IllegalStateException("Route " + routeId + " has no encryption key in force"));
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        String tenant = headers.getFirst(tenantHeader);
+        List<String> codings = codings(headers);
+        boolean encrypted = !codings.isEmpty()
+                && codings.get(codings.size() - 1).equalsIgnoreCase(GatewayConstant.ENCRYPTED_CONTENT_CODING);
+        if (!encrypted && (headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING))) {
+            return Mono.error(new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Request body must be encrypted with the route's key"));
+        }
+        ServerWebExchange.Builder mutated = exchange.mutate()
+                .response(new EncryptingResponse(exchange.getResponse(), routeKeys.key(routeId, active, tenant), active.id(),
+                        request.getMethod()));
+        if (encrypted) {
+            RouteKeySet.Version version = version(keys, headers.getFirst(GatewayConstant.ENCRYPTION_KEY_ID_HEADER), active, now);
+            if (version == null) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Request body is encrypted with an unknown or expired key"));
+            }
+            long length = headers.getContentLength();
+            long plaintextLength = length >= 0 ? StreamingAesGcm.plaintextLength(length) : -1;
+            if (length >= 0 && plaintextLength < 0) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Encrypted request body is truncated"));
+            }
+            mutated.request(new DecryptingRequest(request, routeKeys.key(routeId, version, tenant),
+                    codings.subList(0, codings.size() - 1), plaintextLength, exchange.getResponse().bufferFactory()));
+        }
+        return chain.filter(mutated.build());
+    }
+
+    /** The version a request body names, the active one if it names none. */
+    private static RouteKeySet.Version version(RouteKeySet keys, String keyId, RouteKeySet.Version active, long now) {
+        if (keyId == null) {
+            return active;
+        }
+        try {
+            return keys.find(Integer.parseInt(keyId.trim()), now);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> codings(HttpHeaders headers) {
+        List<String> codings = new ArrayList<>(2);
+        for (String value : headers.getOrEmpty(HttpHeaders.CONTENT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                if (!coding.isBlank()) {
+                    codings.add(coding.trim());
+                }
+            }
+        }
+        return codings;
+    }
+
+    private static final class DecryptingRequest extends ServerHttpRequestDecorator {
+
+        private final SecretKey key;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final DataBufferFactory bufferFactory;
+
+        /**
+         * @param codings The content codings of the body once decrypted.
+         * @param length  Length of the body once decrypted, or -1 if not known.
+         */
+        DecryptingRequest(ServerHttpRequest delegate, SecretKey key, List<String> codings, long length,
+                DataBufferFactory bufferFactory)
+        {
+            super(delegate);
+            this.key = key;
+            this.bufferFactory = bufferFactory;
+            headers.putAll(delegate.getHeaders());
+            headers.remove(GatewayConstant.ENCRYPTION_KEY_ID_HEADER);
+            if (codings.isEmpty()) {
+                headers.remove(HttpHeaders.CONTENT_ENCODING);
+            } else {
+                headers.set(HttpHeaders.CONTENT_ENCODING, String.join(", ", codings));
+            }
+            if (length >= 0) {
+                headers.setContentLength(length);
+            }
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return StreamingAesGcm.decrypt(super.getBody(), key, bufferFactory)
+                    .onErrorMap(IllegalArgumentException.class,
+                            e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Request body could not be decrypted", e));
+        }
+    }
+
+    private static final class EncryptingResponse extends ServerHttpResponseDecorator {
+
+        private final SecretKey key;
+        private final int keyId;
+        private final HttpMethod method;
+
+        EncryptingResponse(ServerHttpResponse delegate, SecretKey key, int keyId, HttpMethod method) {
+            super(delegate);
+            this.key = key;
+            this.keyId = keyId;
+            this.method = method;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (method == HttpMethod.HEAD || status != null
+                    && (status.value() == HttpStatus.NO_CONTENT.value() || status.value() == HttpStatus.NOT_MODIFIED.value())) {
+                return super.writeWith(body);
+            }
+            HttpHeaders headers = getHeaders();
+            List<String> codings = codings(headers);
+            codings.add(GatewayConstant.ENCRYPTED_CONTENT_CODING);
+            headers.set(HttpHeaders.CONTENT_ENCODING, String.join(", ", codings));
+            headers.set(GatewayConstant.ENCRYPTION_KEY_ID_HEADER, Integer.toString(keyId));
+            long length = headers.getContentLength();
+            if (length >= 0) {
+                headers.setContentLength(StreamingAesGcm.ciphertextLength(length));
+            }
+            return super.writeWith(StreamingAesGcm.encrypt(Flux.from(body), key, bufferFactory()));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Outside ResponseCacheFilter, see above
+        return -4;
+    }
+}
@@ -10,7 +10,10 @@ package com.nopaper.work.gateway.filter;
  * 
  */
 
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
 import com.nopaper.work.gateway.services.LoggingService;
+import com.nopaper.work.gateway.tracing.RequestIds;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -32,33 +35,42 @@ import java.util.UUID;
 public class RequestLoggingFilter implements GlobalFilter, Ordered {
 
     private final LoggingService loggingService;
+    private final GatewayMetrics metrics;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        long startTime = System.currentTimeMillis();
-        String requestId = UUID.randomUUID().toString();
+        long startTime = System.nanoTime();
+        UUID requestId = RequestIds.next();
+        // Shared with LoadSheddingFilter, whose concurrency limits follow the same response times
+        exchange.getAttributes().put(GatewayConstant.REQUEST_START_ATTR, startTime);
 
-        // Add unique identifiers to the exchange for downstream services or logs
-        exchange.getAttributes().put("requestId", requestId);
-        // Assuming a traceId might be passed from an upstream system, or we generate one
-        String traceId = exchange.getRequest().getHeaders().getFirst("X-Trace-ID");
-        if (traceId == null) {
-            traceId = UUID.randomUUID().toString();
+        // Add unique identifiers to the exchange for downstream services or logs; kept as a UUID
+        // and only turned into text by whoever writes it out
+        exchange.getAttributes().put(GatewayConstant.REQUEST_ID_ATTR, requestId);
+        // A trace passed from an upstream system is kept; TracingFilter has already put the
+        // request's OpenTelemetry trace, unless tracing is off
+        String traceId = exchange.getRequest().getHeaders().getFirst(GatewayConstant.TRACE_ID_HEADER);
+        if (traceId != null) {
+            exchange.getAttributes().putIfAbsent(GatewayConstant.TRACE_ID_ATTR, traceId);
         }
-        exchange.getAttributes().put("traceId", traceId);
 
         // The .then() operator executes after the filter chain has completed
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("Request {} to {} completed with status {} in {} ms",
-                    requestId,
-                    exchange.getRequest().getURI(),
-                    exchange.getResponse().getStatusCode(),
-                    duration);
+        return chain.filter(exchange)
+                .doOnError(error -> metrics.recordRequest(exchange, System.nanoTime() - startTime, error))
+                .doOnCancel(() -> metrics.recordCancelled(exchange, System.nanoTime() - startTime))
+                .then(Mono.fromRunnable(() -> {
+                    long elapsed = System.nanoTime() - startTime;
+                    metrics.recordRequest(exchange, elapsed, null);
+                    long duration = elapsed / 1_000_000;
+                    log.info("Request {} to {} completed with status {} in {} ms",
+                            requestId,
+                            exchange.getRequest().getURI(),
+                            exchange.getResponse().getStatusCode(),
+                            duration);
 
-            // Use the existing LoggingService to save the log asynchronously
-            loggingService.logRequest(exchange, duration).subscribe();
-        }));
+                    // Hand the log to the LoggingService; it is written asynchronously in batches
+                    loggingService.logRequest(exchange, duration);
+                }));
     }
 
     /**
@@ -67,7 +79,7 @@ public class RequestLoggingFilter implements GlobalFilter, Ordered {
      */
     @Override
     public int getOrder() {
-        // HIGHEST_PRECEDENCE is -2147483648. We set this to run just after.
-        return Ordered.HIGHEST_PRECEDENCE + 1;
+        // HIGHEST_PRECEDENCE is -2147483648. We set this to run just after TracingFilter and the blacklist.
+        return Ordered.HIGHEST_PRECEDENCE + 2;
     }
 }
\ No newline at end of file
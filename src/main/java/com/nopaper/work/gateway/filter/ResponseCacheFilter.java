@@ -0,0 +1,354 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 5:49:18 am
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.cache.CachedResponse;
+import com.nopaper.work.gateway.cache.CapturingExchange;
+import com.nopaper.work.gateway.cache.ResponseCachePolicy;
+import com.nopaper.work.gateway.cache.ResponseCachePolicyResolver;
+import com.nopaper.work.gateway.cache.ResponseCacheStore;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.metrics.MeteredCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers GET requests of routes with a {@code response_cache} policy from the
+ * {@link ResponseCacheStore}, and fills it with the responses that go out.
+ * <p>
+ * The cache key is the route, method, path, query (parameters in name order) and the
+ * request headers the policy names. Requests carrying {@code Authorization} or
+ * {@code Cookie} are only cached on routes that key on that header; requests with {@code Cache-Control: no-store}, or
+ * for a range, are passed through, and {@code no-cache} ones skip the lookup.
+ * <ul>
+ * <li>A fresh entry is served as it is, or as 304 if the client's {@code If-None-Match}
+ * or {@code If-Modified-Since} matches it.</li>
+ * <li>A stale entry within its stale-while-revalidate time is served too, while the
+ * request is run once more in the background, conditionally, to refresh it.</li>
+ * <li>Otherwise the request goes upstream, made conditional if the entry it replaces has
+ * an {@code ETag} or {@code Last-Modified}; a 304 then refreshes and serves the entry.
+ * A 200 is streamed to the client and copied into the cache at the same time.</li>
+ * </ul>
+ * The filter runs before {@link StandardResponseFilter}, so entries hold the body as the
+ * client received it, envelope included, and hits are not wrapped again. That also means
+ * the envelope of a hit is the one rendered for the request that filled the entry. Hits
+ * skip the route filters, rate limiting among them. Outcomes are counted per route as
+ * {@code gateway.response_cache}, for at most {@code gateway.metrics.max-routes} routes,
+ * and told to clients in {@code X-Cache}.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private enum Outcome {
+        HIT, STALE, REVALIDATED, MISS
+    }
+
+    // Shared with the upstream request when the client sets them, otherwise set by the cache
+    private static final List<String> CONDITIONAL_HEADERS = List.of(HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+
+    // Requests carrying one of these bypass the cache unless the policy keys on it
+    private static final List<String> CREDENTIAL_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE);
+
+    private final ResponseCachePolicyResolver policyResolver;
+    private final ResponseCacheStore store;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final MeteredCache<Map<Outcome, Counter>> outcomes;
+    // Keys whose background revalidation is under way, so that a burst of stale hits starts only one
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    public ResponseCacheFilter(
+            ResponseCachePolicyResolver policyResolver,
+            ResponseCacheStore store,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.response-cache.enabled:true}") boolean enabled,
+            @Value("${gateway.metrics.max-routes:1000}") long maxRoutes)
+    {
+        this.policyResolver = policyResolver;
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.outcomes = new MeteredCache<>(meterRegistry, maxRoutes, this::counters);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || route == null || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        ResponseCachePolicy policy = policyResolver.resolve(route);
+        List<String> requestDirectives = request.getHeaders().getOrEmpty(HttpHeaders.CACHE_CONTROL);
+        if (policy == null || contains(requestDirectives, "no-store") || request.getHeaders().containsKey(HttpHeaders.RANGE)
+                || carriesUnkeyedCredentials(request.getHeaders(), policy)) {
+            return chain.filter(exchange);
+        }
+        String key = key(route.getId(), request, policy);
+        if (contains(requestDirectives, "no-cache")) {
+            return fetch(exchange, chain, route, policy, key, null);
+        }
+        return store.get(key)
+                .flatMap(entry -> {
+                    long now = System.currentTimeMillis();
+                    if (entry.isFresh(now)) {
+                        return serve(exchange, entry, route, Outcome.HIT, now).thenReturn(true);
+                    }
+                    if (entry.isServableStale(now)) {
+                        revalidate(exchange, chain, route, policy, key, entry);
+                        return serve(exchange, entry, route, Outcome.STALE, now).thenReturn(true);
+                    }
+                    return fetch(exchange, chain, route, policy, key, entry).thenReturn(true);
+                })
+                .switchIfEmpty(Mono.defer(() -> fetch(exchange, chain, route, policy, key, null).thenReturn(true)))
+                .then();
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse entry, Route route, Outcome outcome, long now) {
+        count(route, outcome);
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(entry.headers());
+        headers.set(HttpHeaders.AGE, String.valueOf(Math.max(0, (now - entry.storedAt()) / 1000)));
+        headers.set(GatewayConstant.CACHE_STATUS_HEADER, outcome.name());
+        if (isNotModified(exchange.getRequest().getHeaders(), entry.headers())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(entry.status()));
+        headers.setContentLength(entry.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(entry.body())));
+    }
+
+    /**
+     * Sends the request upstream and caches the response on its way to the client. With a
+     * {@code stale} entry that can be revalidated, and a client that did not ask
+     * conditionally itself, the request asks whether that entry still holds.
+     */
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, Route route, ResponseCachePolicy policy,
+            String key, CachedResponse stale)
+    {
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        boolean conditional = stale != null && stale.hasValidators()
+                && CONDITIONAL_HEADERS.stream().noneMatch(requestHeaders::containsKey);
+        ServerWebExchange upstream = conditional
+                ? exchange.mutate().request(request -> request.headers(headers -> headers.putAll(conditionalHeaders(stale)))).build()
+                : exchange;
+
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                long now = System.currentTimeMillis();
+                HttpStatusCode status = getStatusCode();
+                if (conditional && status != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+                    CachedResponse refreshed = stale.revalidated(getHeaders(), policy, now);
+                    Mono<Void> drained = Flux.from(body).doOnNext(DataBufferUtils::release).then();
+                    if (refreshed == null) {
+                        store.remove(key);
+                        return drained.then(super.writeWith(Flux.empty()));
+                    }
+                    store.put(key, refreshed);
+                    getHeaders().clear();
+                    return drained.then(serve(exchange, refreshed, route, Outcome.REVALIDATED, now));
+                }
+                if (status == null || status.value() != HttpStatus.OK.value()) {
+                    return super.writeWith(body);
+                }
+                count(route, Outcome.MISS);
+                getHeaders().set(GatewayConstant.CACHE_STATUS_HEADER, Outcome.MISS.name());
+                ByteArrayOutputStream copy = new ByteArrayOutputStream();
+                boolean[] overflow = new boolean[1];
+                Flux<DataBuffer> teed = Flux.<DataBuffer>from(body).doOnNext(buffer -> {
+                    int length = buffer.readableByteCount();
+                    if (overflow[0] || copy.size() + length > policy.maxEntryBytes()) {
+                        overflow[0] = true;
+                        return;
+                    }
+                    byte[] bytes = new byte[length];
+                    buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), 0, length);
+                    copy.writeBytes(bytes);
+                });
+                return super.writeWith(teed).doOnSuccess(done -> {
+                    if (!overflow[0]) {
+                        CachedResponse entry = CachedResponse.of(HttpStatus.OK.value(), getHeaders(), copy.toByteArray(), policy,
+                                System.currentTimeMillis());
+                        if (entry != null) {
+                            store.put(key, entry);
+                        }
+                    }
+                });
+            }
+        };
+        return chain.filter(upstream.mutate().response(response).build());
+    }
+
+    /** Runs the request again in the background, conditionally, and refreshes or replaces the entry with the answer. */
+    private void revalidate(ServerWebExchange exchange, GatewayFilterChain chain, Route route, ResponseCachePolicy policy,
+            String key, CachedResponse entry)
+    {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        CapturingExchange capture = new CapturingExchange(exchange, Map.copyOf(exchange.getAttributes()),
+                conditionalHeaders(entry), policy.maxEntryBytes());
+        chain.filter(capture)
+                .then(Mono.fromRunnable(() -> {
+                    long now = System.currentTimeMillis();
+                    HttpStatusCode status = capture.statusCode();
+                    if (status != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+                        CachedResponse refreshed = entry.revalidated(capture.responseHeaders(), policy, now);
+                        if (refreshed != null) {
+                            store.put(key, refreshed);
+                        } else {
+                            store.remove(key);
+                        }
+                    } else if (status != null && status.value() == HttpStatus.OK.value() && capture.body() != null) {
+                        CachedResponse replaced = CachedResponse.of(status.value(), capture.responseHeaders(), capture.body(), policy, now);
+                        if (replaced != null) {
+                            store.put(key, replaced);
+                        } else {
+                            store.remove(key);
+                        }
+                    }
+                    // Anything else leaves the entry to be served until its stale time runs out
+                }))
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(null, e -> log.debug("Background revalidation of route {} failed: {}", route.getId(), e.getMessage()));
+    }
+
+    private void count(Route route, Outcome outcome) {
+        outcomes.get(route.getId()).get(outcome).increment();
+    }
+
+    private Map<Outcome, Counter> counters(String routeId, MeteredCache.Meters meters) {
+        Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+        for (Outcome value : Outcome.values()) {
+            counters.put(value, meters.add(Counter.builder("gateway.response_cache")
+                    .description("GET requests of cached routes, by whether the cache could answer them")
+                    .tags("route", routeId, "result", value.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)));
+        }
+        return counters;
+    }
+
+    static String key(String routeId, ServerHttpRequest request, ResponseCachePolicy policy) {
+        StringBuilder key = new StringBuilder(128)
+                .append(routeId).append(' ')
+                .append(request.getMethod().name()).append(' ')
+                .append(request.getPath().value());
+        String query = request.getURI().getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            // Stable sort by name only, so that repeated parameters keep their order
+            String[] parameters = query.split("&");
+            Arrays.sort(parameters, Comparator.comparing(parameter -> {
+                int equals = parameter.indexOf('=');
+                return equals >= 0 ? parameter.substring(0, equals) : parameter;
+            }));
+            key.append('?').append(String.join("&", parameters));
+        }
+        for (String header : policy.varyHeaders()) {
+            key.append('\n').append(header.toLowerCase(Locale.ROOT)).append(':')
+                    .append(String.join(",", request.getHeaders().getOrEmpty(header)));
+        }
+        return key.toString();
+    }
+
+    private static HttpHeaders conditionalHeaders(CachedResponse entry) {
+        HttpHeaders headers = new HttpHeaders();
+        String etag = entry.headers().getETag();
+        if (etag != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        String lastModified = entry.headers().getFirst(HttpHeaders.LAST_MODIFIED);
+        if (lastModified != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        return headers;
+    }
+
+    // If-None-Match takes precedence; ETags are compared weakly, as for GET
+    private static boolean isNotModified(HttpHeaders request, HttpHeaders entry) {
+        List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = entry.getETag();
+            return etag != null && ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || opaque(tag).equals(opaque(etag)));
+        }
+        long ifModifiedSince = request.getIfModifiedSince();
+        long lastModified = entry.getLastModified();
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // Credentials the key leaves out would let one caller's response be served to another
+    private static boolean carriesUnkeyedCredentials(HttpHeaders headers, ResponseCachePolicy policy) {
+        for (String header : CREDENTIAL_HEADERS) {
+            if (headers.containsKey(header) && !policy.varies(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(List<String> directives, String directive) {
+        for (String value : directives) {
+            for (String part : value.split(",")) {
+                if (part.trim().equalsIgnoreCase(directive)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs after load shedding and before {@link StandardResponseFilter}, so that it sees
+     * the response as the client gets it.
+     */
+    @Override
+    public int getOrder() {
+        return -3;
+    }
+}
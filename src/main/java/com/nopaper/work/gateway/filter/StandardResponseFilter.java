@@ -12,34 +12,86 @@ package com.nopaper.work.gateway.filter;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+import com.nopaper.work.gateway.transformer.ResponsePolicy;
+import com.nopaper.work.gateway.transformer.ResponsePolicyResolver;
+import com.nopaper.work.gateway.transformer.ResponseTransformer;
 import com.nopaper.work.gateway.transformer.ResponseTransformerFactory;
-import lombok.RequiredArgsConstructor;
+import com.nopaper.work.gateway.transformer.StreamingEnvelope;
 import lombok.extern.slf4j.Slf4j;
 import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
+/**
+ * Wraps successful responses in the envelope chosen by {@link ResponseTransformerFactory}.
+ * <p>
+ * Each route's {@link ResponsePolicy} decides which responses are wrapped; everything
+ * else, such as binary downloads, is passed through untouched without being read.
+ * <p>
+ * In {@code STREAMING} mode, JSON responses are not buffered: the envelope prefix is
+ * written, the upstream buffers are passed through unchanged as the body field while a
+ * {@link JsonStreamValidator} checks them, and the suffix is written at the end. The
+ * response goes out chunked. Other responses, and every response in {@code BUFFERED}
+ * mode, are read fully, parsed and re-serialized, unless they are larger than the
+ * policy's buffer limit.
+ */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class StandardResponseFilter implements GlobalFilter, Ordered {
 
+    public enum EnvelopeMode {
+        /** Stream JSON bodies through the envelope without buffering them. */
+        STREAMING,
+        /** Buffer and parse every body before wrapping it. */
+        BUFFERED
+    }
+
     private final ResponseTransformerFactory transformerFactory;
+    private final ResponsePolicyResolver policyResolver;
     private final ObjectMapper objectMapper;
+    private final EnvelopeMode envelopeMode;
+    private final GatewayTracing tracing;
+    private final GatewayMetrics metrics;
+
+    public StandardResponseFilter(
+            ResponseTransformerFactory transformerFactory,
+            ResponsePolicyResolver policyResolver,
+            ObjectMapper objectMapper,
+            GatewayTracing tracing,
+            GatewayMetrics metrics,
+            @Value("${gateway.response.envelope-mode:STREAMING}") EnvelopeMode envelopeMode)
+    {
+        this.transformerFactory = transformerFactory;
+        this.policyResolver = policyResolver;
+        this.objectMapper = objectMapper;
+        this.tracing = tracing;
+        this.metrics = metrics;
+        this.envelopeMode = envelopeMode;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // The route is matched by now: resolve its policy and transformer once for this exchange
+        ResponsePolicy policy = policyResolver.resolve(exchange);
+        ResponseTransformer transformer = transformerFactory.resolve(exchange, policy.profile());
+
         ServerHttpResponseDecorator responseDecorator = new ServerHttpResponseDecorator(exchange.getResponse()) {
             @Override
             public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
@@ -50,47 +102,176 @@ public class StandardResponseFilter implements GlobalFilter, Ordered {
                     return super.writeWith(body);
                 }
 
-                return DataBufferUtils.join(body)
-                    .flatMap(dataBuffer -> {
-                        // 1. Buffer the original response body.
-                        byte[] content = new byte[dataBuffer.readableByteCount()];
-                        dataBuffer.read(content);
-                        DataBufferUtils.release(dataBuffer);
-                        String originalBody = new String(content, StandardCharsets.UTF_8);
-
-                        if (originalBody.isEmpty()) {
-                            return getDelegate().writeWith(Mono.empty());
-                        }
-
-                        try {
-                            // 2. Parse the body and get the correct dynamic transformer.
-                            JsonNode jsonBody = objectMapper.readTree(originalBody);
-                            var transformer = transformerFactory.getTransformer(exchange);
-                            
-                            // 3. Apply the transformation to create the final response object.
-                            Object transformedBody = transformer.transform(exchange, jsonBody);
-                            byte[] finalResponseBytes = objectMapper.writeValueAsBytes(transformedBody);
-
-                            // 4. Set headers and write the new, transformed body.
-                            getDelegate().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-                            getDelegate().getHeaders().setContentLength(finalResponseBytes.length);
-                            return getDelegate().writeWith(Mono.just(getDelegate().bufferFactory().wrap(finalResponseBytes)));
-
-                        } catch (Exception e) {
-                            log.error("Error processing response. Returning original content. Error: {}", e.getMessage());
-                            // In case of an error, safely return the original content.
-                            return getDelegate().writeWith(Mono.just(getDelegate().bufferFactory().wrap(content)));
-                        }
-                    });
+                MediaType contentType = getDelegate().getHeaders().getContentType();
+                if (!policy.appliesTo(contentType)) {
+                    return super.writeWith(body);
+                }
+
+                if (envelopeMode == EnvelopeMode.STREAMING && isJson(contentType)) {
+                    return transform(exchange, writeStreaming(exchange, transformer, policy, this, body));
+                }
+                long contentLength = getDelegate().getHeaders().getContentLength();
+                if (contentLength > policy.maxBufferBytes()) {
+                    return super.writeWith(body);
+                }
+                return transform(exchange, writeBuffered(exchange, transformer, policy, this, body));
             }
         };
 
         return chain.filter(exchange.mutate().response(responseDecorator).build());
     }
 
+    // Times and traces writing the transformed response
+    private Mono<Void> transform(ServerWebExchange exchange, Mono<Void> write) {
+        return metrics.time(exchange, GatewayMetrics.Step.RESPONSE_TRANSFORM,
+                tracing.trace(exchange, "response transform", write));
+    }
+
+    private Mono<Void> writeStreaming(ServerWebExchange exchange, ResponseTransformer transformer, ResponsePolicy policy,
+            ServerHttpResponseDecorator response, Publisher<? extends DataBuffer> body) {
+        StreamingEnvelope envelope;
+        JsonStreamValidator validator;
+        try {
+            envelope = StreamingEnvelope.render(objectMapper, transformer, exchange);
+            validator = new JsonStreamValidator(objectMapper.getFactory());
+        } catch (Exception e) {
+            log.warn("Cannot stream the response envelope, buffering instead. Error: {}", e.getMessage());
+            return writeBuffered(exchange, transformer, policy, response, body);
+        }
+
+        return Flux.from(body).switchOnFirst((signal, buffers) -> {
+            if (!signal.hasValue()) {
+                // Empty body or an upstream error: nothing to wrap
+                return response.getDelegate().writeWith(buffers);
+            }
+            DataBuffer first = signal.get();
+            try {
+                validator.feed(first);
+            } catch (IOException e) {
+                // Labelled as JSON but is not: the envelope is not committed yet, so pass it on untouched
+                log.error("Error processing response. Returning original content. Error: {}", e.getMessage());
+                return response.getDelegate().writeWith(buffers);
+            }
+
+            HttpHeaders headers = response.getDelegate().getHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            // Without a Content-Length the server falls back to chunked transfer encoding
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+            Flux<DataBuffer> validated = buffers.handle((buffer, sink) -> {
+                if (buffer != first) {
+                    try {
+                        validator.feed(buffer);
+                    } catch (IOException e) {
+                        DataBufferUtils.release(buffer);
+                        sink.error(new IllegalStateException("Upstream response is not well-formed JSON", e));
+                        return;
+                    }
+                }
+                sink.next(buffer);
+            });
+            Mono<DataBuffer> suffix = Mono.fromCallable(() -> {
+                validator.finish();
+                return response.bufferFactory().wrap(envelope.suffix());
+            });
+            return response.getDelegate().writeWith(Flux.concat(
+                    Mono.fromSupplier(() -> response.bufferFactory().wrap(envelope.prefix())),
+                    validated,
+                    suffix));
+        }).then().doOnError(e -> log.error("Aborted streaming response envelope. Error: {}", e.getMessage()));
+    }
+
+    private Mono<Void> writeBuffered(ServerWebExchange exchange, ResponseTransformer transformer, ResponsePolicy policy,
+            ServerHttpResponseDecorator response, Publisher<? extends DataBuffer> body) {
+        // Collect up to the policy's limit. The first list holds either the whole body
+        // or, once the limit is crossed, everything read so far; then the body is passed
+        // through as it is.
+        long[] size = new long[1];
+        return Flux.<DataBuffer>from(body)
+            .bufferUntil(buffer -> (size[0] += buffer.readableByteCount()) > policy.maxBufferBytes())
+            .switchOnFirst((signal, chunks) -> {
+                if (signal.hasValue() && size[0] > policy.maxBufferBytes()) {
+                    return response.getDelegate().writeWith(chunks.concatMapIterable(chunk -> chunk));
+                }
+                return chunks.next().flatMap(chunk -> wrapBuffered(exchange, transformer, response, chunk));
+            })
+            .then();
+    }
+
+    private Mono<Void> wrapBuffered(ServerWebExchange exchange, ResponseTransformer transformer,
+            ServerHttpResponseDecorator response, List<DataBuffer> chunk) {
+        DataBuffer joined = response.bufferFactory().join(chunk);
+        if (transformer.envelopePlan() != null) {
+            return wrapPlanned(exchange, transformer, response, joined);
+        }
+        return Mono.just(joined)
+            .flatMap(dataBuffer -> {
+                // 1. Buffer the original response body.
+                byte[] content = new byte[dataBuffer.readableByteCount()];
+                dataBuffer.read(content);
+                DataBufferUtils.release(dataBuffer);
+                String originalBody = new String(content, StandardCharsets.UTF_8);
+
+                if (originalBody.isEmpty()) {
+                    return response.getDelegate().writeWith(Mono.empty());
+                }
+
+                try {
+                    // 2. Parse the body and get the correct dynamic transformer.
+                    JsonNode jsonBody = objectMapper.readTree(originalBody);
+                    
+                    // 3. Apply the transformation to create the final response object.
+                    Object transformedBody = transformer.transform(exchange, jsonBody);
+                    byte[] finalResponseBytes = objectMapper.writeValueAsBytes(transformedBody);
+
+                    // 4. Set headers and write the new, transformed body.
+                    response.getDelegate().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    response.getDelegate().getHeaders().setContentLength(finalResponseBytes.length);
+                    return response.getDelegate().writeWith(Mono.just(response.getDelegate().bufferFactory().wrap(finalResponseBytes)));
+
+                } catch (Exception e) {
+                    log.error("Error processing response. Returning original content. Error: {}", e.getMessage());
+                    // In case of an error, safely return the original content.
+                    return response.getDelegate().writeWith(Mono.just(response.getDelegate().bufferFactory().wrap(content)));
+                }
+            });
+    }
+
+    // With a plan the body is only validated, never turned into a tree, and is written out as it is
+    private Mono<Void> wrapPlanned(ServerWebExchange exchange, ResponseTransformer transformer,
+            ServerHttpResponseDecorator response, DataBuffer body) {
+        if (body.readableByteCount() == 0) {
+            DataBufferUtils.release(body);
+            return response.getDelegate().writeWith(Mono.empty());
+        }
+        StreamingEnvelope envelope;
+        try {
+            JsonStreamValidator validator = new JsonStreamValidator(objectMapper.getFactory());
+            validator.feed(body);
+            validator.finish();
+            envelope = StreamingEnvelope.render(objectMapper, transformer, exchange);
+        } catch (Exception e) {
+            log.error("Error processing response. Returning original content. Error: {}", e.getMessage());
+            return response.getDelegate().writeWith(Mono.just(body));
+        }
+        HttpHeaders headers = response.getDelegate().getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(envelope.prefix().length + body.readableByteCount() + envelope.suffix().length);
+        return response.getDelegate().writeWith(Flux.just(
+                response.bufferFactory().wrap(envelope.prefix()),
+                body,
+                response.bufferFactory().wrap(envelope.suffix())));
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null
+                && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                        || (contentType.getSubtypeSuffix() != null && contentType.getSubtypeSuffix().equalsIgnoreCase("json")));
+    }
+
     @Override
     public int getOrder() {
         // This filter should run late to wrap the final response.
         return -2;
     }
-}
\ No newline at end of file
+}
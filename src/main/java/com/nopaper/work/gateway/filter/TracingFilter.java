@@ -0,0 +1,58 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 11:02:47 am
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+
+import io.opentelemetry.api.trace.Span;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Starts the trace of every request before any other filter runs, and ends it once the
+ * response is written. A request that is not recorded goes through untouched, see
+ * {@link GatewayTracing}.
+ */
+@Component
+@RequiredArgsConstructor
+public class TracingFilter implements GlobalFilter, Ordered {
+
+    private final GatewayTracing tracing;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!tracing.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        long startTime = System.nanoTime();
+        Span span = tracing.startRequest(exchange, route);
+        if (!span.isRecording()) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .doOnSuccess(done -> tracing.endRequest(exchange, span, null, startTime))
+                .doOnError(error -> tracing.endRequest(exchange, span, error, startTime))
+                .doOnCancel(() -> tracing.endRequest(exchange, span, null, startTime));
+    }
+
+    /**
+     * Runs first, so that the blacklist check and everything after it are part of the trace.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * @package com.nopaper.work.gateway.filter -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 11:09:15 am
+ * @git
+ */
+package com.nopaper.work.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Traces each call to the upstream as a client span of the request, whose context is
+ * the one sent upstream in {@code traceparent}. Retries and hedges run the rest of the
+ * chain once per attempt, so every attempt is a span of its own.
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamTracingFilter implements GlobalFilter, Ordered {
+
+    private final GatewayTracing tracing;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return tracing.traceUpstream(exchange, chain);
+    }
+
+    /**
+     * Runs right before {@link NettyRoutingFilter} sends the request, once the upstream
+     * address has been resolved.
+     */
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:05:12 am
+ * @git
+ */
+package com.nopaper.work.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load of one upstream instance as seen by this gateway: requests in flight, a peak
+ * EWMA of its response times and its run of consecutive failures.
+ * <p>
+ * The peak EWMA jumps straight to a response time above it and otherwise moves towards
+ * new samples at a pace set by the decay time. It also decays towards zero while no
+ * answers come in, so an instance that was avoided for being slow is tried again after
+ * a while. The cost of an instance is that latency times its requests in flight plus
+ * one. An instance that has not answered
+ * yet costs nothing while idle and a penalty once a request is in flight, so that it is
+ * probed one request at a time.
+ * <p>
+ * The in-flight count is an atomic; everything else is kept under the instance's lock.
+ */
+public final class InstanceLoad {
+
+    // Cost of an instance that has a request in flight but has never answered
+    private static final double PENALTY = 1e15;
+    // Share of its load a warming instance takes right after it appeared
+    private static final double MIN_WARM_UP_WEIGHT = 0.1;
+    private static final int MAX_EJECTION_MULTIPLIER = 8;
+
+    private final ServiceLoads service;
+    private final long warmUpFrom;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long ejectedUntil;
+    private volatile long usedAt;
+
+    private boolean sampled;
+    private double latency;
+    private long latencyAt;
+    private int failures;
+    private int ejections;
+
+    InstanceLoad(ServiceLoads service, long warmUpFrom) {
+        this.service = service;
+        this.warmUpFrom = warmUpFrom;
+        this.latencyAt = warmUpFrom;
+        this.usedAt = warmUpFrom;
+    }
+
+    /** Counts a request sent to the instance. */
+    public void start(long now) {
+        inFlight.incrementAndGet();
+        usedAt = now;
+    }
+
+    /** Counts a request that was cancelled or answered by the gateway itself. */
+    public void abandon() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Feeds back the outcome of a request to the instance.
+     *
+     * @param now      {@link System#nanoTime()} at which the answer arrived.
+     * @param rttNanos How long the instance took to answer.
+     * @param failed   Whether it failed to answer, or answered 502, 503 or 504.
+     */
+    public void finish(long now, long rttNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        boolean eject;
+        synchronized (this) {
+            if (!failed) {
+                // Decaying towards zero since the last sample and moving towards this one are the same step
+                double weight = weight(now);
+                double decayed = latency * weight;
+                latency = rttNanos > decayed ? rttNanos : decayed + rttNanos * (1 - weight);
+                latencyAt = now;
+                sampled = true;
+                failures = 0;
+                return;
+            }
+            eject = ++failures >= service.settings().consecutiveFailures() && !isEjected(now);
+        }
+        if (eject) {
+            service.tryEject(this, now);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isEjected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    long usedAt() {
+        return usedAt;
+    }
+
+    synchronized double cost(long now) {
+        int pending = inFlight.get();
+        if (!sampled) {
+            return pending == 0 ? 0 : PENALTY + pending;
+        }
+        return latency * weight(now) * (pending + 1);
+    }
+
+    /**
+     * Takes the instance out of rotation; an instance ejected again soon after it came
+     * back stays out for longer each time.
+     */
+    synchronized void eject(long now) {
+        long ejection = service.settings().ejection().toNanos();
+        ejections = ejections > 0 && now - ejectedUntil < ejection ? ejections + 1 : 1;
+        ejectedUntil = now + ejection * Math.min(ejections, MAX_EJECTION_MULTIPLIER);
+        failures = 0;
+    }
+
+    // Weight left to the latency after the time since the last sample
+    private double weight(long now) {
+        return Math.exp(-(double) Math.max(0, now - latencyAt) / service.settings().decay().toNanos());
+    }
+
+    /** Share of its load the instance takes while warming up, from a tenth to one. */
+    double warmUpWeight(long now) {
+        long warmUp = service.settings().warmUp().toNanos();
+        if (warmUp <= 0 || now - warmUpFrom >= warmUp) {
+            return 1;
+        }
+        return Math.max(MIN_WARM_UP_WEIGHT, (double) (now - warmUpFrom) / warmUp);
+    }
+}
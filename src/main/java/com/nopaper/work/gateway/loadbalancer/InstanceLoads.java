@@ -0,0 +1,52 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:18:03 am
+ * @git
+ */
+package com.nopaper.work.gateway.loadbalancer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The {@link ServiceLoads} of every upstream service. They live in the gateway's own
+ * context rather than in the per-service contexts of Spring Cloud LoadBalancer, so that
+ * {@link com.nopaper.work.gateway.filter.InstanceLoadFilter} can feed them. Ejections
+ * are counted per service as {@code gateway.load_balancer.ejections}.
+ */
+@Component
+public class InstanceLoads {
+
+    private final MeterRegistry meterRegistry;
+    private final ServiceLoads.Settings settings;
+    private final Map<String, ServiceLoads> services = new ConcurrentHashMap<>();
+
+    public InstanceLoads(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.load-balancer.decay:10s}") Duration decay,
+            @Value("${gateway.load-balancer.warm-up:30s}") Duration warmUp,
+            @Value("${gateway.load-balancer.outlier.consecutive-failures:5}") int consecutiveFailures,
+            @Value("${gateway.load-balancer.outlier.ejection:30s}") Duration ejection,
+            @Value("${gateway.load-balancer.outlier.max-ejected-percent:50}") int maxEjectedPercent)
+    {
+        this.meterRegistry = meterRegistry;
+        this.settings = new ServiceLoads.Settings(decay, warmUp, consecutiveFailures, ejection, maxEjectedPercent);
+    }
+
+    public ServiceLoads service(String serviceId) {
+        return services.computeIfAbsent(serviceId, id -> new ServiceLoads(id, settings,
+                Counter.builder("gateway.load_balancer.ejections")
+                        .description("Upstream instances taken out of rotation after consecutive failures")
+                        .tag("service", id)
+                        .register(meterRegistry),
+                System.nanoTime()));
+    }
+}
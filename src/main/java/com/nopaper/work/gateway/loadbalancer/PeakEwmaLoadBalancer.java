@@ -0,0 +1,77 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:22:40 am
+ * @git
+ */
+package com.nopaper.work.gateway.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Load balancer of one {@code lb://} service that picks instances by the power of two
+ * choices over their {@link InstanceLoad}, in place of Spring Cloud's round robin.
+ * The chosen instance comes with its load, which
+ * {@link com.nopaper.work.gateway.filter.InstanceLoadFilter} keeps up to date.
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /** An instance chosen for a request, with the load it is tracked by. */
+    public record Choice(ServiceInstance instance, InstanceLoad load) implements Response<ServiceInstance> {
+
+        @Override
+        public boolean hasServer() {
+            return true;
+        }
+
+        @Override
+        public ServiceInstance getServer() {
+            return instance;
+        }
+    }
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String serviceId;
+    private final ServiceLoads loads;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId,
+            ServiceLoads loads)
+    {
+        this.suppliers = suppliers;
+        this.serviceId = serviceId;
+        this.loads = loads;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> choose(supplier, instances));
+    }
+
+    private Response<ServiceInstance> choose(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances) {
+        Choice choice = loads.choose(instances, System.nanoTime(), ThreadLocalRandom.current());
+        if (choice == null) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (supplier instanceof SelectedInstanceCallback callback) {
+            callback.selectedServiceInstance(choice.instance());
+        }
+        return choice;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:26:15 am
+ * @git
+ */
+package com.nopaper.work.gateway.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Default configuration of every Spring Cloud LoadBalancer client, i.e. of each
+ * service's own context. Deliberately not a {@code @Configuration}, so that component
+ * scanning does not pick it up into the gateway's context; it is registered by
+ * {@link com.nopaper.work.gateway.configurations.LoadBalancerConfig}. With
+ * {@code gateway.load-balancer.enabled=false} Spring Cloud's round robin is used.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.load-balancer.enabled", havingValue = "true", matchIfMissing = true)
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory, InstanceLoads instanceLoads)
+    {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, instanceLoads.service(serviceId));
+    }
+}
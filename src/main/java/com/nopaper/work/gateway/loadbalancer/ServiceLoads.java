@@ -0,0 +1,164 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:11:46 am
+ * @git
+ */
+package com.nopaper.work.gateway.loadbalancer;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The {@link InstanceLoad}s of one upstream service, and the choice between its
+ * instances: power of two choices, i.e. the cheaper of two instances drawn at random,
+ * which keeps away from slow and busy instances without herding every request onto the
+ * one that looked best a moment ago.
+ * <p>
+ * Instances that fail {@code consecutiveFailures} times in a row are ejected for a while,
+ * but never more than {@code maxEjectedPercent} of them at once. Instances that appear
+ * after the service was first balanced warm up: their share grows from a tenth to a
+ * full one over the warm-up time. Instances that are gone from discovery are forgotten
+ * once they have nothing in flight.
+ */
+@Slf4j
+public final class ServiceLoads {
+
+    /**
+     * @param decay               Time constant of the latency average.
+     * @param warmUp              Time over which a new instance's share grows to a full one.
+     * @param consecutiveFailures Failures in a row after which an instance is ejected.
+     * @param ejection            How long an instance is ejected the first time.
+     * @param maxEjectedPercent   Share of the instances that may be ejected at once.
+     */
+    public record Settings(Duration decay, Duration warmUp, int consecutiveFailures, Duration ejection,
+            int maxEjectedPercent) {
+    }
+
+    private static final long PRUNE_INTERVAL_NANOS = Duration.ofSeconds(30).toNanos();
+
+    private final String service;
+    private final Settings settings;
+    private final Counter ejections;
+    private final Map<String, InstanceLoad> instances = new ConcurrentHashMap<>();
+    private final AtomicLong prunedAt;
+    private volatile boolean seeded;
+
+    public ServiceLoads(String service, Settings settings, Counter ejections, long now) {
+        this.service = service;
+        this.settings = settings;
+        this.ejections = ejections;
+        this.prunedAt = new AtomicLong(now);
+    }
+
+    /** Chooses between the instances currently registered for the service, or returns null if there are none. */
+    public PeakEwmaLoadBalancer.Choice choose(List<ServiceInstance> candidates, long now, RandomGenerator random) {
+        int size = candidates.size();
+        if (size == 0) {
+            return null;
+        }
+        if (!seeded) {
+            // The instances there from the start are not new, so they need no warm-up
+            candidates.forEach(instance -> instances.computeIfAbsent(key(instance),
+                    key -> new InstanceLoad(this, now - settings.warmUp().toNanos())));
+            seeded = true;
+        }
+        prune(candidates, now);
+
+        int first = random.nextInt(size);
+        if (size == 1) {
+            return choice(candidates.get(first), now);
+        }
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        PeakEwmaLoadBalancer.Choice a = choice(candidates.get(first), now);
+        PeakEwmaLoadBalancer.Choice b = choice(candidates.get(second), now);
+        boolean aEjected = a.load().isEjected(now);
+        boolean bEjected = b.load().isEjected(now);
+        if (aEjected && bEjected) {
+            return firstAvailable(candidates, first, now, a);
+        }
+        if (aEjected || bEjected) {
+            return aEjected ? b : a;
+        }
+        // A warming instance only takes part in as many draws as its warm-up weight says
+        boolean aSkipped = isWarmingUp(a.load(), now, random);
+        if (aSkipped != isWarmingUp(b.load(), now, random)) {
+            return aSkipped ? b : a;
+        }
+        return a.load().cost(now) <= b.load().cost(now) ? a : b;
+    }
+
+    Settings settings() {
+        return settings;
+    }
+
+    /** Ejects the instance, unless that would take out more than the allowed share of the service. */
+    void tryEject(InstanceLoad load, long now) {
+        int ejected = 0;
+        for (InstanceLoad instance : instances.values()) {
+            if (instance.isEjected(now)) {
+                ejected++;
+            }
+        }
+        if ((ejected + 1) * 100L > (long) settings.maxEjectedPercent() * instances.size()) {
+            log.debug("Not ejecting an instance of {}: {} of {} are ejected already", service, ejected, instances.size());
+            return;
+        }
+        load.eject(now);
+        ejections.increment();
+        log.warn("Ejected an instance of {} after {} consecutive failures", service, settings.consecutiveFailures());
+    }
+
+    private static boolean isWarmingUp(InstanceLoad load, long now, RandomGenerator random) {
+        double weight = load.warmUpWeight(now);
+        return weight < 1 && random.nextDouble() >= weight;
+    }
+
+    private PeakEwmaLoadBalancer.Choice choice(ServiceInstance instance, long now) {
+        return new PeakEwmaLoadBalancer.Choice(instance,
+                instances.computeIfAbsent(key(instance), key -> new InstanceLoad(this, now)));
+    }
+
+    // Falls back to scanning for an instance that is not ejected, or keeps the first draw
+    private PeakEwmaLoadBalancer.Choice firstAvailable(List<ServiceInstance> candidates, int from, long now,
+            PeakEwmaLoadBalancer.Choice fallback)
+    {
+        for (int i = 1; i < candidates.size(); i++) {
+            PeakEwmaLoadBalancer.Choice choice = choice(candidates.get((from + i) % candidates.size()), now);
+            if (!choice.load().isEjected(now)) {
+                return choice;
+            }
+        }
+        return fallback;
+    }
+
+    private void prune(List<ServiceInstance> candidates, long now) {
+        long pruned = prunedAt.get();
+        if (now - pruned < PRUNE_INTERVAL_NANOS || !prunedAt.compareAndSet(pruned, now)) {
+            return;
+        }
+        Set<String> registered = new HashSet<>();
+        candidates.forEach(instance -> registered.add(key(instance)));
+        instances.entrySet().removeIf(entry -> !registered.contains(entry.getKey())
+                && entry.getValue().inFlight() == 0 && now - entry.getValue().usedAt() >= PRUNE_INTERVAL_NANOS);
+    }
+
+    // Not the instance id, which discovery clients do not all fill in
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
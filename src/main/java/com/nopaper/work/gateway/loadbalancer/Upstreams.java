@@ -0,0 +1,34 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:44:02 pm
+ * @git
+ */
+package com.nopaper.work.gateway.loadbalancer;
+
+import java.net.URI;
+
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * How the load shedding, resilience, load balancing and metrics code tells upstream
+ * services apart and recognises an upstream in trouble.
+ */
+public final class Upstreams {
+
+    private Upstreams() {
+    }
+
+    /**
+     * Whether the upstream answered 502, 503 or 504: it, or something in front of it, is
+     * down or overloaded. Other errors are the request's own fault, or the application's.
+     */
+    public static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    /** Service a route URI leads to: lb://orders and http://orders:8080 both name theirs. */
+    public static String service(URI uri) {
+        return uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : String.valueOf(uri.getHost());
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.loadbalancer -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:02:37 am
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.loadbalancer;
@@ -0,0 +1,278 @@
+/**
+ * @package com.nopaper.work.gateway.metrics -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:21:38 pm
+ * @git
+ */
+package com.nopaper.work.gateway.metrics;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nopaper.work.gateway.loadbalancer.Upstreams;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times requests and the costly steps of the filter chain, per route:
+ * <ul>
+ * <li>{@code gateway.requests}: from {@link com.nopaper.work.gateway.filter.RequestLoggingFilter}
+ * until the response is written, tagged by {@code route}, {@code upstream} (the service
+ * of the route's URI) and {@code status} class ({@code 2xx} ... {@code 5xx}, or
+ * {@code cancelled} if the client went away).</li>
+ * <li>{@code gateway.filter}: the time a filter spends before handing the request on,
+ * tagged by {@code filter} and {@code route}, see {@link Step}.</li>
+ * </ul>
+ * Timers publish histogram buckets between {@code gateway.metrics.min-expected} and
+ * {@code max-expected}, so that percentiles can be taken across instances.
+ * <p>
+ * The timers of a route are all created with its first request and kept with the route,
+ * so a request looks them up with one cache read and an array index instead of building
+ * tags. At most {@code gateway.metrics.max-routes} routes have timers at once; the timers
+ * of routes beyond that, least used first, are removed from the registry, which also
+ * clears out routes that were deleted. A request that looked up a route just before it
+ * was evicted may still record into the removed timers, and is then not counted.
+ */
+@Component
+public class GatewayMetrics {
+
+    /** Filter steps that are timed. */
+    public enum Step {
+        BLACKLIST_CHECK("blacklist_check"),
+        RATE_LIMIT("rate_limit"),
+        RESPONSE_TRANSFORM("response_transform");
+
+        private final String tag;
+
+        Step(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    // Status class tags; 1xx to 5xx by the first digit of the status
+    private static final String[] STATUSES = { "cancelled", "1xx", "2xx", "3xx", "4xx", "5xx" };
+    private static final int CANCELLED = 0;
+
+    /**
+     * Timers of one route, all registered when it is created; they are created within the
+     * cache's atomic operation for the route, as are the removals of the timers it replaces
+     * or evicts, so a route's timers are never registered for an entry that is gone.
+     */
+    private final class RouteMeters {
+
+        private final URI uri;
+        private final Timer[] requests = new Timer[STATUSES.length];
+        private final Timer[] steps = new Timer[Step.values().length];
+
+        RouteMeters(Route route) {
+            this.uri = route.getUri();
+            String routeId = route.getId();
+            String upstream = Upstreams.service(uri);
+            for (int status = 0; status < STATUSES.length; status++) {
+                requests[status] = histogram(Timer.builder("gateway.requests")
+                        .description("Requests through the gateway, from the request log filter until the response is written")
+                        .tags("route", routeId, "upstream", upstream, "status", STATUSES[status]));
+            }
+            for (Step step : Step.values()) {
+                steps[step.ordinal()] = histogram(Timer.builder("gateway.filter")
+                        .description("Time a gateway filter spends on a request before handing it on")
+                        .tags("filter", step.tag, "route", routeId));
+            }
+        }
+
+        Timer request(int status) {
+            return requests[status];
+        }
+
+        Timer step(Step step) {
+            return steps[step.ordinal()];
+        }
+
+        void remove() {
+            for (Timer timer : requests) {
+                registry.remove(timer);
+            }
+            for (Timer timer : steps) {
+                registry.remove(timer);
+            }
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final boolean histogram;
+    private final double[] percentiles;
+    private final Duration minExpected;
+    private final Duration maxExpected;
+    private final Cache<String, RouteMeters> routes;
+
+    public GatewayMetrics(
+            MeterRegistry registry,
+            @Value("${gateway.metrics.enabled:true}") boolean enabled,
+            @Value("${gateway.metrics.histogram:true}") boolean histogram,
+            @Value("${gateway.metrics.percentiles:}") double[] percentiles,
+            @Value("${gateway.metrics.min-expected:1ms}") Duration minExpected,
+            @Value("${gateway.metrics.max-expected:30s}") Duration maxExpected,
+            @Value("${gateway.metrics.max-routes:1000}") long maxRoutes)
+    {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.histogram = histogram;
+        this.percentiles = percentiles.clone();
+        this.minExpected = minExpected;
+        this.maxExpected = maxExpected;
+        this.routes = Caffeine.newBuilder()
+                .maximumSize(maxRoutes)
+                // Evicts on the calling thread rather than in the background, so the registry keeps to the bound
+                .executor(Runnable::run)
+                // Called as part of the eviction, so a route coming back cannot register its timers in between
+                .<String, RouteMeters>evictionListener((routeId, meters, cause) -> {
+                    if (meters != null) {
+                        meters.remove();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Records a request that is done.
+     *
+     * @param error What the request failed with, if it did; it has no status yet then.
+     */
+    public void recordRequest(ServerWebExchange exchange, long durationNanos, Throwable error) {
+        RouteMeters meters = meters(exchange);
+        if (meters != null) {
+            meters.request(statusClass(exchange, error)).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Records a request the client went away from before it was answered. */
+    public void recordCancelled(ServerWebExchange exchange, long durationNanos) {
+        RouteMeters meters = meters(exchange);
+        if (meters != null) {
+            meters.request(CANCELLED).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Times a filter from when it is called until it hands the request on to the rest of
+     * the chain, or answers it itself.
+     */
+    public Mono<Void> timeUntilHandOff(ServerWebExchange exchange, Step step, GatewayFilterChain chain,
+            GatewayFilter filter)
+    {
+        RouteMeters meters = meters(exchange);
+        if (meters == null) {
+            return filter.filter(exchange, chain);
+        }
+        HandOff handOff = new HandOff(meters.step(step), chain);
+        // On termination rather than finally, so that the step is recorded before the response is done
+        return filter.filter(exchange, handOff)
+                .doOnTerminate(handOff::stop)
+                .doOnCancel(handOff::stop);
+    }
+
+    /** Times {@code work} as a step of the request, from subscription until it terminates. */
+    public <T> Mono<T> time(ServerWebExchange exchange, Step step, Mono<T> work) {
+        RouteMeters meters = meters(exchange);
+        if (meters == null) {
+            return work;
+        }
+        Timer timer = meters.step(step);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Runnable stop = () -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return work.doOnTerminate(stop).doOnCancel(stop);
+        });
+    }
+
+    private RouteMeters meters(ServerWebExchange exchange) {
+        if (!enabled) {
+            return null;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return null;
+        }
+        RouteMeters meters = routes.getIfPresent(route.getId());
+        if (meters != null && meters.uri.equals(route.getUri())) {
+            return meters;
+        }
+        // New route, or its URI changed and with it the upstream tag
+        return routes.asMap().compute(route.getId(), (id, current) -> {
+            if (current != null && current.uri.equals(route.getUri())) {
+                return current;
+            }
+            if (current != null) {
+                current.remove();
+            }
+            return new RouteMeters(route);
+        });
+    }
+
+    private Timer histogram(Timer.Builder builder) {
+        if (histogram) {
+            builder.publishPercentileHistogram()
+                    .minimumExpectedValue(minExpected)
+                    .maximumExpectedValue(maxExpected);
+        }
+        if (percentiles.length > 0) {
+            builder.publishPercentiles(percentiles);
+        }
+        return builder.register(registry);
+    }
+
+    private static int statusClass(ServerWebExchange exchange, Throwable error) {
+        HttpStatusCode status = error instanceof ResponseStatusException e ? e.getStatusCode()
+                : error != null ? null : exchange.getResponse().getStatusCode();
+        if (status == null) {
+            // Failed without a status, which the error handler answers with 500
+            return error != null ? 5 : 2;
+        }
+        int digit = status.value() / 100;
+        return digit >= 1 && digit <= 5 ? digit : 5;
+    }
+
+    /** Stops the timer of a step when the step hands the request on. */
+    private static final class HandOff implements GatewayFilterChain {
+
+        private final Timer timer;
+        private final GatewayFilterChain chain;
+        private final long start = System.nanoTime();
+        private boolean stopped;
+
+        HandOff(Timer timer, GatewayFilterChain chain) {
+            this.timer = timer;
+            this.chain = chain;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            stop();
+            return chain.filter(exchange);
+        }
+
+        /** Stops the timer if the step answered the request itself, e.g. with 403. */
+        void stop() {
+            if (!stopped) {
+                stopped = true;
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * @package com.nopaper.work.gateway.metrics -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:48:16 pm
+ * @git
+ */
+package com.nopaper.work.gateway.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Meters kept per route (or per upstream service), the same way {@link GatewayMetrics}
+ * keeps its timers: at most {@code gateway.metrics.max-routes} names at once, the least
+ * used beyond that being dropped and their meters removed from the registry. Meters are
+ * registered and removed within the cache's atomic operation for their name, so a name
+ * never has meters registered for an entry that is gone. A name that comes back gets
+ * new meters, so the value must hold nothing but meters; state that has to last as long
+ * as the route is kept apart from this cache.
+ *
+ * @param <V> Type of the value kept per name, e.g. the counters of a route by outcome.
+ */
+public final class MeteredCache<V> {
+
+    /** Creates the value of a name, registering its meters through {@code meters}. */
+    @FunctionalInterface
+    public interface Factory<V> {
+
+        V create(String name, Meters meters);
+    }
+
+    /** Collects the meters of a value, to be removed from the registry with it. */
+    public static final class Meters {
+
+        private final List<Meter> registered = new ArrayList<>();
+
+        public <M extends Meter> M add(M meter) {
+            registered.add(meter);
+            return meter;
+        }
+    }
+
+    private record Entry<V>(V value, List<Meter> meters) {}
+
+    private final MeterRegistry registry;
+    private final Factory<V> factory;
+    private final Cache<String, Entry<V>> entries;
+
+    public MeteredCache(MeterRegistry registry, long maxSize, Factory<V> factory) {
+        this.registry = registry;
+        this.factory = factory;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // Evicts on the calling thread rather than in the background, so the registry keeps to the bound
+                .executor(Runnable::run)
+                // Called as part of the eviction, so a name coming back cannot register its meters in between
+                .<String, Entry<V>>evictionListener((name, entry, cause) -> {
+                    if (entry != null) {
+                        remove(entry);
+                    }
+                })
+                .build();
+    }
+
+    public V get(String name) {
+        return entries.get(name, this::create).value();
+    }
+
+    /** Drops the meters of every name not in names, e.g. of routes that were deleted. */
+    public void retain(Set<String> names) {
+        for (String name : entries.asMap().keySet()) {
+            if (!names.contains(name)) {
+                entries.asMap().computeIfPresent(name, (key, entry) -> {
+                    remove(entry);
+                    return null;
+                });
+            }
+        }
+    }
+
+    private Entry<V> create(String name) {
+        Meters meters = new Meters();
+        V value = factory.create(name, meters);
+        return new Entry<>(value, meters.registered);
+    }
+
+    private void remove(Entry<V> entry) {
+        entry.meters().forEach(registry::remove);
+    }
+}
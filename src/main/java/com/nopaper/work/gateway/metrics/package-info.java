@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.metrics -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:20:05 pm
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.metrics;
@@ -0,0 +1,147 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:06:37 am
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Key resolver for routes with a {@code rate_limit_key} or {@code rate_limit_tiers}
+ * column, building the key from the {@link KeyDimension}s configured for the route.
+ * <p>
+ * Values are joined with {@code '|'} and missing ones (no API key, no verified subject)
+ * become {@code '-'}, so anonymous requests share a bucket instead of being refused.
+ * The subject is only taken from {@value GatewayConstant#AUTHENTICATED_SUBJECT_ATTR},
+ * set by a filter that verified the caller's credentials; a bearer token's own
+ * {@code sub} claim is never read, as any client could mint one per request, or name
+ * somebody else's, to get fresh buckets or drain theirs.
+ * A key without dimensions is {@code '*'}. For tiered routes the key holds one such
+ * key per tier, separated by {@link #TIER_SEPARATOR}, for {@link TieredRateLimiter}
+ * to split. Routes with neither column are keyed by client address.
+ */
+@Component
+public class CompositeKeyResolver implements KeyResolver {
+
+    /** Key of the key dimensions in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "rate_limit_key";
+
+    /** Separates the keys of the tiers in a tiered route's key. */
+    public static final char TIER_SEPARATOR = '\n';
+
+    private static final String MISSING = "-";
+    private static final List<KeyDimension> CLIENT_ADDRESS = List.of(KeyDimension.IP);
+
+    private final RateLimitPolicyResolver policyResolver;
+    private final String apiKeyHeader;
+
+    public CompositeKeyResolver(
+            RateLimitPolicyResolver policyResolver,
+            @Value("${gateway.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader)
+    {
+        this.policyResolver = policyResolver;
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return Mono.empty();
+        }
+        StringBuilder key = new StringBuilder(64);
+        RateLimitTiers tiers = policyResolver.tiers(route);
+        if (tiers != null) {
+            for (RateLimitTier tier : tiers.tiers()) {
+                if (key.length() > 0) {
+                    key.append(TIER_SEPARATOR);
+                }
+                append(key, tier.key(), exchange, route);
+            }
+        } else {
+            List<KeyDimension> dimensions = policyResolver.key(route);
+            append(key, dimensions != null ? dimensions : CLIENT_ADDRESS, exchange, route);
+        }
+        return Mono.just(key.toString());
+    }
+
+    private void append(StringBuilder key, List<KeyDimension> dimensions, ServerWebExchange exchange, Route route) {
+        if (dimensions.isEmpty()) {
+            key.append('*');
+            return;
+        }
+        for (int i = 0; i < dimensions.size(); i++) {
+            if (i > 0) {
+                key.append('|');
+            }
+            switch (dimensions.get(i)) {
+                case API_KEY -> key.append(apiKey(exchange));
+                case SUBJECT -> key.append(subject(exchange));
+                case ROUTE -> key.append(route.getId());
+                case IP -> appendAddress(key, exchange.getRequest().getRemoteAddress());
+                case PATH -> {
+                    String pattern = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_PREDICATE_MATCHED_PATH_ATTR);
+                    key.append(pattern != null ? pattern : MISSING);
+                }
+            }
+        }
+    }
+
+    // API keys are secrets, so only a digest of them ends up in memory and in Redis key names
+    private String apiKey(ServerWebExchange exchange) {
+        String apiKey = exchange.getRequest().getHeaders().getFirst(apiKeyHeader);
+        if (apiKey == null || apiKey.isEmpty()) {
+            return MISSING;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** The subject an authentication filter verified, see {@link KeyDimension#SUBJECT}. */
+    private static String subject(ServerWebExchange exchange) {
+        String subject = exchange.getAttribute(GatewayConstant.AUTHENTICATED_SUBJECT_ATTR);
+        if (subject == null || subject.isEmpty()) {
+            return MISSING;
+        }
+        // Subjects may come from claims; keep them from splitting a tiered key
+        return subject.replace(TIER_SEPARATOR, ' ');
+    }
+
+    // IPv4 digits are written straight into the key instead of going through getHostAddress()
+    private static void appendAddress(StringBuilder key, InetSocketAddress remoteAddress) {
+        InetAddress address = remoteAddress != null ? remoteAddress.getAddress() : null;
+        if (address == null) {
+            key.append(MISSING);
+        } else if (address instanceof Inet4Address) {
+            byte[] octets = address.getAddress();
+            key.append(octets[0] & 0xff).append('.').append(octets[1] & 0xff).append('.')
+                    .append(octets[2] & 0xff).append('.').append(octets[3] & 0xff);
+        } else {
+            key.append(address.getHostAddress());
+        }
+    }
+}
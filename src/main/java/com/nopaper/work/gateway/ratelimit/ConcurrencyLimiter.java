@@ -0,0 +1,127 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 1:06:52 am
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.core.style.ToStringCreator;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.Min;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caps the requests of one route and key that are in flight at the same time, for
+ * upstreams that suffer from concurrency rather than from request rate.
+ * <p>
+ * {@link #isAllowed} takes a permit that must be handed back with {@link #release} once
+ * the response is complete, which is what {@link ConcurrencyLimiterGatewayFilterFactory}
+ * does; the RequestRateLimiter filter would never release it. Permits are counted per
+ * node, so the cap applies to each gateway node on its own.
+ * <p>
+ * Each key is an {@link AtomicInteger} taken and released with CAS. A counter that drops
+ * to zero is retired and removed, so idle keys cost nothing.
+ */
+@Component
+public class ConcurrencyLimiter extends AbstractRateLimiter<ConcurrencyLimiter.Config> {
+
+    /** Prefix of this limiter's arguments in a route's ConcurrencyLimiter filter. */
+    public static final String CONFIGURATION_PROPERTY_NAME = "concurrency-limiter";
+
+    // Value of a counter that has been removed from the map; whoever finds it looks again
+    private static final int RETIRED = Integer.MIN_VALUE;
+
+    private record PermitKey(String routeId, String id) {}
+
+    private final Config defaultConfig = new Config();
+    private final Map<PermitKey, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter(ConfigurationService configurationService) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        int left = tryAcquire(new PermitKey(routeId, id), config.getMaxInFlight());
+        return Mono.just(new Response(left >= 0, Map.of(
+                RedisRateLimiter.REMAINING_HEADER, String.valueOf(Math.max(left, 0)),
+                RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(config.getMaxInFlight()))));
+    }
+
+    /** Hands back a permit taken by an allowed {@link #isAllowed} call. */
+    public void release(String routeId, String id) {
+        PermitKey key = new PermitKey(routeId, id);
+        AtomicInteger counter = inFlight.get(key);
+        if (counter != null && counter.decrementAndGet() == 0 && counter.compareAndSet(0, RETIRED)) {
+            inFlight.remove(key, counter);
+        }
+    }
+
+    /** Requests of the route and key in flight right now. */
+    public int inFlight(String routeId, String id) {
+        AtomicInteger counter = inFlight.get(new PermitKey(routeId, id));
+        int count = counter != null ? counter.get() : 0;
+        return Math.max(count, 0);
+    }
+
+    // Returns the permits left after taking one, or -1 if none was free
+    private int tryAcquire(PermitKey key, int maxInFlight) {
+        for (;;) {
+            AtomicInteger counter = inFlight.computeIfAbsent(key, k -> new AtomicInteger());
+            int count;
+            while ((count = counter.get()) != RETIRED) {
+                if (count >= maxInFlight) {
+                    return -1;
+                }
+                if (counter.compareAndSet(count, count + 1)) {
+                    return maxInFlight - count - 1;
+                }
+            }
+        }
+    }
+
+    Config loadConfiguration(String routeId) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            config = getConfig().getOrDefault(RouteDefinitionRouteLocator.DEFAULT_FILTERS, defaultConfig);
+        }
+        return config;
+    }
+
+    /**
+     * Per-route settings, bound from the {@code concurrency-limiter.*} arguments of the
+     * route's ConcurrencyLimiter filter.
+     */
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int maxInFlight = 100;
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public Config setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringCreator(this).append("maxInFlight", maxInFlight).toString();
+        }
+    }
+}
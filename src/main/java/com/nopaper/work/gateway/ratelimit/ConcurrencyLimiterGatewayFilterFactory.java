@@ -0,0 +1,113 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 1:15:27 am
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.Map;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.nopaper.work.gateway.metrics.GatewayMetrics;
+import com.nopaper.work.gateway.tracing.GatewayTracing;
+
+/**
+ * The {@code ConcurrencyLimiter} route filter: the RequestRateLimiter filter for
+ * {@link ConcurrencyLimiter}, which also hands the permit back when the response has
+ * been written, or the exchange failed or was cancelled.
+ * <p>
+ * Takes a {@code key-resolver} argument like RequestRateLimiter, defaulting to the
+ * primary KeyResolver, and refuses requests without a key with 403 as it does. Like the
+ * instrumented RequestRateLimiter filter, it is timed and traced as the request's rate
+ * limit step, up to where it hands the request on.
+ */
+@Component
+public class ConcurrencyLimiterGatewayFilterFactory extends AbstractGatewayFilterFactory<ConcurrencyLimiterGatewayFilterFactory.Config> {
+
+    private final ConcurrencyLimiter limiter;
+    private final KeyResolver defaultKeyResolver;
+    private final GatewayMetrics metrics;
+    private final GatewayTracing tracing;
+
+    public ConcurrencyLimiterGatewayFilterFactory(
+            ConcurrencyLimiter limiter,
+            KeyResolver defaultKeyResolver,
+            GatewayMetrics metrics,
+            GatewayTracing tracing)
+    {
+        super(Config.class);
+        this.limiter = limiter;
+        this.defaultKeyResolver = defaultKeyResolver;
+        this.metrics = metrics;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        GatewayFilter limit = limit(config);
+        return (exchange, chain) -> metrics.timeUntilHandOff(exchange, GatewayMetrics.Step.RATE_LIMIT, chain,
+                (timed, next) -> tracing.traceUntilHandOff(timed, "rate limit", next, limit));
+    }
+
+    private GatewayFilter limit(Config config) {
+        KeyResolver resolver = config.getKeyResolver() != null ? config.getKeyResolver() : defaultKeyResolver;
+        return (exchange, chain) -> resolver.resolve(exchange).defaultIfEmpty("").flatMap(key -> {
+            if (key.isEmpty()) {
+                exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+                return exchange.getResponse().setComplete();
+            }
+            String routeId = config.getRouteId();
+            if (routeId == null) {
+                Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                routeId = route.getId();
+            }
+            String permitRouteId = routeId;
+            return limiter.isAllowed(routeId, key).flatMap(response -> {
+                for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                    exchange.getResponse().getHeaders().add(header.getKey(), header.getValue());
+                }
+                if (!response.isAllowed()) {
+                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                    return exchange.getResponse().setComplete();
+                }
+                // The chain completes once the upstream response has been streamed to the client
+                return chain.filter(exchange).doFinally(signal -> limiter.release(permitRouteId, key));
+            });
+        });
+    }
+
+    public static class Config implements HasRouteId {
+
+        private KeyResolver keyResolver;
+
+        private String routeId;
+
+        public KeyResolver getKeyResolver() {
+            return keyResolver;
+        }
+
+        public Config setKeyResolver(KeyResolver keyResolver) {
+            this.keyResolver = keyResolver;
+            return this;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+    }
+}
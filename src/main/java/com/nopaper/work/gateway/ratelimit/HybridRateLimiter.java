@@ -0,0 +1,452 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:54:10 pm
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Token-bucket rate limiter that answers from in-process buckets and reconciles
+ * with the other gateway nodes through Redis in the background.
+ * <p>
+ * Every node keeps a bucket per route and key that refills at the route's (cluster-wide)
+ * replenish rate. Tokens consumed locally are added to a shared counter in Redis every
+ * {@code gateway.rate-limit.sync-interval}, and whatever the other nodes consumed since
+ * the previous sync is taken out of the local bucket. A bucket is synced early once its
+ * unsynced consumption reaches {@code allowedError} times the burst capacity, so the
+ * cluster can overshoot a limit by roughly that fraction per node between syncs.
+ * <p>
+ * Each sync skips buckets with nothing to report and sends the rest in one script call
+ * per scope; counters share a hash tag with their scope so that the call stays within one
+ * Redis Cluster slot. Buckets unused for {@code gateway.rate-limit.idle-timeout} are dropped.
+ * <p>
+ * Redis is never on the request path. While it is unreachable, unsynced consumption is
+ * kept and each node enforces the limit on its own traffic only.
+ */
+@Component
+@Slf4j
+public class HybridRateLimiter extends AbstractRateLimiter<HybridRateLimiter.Config> {
+
+    /** Prefix of this limiter's arguments in a route's RequestRateLimiter filter. */
+    public static final String CONFIGURATION_PROPERTY_NAME = "hybrid-rate-limiter";
+
+    // Keys synced per script call, so that one busy scope does not block Redis for long
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    // Returned by Bucket.tryConsume once sync dropped the bucket; the caller takes a new one
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    // Adds this node's consumption to each shared counter and returns the cluster-wide totals
+    private static final RedisScript<List<Long>> SYNC_SCRIPT = syncScript();
+
+    // Scope is the route id, or the tier name for buckets shared between routes
+    record BucketKey(String scope, String id) {}
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Config defaultConfig;
+    private final double defaultAllowedError;
+    private final Duration syncInterval;
+    private final Duration idleTimeout;
+    private final Counter syncFailures;
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean syncRequested = new AtomicBoolean();
+    private final Sinks.Many<Boolean> syncRequests = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable syncer;
+
+    public HybridRateLimiter(
+            ReactiveStringRedisTemplate redisTemplate,
+            ConfigurationService configurationService,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.rate-limit.allowed-error:0.1}") double defaultAllowedError,
+            @Value("${gateway.rate-limit.sync-interval:250ms}") Duration syncInterval,
+            @Value("${gateway.rate-limit.idle-timeout:2m}") Duration idleTimeout)
+    {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        // Same defaults as the redisRateLimiter bean, for routes without their own configuration
+        this.defaultConfig = new Config().setReplenishRate(10).setBurstCapacity(20);
+        this.defaultAllowedError = defaultAllowedError;
+        this.syncInterval = syncInterval;
+        this.idleTimeout = idleTimeout;
+
+        this.syncFailures = Counter.builder("gateway.rate_limit.sync_failures")
+                .description("Rate limit buckets that could not be reconciled with Redis")
+                .register(meterRegistry);
+        Gauge.builder("gateway.rate_limit.buckets", buckets, Map::size)
+                .description("Rate limit buckets held in memory")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static RedisScript<List<Long>> syncScript() {
+        return (RedisScript) RedisScript.of("""
+                local totals = {}
+                for i, key in ipairs(KEYS) do
+                  totals[i] = redis.call('INCRBY', key, ARGV[i])
+                  redis.call('PEXPIRE', key, ARGV[#ARGV])
+                end
+                return totals
+                """, List.class);
+    }
+
+    @PostConstruct
+    public void start() {
+        syncer = Flux.merge(Flux.interval(syncInterval).map(tick -> Boolean.TRUE), syncRequests.asFlux())
+                .onBackpressureDrop()
+                .concatMap(tick -> sync())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (syncer != null) {
+            syncer.dispose();
+        }
+        // Best effort: hand the consumption of this node to the others before shutting down
+        try {
+            sync().block(Duration.ofSeconds(2));
+        } catch (Exception e) {
+            log.warn("Could not sync rate limits to Redis on shutdown.", e);
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        long remaining = consume(new BucketKey(routeId, id), config, System.nanoTime(), null, 0);
+        return Mono.just(new Response(remaining >= 0, headers(config, Math.max(remaining, 0))));
+    }
+
+    /**
+     * Takes tokens from several buckets in one pass: from all of them, or from none if
+     * any of them is short. Buckets are shared by every caller using the same scope and
+     * key, so a scope that is not a route id spans routes.
+     *
+     * @return The tokens left in each bucket, in order, or {@code null} if the request is denied.
+     */
+    long[] tryConsumeAll(List<String> scopes, List<String> ids, List<Config> configs) {
+        long now = System.nanoTime();
+        long[] remaining = new long[scopes.size()];
+        Bucket[] taken = new Bucket[scopes.size()];
+        for (int i = 0; i < remaining.length; i++) {
+            Config config = configs.get(i);
+            remaining[i] = consume(new BucketKey(scopes.get(i), ids.get(i)), config, now, taken, i);
+            if (remaining[i] < 0) {
+                // Hand back what the tiers before this one gave
+                for (int j = 0; j < i; j++) {
+                    taken[j].refund(configs.get(j));
+                }
+                return null;
+            }
+        }
+        return remaining;
+    }
+
+    // Takes tokens from the key's bucket and, if taken is given, records the bucket at taken[slot]
+    private long consume(BucketKey key, Config config, long now, Bucket[] taken, int slot) {
+        while (true) {
+            Bucket bucket = buckets.computeIfAbsent(key, absent -> new Bucket(config, now));
+            long remaining = bucket.tryConsume(config, now);
+            if (remaining == RETIRED) {
+                // Sync dropped it between the lookup and now; make sure it is gone and take a fresh one
+                buckets.remove(key, bucket);
+                continue;
+            }
+            if (taken != null) {
+                taken[slot] = bucket;
+            }
+            if (bucket.unsynced() >= syncThreshold(config)) {
+                requestSync();
+            }
+            return remaining;
+        }
+    }
+
+    Config loadConfiguration(String routeId) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            config = getConfig().getOrDefault(RouteDefinitionRouteLocator.DEFAULT_FILTERS, defaultConfig);
+        }
+        return config;
+    }
+
+    private long syncThreshold(Config config) {
+        double allowedError = config.getAllowedError() != null ? config.getAllowedError() : defaultAllowedError;
+        return Math.max(config.getRequestedTokens(), (long) (allowedError * config.getBurstCapacity()));
+    }
+
+    private void requestSync() {
+        if (syncRequested.compareAndSet(false, true)) {
+            // Losing a wake-up only delays the sync until the next interval
+            syncRequests.tryEmitNext(Boolean.TRUE);
+        }
+    }
+
+    // Mono.defer so that a sync that is subscribed late drains the buckets as they are then
+    Mono<Void> sync() {
+        return Mono.defer(() -> {
+            syncRequested.set(false);
+            long idleSince = System.nanoTime() - idleTimeout.toNanos();
+            Map<String, List<Delta>> byScope = new LinkedHashMap<>();
+            buckets.forEach((key, bucket) -> {
+                if (bucket.retireIfIdle(idleSince)) {
+                    buckets.remove(key, bucket);
+                    return;
+                }
+                long delta = bucket.drainUnsynced();
+                if (delta != 0) {
+                    byScope.computeIfAbsent(key.scope(), scope -> new ArrayList<>()).add(new Delta(key, bucket, delta));
+                }
+            });
+            if (byScope.isEmpty()) {
+                return Mono.<Void>empty();
+            }
+
+            AtomicInteger failures = new AtomicInteger();
+            return Flux.fromIterable(byScope.values())
+                    .concatMapIterable(deltas -> partition(deltas, SYNC_BATCH_SIZE))
+                    .flatMap(batch -> syncBatch(batch, failures), 64)
+                    .then();
+        });
+    }
+
+    private record Delta(BucketKey key, Bucket bucket, long amount) {}
+
+    private Mono<Void> syncBatch(List<Delta> batch, AtomicInteger failures) {
+        List<String> keys = new ArrayList<>(batch.size());
+        List<String> args = new ArrayList<>(batch.size() + 1);
+        for (Delta delta : batch) {
+            keys.add(redisKey(delta.key()));
+            args.add(String.valueOf(delta.amount()));
+        }
+        // Counters outlive the buckets, so a key that comes back soon still sees the cluster's consumption
+        args.add(String.valueOf(idleTimeout.multipliedBy(2).toMillis()));
+        return redisTemplate.execute(SYNC_SCRIPT, keys, args)
+                .next()
+                .doOnNext(totals -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).bucket().reconcile(batch.get(i).amount(), totals.get(i));
+                    }
+                })
+                .then()
+                .onErrorResume(error -> {
+                    batch.forEach(delta -> delta.bucket().restore(delta.amount()));
+                    syncFailures.increment(batch.size());
+                    if (failures.getAndIncrement() == 0) {
+                        log.warn("Failed to sync rate limits to Redis; enforcing them per node until it is back.", error);
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> parts = new ArrayList<>((items.size() + size - 1) / size);
+        for (int from = 0; from < items.size(); from += size) {
+            parts.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return parts;
+    }
+
+    // The scope is the hash tag, so that the counters synced together share a Redis Cluster slot
+    static String redisKey(BucketKey key) {
+        return GatewayConstant.RATE_LIMIT_KEY_PREFIX + "{" + key.scope() + "}." + key.id() + ".consumed";
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        return Map.of(
+                RedisRateLimiter.REMAINING_HEADER, String.valueOf(remaining),
+                RedisRateLimiter.REPLENISH_RATE_HEADER, String.valueOf(config.getReplenishRate()),
+                RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()),
+                RedisRateLimiter.REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+    }
+
+    /**
+     * Local view of one route (or tier) and key. Tokens may go below zero when the other
+     * nodes turn out to have used more than this one has left; the debt is paid off by refill.
+     */
+    private static final class Bucket {
+
+        // Settings of the last request, used to refill when reconciling
+        private Config config;
+        private double tokens;
+        private long refilledAt;
+        private long unsynced;
+        // Cluster-wide total seen at the last sync, -1 until the first one
+        private long seenTotal = -1;
+        private volatile long usedAt;
+        // Set once sync dropped the bucket from the map; it then takes no more tokens
+        private boolean retired;
+
+        Bucket(Config config, long now) {
+            this.config = config;
+            this.tokens = config.getBurstCapacity();
+            this.refilledAt = now;
+            this.usedAt = now;
+        }
+
+        /** Returns the tokens left, -1 if the request is denied, or RETIRED if the bucket was dropped. */
+        synchronized long tryConsume(Config config, long now) {
+            if (retired) {
+                return RETIRED;
+            }
+            this.config = config;
+            refill(now);
+            usedAt = now;
+            if (tokens < config.getRequestedTokens()) {
+                return -1;
+            }
+            tokens -= config.getRequestedTokens();
+            unsynced += config.getRequestedTokens();
+            return (long) tokens;
+        }
+
+        synchronized void refund(Config config) {
+            tokens = Math.min(config.getBurstCapacity(), tokens + config.getRequestedTokens());
+            unsynced -= config.getRequestedTokens();
+        }
+
+        synchronized long unsynced() {
+            return unsynced;
+        }
+
+        synchronized long drainUnsynced() {
+            long delta = unsynced;
+            unsynced = 0;
+            return delta;
+        }
+
+        synchronized void restore(long delta) {
+            unsynced += delta;
+        }
+
+        synchronized void reconcile(long delta, long total) {
+            long previous = seenTotal;
+            seenTotal = total;
+            // Nothing to compare with on the first sync, or after the counter expired
+            if (previous < 0 || total - delta < previous) {
+                return;
+            }
+            long remote = total - delta - previous;
+            if (remote > 0) {
+                refill(System.nanoTime());
+                tokens = Math.max(tokens - remote, -config.getBurstCapacity());
+            }
+        }
+
+        /** Retires the bucket if it was unused since idleSince and has nothing left to sync. */
+        synchronized boolean retireIfIdle(long idleSince) {
+            retired = usedAt < idleSince && unsynced == 0;
+            return retired;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(config.getBurstCapacity(), tokens + (now - refilledAt) * config.getReplenishRate() / 1e9);
+            refilledAt = now;
+        }
+    }
+
+    /**
+     * Per-route settings, bound from the {@code hybrid-rate-limiter.*} arguments of the
+     * route's RequestRateLimiter filter.
+     */
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int replenishRate;
+
+        @Min(0)
+        private int burstCapacity = 1;
+
+        @Min(1)
+        private int requestedTokens = 1;
+
+        // Fraction of the burst capacity a node may consume before syncing early; null uses the default
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double allowedError;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        public Double getAllowedError() {
+            return allowedError;
+        }
+
+        public Config setAllowedError(Double allowedError) {
+            this.allowedError = allowedError;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringCreator(this).append("replenishRate", replenishRate)
+                    .append("burstCapacity", burstCapacity)
+                    .append("requestedTokens", requestedTokens)
+                    .append("allowedError", allowedError)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:58:41 pm
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.Locale;
+
+/**
+ * Parts of a request a rate limit can be keyed on, combined by {@link CompositeKeyResolver}.
+ * Routes name them in {@code rate_limit_key} and {@code rate_limit_tiers}, e.g. {@code "apiKey,path"}.
+ */
+public enum KeyDimension {
+
+    /** The API key header, {@code gateway.rate-limit.api-key-header}; stored hashed. */
+    API_KEY("apiKey"),
+    /**
+     * The caller's subject, as verified by an authentication filter that puts it in
+     * {@value com.nopaper.work.gateway.constants.GatewayConstant#AUTHENTICATED_SUBJECT_ATTR}.
+     * Requests nobody verified share one bucket; unverified token claims are never used.
+     * Routes cannot name it until the gateway has such a filter, see
+     * {@link RateLimitPolicyResolver#parseKey(String)}.
+     */
+    SUBJECT("subject"),
+    /** The id of the matched route. */
+    ROUTE("route"),
+    /** The client address. */
+    IP("ip"),
+    /** The Path predicate pattern that matched, e.g. {@code /orders/{id}}, so all orders share a key. */
+    PATH("path");
+
+    private final String specName;
+
+    KeyDimension(String specName) {
+        this.specName = specName;
+    }
+
+    public String specName() {
+        return specName;
+    }
+
+    /**
+     * Finds a dimension by the name routes use for it, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such dimension.
+     */
+    public static KeyDimension of(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (KeyDimension dimension : values()) {
+            if (dimension.specName.toLowerCase(Locale.ROOT).equals(normalized)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rate limit key dimension " + name + ", expected apiKey, subject, route, ip or path");
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:01:12 am
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nopaper.work.gateway.configurations.RoutePolicyCache;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+
+/**
+ * Parses the {@code rate_limit_key} and {@code rate_limit_tiers} columns of a route and
+ * finds them again for the route a request was matched to, through a {@link RoutePolicyCache}
+ * each. Routes whose column is invalid are treated as if they had none.
+ * <p>
+ * {@code rate_limit_key} is a comma-separated list of {@link KeyDimension}s such as
+ * {@code apiKey,route}. {@code rate_limit_tiers} holds JSON such as
+ * {@code {"mode": "hybrid", "tiers": [{"name": "tenant", "key": "apiKey", "replenishRate": 100, "burstCapacity": 200},
+ * {"name": "global", "key": "", "replenishRate": 5000, "burstCapacity": 10000}]}};
+ * the mode defaults to {@code hybrid}.
+ */
+@Component
+public class RateLimitPolicyResolver {
+
+    private static final Pattern TIER_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private record TierDocument(String name, String key, Integer replenishRate, Integer burstCapacity) {}
+
+    private record TiersDocument(String mode, List<TierDocument> tiers) {}
+
+    private final ObjectReader tiersReader;
+    private final RoutePolicyCache<List<KeyDimension>> keys;
+    private final RoutePolicyCache<RateLimitTiers> tiers;
+
+    public RateLimitPolicyResolver(ObjectMapper objectMapper, RoutePolicyCaches policyCaches) {
+        this.tiersReader = objectMapper.readerFor(TiersDocument.class);
+        this.keys = policyCaches.create(CompositeKeyResolver.METADATA_KEY, this::parseKey, null, null);
+        this.tiers = policyCaches.create(RateLimitTiers.METADATA_KEY, this::parseTiers, null, null);
+    }
+
+    /** Key dimensions of the route, or {@code null} if it has none. */
+    public List<KeyDimension> key(Route route) {
+        return keys.resolve(route);
+    }
+
+    /** Tiered quota of the route, or {@code null} if it has none. */
+    public RateLimitTiers tiers(Route route) {
+        return tiers.resolve(route);
+    }
+
+    /**
+     * Tiered quota of a route that {@link #tiers(Route)} was already asked about, which
+     * the key resolver does before the rate limiter runs.
+     */
+    public RateLimitTiers tiers(String routeId) {
+        return tiers.get(routeId);
+    }
+
+    /**
+     * Parses a {@code rate_limit_key} column. A blank spec is a key shared by all requests.
+     *
+     * @throws IllegalArgumentException if a dimension is unknown or repeated, or is
+     *                                  {@link KeyDimension#SUBJECT}, which no filter verifies yet.
+     */
+    public List<KeyDimension> parseKey(String spec) {
+        List<KeyDimension> dimensions = new ArrayList<>();
+        if (!StringUtils.hasText(spec)) {
+            return dimensions;
+        }
+        for (String name : spec.split(",")) {
+            KeyDimension dimension = KeyDimension.of(name);
+            if (dimension == KeyDimension.SUBJECT) {
+                // Would put every caller in one bucket, as nothing sets the verified subject
+                throw new IllegalArgumentException("Rate limit key " + spec + " names subject, but no authentication filter "
+                        + "verifies subjects; use apiKey instead");
+            }
+            if (dimensions.contains(dimension)) {
+                throw new IllegalArgumentException("Rate limit key " + spec + " names " + name + " twice");
+            }
+            dimensions.add(dimension);
+        }
+        return List.copyOf(dimensions);
+    }
+
+    /**
+     * Parses a {@code rate_limit_tiers} column.
+     *
+     * @throws IllegalArgumentException if the JSON or one of its values is invalid.
+     */
+    public RateLimitTiers parseTiers(String json) {
+        TiersDocument document;
+        try {
+            document = tiersReader.readValue(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed rate limit tiers: " + e.getOriginalMessage(), e);
+        }
+        if (document.tiers() == null || document.tiers().isEmpty()) {
+            throw new IllegalArgumentException("Rate limit tiers need at least one tier");
+        }
+        RateLimitTiers.Mode mode;
+        try {
+            mode = document.mode() != null ? RateLimitTiers.Mode.valueOf(document.mode().toUpperCase(Locale.ROOT)) : RateLimitTiers.Mode.HYBRID;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown rate limit tier mode " + document.mode() + ", expected hybrid or redis", e);
+        }
+
+        List<RateLimitTier> parsed = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TierDocument tier : document.tiers()) {
+            if (tier.name() == null || !TIER_NAME.matcher(tier.name()).matches() || !names.add(tier.name())) {
+                throw new IllegalArgumentException("Rate limit tier names must be unique and made of letters, digits, '-' and '_': "
+                        + tier.name());
+            }
+            if (tier.replenishRate() == null || tier.replenishRate() < 1 || tier.burstCapacity() == null || tier.burstCapacity() < 1) {
+                throw new IllegalArgumentException("Rate limit tier " + tier.name() + " needs a replenish rate and burst capacity of at least 1");
+            }
+            parsed.add(new RateLimitTier(tier.name(), parseKey(tier.key()), tier.replenishRate(), tier.burstCapacity()));
+        }
+        return new RateLimitTiers(parsed, mode);
+    }
+}
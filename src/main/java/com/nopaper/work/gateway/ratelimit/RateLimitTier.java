@@ -0,0 +1,28 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:59:30 pm
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.List;
+
+/**
+ * One level of a tiered quota, such as per tenant, per route or global.
+ * <p>
+ * A tier's buckets are identified by its name and key, not by the route, so two
+ * routes naming the same tier share its quota. Give such tiers the same limits on
+ * every route; whichever route a request came through decides how fast they refill.
+ *
+ * @param name           Name of the quota, e.g. {@code tenant}.
+ * @param key            What the quota is counted per; empty for one quota shared by all requests.
+ * @param replenishRate  Tokens added per second.
+ * @param burstCapacity  Most tokens the bucket holds.
+ */
+public record RateLimitTier(String name, List<KeyDimension> key, int replenishRate, int burstCapacity) {
+
+    public RateLimitTier {
+        key = List.copyOf(key);
+    }
+}
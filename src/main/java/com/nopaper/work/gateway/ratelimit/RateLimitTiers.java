@@ -0,0 +1,33 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:59:58 pm
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.List;
+
+/**
+ * The tiered quota of a route, checked by {@link TieredRateLimiter}. A request is
+ * admitted only if every tier has a token left, and then takes one from each.
+ *
+ * @param tiers Tiers in the order they are checked.
+ * @param mode  Where the buckets live.
+ */
+public record RateLimitTiers(List<RateLimitTier> tiers, Mode mode) {
+
+    /** Key of the tiers JSON in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "rate_limit_tiers";
+
+    public enum Mode {
+        /** In-process buckets synced in the background, as {@link HybridRateLimiter}; no Redis call per request. */
+        HYBRID,
+        /** Buckets in Redis, all tiers checked by one script call per request. Exact, but Redis is on the request path. */
+        REDIS
+    }
+
+    public RateLimitTiers {
+        tiers = List.copyOf(tiers);
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:48:19 am
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sliding-window counter: admits at most {@code limit} requests per key in any
+ * {@code window}, for contracts phrased as "N requests per minute" rather than as a
+ * refill rate.
+ * <p>
+ * The window is split into {@code slices}; a request counts in the slice it arrived in,
+ * and the oldest slice is weighted by how much of it is still inside the window. That
+ * assumes the oldest slice's requests were spread evenly, so the count can be off by
+ * at most one slice's traffic (a tenth of the window with the default of 10 slices),
+ * without keeping a log of timestamps.
+ * <p>
+ * In {@code redis} mode (the default) the slices live in Redis and one script call per
+ * request checks and counts, which makes the limit exact for the whole cluster. In
+ * {@code local} mode each node keeps its own counters, one lock-free ring of stamped
+ * slices per key, with no Redis round trip; the limit is then per node, so N nodes
+ * admit up to N times the limit.
+ */
+@Component
+@Slf4j
+public class SlidingWindowRateLimiter extends AbstractRateLimiter<SlidingWindowRateLimiter.Config> {
+
+    /** Prefix of this limiter's arguments in a route's RequestRateLimiter filter. */
+    public static final String CONFIGURATION_PROPERTY_NAME = "sliding-window-rate-limiter";
+
+    /*
+     * KEYS[1] is a hash of slice number -> count. ARGV: current slice, slices per window,
+     * limit, requested, weight of the oldest slice, TTL in ms. Returns 1 or 0 and the
+     * requests left in the window.
+     */
+    private static final RedisScript<List<Long>> WINDOW_SCRIPT = windowScript();
+
+    private static final long MIN_SLICE_NANOS = 1_000_000;
+
+    private record WindowKey(String routeId, String id) {}
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Duration idleTimeout;
+    private final Config defaultConfig = new Config();
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+    // Slice numbers count from here, so they stay small and positive
+    private final long origin = System.nanoTime();
+    private Disposable sweeper;
+
+    public SlidingWindowRateLimiter(
+            ReactiveStringRedisTemplate redisTemplate,
+            ConfigurationService configurationService,
+            @Value("${gateway.rate-limit.idle-timeout:2m}") Duration idleTimeout)
+    {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        this.idleTimeout = idleTimeout;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static RedisScript<List<Long>> windowScript() {
+        return (RedisScript) RedisScript.of("""
+                local current = tonumber(ARGV[1])
+                local slices = tonumber(ARGV[2])
+                local limit = tonumber(ARGV[3])
+                local requested = tonumber(ARGV[4])
+                local weight = tonumber(ARGV[5])
+                local counts = redis.call('HGETALL', KEYS[1])
+                local used = 0
+                for i = 1, #counts, 2 do
+                  local slice = tonumber(counts[i])
+                  if slice < current - slices then
+                    redis.call('HDEL', KEYS[1], counts[i])
+                  elseif slice == current - slices then
+                    used = used + tonumber(counts[i + 1]) * weight
+                  else
+                    used = used + tonumber(counts[i + 1])
+                  end
+                end
+                if used + requested > limit then
+                  return { 0, math.max(0, math.floor(limit - used)) }
+                end
+                redis.call('HINCRBY', KEYS[1], current, requested)
+                redis.call('PEXPIRE', KEYS[1], ARGV[6])
+                return { 1, math.floor(limit - used - requested) }
+                """, List.class);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Flux.interval(idleTimeout)
+                .subscribe(tick -> {
+                    long idleSince = System.nanoTime() - idleTimeout.toNanos();
+                    windows.values().removeIf(window -> window.usedAt < idleSince);
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        if (config.getMode() == Mode.REDIS) {
+            return isAllowedInRedis(routeId, id, config);
+        }
+        long sliceNanos = Math.max(MIN_SLICE_NANOS, config.getWindow().toNanos() / config.getSlices());
+        long elapsed = System.nanoTime() - origin;
+        Window window = windows.computeIfAbsent(new WindowKey(routeId, id), key -> new Window(config.getSlices()));
+        long remaining = window.tryAcquire(elapsed / sliceNanos, oldestSliceWeight(elapsed, sliceNanos), config);
+        return Mono.just(new Response(remaining >= 0, headers(config, Math.max(remaining, 0))));
+    }
+
+    private Mono<Response> isAllowedInRedis(String routeId, String id, Config config) {
+        // Slice numbers must agree between nodes, so they are counted from the epoch rather than from origin
+        long sliceMillis = Math.max(MIN_SLICE_NANOS / 1_000_000, config.getWindow().toMillis() / config.getSlices());
+        long now = System.currentTimeMillis();
+        List<String> keys = List.of(GatewayConstant.RATE_LIMIT_KEY_PREFIX + "{" + routeId + "." + id + "}.window");
+        List<String> args = List.of(String.valueOf(now / sliceMillis), String.valueOf(config.getSlices()),
+                String.valueOf(config.getLimit()), String.valueOf(config.getRequestedTokens()),
+                String.valueOf(oldestSliceWeight(now, sliceMillis)), String.valueOf(config.getWindow().multipliedBy(2).toMillis()));
+        return redisTemplate.execute(WINDOW_SCRIPT, keys, args)
+                .next()
+                .map(result -> new Response(result.get(0) == 1L, headers(config, result.get(1))))
+                .onErrorResume(error -> {
+                    // Same as RedisRateLimiter: an unreachable Redis must not take the routes down
+                    log.error("Error checking sliding window in Redis", error);
+                    return Mono.just(new Response(true, headers(config, -1)));
+                });
+    }
+
+    // Share of the oldest slice that is still inside the window
+    private static double oldestSliceWeight(long time, long sliceLength) {
+        return 1 - (double) (time % sliceLength) / sliceLength;
+    }
+
+    Config loadConfiguration(String routeId) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            config = getConfig().getOrDefault(RouteDefinitionRouteLocator.DEFAULT_FILTERS, defaultConfig);
+        }
+        return config;
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        return Map.of(
+                RedisRateLimiter.REMAINING_HEADER, String.valueOf(remaining),
+                RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(config.getLimit()),
+                RedisRateLimiter.REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+    }
+
+    /**
+     * Counters of one route and key: a ring of {@code slices + 1} slots, each holding
+     * the number of the slice it counts in the high bits and the count in the low bits,
+     * so that a slot is moved on to a new slice and counted in with a single CAS.
+     * <p>
+     * A request is counted first and taken back if the window turns out to be full, so
+     * concurrent requests can be refused spuriously but the limit is never exceeded.
+     */
+    private static final class Window {
+
+        private static final int COUNT_BITS = 24;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final AtomicLongArray slots;
+        private volatile long usedAt = System.nanoTime();
+
+        Window(int slices) {
+            this.slots = new AtomicLongArray(slices + 1);
+        }
+
+        /** Returns the requests left in the window, or -1 if this one is refused. */
+        long tryAcquire(long slice, double weight, Config config) {
+            usedAt = System.nanoTime();
+            int requested = config.getRequestedTokens();
+            int index = (int) (slice % slots.length());
+            long current = add(index, slice, requested);
+
+            double used = used(current, weight);
+            if (used > config.getLimit()) {
+                // Unless the slot has moved on meanwhile, which dropped the count anyway
+                slots.getAndUpdate(index, slot -> (slot >>> COUNT_BITS) == current ? slot - requested : slot);
+                return -1;
+            }
+            return (long) (config.getLimit() - used);
+        }
+
+        /**
+         * Counts the request in its slot and returns the slice it was counted in: its own,
+         * or a newer one if the request ran so late that the slot has already moved on.
+         */
+        private long add(int index, long slice, int requested) {
+            for (;;) {
+                long slot = slots.get(index);
+                long held = slot >>> COUNT_BITS;
+                long next = held < slice ? slice << COUNT_BITS | requested : slot + requested;
+                if (slots.compareAndSet(index, slot, next)) {
+                    return Math.max(held, slice);
+                }
+            }
+        }
+
+        private double used(long current, double weight) {
+            int slices = slots.length() - 1;
+            double used = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                long slot = slots.get(i);
+                long age = current - (slot >>> COUNT_BITS);
+                if (age >= 0 && age < slices) {
+                    used += slot & COUNT_MASK;
+                } else if (age == slices) {
+                    used += (slot & COUNT_MASK) * weight;
+                }
+            }
+            return used;
+        }
+    }
+
+    public enum Mode {
+        LOCAL,
+        REDIS
+    }
+
+    /**
+     * Per-route settings, bound from the {@code sliding-window-rate-limiter.*} arguments
+     * of the route's RequestRateLimiter filter.
+     */
+    @Validated
+    public static class Config {
+
+        // Counts are kept in 24 bits per slice, with room for requests that are counted and then refused;
+        // so are the tokens of one request, which must not carry into the slice number
+        @Min(1)
+        @Max(1_000_000)
+        private int limit = 10;
+
+        @NotNull
+        private Duration window = Duration.ofSeconds(1);
+
+        @Min(1)
+        @Max(60)
+        private int slices = 10;
+
+        @Min(1)
+        @Max(1_000_000)
+        private int requestedTokens = 1;
+
+        @NotNull
+        private Mode mode = Mode.REDIS;
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public Config setLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public Config setWindow(Duration window) {
+            this.window = window;
+            return this;
+        }
+
+        public int getSlices() {
+            return slices;
+        }
+
+        public Config setSlices(int slices) {
+            this.slices = slices;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public Config setMode(Mode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringCreator(this).append("limit", limit)
+                    .append("window", window)
+                    .append("slices", slices)
+                    .append("requestedTokens", requestedTokens)
+                    .append("mode", mode)
+                    .toString();
+        }
+    }
+}
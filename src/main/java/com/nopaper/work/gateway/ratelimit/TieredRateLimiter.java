@@ -0,0 +1,283 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 12:14:05 am
+ * @git
+ */
+package com.nopaper.work.gateway.ratelimit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.annotation.Validated;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import jakarta.validation.constraints.Min;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rate limiter for routes with a {@code rate_limit_tiers} column: checks every tier of
+ * the route's quota (say per tenant, per route and global) in one pass, and admits the
+ * request only if all of them have a token left.
+ * <p>
+ * In {@code hybrid} mode the tiers are buckets of {@link HybridRateLimiter}, answered
+ * in-process and synced in the background. In {@code redis} mode the tiers are checked
+ * and updated by one script call per distinct key, whose buckets share the key as hash
+ * tag so that Redis Cluster spreads the keys over its slots; the calls run at once, and
+ * tokens taken by one are handed back if another refuses the request.
+ * <p>
+ * Must be used with {@link CompositeKeyResolver}, which resolves one key per tier.
+ */
+@Component
+@Slf4j
+public class TieredRateLimiter extends AbstractRateLimiter<TieredRateLimiter.Config> {
+
+    /** Prefix of this limiter's arguments in a route's RequestRateLimiter filter. */
+    public static final String CONFIGURATION_PROPERTY_NAME = "tiered-rate-limiter";
+
+    /*
+     * Token buckets as in Spring's request_rate_limiter.lua, one hash per tier. All buckets
+     * are read first and written only once it is known whether the request is admitted.
+     * KEYS are the tiers' hashes, ARGV the requested tokens then rate and capacity per tier.
+     * Returns 1 or 0 followed by the tokens left in each tier.
+     */
+    private static final RedisScript<List<Long>> TIERS_SCRIPT = tiersScript();
+
+    /*
+     * Adds the requested tokens back to buckets that still exist, up to their capacity.
+     * Takes the same KEYS and ARGV as TIERS_SCRIPT.
+     */
+    private static final RedisScript<List<Long>> REFUND_SCRIPT = refundScript();
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final HybridRateLimiter hybridRateLimiter;
+    private final RateLimitPolicyResolver policyResolver;
+    private final Config defaultConfig = new Config();
+
+    public TieredRateLimiter(
+            ReactiveStringRedisTemplate redisTemplate,
+            HybridRateLimiter hybridRateLimiter,
+            RateLimitPolicyResolver policyResolver,
+            ConfigurationService configurationService)
+    {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        this.hybridRateLimiter = hybridRateLimiter;
+        this.policyResolver = policyResolver;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static RedisScript<List<Long>> tiersScript() {
+        return (RedisScript) RedisScript.of("""
+                redis.replicate_commands()
+                local time = redis.call('TIME')
+                local now = tonumber(time[1]) + tonumber(time[2]) / 1000000
+                local requested = tonumber(ARGV[1])
+                local levels = {}
+                local allowed = 1
+                for i, key in ipairs(KEYS) do
+                  local rate = tonumber(ARGV[2 * i])
+                  local capacity = tonumber(ARGV[2 * i + 1])
+                  local state = redis.call('HMGET', key, 'tokens', 'at')
+                  local tokens = tonumber(state[1]) or capacity
+                  local at = tonumber(state[2]) or now
+                  levels[i] = math.min(capacity, tokens + math.max(0, now - at) * rate)
+                  if levels[i] < requested then
+                    allowed = 0
+                  end
+                end
+                local result = { allowed }
+                for i, key in ipairs(KEYS) do
+                  local rate = tonumber(ARGV[2 * i])
+                  local capacity = tonumber(ARGV[2 * i + 1])
+                  if allowed == 1 then
+                    levels[i] = levels[i] - requested
+                  end
+                  redis.call('HSET', key, 'tokens', levels[i], 'at', now)
+                  redis.call('EXPIRE', key, math.ceil(capacity / rate * 2))
+                  result[i + 1] = math.floor(levels[i])
+                end
+                return result
+                """, List.class);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static RedisScript<List<Long>> refundScript() {
+        return (RedisScript) RedisScript.of("""
+                local requested = tonumber(ARGV[1])
+                local result = {}
+                for i, key in ipairs(KEYS) do
+                  local capacity = tonumber(ARGV[2 * i + 1])
+                  local tokens = tonumber(redis.call('HGET', key, 'tokens'))
+                  if tokens then
+                    tokens = math.min(capacity, tokens + requested)
+                    redis.call('HSET', key, 'tokens', tokens)
+                  end
+                  result[i] = math.floor(tokens or capacity)
+                end
+                return result
+                """, List.class);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        RateLimitTiers tiers = policyResolver.tiers(routeId);
+        String[] keys = StringUtils.delimitedListToStringArray(id, String.valueOf(CompositeKeyResolver.TIER_SEPARATOR));
+        if (tiers == null || keys.length != tiers.tiers().size()) {
+            // Only when the route's tiers are invalid or it is not keyed by compositeKeyResolver
+            log.warn("Route {} has no usable rate limit tiers for key {}; not limiting it.", routeId, id);
+            return Mono.just(new Response(true, Map.of()));
+        }
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        return tiers.mode() == RateLimitTiers.Mode.REDIS
+                ? isAllowedInRedis(tiers.tiers(), keys, config)
+                : Mono.just(isAllowedLocally(tiers.tiers(), keys, config));
+    }
+
+    private Response isAllowedLocally(List<RateLimitTier> tiers, String[] keys, Config config) {
+        List<String> scopes = new ArrayList<>(tiers.size());
+        List<HybridRateLimiter.Config> configs = new ArrayList<>(tiers.size());
+        for (RateLimitTier tier : tiers) {
+            scopes.add("tier." + tier.name());
+            configs.add(new HybridRateLimiter.Config()
+                    .setReplenishRate(tier.replenishRate())
+                    .setBurstCapacity(tier.burstCapacity())
+                    .setRequestedTokens(config.getRequestedTokens()));
+        }
+        long[] remaining = hybridRateLimiter.tryConsumeAll(scopes, List.of(keys), configs);
+        return remaining != null
+                ? new Response(true, headers(tiers, remaining, config))
+                : new Response(false, headers(tiers, new long[tiers.size()], config));
+    }
+
+    private Mono<Response> isAllowedInRedis(List<RateLimitTier> tiers, String[] keys, Config config) {
+        // Tiers keyed alike go in one script call, their buckets sharing the key as hash tag
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < tiers.size(); i++) {
+            groups.computeIfAbsent(keys[i], key -> new ArrayList<>()).add(i);
+        }
+        List<Mono<List<Long>>> calls = new ArrayList<>(groups.size());
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            calls.add(redisTemplate.execute(TIERS_SCRIPT, redisKeys(tiers, group), args(tiers, group, config)).next());
+        }
+        List<List<Integer>> indexes = List.copyOf(groups.values());
+        return Mono.zip(calls, results -> results)
+                .flatMap(results -> {
+                    long[] remaining = new long[tiers.size()];
+                    boolean[] admitted = new boolean[results.length];
+                    boolean allowed = true;
+                    for (int g = 0; g < results.length; g++) {
+                        @SuppressWarnings("unchecked")
+                        List<Long> result = (List<Long>) results[g];
+                        admitted[g] = result.get(0) == 1L;
+                        allowed &= admitted[g];
+                        for (int t = 0; t < indexes.get(g).size(); t++) {
+                            remaining[indexes.get(g).get(t)] = result.get(t + 1);
+                        }
+                    }
+                    Response response = new Response(allowed, headers(tiers, remaining, config));
+                    return allowed ? Mono.just(response) : refund(tiers, groups, admitted, config).thenReturn(response);
+                })
+                .onErrorResume(error -> {
+                    // Same as RedisRateLimiter: an unreachable Redis must not take the routes down
+                    log.error("Error checking rate limit tiers in Redis", error);
+                    return Mono.just(new Response(true, headers(tiers, null, config)));
+                });
+    }
+
+    /** Hands the tokens back to the groups that admitted a request another group refused. */
+    private Mono<Void> refund(List<RateLimitTier> tiers, Map<String, List<Integer>> groups, boolean[] admitted, Config config) {
+        List<Mono<List<Long>>> calls = new ArrayList<>();
+        int g = 0;
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            if (admitted[g++]) {
+                calls.add(redisTemplate.execute(REFUND_SCRIPT, redisKeys(tiers, group), args(tiers, group, config)).next());
+            }
+        }
+        return Flux.merge(calls)
+                .onErrorResume(error -> {
+                    log.warn("Could not hand back the rate limit tokens of a refused request", error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static List<String> redisKeys(List<RateLimitTier> tiers, Map.Entry<String, List<Integer>> group) {
+        List<String> redisKeys = new ArrayList<>(group.getValue().size());
+        for (int i : group.getValue()) {
+            // Hash tag of the request's key, so each key's buckets share a slot on Redis Cluster and keys spread out
+            redisKeys.add(GatewayConstant.RATE_LIMIT_KEY_PREFIX + "{" + group.getKey() + "}." + tiers.get(i).name());
+        }
+        return redisKeys;
+    }
+
+    private static List<String> args(List<RateLimitTier> tiers, Map.Entry<String, List<Integer>> group, Config config) {
+        List<String> args = new ArrayList<>(1 + 2 * group.getValue().size());
+        args.add(String.valueOf(config.getRequestedTokens()));
+        for (int i : group.getValue()) {
+            args.add(String.valueOf(tiers.get(i).replenishRate()));
+            args.add(String.valueOf(tiers.get(i).burstCapacity()));
+        }
+        return args;
+    }
+
+    /**
+     * The usual rate limit headers, describing the tier with the fewest tokens left since
+     * that is the one the client runs into first. Without counts, when Redis is down, the
+     * first tier is described with -1 remaining, as RedisRateLimiter does.
+     */
+    private static Map<String, String> headers(List<RateLimitTier> tiers, long[] remaining, Config config) {
+        int tightest = 0;
+        if (remaining != null) {
+            for (int i = 1; i < remaining.length; i++) {
+                if (remaining[i] < remaining[tightest]) {
+                    tightest = i;
+                }
+            }
+        }
+        RateLimitTier tier = tiers.get(tightest);
+        return Map.of(
+                RedisRateLimiter.REMAINING_HEADER, String.valueOf(remaining != null ? Math.max(remaining[tightest], 0) : -1),
+                RedisRateLimiter.REPLENISH_RATE_HEADER, String.valueOf(tier.replenishRate()),
+                RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(tier.burstCapacity()),
+                RedisRateLimiter.REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+    }
+
+    /**
+     * Per-route settings, bound from the {@code tiered-rate-limiter.*} arguments of the
+     * route's RequestRateLimiter filter. The tiers themselves come from route metadata.
+     */
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int requestedTokens = 1;
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringCreator(this).append("requestedTokens", requestedTokens).toString();
+        }
+    }
+}
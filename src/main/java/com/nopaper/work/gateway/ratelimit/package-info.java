@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.ratelimit -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 11:52:27 pm
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.ratelimit;
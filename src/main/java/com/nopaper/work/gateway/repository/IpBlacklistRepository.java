@@ -7,6 +7,8 @@
 
 package com.nopaper.work.gateway.repository;
 
+import java.time.Instant;
+
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 
@@ -30,4 +32,13 @@ public interface IpBlacklistRepository extends R2dbcRepository<IpBlacklist, Long
 	 * @return A Mono emitting true if the IP exists, false otherwise.
 	 */
 	Mono<Boolean> existsByIpAddress(String ipAddress);
+
+	/**
+	 * Finds entries added or changed after the given instant, used to refresh the
+	 * in-process blacklist index incrementally.
+	 *
+	 * @param since Exclusive lower bound on last_modified_date.
+	 * @return A Flux of the changed entries.
+	 */
+	Flux<IpBlacklist> findByLastModifiedDateAfter(Instant since);
 }
\ No newline at end of file
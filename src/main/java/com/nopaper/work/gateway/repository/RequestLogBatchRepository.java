@@ -0,0 +1,27 @@
+/**
+ * @package com.nopaper.work.gateway.repository -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 5:32:40 pm
+ * @git
+ */
+package com.nopaper.work.gateway.repository;
+
+import java.util.List;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulk write operations for request logs that the derived R2DBC methods do not cover.
+ */
+public interface RequestLogBatchRepository {
+
+	/**
+	 * Inserts all entries with a single multi-row INSERT statement.
+	 *
+	 * @param logs The entries to insert. Ids are generated by the database.
+	 * @return A Mono emitting the number of inserted rows.
+	 */
+	Mono<Long> insertAll(List<RequestLog> logs);
+}
@@ -0,0 +1,74 @@
+/**
+ * @package com.nopaper.work.gateway.repository -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 5:35:02 pm
+ * @git
+ */
+package com.nopaper.work.gateway.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Multi-row INSERT into {@code gateway.request_logs}. One statement carries the whole
+ * batch, so a batch costs a single round trip and a single connection checkout.
+ */
+@RequiredArgsConstructor
+public class RequestLogBatchRepositoryImpl implements RequestLogBatchRepository {
+
+	private static final String INSERT_PREFIX = "INSERT INTO gateway.request_logs (request_id, trace_id, http_method, uri, "
+			+ "status_code, client_ip, request_headers, response_headers, duration_ms, "
+			+ "created_by, created_date, last_modified_by, last_modified_date) VALUES ";
+	private static final int COLUMNS = 13;
+
+	private final DatabaseClient databaseClient;
+
+	@Override
+	public Mono<Long> insertAll(List<RequestLog> logs) {
+		if (logs.isEmpty()) {
+			return Mono.just(0L);
+		}
+
+		StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + logs.size() * COLUMNS * 6);
+		sql.append(INSERT_PREFIX);
+		int marker = 1;
+		for (int row = 0; row < logs.size(); row++) {
+			sql.append(row == 0 ? "(" : ", (");
+			for (int column = 0; column < COLUMNS; column++) {
+				sql.append(column == 0 ? "$" : ", $").append(marker++);
+			}
+			sql.append(')');
+		}
+
+		GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+		int index = 0;
+		for (RequestLog log : logs) {
+			spec = bind(spec, index++, log.getRequestId(), String.class);
+			spec = bind(spec, index++, log.getTraceId(), String.class);
+			spec = bind(spec, index++, log.getHttpMethod(), String.class);
+			spec = bind(spec, index++, log.getUri(), String.class);
+			spec = bind(spec, index++, log.getStatusCode(), Integer.class);
+			spec = bind(spec, index++, log.getClientIp(), String.class);
+			spec = bind(spec, index++, log.getRequestHeaders(), String.class);
+			spec = bind(spec, index++, log.getResponseHeaders(), String.class);
+			spec = bind(spec, index++, log.getDurationMs(), Long.class);
+			spec = bind(spec, index++, log.getCreatedBy(), String.class);
+			spec = bind(spec, index++, log.getCreatedDate(), Instant.class);
+			spec = bind(spec, index++, log.getLastModifiedBy(), String.class);
+			spec = bind(spec, index++, log.getLastModifiedDate(), Instant.class);
+		}
+		return spec.fetch().rowsUpdated();
+	}
+
+	private static GenericExecuteSpec bind(GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+		return value == null ? spec.bindNull(index, type) : spec.bind(index, value);
+	}
+}
@@ -18,7 +18,7 @@ import reactor.core.publisher.Flux;
  */
 
 @Repository
-public interface RequestLogRepository extends R2dbcRepository<RequestLog, Long> {
+public interface RequestLogRepository extends R2dbcRepository<RequestLog, Long>, RequestLogBatchRepository {
 	// R2dbcRepository provides the necessary save() method. No additional methods needed for now.
 	Flux<RequestLog> findByTraceId(String traceId);
 }
\ No newline at end of file
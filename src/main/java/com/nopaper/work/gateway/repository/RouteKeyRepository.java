@@ -0,0 +1,29 @@
+/**
+ * @package com.nopaper.work.gateway.repository -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 7:40:02 am
+ * @git
+ */
+package com.nopaper.work.gateway.repository;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+import com.nopaper.work.gateway.entity.RouteKey;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive repository for the key versions of encrypted routes.
+ */
+@Repository
+public interface RouteKeyRepository extends R2dbcRepository<RouteKey, Long> {
+
+	/**
+	 * Finds every key version of a route, expired ones included.
+	 *
+	 * @param routeId The route_id of the route.
+	 * @return A Flux of its key versions, newest first.
+	 */
+	Flux<RouteKey> findByRouteIdOrderByKeyVersionDesc(String routeId);
+}
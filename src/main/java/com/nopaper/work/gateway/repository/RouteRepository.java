@@ -1,11 +1,14 @@
 package com.nopaper.work.gateway.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 
 import com.nopaper.work.gateway.entity.Routes;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * @package com.nopaper.work.gateway.repository -> gateway
@@ -16,4 +19,12 @@ import reactor.core.publisher.Flux;
 @Repository
 public interface RouteRepository extends R2dbcRepository<Routes, Long> {
 	Flux<Routes> findByEnabled(boolean enabled);
+
+	Mono<Routes> findByRouteId(String routeId);
+
+	// Writes back a compiled form, unless the row was saved again since it was read
+	@Modifying
+	@Query("UPDATE gateway.routes SET compiled_definition = :compiledDefinition, definition_hash = :definitionHash"
+			+ " WHERE route_id = :routeId AND definition_hash IS NOT DISTINCT FROM :readHash")
+	Mono<Integer> updateCompiledDefinition(String routeId, String compiledDefinition, String definitionHash, String readHash);
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 3:51:17 am
+ * @git
+ */
+package com.nopaper.work.gateway.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+/**
+ * One attempt at a request, run through the rest of the filter chain on its own so that
+ * retries and hedges can be made, and raced, without touching the real exchange.
+ * <p>
+ * The attempt has its own copy of the attributes, where the routing filters leave the
+ * chosen instance and the upstream connection, so that discarding it never touches
+ * another attempt's connection, and a response that only records status,
+ * headers and any body written by the gateway itself. The attempt that is kept is
+ * {@link #commit committed} to the real exchange; the body of an upstream response is
+ * then streamed by NettyWriteResponseFilter as usual. The others are
+ * {@link #discard discarded}, which closes their upstream connection.
+ * <p>
+ * Only requests without a body are attempted more than once, so every attempt is given
+ * an empty body rather than the inbound one, which can only be read once.
+ */
+final class AttemptExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final ServerHttpRequest request;
+    private final AttemptResponse response;
+
+    /**
+     * @param attributes Attributes of the exchange as they were before the first attempt.
+     */
+    AttemptExchange(ServerWebExchange exchange, Map<String, Object> attributes) {
+        super(exchange);
+        this.attributes = new ConcurrentHashMap<>(attributes);
+        this.request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+        this.response = new AttemptResponse(exchange.getResponse());
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public ServerHttpRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    /** Whether the attempt reached the upstream, rather than being answered by the gateway. */
+    boolean isRouted() {
+        return ServerWebExchangeUtils.isAlreadyRouted(this);
+    }
+
+    HttpStatusCode statusCode() {
+        return response.getStatusCode();
+    }
+
+    /** Makes this attempt the answer to the real exchange. */
+    Mono<Void> commit() {
+        ServerWebExchange exchange = getDelegate();
+        exchange.getAttributes().putAll(attributes);
+        ServerHttpResponse target = exchange.getResponse();
+        if (response.status != null) {
+            target.setStatusCode(response.status);
+        }
+        target.getHeaders().clear();
+        target.getHeaders().putAll(response.headers);
+        return response.body != null ? target.writeWith(response.body) : Mono.empty();
+    }
+
+    /** Closes the upstream connection of an attempt that is not kept. */
+    void discard() {
+        Connection connection = (Connection) attributes.remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode status;
+        private Publisher<? extends DataBuffer> body;
+
+        AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+            headers.putAll(delegate.getHeaders());
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status != null ? status : getDelegate().getStatusCode();
+        }
+
+        @Override
+        @Deprecated
+        public boolean setRawStatusCode(Integer value) {
+            this.status = value != null ? HttpStatusCode.valueOf(value) : null;
+            return true;
+        }
+
+        @Override
+        @Deprecated
+        public Integer getRawStatusCode() {
+            HttpStatusCode code = getStatusCode();
+            return code != null ? code.value() : null;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            this.body = body;
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.concat(body));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return writeWith(Flux.empty());
+        }
+    }
+}
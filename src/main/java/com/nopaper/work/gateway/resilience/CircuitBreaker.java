@@ -0,0 +1,224 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 3:05:12 am
+ * @git
+ */
+package com.nopaper.work.gateway.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker of one route. While closed, calls and failures are counted over a
+ * sliding window; once at least {@code minimumCalls} were made in it and the share of
+ * failures reaches {@code failureRate}, the breaker opens and calls are refused for
+ * {@code openFor}. After that it lets {@code halfOpenCalls} trial calls through: if all
+ * of them succeed it closes again with a clean window, the first failure opens it anew.
+ * <p>
+ * Nothing here takes a lock. The window is a ring of slices, each slot packing the
+ * slice it counts for with its calls and failures so that a single CAS counts a call
+ * (like the sliding-window rate limiter), and the state is an immutable phase swapped
+ * by CAS. A closed breaker only reads the phase to admit a call.
+ * <p>
+ * Settings are passed with every call, so that a changed route takes effect without
+ * losing the breaker's state.
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /** Settings of a breaker; see the circuitBreaker section of the Resilience route filter. */
+    public interface Settings {
+
+        double getFailureRate();
+
+        int getMinimumCalls();
+
+        Duration getWindow();
+
+        Duration getOpenFor();
+
+        int getHalfOpenCalls();
+    }
+
+    private static final int SLICES = 10;
+    private static final long MIN_SLICE_NANOS = 1_000_000;
+    // Slot layout: slice stamp | failures | calls; counts saturate instead of overflowing into the next field
+    private static final int COUNT_BITS = 18;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int STAMP_SHIFT = 2 * COUNT_BITS;
+    private static final long STAMP_MASK = (1L << (Long.SIZE - STAMP_SHIFT)) - 1;
+
+    /**
+     * @param openUntil While open, when trial calls may start (System.nanoTime()).
+     * @param trials    While half-open, trial calls let through so far.
+     * @param successes While half-open, trial calls that succeeded.
+     */
+    private record Phase(State state, long openUntil, int trials, int successes) {}
+
+    private static final Phase CLOSED = new Phase(State.CLOSED, 0, 0, 0);
+
+    private final String name;
+    private final AtomicReference<Phase> phase = new AtomicReference<>(CLOSED);
+    // One slot more than slices, so the slot being reused is never one still in the window
+    private final AtomicLongArray slots = new AtomicLongArray(SLICES + 1);
+    // Slice numbers count from here, so they stay small and positive
+    private final long origin = System.nanoTime();
+
+    public CircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Asks to make a call. Every call let through must be followed by
+     * {@link #onSuccess}, {@link #onFailure} or, if it never reached the upstream,
+     * {@link #onCancel}.
+     */
+    public boolean tryAcquire(Settings settings) {
+        for (;;) {
+            Phase current = phase.get();
+            switch (current.state()) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - current.openUntil() < 0) {
+                        return false;
+                    }
+                    if (phase.compareAndSet(current, new Phase(State.HALF_OPEN, 0, 1, 0))) {
+                        log.info("Circuit breaker of {} is half-open, letting {} trial calls through", name, settings.getHalfOpenCalls());
+                        return true;
+                    }
+                    break;
+                default:
+                    if (current.trials() >= settings.getHalfOpenCalls()) {
+                        return false;
+                    }
+                    if (phase.compareAndSet(current, new Phase(State.HALF_OPEN, 0, current.trials() + 1, current.successes()))) {
+                        return true;
+                    }
+            }
+        }
+    }
+
+    public void onSuccess(Settings settings) {
+        for (;;) {
+            Phase current = phase.get();
+            switch (current.state()) {
+                case CLOSED:
+                    count(settings, false);
+                    return;
+                case HALF_OPEN:
+                    boolean recovered = current.successes() + 1 >= settings.getHalfOpenCalls();
+                    if (recovered) {
+                        // Clear the window first, so the failures that opened the breaker do not open it again
+                        for (int i = 0; i < slots.length(); i++) {
+                            slots.set(i, 0);
+                        }
+                    }
+                    Phase next = recovered ? CLOSED : new Phase(State.HALF_OPEN, 0, current.trials(), current.successes() + 1);
+                    if (phase.compareAndSet(current, next)) {
+                        if (recovered) {
+                            log.info("Circuit breaker of {} closed", name);
+                        }
+                        return;
+                    }
+                    break;
+                default:
+                    // A call admitted before the breaker opened
+                    return;
+            }
+        }
+    }
+
+    public void onFailure(Settings settings) {
+        for (;;) {
+            Phase current = phase.get();
+            switch (current.state()) {
+                case CLOSED:
+                    if (!count(settings, true)) {
+                        return;
+                    }
+                    break;
+                case HALF_OPEN:
+                    break;
+                default:
+                    return;
+            }
+            if (phase.compareAndSet(current, new Phase(State.OPEN, System.nanoTime() + settings.getOpenFor().toNanos(), 0, 0))) {
+                log.warn("Circuit breaker of {} opened for {}", name, settings.getOpenFor());
+                return;
+            }
+        }
+    }
+
+    /** Hands back a call that was let through but never made, e.g. a cancelled hedge. */
+    public void onCancel() {
+        for (;;) {
+            Phase current = phase.get();
+            if (current.state() != State.HALF_OPEN || current.trials() == 0
+                    || phase.compareAndSet(current, new Phase(State.HALF_OPEN, 0, current.trials() - 1, current.successes()))) {
+                return;
+            }
+        }
+    }
+
+    public State state() {
+        return phase.get().state();
+    }
+
+    /** How long calls will still be refused, zero unless the breaker is open. */
+    public Duration remainingOpen() {
+        Phase current = phase.get();
+        return current.state() == State.OPEN ? Duration.ofNanos(Math.max(0, current.openUntil() - System.nanoTime())) : Duration.ZERO;
+    }
+
+    /**
+     * Counts a call in the window.
+     *
+     * @return Whether the window now holds enough failures to open the breaker.
+     */
+    private boolean count(Settings settings, boolean failure) {
+        long sliceNanos = Math.max(MIN_SLICE_NANOS, settings.getWindow().toNanos() / SLICES);
+        long slice = ((System.nanoTime() - origin) / sliceNanos) & STAMP_MASK;
+        int index = (int) (slice % slots.length());
+        for (;;) {
+            long slot = slots.get(index);
+            long next;
+            if (slot >>> STAMP_SHIFT != slice) {
+                next = slice << STAMP_SHIFT | (failure ? 1L << COUNT_BITS : 0) | 1;
+            } else if ((slot & COUNT_MASK) == COUNT_MASK) {
+                // Saturated; the slice's failure rate stays as it is
+                next = slot;
+            } else {
+                next = slot + (failure ? 1L << COUNT_BITS : 0) + 1;
+            }
+            if (next == slot || slots.compareAndSet(index, slot, next)) {
+                break;
+            }
+        }
+        if (!failure) {
+            return false;
+        }
+
+        long calls = 0;
+        long failures = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            long age = (slice - (slot >>> STAMP_SHIFT)) & STAMP_MASK;
+            if (age < SLICES) {
+                calls += slot & COUNT_MASK;
+                failures += (slot >>> COUNT_BITS) & COUNT_MASK;
+            }
+        }
+        return calls >= settings.getMinimumCalls() && failures >= settings.getFailureRate() * calls;
+    }
+}
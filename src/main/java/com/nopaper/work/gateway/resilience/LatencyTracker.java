@@ -0,0 +1,101 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 3:34:05 am
+ * @git
+ */
+package com.nopaper.work.gateway.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent 95th percentile of a route's upstream latency, which hedged requests wait for
+ * before sending a second attempt.
+ * <p>
+ * Latencies are counted in log-linear buckets, eight per power of two of microseconds,
+ * so the percentile is accurate to within an eighth. Every five seconds all counts are
+ * halved, which lets the percentile follow the upstream as it speeds up or slows down,
+ * at the same pace on busy and quiet routes. The percentile itself is recomputed every
+ * {@value #REFRESH_EVERY} samples and read from a volatile field in between; counting a
+ * sample is a single atomic increment.
+ */
+public final class LatencyTracker {
+
+    private static final double QUANTILE = 0.95;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Microseconds below 2^40, i.e. about 12 days; longer latencies count in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_MICROS = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int REFRESH_EVERY = 64;
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong decayedAt = new AtomicLong(System.nanoTime());
+    private volatile long p95Nanos = -1;
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.min(MAX_MICROS, Math.max(1, nanos / 1_000))));
+        long count = samples.incrementAndGet();
+        long now = System.nanoTime();
+        long decayed = decayedAt.get();
+        // Only the thread that moves the decay time on halves the counts
+        if (now - decayed >= DECAY_NANOS && decayedAt.compareAndSet(decayed, now)) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.getAndUpdate(i, value -> value >>> 1);
+            }
+        }
+        if (count % REFRESH_EVERY == 0) {
+            p95Nanos = quantileNanos();
+        }
+    }
+
+    /** Samples recorded so far. */
+    public long samples() {
+        return samples.get();
+    }
+
+    /** The 95th percentile, or -1 before {@value #REFRESH_EVERY} samples were recorded. */
+    public long p95Nanos() {
+        return p95Nanos;
+    }
+
+    private long quantileNanos() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        long rank = (long) Math.ceil(total * QUANTILE);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                // Upper edge of the bucket, so the hedge waits rather too long than too short
+                return lowerMicros(i + 1) * 1_000;
+            }
+        }
+        return MAX_MICROS * 1_000;
+    }
+
+    // Values below SUB_BUCKETS get a bucket each; above, each power of two is split into SUB_BUCKETS
+    static int bucket(long micros) {
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+        if (exponent < SUB_BUCKET_BITS) {
+            return (int) micros;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowerMicros(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+}
@@ -0,0 +1,557 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 4:08:54 am
+ * @git
+ */
+package com.nopaper.work.gateway.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.loadbalancer.Upstreams;
+import com.nopaper.work.gateway.resilience.RouteResilience.Event;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * The {@code Resilience} route filter, which RouteDefinitionCompiler adds for routes
+ * with a {@code resilience} column. Each of its three sections is off unless the
+ * column names it:
+ * <ul>
+ * <li>{@code circuitBreaker}: refuses requests with 503 and {@code Retry-After} while
+ * the route's {@link CircuitBreaker} is open.</li>
+ * <li>{@code retry}: tries again, with jittered exponential backoff, when the upstream
+ * fails, answers 502, 503 or 504 or cannot be reached, as long as the route's
+ * {@link RetryBudget} allows.</li>
+ * <li>{@code hedge}: if no answer came within the route's recent 95th percentile, sends
+ * a second attempt, possibly to another instance, and keeps whichever answers first.
+ * Hedges are paid from the retry budget too, configured under {@code retry} even when
+ * retries are off.</li>
+ * </ul>
+ * Only requests with an idempotent method and no body are retried or hedged; others
+ * still go through the breaker. Every attempt runs through the rest of the chain as an
+ * {@link AttemptExchange} and only the one kept is committed to the response. The
+ * state behind all three lives in {@link RouteResilience}.
+ */
+@Component
+public class ResilienceGatewayFilterFactory extends AbstractGatewayFilterFactory<ResilienceGatewayFilterFactory.Config> {
+
+    /** Sections of the {@code resilience} column, each bound to the settings of the same name. */
+    public static final Set<String> SECTIONS = Set.of("circuitBreaker", "retry", "hedge");
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS,
+            HttpMethod.TRACE, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private final RouteResilience routes;
+
+    public ResilienceGatewayFilterFactory(RouteResilience routes) {
+        super(Config.class);
+        this.routes = routes;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = config.getRouteId();
+            if (routeId == null) {
+                Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                routeId = route.getId();
+            }
+            RouteResilience.State state = routes.route(routeId);
+            CircuitBreakerConfig breaker = config.getCircuitBreaker();
+            if (breaker.isEnabled() && !state.breaker().tryAcquire(breaker)) {
+                state.count(Event.SHORT_CIRCUITED);
+                return shortCircuit(exchange, state.breaker().remainingOpen());
+            }
+            if ((config.getRetry().isEnabled() || config.getHedge().isEnabled()) && isReplayable(exchange.getRequest())) {
+                state.budget().deposit(config.getRetry().getBudget());
+                return new Call(exchange, chain, config, state).run();
+            }
+            if (!breaker.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange).doFinally(signal -> {
+                if (signal == SignalType.CANCEL || signal == SignalType.ON_COMPLETE && !ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+                    state.breaker().onCancel();
+                } else if (signal == SignalType.ON_ERROR || Upstreams.isOverloaded(exchange.getResponse().getStatusCode())) {
+                    state.breaker().onFailure(breaker);
+                } else {
+                    state.breaker().onSuccess(breaker);
+                }
+            });
+        };
+    }
+
+    private static Mono<Void> shortCircuit(ServerWebExchange exchange, Duration remaining) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (remaining.toMillis() + 999) / 1000)));
+        return exchange.getResponse().setComplete();
+    }
+
+    private static boolean isReplayable(ServerHttpRequest request) {
+        return IDEMPOTENT_METHODS.contains(request.getMethod())
+                && request.getHeaders().getContentLength() <= 0
+                && !request.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    /**
+     * @param error What the chain failed with, if it did.
+     */
+    private record Attempt(AttemptExchange exchange, boolean hedge, Throwable error) {
+
+        boolean failed() {
+            return error != null || exchange.isRouted() && Upstreams.isOverloaded(exchange.statusCode());
+        }
+
+        void discard() {
+            exchange.discard();
+        }
+
+        Mono<Void> commit() {
+            Mono<Void> committed = exchange.commit();
+            return error != null ? committed.then(Mono.error(error)) : committed;
+        }
+    }
+
+    /** One request on a route that retries or hedges. */
+    private static final class Call {
+
+        private final ServerWebExchange exchange;
+        private final GatewayFilterChain chain;
+        private final Config config;
+        private final RouteResilience.State state;
+        // Taken before any attempt, so that one starting late never sees what the kept attempt committed
+        private final Map<String, Object> attributes;
+
+        Call(ServerWebExchange exchange, GatewayFilterChain chain, Config config, RouteResilience.State state) {
+            this.exchange = exchange;
+            this.chain = chain;
+            this.config = config;
+            this.state = state;
+            this.attributes = Map.copyOf(exchange.getAttributes());
+        }
+
+        Mono<Void> run() {
+            return round(0)
+                    .doOnDiscard(Attempt.class, Attempt::discard)
+                    .flatMap(attempt -> {
+                        if (attempt.hedge()) {
+                            state.count(Event.HEDGE_WON);
+                        }
+                        return attempt.commit();
+                    });
+        }
+
+        /** The primary attempt and its hedge, then retries of them while they fail. */
+        private Mono<Attempt> round(int retries) {
+            Mono<Attempt> round = config.getHedge().isEnabled() ? hedged() : attempt(false);
+            return round.flatMap(attempt -> {
+                RetryConfig retry = config.getRetry();
+                if (!attempt.failed() || !retry.isEnabled() || retries >= retry.getMaxRetries() || !tryExtraAttempt(Event.RETRIED)) {
+                    return Mono.just(attempt);
+                }
+                attempt.discard();
+                // The retry's permit is handed back if the call is given up during the backoff
+                return Mono.delay(backoff(retries))
+                        .doOnCancel(this::releasePermit)
+                        .then(round(retries + 1));
+            });
+        }
+
+        /**
+         * Races the primary attempt against a hedge sent once it has taken longer than the
+         * route's p95. The first attempt that succeeds is kept; a failed one only if no
+         * other is still under way.
+         */
+        private Mono<Attempt> hedged() {
+            return Mono.defer(() -> {
+                Duration delay = hedgeDelay();
+                if (delay == null) {
+                    return attempt(false);
+                }
+                AtomicInteger pending = new AtomicInteger(1);
+                // The permit is taken as the hedge attempt is subscribed, so that from then on
+                // calling the race off goes through the attempt, which hands it back
+                Mono<Attempt> hedge = Mono.delay(delay).then(Mono.defer(() -> {
+                    if (!tryExtraAttempt(Event.HEDGED)) {
+                        return Mono.empty();
+                    }
+                    pending.incrementAndGet();
+                    return attempt(true);
+                }));
+                return Flux.merge(attempt(false), hedge)
+                        .takeUntil(attempt -> !attempt.failed() || pending.decrementAndGet() == 0)
+                        .reduce((earlier, later) -> {
+                            earlier.discard();
+                            return later;
+                        });
+            });
+        }
+
+        private Mono<Attempt> attempt(boolean hedge) {
+            return Mono.defer(() -> {
+                AttemptExchange attemptExchange = new AttemptExchange(exchange, attributes);
+                AtomicBoolean settled = new AtomicBoolean();
+                long start = System.nanoTime();
+                return chain.filter(attemptExchange)
+                        .then(Mono.fromSupplier(() -> new Attempt(attemptExchange, hedge, null)))
+                        .onErrorResume(error -> Mono.just(new Attempt(attemptExchange, hedge, error)))
+                        .doOnNext(attempt -> {
+                            if (settled.compareAndSet(false, true)) {
+                                record(attempt, System.nanoTime() - start);
+                            }
+                        })
+                        .doOnCancel(() -> {
+                            // Also called when the attempt is kept and the race it won is called off
+                            if (settled.compareAndSet(false, true)) {
+                                releasePermit();
+                                attemptExchange.discard();
+                            }
+                        });
+            });
+        }
+
+        private void record(Attempt attempt, long nanos) {
+            CircuitBreakerConfig breaker = config.getCircuitBreaker();
+            if (attempt.error() == null && !attempt.exchange().isRouted()) {
+                // Answered by the gateway itself, which says nothing about the upstream
+                if (breaker.isEnabled()) {
+                    state.breaker().onCancel();
+                }
+            } else if (attempt.failed()) {
+                if (breaker.isEnabled()) {
+                    state.breaker().onFailure(breaker);
+                }
+            } else {
+                if (breaker.isEnabled()) {
+                    state.breaker().onSuccess(breaker);
+                }
+                state.latency().record(nanos);
+            }
+        }
+
+        /** Takes a breaker permit and a retry from the budget for a retry or hedge. */
+        private boolean tryExtraAttempt(Event event) {
+            CircuitBreakerConfig breaker = config.getCircuitBreaker();
+            if (breaker.isEnabled() && !state.breaker().tryAcquire(breaker)) {
+                return false;
+            }
+            if (!state.budget().tryWithdraw(config.getRetry().getMinPerSecond())) {
+                releasePermit();
+                state.count(Event.BUDGET_EXHAUSTED);
+                return false;
+            }
+            state.count(event);
+            return true;
+        }
+
+        /** Hands back the breaker permit of an attempt that was never made. */
+        private void releasePermit() {
+            if (config.getCircuitBreaker().isEnabled()) {
+                state.breaker().onCancel();
+            }
+        }
+
+        /** The route's p95 within the configured bounds, or null while too few latencies are known. */
+        private Duration hedgeDelay() {
+            HedgeConfig hedge = config.getHedge();
+            long p95 = state.latency().p95Nanos();
+            if (p95 < 0 || state.latency().samples() < hedge.getMinSamples()) {
+                return null;
+            }
+            return Duration.ofNanos(Math.min(hedge.getMaxDelay().toNanos(), Math.max(hedge.getMinDelay().toNanos(), p95)));
+        }
+
+        // Full backoff doubles with every retry; a random half to all of it is waited
+        private Duration backoff(int retries) {
+            long nanos = config.getRetry().getBackoff().toNanos() << Math.min(retries, 16);
+            return Duration.ofNanos(nanos > 0 ? ThreadLocalRandom.current().nextLong(nanos / 2, nanos + 1) : 0);
+        }
+    }
+
+    /**
+     * Per-route settings, bound from the filter's {@code circuitBreaker.*},
+     * {@code retry.*} and {@code hedge.*} arguments.
+     */
+    @Validated
+    public static class Config implements HasRouteId {
+
+        @Valid
+        @NotNull
+        private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+
+        @Valid
+        @NotNull
+        private RetryConfig retry = new RetryConfig();
+
+        @Valid
+        @NotNull
+        private HedgeConfig hedge = new HedgeConfig();
+
+        private String routeId;
+
+        public CircuitBreakerConfig getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public Config setCircuitBreaker(CircuitBreakerConfig circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public RetryConfig getRetry() {
+            return retry;
+        }
+
+        public Config setRetry(RetryConfig retry) {
+            this.retry = retry;
+            return this;
+        }
+
+        public HedgeConfig getHedge() {
+            return hedge;
+        }
+
+        public Config setHedge(HedgeConfig hedge) {
+            this.hedge = hedge;
+            return this;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+    }
+
+    public static class CircuitBreakerConfig implements CircuitBreaker.Settings {
+
+        private boolean enabled;
+
+        // Share of failed calls in the window that opens the breaker
+        @DecimalMin("0.01")
+        @DecimalMax("1.0")
+        private double failureRate = 0.5;
+
+        @Min(1)
+        private int minimumCalls = 20;
+
+        @NotNull
+        private Duration window = Duration.ofSeconds(10);
+
+        @NotNull
+        private Duration openFor = Duration.ofSeconds(30);
+
+        @Min(1)
+        @Max(1_000)
+        private int halfOpenCalls = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public CircuitBreakerConfig setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        @Override
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        public CircuitBreakerConfig setFailureRate(double failureRate) {
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        @Override
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public CircuitBreakerConfig setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        @Override
+        public Duration getWindow() {
+            return window;
+        }
+
+        public CircuitBreakerConfig setWindow(Duration window) {
+            this.window = window;
+            return this;
+        }
+
+        @Override
+        public Duration getOpenFor() {
+            return openFor;
+        }
+
+        public CircuitBreakerConfig setOpenFor(Duration openFor) {
+            this.openFor = openFor;
+            return this;
+        }
+
+        @Override
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public CircuitBreakerConfig setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+    }
+
+    public static class RetryConfig {
+
+        private boolean enabled;
+
+        @Min(1)
+        @Max(10)
+        private int maxRetries = 2;
+
+        @NotNull
+        private Duration backoff = Duration.ofMillis(50);
+
+        // Retries (and hedges) earned per request
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double budget = 0.2;
+
+        // Retries (and hedges) allowed per second regardless of the budget
+        @Min(0)
+        private int minPerSecond = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public RetryConfig setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public RetryConfig setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Duration getBackoff() {
+            return backoff;
+        }
+
+        public RetryConfig setBackoff(Duration backoff) {
+            this.backoff = backoff;
+            return this;
+        }
+
+        public double getBudget() {
+            return budget;
+        }
+
+        public RetryConfig setBudget(double budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        public int getMinPerSecond() {
+            return minPerSecond;
+        }
+
+        public RetryConfig setMinPerSecond(int minPerSecond) {
+            this.minPerSecond = minPerSecond;
+            return this;
+        }
+    }
+
+    public static class HedgeConfig {
+
+        private boolean enabled;
+
+        // Bounds of the hedge delay, which otherwise is the route's p95
+        @NotNull
+        private Duration minDelay = Duration.ofMillis(10);
+
+        @NotNull
+        private Duration maxDelay = Duration.ofSeconds(2);
+
+        // Latencies to have seen before the p95 is trusted enough to hedge on
+        @Min(64)
+        private int minSamples = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public HedgeConfig setEnabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public HedgeConfig setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public HedgeConfig setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public HedgeConfig setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 3:21:48 am
+ * @git
+ */
+package com.nopaper.work.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget of one route, after Finagle's: every request deposits {@code ratio} of a
+ * retry, and every retry or hedge withdraws a whole one, so that extra attempts stay
+ * within that share of the traffic however badly the upstream is doing. On top of
+ * that, {@code minPerSecond} extra attempts are always allowed, so that a quiet route
+ * can still retry at all.
+ * <p>
+ * The balance is capped at a thousand requests' deposits, so a long calm spell does not
+ * save up for a retry storm later. Both the balance and the per-second allowance are
+ * single atomics updated by CAS.
+ */
+public final class RetryBudget {
+
+    // Balance in thousandths of a retry, so that fractional deposits add up exactly
+    private static final long SCALE = 1_000;
+    private static final long MAX_BANKED_REQUESTS = 1_000;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final AtomicLong balance = new AtomicLong();
+    // Second since origin << 32 | extra attempts taken from that second's allowance
+    private final AtomicLong allowance = new AtomicLong();
+    private final long origin = System.nanoTime();
+
+    public void deposit(double ratio) {
+        long amount = Math.round(ratio * SCALE);
+        long cap = amount * MAX_BANKED_REQUESTS;
+        balance.getAndUpdate(current -> Math.min(cap, current + amount));
+    }
+
+    /** Takes one extra attempt from the per-second allowance or else the balance. */
+    public boolean tryWithdraw(int minPerSecond) {
+        if (minPerSecond > 0) {
+            long second = (System.nanoTime() - origin) / SECOND_NANOS;
+            for (;;) {
+                long current = allowance.get();
+                long used = current >>> 32 == second ? current & 0xFFFFFFFFL : 0;
+                if (used >= minPerSecond) {
+                    break;
+                }
+                if (allowance.compareAndSet(current, second << 32 | (used + 1))) {
+                    return true;
+                }
+            }
+        }
+        for (;;) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
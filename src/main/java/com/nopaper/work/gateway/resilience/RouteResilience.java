@@ -0,0 +1,139 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 3:43:30 am
+ * @git
+ */
+package com.nopaper.work.gateway.resilience;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.nopaper.work.gateway.metrics.MeteredCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resilience state of every route: its {@link CircuitBreaker}, {@link RetryBudget} and
+ * {@link LatencyTracker}. The state outlives route refreshes, which rebuild the route
+ * filters, so a breaker stays open while the routes are reloaded; it is dropped once the
+ * routes are refreshed without its route.
+ * <p>
+ * Published per route as the {@code gateway.circuit_breaker.state} gauge (0 closed,
+ * 1 half-open, 2 open) and the {@code gateway.resilience} counter, tagged with the
+ * {@link Event}. Only these meters are bounded, to {@code gateway.metrics.max-routes}
+ * routes, see {@link MeteredCache}.
+ */
+@Component
+@Slf4j
+public class RouteResilience {
+
+    public enum Event {
+        /** Refused because the circuit breaker was open. */
+        SHORT_CIRCUITED,
+        RETRIED,
+        HEDGED,
+        /** The hedge answered first. */
+        HEDGE_WON,
+        /** A retry or hedge was called for, but the retry budget was used up. */
+        BUDGET_EXHAUSTED
+    }
+
+    public final class State {
+
+        private final String routeId;
+        private final CircuitBreaker breaker;
+        private final RetryBudget budget = new RetryBudget();
+        private final LatencyTracker latency = new LatencyTracker();
+
+        State(String routeId) {
+            this.routeId = routeId;
+            this.breaker = new CircuitBreaker("route " + routeId);
+        }
+
+        public CircuitBreaker breaker() {
+            return breaker;
+        }
+
+        public RetryBudget budget() {
+            return budget;
+        }
+
+        public LatencyTracker latency() {
+            return latency;
+        }
+
+        public void count(Event event) {
+            // Looked up on every count, since the counters may have been dropped and registered again
+            events.get(routeId).get(event).increment();
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, State> routes = new ConcurrentHashMap<>();
+    private final MeteredCache<Map<Event, Counter>> events;
+
+    public RouteResilience(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.metrics.max-routes:1000}") long maxRoutes)
+    {
+        this.meterRegistry = meterRegistry;
+        this.events = new MeteredCache<>(meterRegistry, maxRoutes, this::meters);
+    }
+
+    public State route(String routeId) {
+        State state = routes.computeIfAbsent(routeId, State::new);
+        // Registers the meters again if they were dropped while the state was kept
+        events.get(routeId);
+        return state;
+    }
+
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (event.isSuccess() && event.getSource() instanceof RouteLocator routeLocator) {
+            routeLocator.getRoutes()
+                    .map(Route::getId)
+                    .collect(Collectors.toSet())
+                    .subscribe(this::retain, error -> log.warn("Could not drop the resilience state of deleted routes.", error));
+        }
+    }
+
+    /** Drops the state, and the meters, of every route not in routeIds. */
+    public void retain(Set<String> routeIds) {
+        routes.keySet().retainAll(routeIds);
+        events.retain(routeIds);
+    }
+
+    private Map<Event, Counter> meters(String routeId, MeteredCache.Meters meters) {
+        // Reads whichever breaker the route has when it is scraped
+        meters.add(Gauge.builder("gateway.circuit_breaker.state", routes, states -> {
+                    State state = states.get(routeId);
+                    return state != null ? state.breaker().state().ordinal() : Double.NaN;
+                })
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("route", routeId)
+                .register(meterRegistry));
+        Map<Event, Counter> counters = new EnumMap<>(Event.class);
+        for (Event event : Event.values()) {
+            counters.put(event, meters.add(Counter.builder("gateway.resilience")
+                    .description("Requests refused by a circuit breaker, retried or hedged")
+                    .tags("route", routeId, "event", event.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)));
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.resilience -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 3:02:41 am
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.resilience;
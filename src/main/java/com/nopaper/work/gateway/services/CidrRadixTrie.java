@@ -0,0 +1,210 @@
+/**
+ * @package com.nopaper.work.gateway.services -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 4:18:09 pm
+ * @git
+ */
+package com.nopaper.work.gateway.services;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable binary radix trie of IPv4 and IPv6 CIDR ranges.
+ * <p>
+ * Nodes are stored in flat {@code int} arrays, one trie per address family, and a
+ * lookup walks the raw address bits from the most significant one, stopping at the
+ * first node that closes a range. A lookup is therefore O(prefix length) and does not
+ * allocate for IPv4; IPv6 needs the 16-byte copy returned by {@link InetAddress#getAddress()}.
+ * Instances are built once with a {@link Builder} and swapped atomically by the owner.
+ */
+public final class CidrRadixTrie {
+
+    public static final CidrRadixTrie EMPTY = new Builder().build();
+
+    private final Family ipv4;
+    private final Family ipv6;
+    private final String[] ranges;
+
+    private CidrRadixTrie(Family ipv4, Family ipv6, String[] ranges) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.ranges = ranges;
+    }
+
+    /**
+     * Returns the range containing the address, exactly as it was added, or null.
+     */
+    public String match(InetAddress address) {
+        if (ranges.length == 0) {
+            return null;
+        }
+        int index;
+        if (address instanceof Inet4Address) {
+            // Inet4Address.hashCode() is the address itself
+            index = ipv4.lookup((long) address.hashCode() << 32, 0L);
+        } else {
+            byte[] raw = address.getAddress();
+            index = ipv6.lookup(toLong(raw, 0), toLong(raw, 8));
+        }
+        return index < 0 ? null : ranges[index];
+    }
+
+    /** Number of ranges in the trie. */
+    public int size() {
+        return ranges.length;
+    }
+
+    /** True if the value is written in CIDR notation, e.g. {@code 10.1.0.0/16}. */
+    public static boolean isRange(String value) {
+        return value != null && value.indexOf('/') > 0;
+    }
+
+    private static long toLong(byte[] raw, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (raw[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Flat node storage. Node 0 is the root; a child index of 0 means "no child"
+     * because the root is never anybody's child.
+     */
+    private static final class Family {
+
+        private final int maxBits;
+        private int[] zero;
+        private int[] one;
+        private int[] value;
+        private int nodeCount = 1;
+
+        Family(int maxBits) {
+            this.maxBits = maxBits;
+            this.zero = new int[16];
+            this.one = new int[16];
+            this.value = new int[16];
+            this.value[0] = -1;
+        }
+
+        int lookup(long hi, long lo) {
+            int node = 0;
+            for (int depth = 0; ; depth++) {
+                int match = value[node];
+                if (match >= 0) {
+                    return match;
+                }
+                if (depth == maxBits) {
+                    return -1;
+                }
+                long word = depth < 64 ? hi : lo;
+                node = ((word >>> (63 - (depth & 63))) & 1L) == 0 ? zero[node] : one[node];
+                if (node == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        void insert(long hi, long lo, int prefixLength, int index) {
+            int node = 0;
+            for (int depth = 0; depth < prefixLength; depth++) {
+                long word = depth < 64 ? hi : lo;
+                boolean set = ((word >>> (63 - (depth & 63))) & 1L) != 0;
+                int child = set ? one[node] : zero[node];
+                if (child == 0) {
+                    child = newNode();
+                    if (set) {
+                        one[node] = child;
+                    } else {
+                        zero[node] = child;
+                    }
+                }
+                node = child;
+            }
+            if (value[node] < 0) {
+                value[node] = index;
+            }
+        }
+
+        private int newNode() {
+            if (nodeCount == value.length) {
+                int capacity = value.length * 2;
+                zero = Arrays.copyOf(zero, capacity);
+                one = Arrays.copyOf(one, capacity);
+                value = Arrays.copyOf(value, capacity);
+            }
+            value[nodeCount] = -1;
+            return nodeCount++;
+        }
+
+        Family trim() {
+            zero = Arrays.copyOf(zero, nodeCount);
+            one = Arrays.copyOf(one, nodeCount);
+            value = Arrays.copyOf(value, nodeCount);
+            return this;
+        }
+    }
+
+    /**
+     * Collects ranges and freezes them into a trie. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final Family ipv4 = new Family(32);
+        private final Family ipv6 = new Family(128);
+        private final List<String> ranges = new ArrayList<>();
+
+        /**
+         * Adds a range in CIDR notation.
+         *
+         * @throws IllegalArgumentException if the value is not a valid IPv4 or IPv6 range.
+         */
+        public Builder add(String cidr) {
+            int slash = cidr == null ? -1 : cidr.indexOf('/');
+            if (slash <= 0) {
+                throw new IllegalArgumentException("Not a CIDR range: " + cidr);
+            }
+            String literal = cidr.substring(0, slash).trim();
+            InetAddress address = IpBlacklistIndex.parseLiteral(literal);
+            int prefixLength;
+            try {
+                prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in " + cidr, e);
+            }
+            if (address == null) {
+                throw new IllegalArgumentException("Invalid address in " + cidr);
+            }
+            if (address instanceof Inet4Address && literal.indexOf(':') >= 0) {
+                // IPv4-mapped IPv6 range, e.g. ::ffff:10.0.0.0/104; Java hands these out as IPv4
+                prefixLength -= 96;
+            }
+
+            int index = ranges.size();
+            if (address instanceof Inet4Address) {
+                checkPrefix(cidr, prefixLength, 32);
+                ipv4.insert((long) address.hashCode() << 32, 0L, prefixLength, index);
+            } else {
+                checkPrefix(cidr, prefixLength, 128);
+                byte[] raw = address.getAddress();
+                ipv6.insert(toLong(raw, 0), toLong(raw, 8), prefixLength, index);
+            }
+            ranges.add(cidr);
+            return this;
+        }
+
+        public CidrRadixTrie build() {
+            return new CidrRadixTrie(ipv4.trim(), ipv6.trim(), ranges.toArray(String[]::new));
+        }
+
+        private static void checkPrefix(String cidr, int prefixLength, int maxBits) {
+            if (prefixLength < 0 || prefixLength > maxBits) {
+                throw new IllegalArgumentException("Prefix length out of range in " + cidr);
+            }
+        }
+    }
+}
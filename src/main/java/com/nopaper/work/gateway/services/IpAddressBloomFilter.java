@@ -0,0 +1,119 @@
+/**
+ * @package com.nopaper.work.gateway.services -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 2:41:27 pm
+ * @git
+ */
+package com.nopaper.work.gateway.services;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over IPv4 and IPv6 addresses.
+ * <p>
+ * Addresses are hashed from their raw bits (IPv4 as its IPv4-mapped IPv6 form), so a
+ * lookup never formats the address as a string. A negative answer is exact; a positive
+ * answer may be a false positive at roughly the configured rate and must be confirmed.
+ * Lookups are lock-free and may run concurrently with {@link #put}.
+ */
+public final class IpAddressBloomFilter {
+
+    private static final long IPV4_MAPPED_PREFIX = 0x0000FFFF00000000L;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param expectedInsertions Number of addresses the filter is sized for.
+     * @param falsePositiveRate  Target false positive rate at that size, e.g. 0.001.
+     */
+    public IpAddressBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) & ~63L);
+        this.bits = new AtomicLongArray((int) (bitCount >>> 6));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    public void put(InetAddress address) {
+        if (probe(address, true)) {
+            size.incrementAndGet();
+        }
+    }
+
+    public boolean mightContain(InetAddress address) {
+        return probe(address, false);
+    }
+
+    /**
+     * Walks the address's bits. With {@code set}, sets them and returns whether any of them
+     * was new; otherwise returns whether all of them are set.
+     */
+    private boolean probe(InetAddress address, boolean set) {
+        long hi = 0L;
+        long lo;
+        if (address instanceof Inet4Address) {
+            lo = ipv4Bits(address);
+        } else {
+            byte[] raw = address.getAddress();
+            hi = toLong(raw, 0);
+            lo = toLong(raw, 8);
+        }
+        long h1 = mix(hi ^ mix(lo));
+        long h2 = mix(lo + 0x9E3779B97F4A7C15L) | 1L;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if (set) {
+                long previous = bits.getAndAccumulate(word, mask, (current, m) -> current | m);
+                changed |= (previous & mask) == 0;
+            } else if ((bits.get(word) & mask) == 0) {
+                return false;
+            }
+        }
+        return set ? changed : true;
+    }
+
+    /**
+     * Number of distinct addresses added so far. An address whose bits were all set already,
+     * because it was added before or collides with others, is not counted again, so the
+     * overlapping incremental refreshes do not inflate it.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /** True once more addresses were added than the filter was sized for. */
+    public boolean isOverCapacity() {
+        return size.get() > capacity;
+    }
+
+    private static long ipv4Bits(InetAddress address) {
+        // Inet4Address.hashCode() is the address itself, so no byte[] copy is needed
+        return IPV4_MAPPED_PREFIX | (address.hashCode() & 0xFFFFFFFFL);
+    }
+
+    private static long toLong(byte[] raw, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (raw[i] & 0xFF);
+        }
+        return value;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * @package com.nopaper.work.gateway.services -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 3:02:51 pm
+ * @git
+ */
+package com.nopaper.work.gateway.services;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.nopaper.work.gateway.entity.IpBlacklist;
+import com.nopaper.work.gateway.repository.IpBlacklistRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-process membership index of the {@code ip_blacklist} table.
+ * <p>
+ * The index answers "definitely not blacklisted" without leaving the process, so
+ * that only possible positives need the confirming {@link SecurityService} lookup.
+ * Single addresses are kept in a Bloom filter; rows written in CIDR notation
+ * ({@code 10.1.0.0/16}, {@code 2001:db8::/32}) are kept in a {@link CidrRadixTrie}.
+ * Rows modified since the last refresh are added incrementally; the whole index is
+ * rebuilt periodically so deleted rows eventually stop producing positives.
+ * Until the first build completes every address is reported as a possible positive.
+ */
+@Service
+@Slf4j
+public class IpBlacklistIndex {
+
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9A-Fa-f:.]*:[0-9A-Fa-f:.]*");
+
+    private final IpBlacklistRepository ipBlacklistRepository;
+    private final Duration refreshInterval;
+    private final Duration rebuildInterval;
+    private final double falsePositiveRate;
+
+    private final AtomicReference<IpAddressBloomFilter> addresses = new AtomicReference<>();
+    private final AtomicReference<CidrRadixTrie> ranges = new AtomicReference<>(CidrRadixTrie.EMPTY);
+    // Source of the range trie; only touched by the (sequential) refresh pipeline
+    private final Set<String> rangeEntries = new LinkedHashSet<>();
+    private volatile Instant watermark = Instant.EPOCH;
+    private volatile long lastRebuildNanos;
+    private Disposable refresher;
+
+    public IpBlacklistIndex(
+            IpBlacklistRepository ipBlacklistRepository,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.ip-blacklist.refresh-interval:30s}") Duration refreshInterval,
+            @Value("${gateway.ip-blacklist.rebuild-interval:10m}") Duration rebuildInterval,
+            @Value("${gateway.ip-blacklist.false-positive-rate:0.001}") double falsePositiveRate)
+    {
+        this.ipBlacklistRepository = ipBlacklistRepository;
+        this.refreshInterval = refreshInterval;
+        this.rebuildInterval = rebuildInterval;
+        this.falsePositiveRate = falsePositiveRate;
+
+        Gauge.builder("gateway.ip_blacklist.index.size", addresses, ref -> ref.get() == null ? 0 : ref.get().size())
+                .description("Number of blacklisted addresses held in the in-process index")
+                .register(meterRegistry);
+        Gauge.builder("gateway.ip_blacklist.index.ranges", ranges, ref -> ref.get().size())
+                .description("Number of blacklisted CIDR ranges held in the in-process index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh()
+                        .onErrorResume(error -> {
+                            log.error("Failed to refresh the IP blacklist index. Keeping the previous one.", error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * Returns false only if the address is certainly not listed as a single address.
+     */
+    public boolean mightBeBlacklisted(InetAddress address) {
+        IpAddressBloomFilter filter = addresses.get();
+        return filter == null || filter.mightContain(address);
+    }
+
+    /**
+     * Returns the blacklisted range containing the address, as stored in
+     * {@code ip_blacklist.ip_address}, or null if no range contains it.
+     */
+    public String matchingRange(InetAddress address) {
+        return ranges.get().match(address);
+    }
+
+    private Mono<Void> refresh() {
+        IpAddressBloomFilter current = addresses.get();
+        boolean rebuildDue = current == null
+                || current.isOverCapacity()
+                || System.nanoTime() - lastRebuildNanos >= rebuildInterval.toNanos();
+        return rebuildDue ? rebuild() : applyChangesSince(current, watermark);
+    }
+
+    private Mono<Void> rebuild() {
+        Instant startedAt = Instant.now();
+        return ipBlacklistRepository.findAll()
+                .collectList()
+                .doOnNext(rows -> {
+                    // Leave headroom for incremental additions before the next rebuild
+                    IpAddressBloomFilter filter = new IpAddressBloomFilter(Math.max(1024, rows.size() * 2), falsePositiveRate);
+                    rangeEntries.clear();
+                    add(filter, rows);
+                    addresses.set(filter);
+                    ranges.set(buildRanges());
+                    watermark = startedAt;
+                    lastRebuildNanos = System.nanoTime();
+                    log.info("Rebuilt IP blacklist index with {} addresses and {} ranges.", filter.size(), rangeEntries.size());
+                })
+                .then();
+    }
+
+    private Mono<Void> applyChangesSince(IpAddressBloomFilter filter, Instant since) {
+        Instant startedAt = Instant.now();
+        // Overlap the previous window so rows written around a refresh are not missed
+        return ipBlacklistRepository.findByLastModifiedDateAfter(since.minus(refreshInterval))
+                .collectList()
+                .doOnNext(rows -> {
+                    if (add(filter, rows)) {
+                        ranges.set(buildRanges());
+                    }
+                    watermark = startedAt;
+                    if (!rows.isEmpty()) {
+                        log.debug("Added {} changed rows to the IP blacklist index.", rows.size());
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Adds rows to the Bloom filter or to the pending range entries.
+     *
+     * @return true if a new range was added and the trie must be rebuilt.
+     */
+    private boolean add(IpAddressBloomFilter filter, List<IpBlacklist> rows) {
+        boolean rangesChanged = false;
+        for (IpBlacklist row : rows) {
+            if (CidrRadixTrie.isRange(row.getIpAddress())) {
+                rangesChanged |= rangeEntries.add(row.getIpAddress());
+                continue;
+            }
+            InetAddress address = parseLiteral(row.getIpAddress());
+            if (address != null) {
+                filter.put(address);
+            } else {
+                log.warn("Ignoring malformed blacklist entry {}: '{}'", row.getId(), row.getIpAddress());
+            }
+        }
+        return rangesChanged;
+    }
+
+    private CidrRadixTrie buildRanges() {
+        CidrRadixTrie.Builder builder = new CidrRadixTrie.Builder();
+        for (String range : rangeEntries) {
+            try {
+                builder.add(range);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed blacklist range '{}': {}", range, e.getMessage());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal without ever falling back to a DNS lookup.
+     *
+     * @return The address, or null if the value is not an IP literal.
+     */
+    static InetAddress parseLiteral(String value) {
+        if (value == null) {
+            return null;
+        }
+        String literal = value.trim();
+        if (!IPV4_LITERAL.matcher(literal).matches() && !IPV6_LITERAL.matcher(literal).matches()) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(literal);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
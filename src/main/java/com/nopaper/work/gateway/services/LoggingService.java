@@ -8,47 +8,49 @@ package com.nopaper.work.gateway.services;
 
 import java.time.Instant;
 import java.util.Objects;
+import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.constants.GatewayConstant;
 import com.nopaper.work.gateway.entity.RequestLog;
-import com.nopaper.work.gateway.repository.RequestLogRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 /**
  * Service dedicated to handling persistent logging of requests.
- * Operations are designed to be asynchronous to avoid blocking gateway threads.
+ * Entries are handed to the {@link RequestLogWriter}, which writes them in batches,
+ * so gateway threads never wait on the database.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class LoggingService {
 
-    private final RequestLogRepository requestLogRepository;
+    private final RequestLogWriter requestLogWriter;
     private final ObjectMapper objectMapper;
 
     /**
-     * Asynchronously saves a record of the request and its outcome to the database.
-     * This operation is performed on a separate, bounded elastic thread pool
-     * to ensure it doesn't interfere with the main event loop.
+     * Records the request and its outcome for asynchronous, batched persistence.
+     * This call only queues the entry and returns immediately.
      *
      * @param exchange The completed server web exchange, containing request and response details.
      * @param duration The total processing time for the request in milliseconds.
-     * @return A Mono<RequestLog> that completes when the log is saved.
+     * @return false if the entry was dropped because the log buffer is saturated.
      */
-    public Mono<RequestLog> logRequest(ServerWebExchange exchange, long duration) {
+    public boolean logRequest(ServerWebExchange exchange, long duration) {
         RequestLog logEntry = new RequestLog();
 
         // Extract details from the exchange
-        logEntry.setRequestId((String) exchange.getAttributes().get("requestId"));
-        logEntry.setTraceId((String) exchange.getAttributes().get("traceId"));
+        UUID requestId = exchange.getAttribute(GatewayConstant.REQUEST_ID_ATTR);
+        String traceId = exchange.getAttribute(GatewayConstant.TRACE_ID_ATTR);
+        logEntry.setRequestId(requestId != null ? requestId.toString() : null);
+        // The trace of a request that did not bring one starts at the request itself
+        logEntry.setTraceId(traceId != null ? traceId : logEntry.getRequestId());
         logEntry.setHttpMethod(exchange.getRequest().getMethod().name());
         logEntry.setUri(exchange.getRequest().getURI().toString());
         logEntry.setStatusCode(Objects.requireNonNull(exchange.getResponse().getStatusCode()).value());
@@ -64,10 +66,7 @@ public class LoggingService {
             log.error("Error serializing headers to JSON for logging", e);
         }
 
-        // Save the log entry to the database on a separate thread pool
-        return requestLogRepository.save(logEntry)
-                .doOnSuccess(savedLog -> log.debug("Successfully saved request log with ID: {}", savedLog.getId()))
-                .doOnError(error -> log.error("Failed to save request log", error))
-                .subscribeOn(Schedulers.boundedElastic()); // Ensures DB write doesn't block
+        // Queue the entry; the writer inserts it with the next batch
+        return requestLogWriter.enqueue(logEntry);
     }
 }
\ No newline at end of file
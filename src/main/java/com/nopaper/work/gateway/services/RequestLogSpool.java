@@ -0,0 +1,400 @@
+/**
+ * @package com.nopaper.work.gateway.services -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 7:10:33 pm
+ * @git
+ */
+package com.nopaper.work.gateway.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only, memory-mapped write-ahead log of {@link RequestLog} entries.
+ * <p>
+ * Entries are appended to fixed-size segment files ({@code segment-<n>.log}) as
+ * {@code [payload length][CRC32C][payload]} records. The length is written last,
+ * so a record becomes visible only once it is complete, and the checksum catches
+ * records torn by a crash. A separate checkpoint file records how far the entries
+ * have been shipped to the database; segments entirely behind the checkpoint are
+ * deleted. Disk use is bounded by {@code maxSegments}.
+ * <p>
+ * {@link #append} may be called from any thread; appends are serialized, and an
+ * appended entry is in the page cache, so it outlives a crash of the process, though
+ * not of the machine. {@link #read} and {@link #acknowledge} must be called from one
+ * reading thread; reading only holds the lock appends take to find out how far the
+ * active segment has been written. An append that fills a segment maps the next one
+ * and forces the full one to disk, so {@link RequestLogWriter} makes every call from
+ * its own spool thread rather than from request threads.
+ */
+@Slf4j
+public final class RequestLogSpool implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+    private static final int END_OF_SEGMENT = -1;
+
+    /** A position in the spool: a segment id and a byte offset inside it. */
+    public record Position(long segment, int offset) {}
+
+    /** Entries read from the spool and the position right after the last of them. */
+    public record Batch(List<RequestLog> logs, Position end) {
+
+        public boolean isEmpty() {
+            return logs.isEmpty();
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    // Guarded by this; CRC and scratch buffer of appends
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private volatile long writeSegment;
+    private MappedByteBuffer writeBuffer;
+
+    private volatile Position checkpoint;
+
+    // Only used by the reading thread
+    private final CRC32C readCrc = new CRC32C();
+    private long readSegment = -1;
+    private ByteBuffer readBuffer;
+
+    /**
+     * Opens the spool in the given directory, recovering any segments and the
+     * checkpoint left by a previous run.
+     */
+    public RequestLogSpool(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(2, maxSegments);
+        Files.createDirectories(directory);
+
+        List<Long> segments = listSegments();
+        Position stored = readCheckpoint();
+        long firstSegment = segments.isEmpty() ? 0 : segments.get(0);
+        Position start = stored != null && stored.segment() >= firstSegment ? stored : new Position(firstSegment, 0);
+        long lastSegment = segments.isEmpty() ? start.segment() : segments.get(segments.size() - 1);
+        if (start.segment() > lastSegment) {
+            // Everything on disk was shipped before the segment the checkpoint names was written
+            for (long segment : segments) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+            start = new Position(start.segment(), 0);
+            lastSegment = start.segment();
+        }
+
+        openSegment(lastSegment);
+        recoverWritePosition();
+        if (start.segment() == lastSegment && start.offset() > writeBuffer.position()) {
+            // Records past the write position were torn and cleared; new ones are read from there
+            start = new Position(start.segment(), writeBuffer.position());
+        }
+        this.checkpoint = start;
+        if (!segments.isEmpty()) {
+            log.info("Recovered request log spool in {}: segments {}..{}, checkpoint at {}.",
+                    directory, firstSegment, lastSegment, checkpoint);
+        }
+    }
+
+    /**
+     * Appends an entry.
+     *
+     * @return false if the entry does not fit in a segment or the spool is full.
+     */
+    public synchronized boolean append(RequestLog entry) throws IOException {
+        int payloadLength = encode(entry);
+        int recordLength = HEADER_BYTES + payloadLength;
+        if (recordLength > segmentSize) {
+            return false;
+        }
+        if (writeBuffer.position() + recordLength > segmentSize) {
+            if (segmentCount() >= maxSegments) {
+                return false;
+            }
+            sealSegment();
+            openSegment(writeSegment + 1);
+        }
+
+        int offset = writeBuffer.position();
+        writeBuffer.put(offset + HEADER_BYTES, scratch, 0, payloadLength);
+        crc.reset();
+        crc.update(scratch.array(), 0, payloadLength);
+        writeBuffer.putInt(offset + 4, (int) crc.getValue());
+        // Publishing the length last makes the record visible only once it is complete
+        writeBuffer.putInt(offset, payloadLength);
+        writeBuffer.position(offset + recordLength);
+        return true;
+    }
+
+    /**
+     * Reads up to {@code max} entries starting at the checkpoint. Reading does not move
+     * the checkpoint, so entries are read again until they are {@link #acknowledge acknowledged}.
+     */
+    public Batch read(int max) throws IOException {
+        long activeSegment;
+        ByteBuffer active;
+        int written;
+        synchronized (this) {
+            activeSegment = writeSegment;
+            active = writeBuffer.duplicate();
+            written = writeBuffer.position();
+        }
+
+        List<RequestLog> logs = new ArrayList<>(Math.min(max, 1024));
+        long segment = checkpoint.segment();
+        int offset = checkpoint.offset();
+        ByteBuffer buffer = segment == activeSegment ? active : bufferFor(segment);
+
+        while (logs.size() < max) {
+            if (segment == activeSegment && offset >= written) {
+                // Nothing more has been written yet
+                break;
+            }
+            int length = buffer == null || offset + HEADER_BYTES > segmentSize ? END_OF_SEGMENT : buffer.getInt(offset);
+            boolean valid = length > 0 && offset + HEADER_BYTES + length <= segmentSize
+                    && checksumMatches(readCrc, buffer, offset, length);
+            if (valid) {
+                logs.add(decode(buffer, offset + HEADER_BYTES));
+                offset += HEADER_BYTES + length;
+                continue;
+            }
+            if (segment == activeSegment) {
+                break;
+            }
+            if (length != END_OF_SEGMENT && length != 0) {
+                log.warn("Skipping corrupt tail of request log spool segment {} at offset {}.", segment, offset);
+            }
+            segment++;
+            offset = 0;
+            buffer = segment == activeSegment ? active : bufferFor(segment);
+        }
+        return new Batch(logs, new Position(segment, offset));
+    }
+
+    /**
+     * Moves the checkpoint past entries that have been shipped, and deletes segments
+     * that lie entirely behind it.
+     */
+    public void acknowledge(Position position) throws IOException {
+        // Move the in-memory checkpoint first so that a failed write below does not
+        // make this process ship the same entries again
+        long previous = checkpoint.segment();
+        checkpoint = position;
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temporary, position.segment() + " " + position.offset());
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long segment = previous; segment < position.segment(); segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        if (readSegment < position.segment()) {
+            readSegment = -1;
+            readBuffer = null;
+        }
+    }
+
+    /** Number of segment files between the checkpoint and the write position. */
+    public long segmentCount() {
+        return writeSegment - checkpoint.segment() + 1;
+    }
+
+    @Override
+    public synchronized void close() {
+        writeBuffer.force();
+    }
+
+    private void sealSegment() {
+        int position = writeBuffer.position();
+        if (position + 4 <= segmentSize) {
+            writeBuffer.putInt(position, END_OF_SEGMENT);
+        }
+        writeBuffer.force();
+    }
+
+    private void openSegment(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            writeBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        writeSegment = segment;
+    }
+
+    /**
+     * Finds the end of the last complete record in the active segment and clears
+     * anything after it, such as a record torn by a crash.
+     */
+    private void recoverWritePosition() {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentSize) {
+            int length = writeBuffer.getInt(offset);
+            if (length == END_OF_SEGMENT) {
+                offset = segmentSize;
+                break;
+            }
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentSize
+                    || !checksumMatches(crc, writeBuffer, offset, length)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        for (int i = offset; i < segmentSize; i++) {
+            writeBuffer.put(i, (byte) 0);
+        }
+        writeBuffer.position(Math.min(offset, segmentSize));
+    }
+
+    // Maps a sealed segment for reading
+    private ByteBuffer bufferFor(long segment) throws IOException {
+        if (segment != readSegment) {
+            Path path = segmentPath(segment);
+            if (!Files.exists(path)) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                readBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), segmentSize));
+            }
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    private static boolean checksumMatches(CRC32C crc, ByteBuffer buffer, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset + HEADER_BYTES, length));
+        return buffer.getInt(offset + 4) == (int) crc.getValue();
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Position readCheckpoint() {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String[] parts = Files.readString(file).trim().split(" ");
+            return new Position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable request log spool checkpoint: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // --- Record encoding ---
+
+    private int encode(RequestLog entry) {
+        while (true) {
+            try {
+                scratch.clear();
+                putString(entry.getRequestId());
+                putString(entry.getTraceId());
+                putString(entry.getHttpMethod());
+                putString(entry.getUri());
+                scratch.putInt(entry.getStatusCode());
+                putString(entry.getClientIp());
+                putString(entry.getRequestHeaders());
+                putString(entry.getResponseHeaders());
+                scratch.putLong(entry.getDurationMs() == null ? Long.MIN_VALUE : entry.getDurationMs());
+                putString(entry.getCreatedBy());
+                putInstant(entry.getCreatedDate());
+                putString(entry.getLastModifiedBy());
+                putInstant(entry.getLastModifiedDate());
+                return scratch.position();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        scratch.putInt(bytes.length);
+        scratch.put(bytes);
+    }
+
+    private void putInstant(Instant value) {
+        if (value == null) {
+            scratch.put((byte) 0);
+            return;
+        }
+        scratch.put((byte) 1);
+        scratch.putLong(value.getEpochSecond());
+        scratch.putInt(value.getNano());
+    }
+
+    private static RequestLog decode(ByteBuffer buffer, int offset) {
+        ByteBuffer in = buffer.slice(offset, buffer.capacity() - offset);
+        RequestLog entry = new RequestLog();
+        entry.setRequestId(getString(in));
+        entry.setTraceId(getString(in));
+        entry.setHttpMethod(getString(in));
+        entry.setUri(getString(in));
+        entry.setStatusCode(in.getInt());
+        entry.setClientIp(getString(in));
+        entry.setRequestHeaders(getString(in));
+        entry.setResponseHeaders(getString(in));
+        long duration = in.getLong();
+        entry.setDurationMs(duration == Long.MIN_VALUE ? null : duration);
+        entry.setCreatedBy(getString(in));
+        entry.setCreatedDate(getInstant(in));
+        entry.setLastModifiedBy(getString(in));
+        entry.setLastModifiedDate(getInstant(in));
+        return entry;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Instant getInstant(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return Instant.ofEpochSecond(in.getLong(), in.getInt());
+    }
+}
@@ -0,0 +1,379 @@
+/**
+ * @package com.nopaper.work.gateway.services -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 5:48:16 pm
+ * @git
+ */
+package com.nopaper.work.gateway.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+import com.nopaper.work.gateway.repository.RequestLogRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Buffers request logs in a bounded in-memory queue and writes them to the database
+ * in batches, so that the request path never waits on an insert.
+ * <p>
+ * A batch is flushed when {@code batch-size} entries are waiting or every
+ * {@code flush-interval}, whichever comes first, with a single multi-row INSERT.
+ * When the queue is full entries are dropped; with the {@code SAMPLE} overflow
+ * policy the writer already starts keeping only one in {@code sample-every}
+ * entries once the queue is past its high-water mark.
+ * <p>
+ * With the spool enabled, {@link #enqueue} hands entries through a lock-free queue,
+ * bounded by {@code buffer-capacity}, to one dedicated spool thread. That thread
+ * appends them to a local {@link RequestLogSpool}, a copy into a memory-mapped file,
+ * and does everything else with the spool too: rolling over to a new segment and
+ * forcing the full one to disk, and shipping entries from the spool's checkpoint to
+ * the database on each flush. The checkpoint only moves once an insert succeeds, so
+ * entries survive database outages and restarts, bounded by the spool's disk budget
+ * rather than the queue; once appended, a crash of the process loses none.
+ * <p>
+ * Flushes never overlap: a flush that is due while another runs joins it, since both
+ * would read and acknowledge the same entries.
+ */
+@Service
+@Slf4j
+public class RequestLogWriter {
+
+    // PostgreSQL accepts at most 65535 bind parameters per statement, 13 per row
+    private static final int MAX_BATCH_SIZE = 5000;
+
+    public enum OverflowPolicy {
+        /** Drop entries only when the buffer is full. */
+        DROP,
+        /** Past the high-water mark, keep one in {@code sample-every} entries. */
+        SAMPLE
+    }
+
+    private final RequestLogRepository requestLogRepository;
+    private final BlockingQueue<RequestLog> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final int highWaterMark;
+    private final int sampleEvery;
+
+    private final Sinks.Many<Long> batchReady = Sinks.many().multicast().directBestEffort();
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    // Entries on their way to the spool thread, and how many of them it has yet to append
+    private final Queue<RequestLog> handOff = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger handOffPending = new AtomicInteger();
+    private final int bufferCapacity;
+    // The flush currently running, shared by everything that asks for one meanwhile
+    private final AtomicReference<Mono<Void>> inFlightFlush = new AtomicReference<>();
+    private final Counter droppedFull;
+    private final Counter droppedSampled;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer batchTimer;
+    private final Counter droppedSpoolFull;
+    private final Counter shipFailures;
+    private final RequestLogSpool spool;
+    private final Scheduler spoolScheduler;
+    private Disposable drainer;
+
+    public RequestLogWriter(
+            RequestLogRepository requestLogRepository,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.request-log.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${gateway.request-log.batch-size:500}") int batchSize,
+            @Value("${gateway.request-log.flush-interval:1s}") Duration flushInterval,
+            @Value("${gateway.request-log.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${gateway.request-log.sample-every:10}") int sampleEvery,
+            @Value("${gateway.request-log.spool.enabled:true}") boolean spoolEnabled,
+            @Value("${gateway.request-log.spool.directory:${java.io.tmpdir}/gateway-request-log-spool}") Path spoolDirectory,
+            @Value("${gateway.request-log.spool.segment-size:16MB}") DataSize spoolSegmentSize,
+            @Value("${gateway.request-log.spool.max-segments:32}") int spoolMaxSegments)
+    {
+        this.requestLogRepository = requestLogRepository;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.bufferCapacity = bufferCapacity;
+        this.batchSize = Math.min(Math.max(1, batchSize), MAX_BATCH_SIZE);
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.highWaterMark = bufferCapacity * 8 / 10;
+        this.sampleEvery = Math.max(1, sampleEvery);
+
+        Gauge.builder("gateway.request_log.queue.depth", this, RequestLogWriter::queueDepth)
+                .description("Request logs waiting to be written")
+                .register(meterRegistry);
+        this.droppedFull = Counter.builder("gateway.request_log.dropped")
+                .description("Request logs dropped before reaching the database")
+                .tag("reason", "full")
+                .register(meterRegistry);
+        this.droppedSampled = Counter.builder("gateway.request_log.dropped")
+                .description("Request logs dropped before reaching the database")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        this.written = Counter.builder("gateway.request_log.written")
+                .description("Request logs written to the database")
+                .register(meterRegistry);
+        this.failed = Counter.builder("gateway.request_log.failed")
+                .description("Request logs lost because a batch insert failed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("gateway.request_log.batch")
+                .description("Time taken to insert one batch of request logs")
+                .register(meterRegistry);
+        this.droppedSpoolFull = Counter.builder("gateway.request_log.dropped")
+                .description("Request logs dropped before reaching the database")
+                .tag("reason", "spool_full")
+                .register(meterRegistry);
+        this.shipFailures = Counter.builder("gateway.request_log.spool.ship_failures")
+                .description("Batch inserts from the spool that failed and will be retried")
+                .register(meterRegistry);
+
+        this.spool = spoolEnabled ? openSpool(spoolDirectory, spoolSegmentSize, spoolMaxSegments) : null;
+        if (spool != null) {
+            this.spoolScheduler = Schedulers.newSingle("request-log-spool");
+            Gauge.builder("gateway.request_log.spool.segments", spool, RequestLogSpool::segmentCount)
+                    .description("Spool segments not yet fully written to the database")
+                    .register(meterRegistry);
+        } else {
+            this.spoolScheduler = null;
+        }
+    }
+
+    private static RequestLogSpool openSpool(Path directory, DataSize segmentSize, int maxSegments) {
+        try {
+            return new RequestLogSpool(directory, (int) segmentSize.toBytes(), maxSegments);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not open the request log spool in {}; writing request logs directly to the database",
+                    directory, e);
+            return null;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        drainer = Flux.merge(Flux.interval(flushInterval), batchReady.asFlux())
+                .onBackpressureDrop()
+                .concatMap(tick -> flush(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (drainer != null) {
+            drainer.dispose();
+        }
+        // Best effort: wait for a flush still running, then write what came in since. With
+        // the spool, whatever is not shipped in time is picked up again on the next start.
+        try {
+            flush().then(Mono.defer(this::flush)).block(Duration.ofSeconds(10));
+        } catch (RuntimeException e) {
+            log.warn("Request logs were not fully flushed on shutdown: {}", e.getMessage());
+        }
+        if (spool != null) {
+            Mono.fromRunnable(spool::close).subscribeOn(spoolScheduler).block(Duration.ofSeconds(5));
+            spoolScheduler.dispose();
+        }
+    }
+
+    /**
+     * Queues an entry for writing. Never blocks.
+     *
+     * @return false if the entry was dropped by the overflow policy.
+     */
+    public boolean enqueue(RequestLog logEntry) {
+        if (spool != null) {
+            return spool(logEntry);
+        }
+        if (overflowPolicy == OverflowPolicy.SAMPLE && buffer.size() >= highWaterMark
+                && offered.getAndIncrement() % sampleEvery != 0) {
+            droppedSampled.increment();
+            return false;
+        }
+        if (!buffer.offer(logEntry)) {
+            droppedFull.increment();
+            return false;
+        }
+        if (buffer.size() >= batchSize) {
+            batchReady.tryEmitNext(0L);
+        }
+        return true;
+    }
+
+    private int queueDepth() {
+        return spool != null ? handOffPending.get() : buffer.size();
+    }
+
+    /** Hands an entry to the spool thread, so the caller never waits on the spool. */
+    private boolean spool(RequestLog logEntry) {
+        if (handOffPending.get() >= bufferCapacity) {
+            droppedFull.increment();
+            return false;
+        }
+        handOff.offer(logEntry);
+        // Only the caller that finds the spool thread idle wakes it; it then appends every entry counted meanwhile
+        if (handOffPending.getAndIncrement() == 0) {
+            try {
+                spoolScheduler.schedule(this::drainToSpool);
+            } catch (RejectedExecutionException e) {
+                // Stopped; entries handed off from now on are never appended
+                droppedFull.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drainToSpool() {
+        int missed = handOffPending.get();
+        while (missed != 0) {
+            for (int i = 0; i < missed; i++) {
+                append(handOff.poll());
+            }
+            missed = handOffPending.addAndGet(-missed);
+        }
+    }
+
+    private void append(RequestLog logEntry) {
+        try {
+            if (!spool.append(logEntry)) {
+                droppedSpoolFull.increment();
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            droppedSpoolFull.increment();
+            log.error("Failed to append a request log to the spool", e);
+            return;
+        }
+        if (spooled.incrementAndGet() % batchSize == 0) {
+            batchReady.tryEmitNext(0L);
+        }
+    }
+
+    /**
+     * Joins the flush already running, or starts one. The flush is subscribed on its own,
+     * so that stopping the drainer does not cut it off between an insert and its checkpoint.
+     */
+    private Mono<Void> flush() {
+        return Mono.defer(() -> {
+            Mono<Void> running = inFlightFlush.get();
+            if (running != null) {
+                return running;
+            }
+            Sinks.Empty<Void> done = Sinks.empty();
+            Mono<Void> shared = done.asMono();
+            if (!inFlightFlush.compareAndSet(null, shared)) {
+                return flush();
+            }
+            // Cleared before the waiters hear of it, so that they can start the next flush
+            runFlush().subscribe(null,
+                    error -> {
+                        inFlightFlush.compareAndSet(shared, null);
+                        done.tryEmitError(error);
+                    },
+                    () -> {
+                        inFlightFlush.compareAndSet(shared, null);
+                        done.tryEmitEmpty();
+                    });
+            return shared;
+        });
+    }
+
+    private Mono<Void> runFlush() {
+        if (spool != null) {
+            return Mono.defer(this::shipBatch)
+                    .expand(more -> more ? Mono.defer(this::shipBatch) : Mono.empty())
+                    .subscribeOn(spoolScheduler)
+                    .then();
+        }
+        return Mono.defer(this::writeBatch)
+                .repeat(() -> buffer.size() >= batchSize)
+                .then();
+    }
+
+    private Mono<Long> writeBatch() {
+        List<RequestLog> batch = new ArrayList<>(Math.min(batchSize, buffer.size()));
+        buffer.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return Mono.just(0L);
+        }
+        long startNanos = System.nanoTime();
+        return requestLogRepository.insertAll(batch)
+                .doOnNext(rows -> {
+                    batchTimer.record(Duration.ofNanos(System.nanoTime() - startNanos));
+                    written.increment(rows);
+                    log.debug("Wrote {} request logs in one batch.", rows);
+                })
+                .onErrorResume(error -> {
+                    failed.increment(batch.size());
+                    log.error("Failed to write a batch of {} request logs", batch.size(), error);
+                    return Mono.just(0L);
+                });
+    }
+
+    /**
+     * Inserts one batch read from the spool checkpoint and acknowledges it on success.
+     * A failed batch stays in the spool and is retried on the next flush.
+     *
+     * @return whether a full batch was shipped, i.e. more may be waiting.
+     */
+    private Mono<Boolean> shipBatch() {
+        RequestLogSpool.Batch batch;
+        try {
+            batch = spool.read(batchSize);
+        } catch (IOException e) {
+            log.error("Failed to read request logs from the spool", e);
+            return Mono.just(false);
+        }
+        if (batch.isEmpty()) {
+            return Mono.just(false);
+        }
+        long startNanos = System.nanoTime();
+        return requestLogRepository.insertAll(batch.logs())
+                .publishOn(spoolScheduler)
+                .map(rows -> {
+                    batchTimer.record(Duration.ofNanos(System.nanoTime() - startNanos));
+                    written.increment(rows);
+                    try {
+                        spool.acknowledge(batch.end());
+                    } catch (IOException e) {
+                        // The batch is shipped again after a restart; duplicates beat gaps
+                        log.error("Failed to persist the request log spool checkpoint", e);
+                        return false;
+                    }
+                    return batch.logs().size() >= batchSize;
+                })
+                .onErrorResume(error -> {
+                    shipFailures.increment();
+                    log.warn("Failed to write {} spooled request logs, will retry: {}",
+                            batch.logs().size(), error.getMessage());
+                    return Mono.just(false);
+                });
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * @package com.nopaper.work.gateway.services -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 8:24:40 am
+ * @git
+ */
+package com.nopaper.work.gateway.services;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.entity.RouteKey;
+import com.nopaper.work.gateway.entity.Routes;
+import com.nopaper.work.gateway.repository.RouteKeyRepository;
+import com.nopaper.work.gateway.repository.RouteRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rotates the keys routes encrypt their payloads with, see {@code RouteKeys}.
+ */
+@Service
+@Slf4j
+public class RouteKeyService {
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+	private static final int KEY_LENGTH = 32;
+
+	private final RouteKeyRepository keyRepository;
+	private final RouteRepository routeRepository;
+	private final RouteService routeService;
+	private final ReactiveRedisTemplate<String, String> redisTemplate;
+	private final Duration defaultGrace;
+
+	public RouteKeyService(
+			RouteKeyRepository keyRepository,
+			RouteRepository routeRepository,
+			RouteService routeService,
+			ReactiveRedisTemplate<String, String> redisTemplate,
+			@Value("${gateway.payload-encryption.rotation-grace:24h}") Duration defaultGrace)
+	{
+		this.keyRepository = keyRepository;
+		this.routeRepository = routeRepository;
+		this.routeService = routeService;
+		this.redisTemplate = redisTemplate;
+		this.defaultGrace = defaultGrace;
+	}
+
+	/**
+	 * Rotates a route's key with the default grace period.
+	 *
+	 * @see #rotate(String, Duration)
+	 */
+	public Mono<RouteKey> rotate(String routeId) {
+		return rotate(routeId, defaultGrace);
+	}
+
+	/**
+	 * Gives a route a new random 256-bit key version, which encrypts from now on. Older
+	 * versions keep decrypting for the grace period, so that clients can move over
+	 * without failing requests. A route with an encryption_key column has it moved to
+	 * gateway.route_keys as version 0 and cleared; a route without payload encryption
+	 * has it turned on, once its key exists. Only the route's keys are reloaded on the
+	 * other nodes, not the route table.
+	 *
+	 * @param routeId The route_id of the route.
+	 * @param grace   How long the versions it replaces still decrypt.
+	 * @return A Mono emitting the new version, or an IllegalArgumentException if there is no such route.
+	 */
+	public Mono<RouteKey> rotate(String routeId, Duration grace) {
+		Instant expiresAt = Instant.now().plus(grace);
+		return routeRepository.findByRouteId(routeId)
+				.switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Route " + routeId + " does not exist")))
+				.flatMap(route -> keyRepository.findByRouteIdOrderByKeyVersionDesc(routeId)
+						.collectList()
+						.flatMap(keys -> {
+							List<RouteKey> retired = new ArrayList<>();
+							for (RouteKey key : keys) {
+								// Never extend a grace period that ends sooner
+								if (key.getExpiresAt() == null || key.getExpiresAt().isAfter(expiresAt)) {
+									key.setExpiresAt(expiresAt);
+									key.setLastModifiedDate(Instant.now());
+									retired.add(key);
+								}
+							}
+							if (keys.isEmpty() && StringUtils.hasText(route.getEncryptionKey())) {
+								retired.add(routeKey(routeId, 0, route.getEncryptionKey().trim(), expiresAt));
+							}
+							int version = keys.isEmpty() ? 1 : keys.get(0).getKeyVersion() + 1;
+							return keyRepository.saveAll(retired)
+									.then(keyRepository.save(routeKey(routeId, version, newKey(), null)));
+						})
+						.flatMap(key -> enable(route)
+								.then(redisTemplate.convertAndSend(GatewayConstant.ROUTE_KEY_UPDATES_CHANNEL, routeId))
+								.doOnSuccess(receivers -> log.info("Rotated the key of route {} to version {}.", routeId,
+										key.getKeyVersion()))
+								.thenReturn(key)));
+	}
+
+	private Mono<Routes> enable(Routes route) {
+		if (route.isPayloadEncryption() && route.getEncryptionKey() == null) {
+			return Mono.just(route);
+		}
+		route.setPayloadEncryption(true);
+		route.setEncryptionKey(null);
+		return routeService.saveRoute(route);
+	}
+
+	private static RouteKey routeKey(String routeId, int version, String material, Instant expiresAt) {
+		RouteKey key = new RouteKey();
+		key.setRouteId(routeId);
+		key.setKeyVersion(version);
+		key.setKeyMaterial(material);
+		key.setExpiresAt(expiresAt);
+		key.setCreatedBy(GatewayConstant.DEFAULT_ACTOR);
+		key.setLastModifiedBy(GatewayConstant.DEFAULT_ACTOR);
+		return key;
+	}
+
+	private static String newKey() {
+		byte[] key = new byte[KEY_LENGTH];
+		RANDOM.nextBytes(key);
+		return Base64.getEncoder().encodeToString(key);
+	}
+}
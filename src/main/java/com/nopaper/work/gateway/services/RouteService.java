@@ -1,14 +1,22 @@
 package com.nopaper.work.gateway.services;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.configurations.RouteChangeEvent;
+import com.nopaper.work.gateway.configurations.RouteDefinitionCompiler;
+import com.nopaper.work.gateway.constants.GatewayConstant;
 import com.nopaper.work.gateway.entity.Routes;
 import com.nopaper.work.gateway.repository.RouteRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
@@ -16,11 +24,55 @@ import reactor.core.publisher.Flux;
 public class RouteService {
 
 	private final RouteRepository routeRepository;
+	private final RouteDefinitionCompiler routeCompiler;
+	private final ReactiveRedisTemplate<String, String> redisTemplate;
+	private final ObjectMapper objectMapper;
 
 	@Cacheable("routes")
 	public Flux<Routes> getActiveRoutes() {
 		log.info("Fetching active routes from the database. (This should not appear frequently if caching is working)");
 		return routeRepository.findAll();
 	}
+
+	/**
+	 * Validates and compiles a route, saves it together with its compiled form and
+	 * announces the change to every gateway node.
+	 *
+	 * @param route The route to insert or update.
+	 * @return A Mono emitting the saved route, or an IllegalArgumentException if it is invalid.
+	 */
+	@CacheEvict(value = "routes", allEntries = true)
+	public Mono<Routes> saveRoute(Routes route) {
+		return Mono.fromCallable(() -> routeCompiler.prepareForWrite(route))
+				.flatMap(routeRepository::save)
+				.flatMap(saved -> publishChange(RouteChangeEvent.Type.UPSERT, saved.getRouteId()).thenReturn(saved));
+	}
+
+	/**
+	 * Deletes a route and announces the change to every gateway node.
+	 *
+	 * @param routeId The route_id of the route to delete.
+	 * @return A Mono that completes once the route is deleted.
+	 */
+	@CacheEvict(value = "routes", allEntries = true)
+	public Mono<Void> deleteRoute(String routeId) {
+		return routeRepository.findByRouteId(routeId)
+				.flatMap(route -> routeRepository.delete(route)
+						.then(publishChange(RouteChangeEvent.Type.DELETE, routeId)));
+	}
+
+	private Mono<Void> publishChange(RouteChangeEvent.Type type, String routeId) {
+		return redisTemplate.opsForValue().increment(GatewayConstant.GATEWAY_ROUTES_VERSION_KEY)
+				.flatMap(version -> {
+					try {
+						String message = objectMapper.writeValueAsString(new RouteChangeEvent(type, routeId, version));
+						return redisTemplate.convertAndSend(GatewayConstant.ROUTE_UPDATES_CHANNEL, message);
+					} catch (JsonProcessingException e) {
+						return Mono.error(e);
+					}
+				})
+				.doOnSuccess(receivers -> log.info("Published {} of route {}.", type, routeId))
+				.then();
+	}
 	
-}
\ No newline at end of file
+}
@@ -8,6 +8,7 @@ import com.nopaper.work.gateway.repository.IpBlacklistRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Service class to handle security-related operations,
@@ -32,6 +33,8 @@ public class SecurityService {
     @Cacheable(value = "ip_blacklist", key = "#ipAddress")
     public Mono<Boolean> isIpBlacklisted(String ipAddress) {
         log.info("Checking database for IP: {}. (This should not appear often if caching is working)", ipAddress);
-        return ipBlacklistRepository.existsByIpAddress(ipAddress);
+        // The cache stores the result with a blocking RedisCache.put on the thread that emits it; keep that off
+        // the R2DBC and Lettuce event loops, where opening a new Redis connection would wait on itself
+        return ipBlacklistRepository.existsByIpAddress(ipAddress).publishOn(Schedulers.boundedElastic());
     }
 }
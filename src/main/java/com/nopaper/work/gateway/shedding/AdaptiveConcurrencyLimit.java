@@ -0,0 +1,115 @@
+/**
+ * @package com.nopaper.work.gateway.shedding -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 1:58:21 am
+ * @git
+ */
+package com.nopaper.work.gateway.shedding;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit of one route or upstream that follows its latency, after the
+ * gradient algorithm of Netflix's concurrency-limits.
+ * <p>
+ * Two moving averages of the response time are kept: a long one that stands for the
+ * upstream at ease and a short one for right now. While the short one stays within
+ * {@code tolerance} times the long one, the limit grows by a fifth of its square root
+ * per sample; once it rises beyond that, the limit shrinks in proportion. As each sample
+ * only moves the limit a fifth of the way to the target, and the target is at least half
+ * the limit, that is a cut of at most about 10% per sample. Failed or timed-out requests
+ * cut the limit by 10% straight away. The limit only
+ * grows while it is actually being used, so a quiet route does not build up a limit it
+ * could never sustain.
+ * <p>
+ * Taking and handing back a slot is a CAS on the in-flight count; samples update the
+ * averages under the instance's lock.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // Weights of a new sample in the short and the long average
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 1.0 / 600;
+    // How far the estimate moves towards a new limit per sample
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private double estimate;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimate = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a slot if fewer than {@code share} of the limit are in flight.
+     *
+     * @return The number of requests in flight before this one, or -1 if it is refused.
+     */
+    public int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Feeds back the outcome of a request that held a slot.
+     *
+     * @param rttNanos How long the request took.
+     * @param inFlight Requests in flight when it was admitted.
+     * @param dropped  Whether it failed in a way that points to overload: a timeout or a 502, 503 or 504.
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            update(estimate * DROP_BACKOFF);
+            return;
+        }
+        shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) * LONG_WEIGHT;
+        // The upstream got faster for good; let the baseline catch up instead of growing without end
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        if (inFlight < estimate / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        update(estimate * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private void update(double newEstimate) {
+        estimate = Math.max(minLimit, Math.min(maxLimit, newEstimate));
+        limit = (int) estimate;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * @package com.nopaper.work.gateway.shedding -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 2:07:45 am
+ * @git
+ */
+package com.nopaper.work.gateway.shedding;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.nopaper.work.gateway.loadbalancer.Upstreams;
+import com.nopaper.work.gateway.metrics.MeteredCache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The {@link AdaptiveConcurrencyLimit}s of the gateway: one per route, and one per
+ * upstream service shared by all routes that lead to it. Both are published as
+ * {@code gateway.concurrency.limit} and {@code gateway.concurrency.in_flight} gauges,
+ * tagged with the scope and the route id or service.
+ * <p>
+ * A limit holds the requests in flight, so it is kept for as long as its route (or a
+ * route to its service) exists, and dropped when the routes are refreshed without it.
+ * Only the gauges are bounded, to {@code gateway.metrics.max-routes} routes and as many
+ * services, see {@link MeteredCache}.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimits {
+
+    private final MeterRegistry meterRegistry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final Map<String, AdaptiveConcurrencyLimit> routes = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveConcurrencyLimit> upstreams = new ConcurrentHashMap<>();
+    private final MeteredCache<List<Gauge>> routeGauges;
+    private final MeteredCache<List<Gauge>> upstreamGauges;
+
+    public AdaptiveConcurrencyLimits(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.load-shedding.initial-limit:100}") int initialLimit,
+            @Value("${gateway.load-shedding.min-limit:10}") int minLimit,
+            @Value("${gateway.load-shedding.max-limit:1000}") int maxLimit,
+            @Value("${gateway.load-shedding.tolerance:1.5}") double tolerance,
+            @Value("${gateway.metrics.max-routes:1000}") long maxRoutes)
+    {
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.routeGauges = new MeteredCache<>(meterRegistry, maxRoutes, (routeId, meters) -> gauges("route", routes, routeId, meters));
+        this.upstreamGauges = new MeteredCache<>(meterRegistry, maxRoutes, (service, meters) -> gauges("upstream", upstreams, service, meters));
+    }
+
+    public AdaptiveConcurrencyLimit route(String routeId) {
+        return limit(routes, routeGauges, routeId);
+    }
+
+    /** Limit of an upstream service, by the host (and port, if any) of the route URI. */
+    public AdaptiveConcurrencyLimit upstream(String service) {
+        return limit(upstreams, upstreamGauges, service);
+    }
+
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (event.isSuccess() && event.getSource() instanceof RouteLocator routeLocator) {
+            routeLocator.getRoutes()
+                    .collectList()
+                    .subscribe(live -> retain(live.stream().map(Route::getId).collect(Collectors.toSet()),
+                            live.stream().map(route -> Upstreams.service(route.getUri())).collect(Collectors.toSet())),
+                            error -> log.warn("Could not drop the concurrency limits of deleted routes.", error));
+        }
+    }
+
+    /** Drops the limits, and their gauges, of every route not in routeIds and every service not in services. */
+    public void retain(Set<String> routeIds, Set<String> services) {
+        routes.keySet().retainAll(routeIds);
+        routeGauges.retain(routeIds);
+        upstreams.keySet().retainAll(services);
+        upstreamGauges.retain(services);
+    }
+
+    private AdaptiveConcurrencyLimit limit(Map<String, AdaptiveConcurrencyLimit> limits, MeteredCache<List<Gauge>> gauges, String name) {
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(name,
+                key -> new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance));
+        // Registers the gauges again if they were dropped while the limit was kept
+        gauges.get(name);
+        return limit;
+    }
+
+    /** The gauges read whichever limit the name has when they are scraped. */
+    private List<Gauge> gauges(String scope, Map<String, AdaptiveConcurrencyLimit> limits, String name,
+            MeteredCache.Meters meters)
+    {
+        Gauge limit = meters.add(Gauge.builder("gateway.concurrency.limit", limits, read(name, AdaptiveConcurrencyLimit::limit))
+                .description("Adaptive concurrency limit")
+                .tags("scope", scope, "name", name)
+                .register(meterRegistry));
+        Gauge inFlight = meters.add(Gauge.builder("gateway.concurrency.in_flight", limits, read(name, AdaptiveConcurrencyLimit::inFlight))
+                .description("Requests holding a slot of the adaptive concurrency limit")
+                .tags("scope", scope, "name", name)
+                .register(meterRegistry));
+        return List.of(limit, inFlight);
+    }
+
+    private static ToDoubleFunction<Map<String, AdaptiveConcurrencyLimit>> read(String name,
+            ToDoubleFunction<AdaptiveConcurrencyLimit> value)
+    {
+        return limits -> {
+            AdaptiveConcurrencyLimit limit = limits.get(name);
+            return limit != null ? value.applyAsDouble(limit) : Double.NaN;
+        };
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * @package com.nopaper.work.gateway.shedding -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 1:53:40 am
+ * @git
+ */
+package com.nopaper.work.gateway.shedding;
+
+import java.util.Locale;
+
+/**
+ * How much a request matters when the gateway has to shed load. Each class may only
+ * use a share of a concurrency limit, so as in-flight requests approach the limit the
+ * lower classes are turned away first and critical traffic keeps the last of it.
+ */
+public enum RequestPriority {
+
+    CRITICAL(1.0),
+    NORMAL(0.9),
+    SHEDDABLE(0.5);
+
+    /** Key of the route's priority in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "priority";
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /** Share of the concurrency limit requests of this class may use. */
+    public double share() {
+        return share;
+    }
+
+    /**
+     * Parses a priority name, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such priority.
+     */
+    public static RequestPriority of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown priority " + name + ", expected critical, normal or sheddable", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.shedding -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 1:52:08 am
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.shedding;
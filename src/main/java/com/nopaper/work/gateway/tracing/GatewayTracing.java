@@ -0,0 +1,282 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 10:26:08 am
+ * @git
+ */
+package com.nopaper.work.gateway.tracing;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Traces requests through the gateway with OpenTelemetry, continuing the trace of the
+ * caller's {@code traceparent} and {@code tracestate} headers and handing it on to the
+ * upstream in the same headers.
+ * <p>
+ * Every request gets a span, named by its route and sampled by the route's
+ * {@link TracingPolicy}; the context of that span is kept on the exchange, and the
+ * steps of the request (blacklist check, rate limit, upstream call, response transform)
+ * are spans inside it. A request that is not sampled gets a span that records nothing,
+ * and its steps none at all, so that it costs little more than reading and writing the
+ * trace headers.
+ */
+@Component
+public class GatewayTracing {
+
+    static final AttributeKey<String> ROUTE_ID = AttributeKey.stringKey("gateway.route.id");
+    static final AttributeKey<String> HTTP_METHOD = AttributeKey.stringKey("http.request.method");
+    static final AttributeKey<Long> HTTP_STATUS = AttributeKey.longKey("http.response.status_code");
+    static final AttributeKey<String> URL_PATH = AttributeKey.stringKey("url.path");
+    static final AttributeKey<String> URL_FULL = AttributeKey.stringKey("url.full");
+    static final AttributeKey<String> CLIENT_ADDRESS = AttributeKey.stringKey("client.address");
+
+    private static final TextMapGetter<HttpHeaders> HEADER_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(HttpHeaders headers) {
+            return headers.keySet();
+        }
+
+        @Override
+        public String get(HttpHeaders headers, String key) {
+            return headers != null ? headers.getFirst(key) : null;
+        }
+    };
+
+    private static final TextMapSetter<HttpHeaders> HEADER_SETTER = HttpHeaders::set;
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+    private final TracingPolicyResolver policyResolver;
+    private final boolean enabled;
+
+    public GatewayTracing(
+            OpenTelemetry openTelemetry,
+            TracingPolicyResolver policyResolver,
+            @Value("${gateway.tracing.enabled:true}") boolean enabled)
+    {
+        this.tracer = openTelemetry.getTracer("com.nopaper.work.gateway");
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.policyResolver = policyResolver;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the span of a request on its route and keeps its context on the exchange.
+     * Unless the request has a {@code traceparent}, an {@code X-Trace-ID} it came with
+     * stays the trace id its log is filed under.
+     */
+    public Span startRequest(ServerWebExchange exchange, Route route) {
+        ServerHttpRequest request = exchange.getRequest();
+        TracingPolicy policy = policyResolver.resolve(route);
+        Context parent = propagator.extract(Context.root(), request.getHeaders(), HEADER_GETTER)
+                .with(TracingPolicy.CONTEXT_KEY, policy);
+        Span span = tracer.spanBuilder(route.getId())
+                .setParent(parent)
+                .setSpanKind(SpanKind.SERVER)
+                .startSpan();
+        exchange.getAttributes().put(GatewayConstant.TRACE_CONTEXT_ATTR, parent.with(span));
+        if (Span.fromContext(parent).getSpanContext().isValid()
+                || !request.getHeaders().containsKey(GatewayConstant.TRACE_ID_HEADER)) {
+            exchange.getAttributes().put(GatewayConstant.TRACE_ID_ATTR, span.getSpanContext().getTraceId());
+        }
+        if (span.isRecording()) {
+            span.setAttribute(ROUTE_ID, route.getId());
+            span.setAttribute(HTTP_METHOD, request.getMethod().name());
+            span.setAttribute(URL_PATH, request.getPath().value());
+            InetSocketAddress client = request.getRemoteAddress();
+            if (client != null && client.getAddress() != null) {
+                span.setAttribute(CLIENT_ADDRESS, client.getAddress().getHostAddress());
+            }
+        }
+        return span;
+    }
+
+    /**
+     * Ends the span of a request. A request that was recorded but not sampled is marked
+     * to be exported if its route keeps requests as slow or as failed as this one.
+     *
+     * @param error What the request failed with, if it did.
+     */
+    public void endRequest(ServerWebExchange exchange, Span span, Throwable error, long startNanos) {
+        if (!span.isRecording()) {
+            return;
+        }
+        boolean failed = finish(span, exchange, error);
+        if (!span.getSpanContext().isSampled()) {
+            Context context = exchange.getAttribute(GatewayConstant.TRACE_CONTEXT_ATTR);
+            TracingPolicy policy = context != null ? context.get(TracingPolicy.CONTEXT_KEY) : null;
+            if (policy != null && policy.keeps(System.nanoTime() - startNanos, failed)) {
+                span.setAttribute(TailSamplingSpanProcessor.KEEP, true);
+            }
+        }
+        span.end();
+    }
+
+    /** Traces {@code work} as a step of the request, if the request is recorded. */
+    public <T> Mono<T> trace(ServerWebExchange exchange, String name, Mono<T> work) {
+        Context context = recordingContext(exchange);
+        if (context == null) {
+            return work;
+        }
+        return Mono.defer(() -> {
+            Span span = tracer.spanBuilder(name).setParent(context).startSpan();
+            return work
+                    .doOnError(error -> fail(span, error))
+                    .doFinally(signal -> span.end());
+        });
+    }
+
+    /**
+     * Traces a filter as a step of the request, from when it is called until it hands the
+     * request on to the rest of the chain, or answers it itself.
+     */
+    public Mono<Void> traceUntilHandOff(ServerWebExchange exchange, String name, GatewayFilterChain chain,
+            GatewayFilter filter)
+    {
+        Context context = recordingContext(exchange);
+        if (context == null) {
+            return filter.filter(exchange, chain);
+        }
+        HandOff handOff = new HandOff(tracer.spanBuilder(name).setParent(context).startSpan(), chain);
+        return filter.filter(exchange, handOff)
+                .doOnError(handOff::fail)
+                .doFinally(signal -> handOff.answered(exchange));
+    }
+
+    /**
+     * Traces the call to the upstream, from sending the request until its response
+     * headers arrive. Each attempt at a retried or hedged request is a call of its own.
+     */
+    public Mono<Void> traceUpstream(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Context context = recordingContext(exchange);
+        if (context == null) {
+            return chain.filter(exchange);
+        }
+        Span span = tracer.spanBuilder("upstream")
+                .setParent(context)
+                .setSpanKind(SpanKind.CLIENT)
+                .startSpan();
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (url != null) {
+            span.setAttribute(URL_FULL, url.toString());
+        }
+        exchange.getAttributes().put(GatewayConstant.UPSTREAM_TRACE_CONTEXT_ATTR, context.with(span));
+        return chain.filter(exchange)
+                .doOnError(error -> fail(span, error))
+                .doFinally(signal -> {
+                    finish(span, exchange, null);
+                    span.end();
+                });
+    }
+
+    /**
+     * Writes the trace context of the request into the headers sent upstream: the
+     * upstream call's span if it is recorded, the request's otherwise.
+     */
+    public void inject(ServerWebExchange exchange, HttpHeaders headers) {
+        Context context = exchange.getAttribute(GatewayConstant.UPSTREAM_TRACE_CONTEXT_ATTR);
+        if (context == null) {
+            context = exchange.getAttribute(GatewayConstant.TRACE_CONTEXT_ATTR);
+        }
+        if (context != null) {
+            propagator.inject(context, headers, HEADER_SETTER);
+        }
+    }
+
+    private static Context recordingContext(ServerWebExchange exchange) {
+        Context context = exchange.getAttribute(GatewayConstant.TRACE_CONTEXT_ATTR);
+        return context != null && Span.fromContext(context).isRecording() ? context : null;
+    }
+
+    /** Records the response status; returns whether the request failed. */
+    private static boolean finish(Span span, ServerWebExchange exchange, Throwable error) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status != null) {
+            span.setAttribute(HTTP_STATUS, (long) status.value());
+        }
+        if (error != null) {
+            fail(span, error);
+            return true;
+        }
+        if (status != null && status.is5xxServerError()) {
+            span.setStatus(StatusCode.ERROR);
+            return true;
+        }
+        return false;
+    }
+
+    private static void fail(Span span, Throwable error) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR, error.getClass().getSimpleName());
+    }
+
+    /** Ends the span of a step when the step hands the request on. */
+    private static final class HandOff implements GatewayFilterChain {
+
+        private final Span span;
+        private final GatewayFilterChain chain;
+        private boolean ended;
+
+        HandOff(Span span, GatewayFilterChain chain) {
+            this.span = span;
+            this.chain = chain;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            end();
+            return chain.filter(exchange);
+        }
+
+        void fail(Throwable error) {
+            if (!ended) {
+                GatewayTracing.fail(span, error);
+            }
+        }
+
+        /** Ends the span if the step answered the request itself, e.g. with 429. */
+        void answered(ServerWebExchange exchange) {
+            if (!ended) {
+                finish(span, exchange, null);
+                end();
+            }
+        }
+
+        private void end() {
+            if (!ended) {
+                ended = true;
+                span.end();
+            }
+        }
+    }
+}
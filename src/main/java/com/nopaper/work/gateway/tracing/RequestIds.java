@@ -0,0 +1,65 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 9:04:18 am
+ * @git
+ */
+package com.nopaper.work.gateway.tracing;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates request ids as version 7 UUIDs (RFC 9562): 48 bits of Unix milliseconds,
+ * then a 12-bit counter, then 62 random bits. Ids sort by the time they were made in,
+ * which keeps them close together in database indexes and makes logs easy to follow.
+ * <p>
+ * Each thread keeps its own clock and counter, so event loops never wait on one another
+ * as they would on {@link UUID#randomUUID()}'s shared {@code SecureRandom}. The ids of
+ * one thread strictly increase: the counter starts at a random value below 2048 every
+ * millisecond and, should it run out, borrows the next millisecond. Ids of different
+ * threads are told apart by their random bits, which come from
+ * {@link ThreadLocalRandom}; they identify requests but are not secrets.
+ */
+public final class RequestIds {
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_BITS = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final int MAX_SEQUENCE = 0xFFF;
+    // Leaves at least half the counter for ids made in the same millisecond
+    private static final int SEQUENCE_SEED_BOUND = 1 << 11;
+
+    private static final class Clock {
+        long millis;
+        int sequence;
+    }
+
+    private static final ThreadLocal<Clock> CLOCKS = ThreadLocal.withInitial(Clock::new);
+
+    private RequestIds() {
+    }
+
+    /** A new id, greater than any made on this thread before. */
+    public static UUID next() {
+        Clock clock = CLOCKS.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        if (now > clock.millis) {
+            clock.millis = now;
+            clock.sequence = random.nextInt(SEQUENCE_SEED_BOUND);
+        } else if (++clock.sequence > MAX_SEQUENCE) {
+            // Also covers the wall clock stepping back: time stands still until it catches up
+            clock.millis++;
+            clock.sequence = random.nextInt(SEQUENCE_SEED_BOUND);
+        }
+        long mostSignificant = clock.millis << 16 | VERSION | clock.sequence;
+        long leastSignificant = VARIANT | random.nextLong() & RANDOM_BITS;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    /** Unix milliseconds a version 7 id was made at. */
+    public static long timestamp(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
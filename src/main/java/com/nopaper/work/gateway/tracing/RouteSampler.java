@@ -0,0 +1,66 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 10:03:52 am
+ * @git
+ */
+package com.nopaper.work.gateway.tracing;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+/**
+ * Samples each request by the {@link TracingPolicy} of its route, which
+ * {@link GatewayTracing} puts in the parent context of the request's span. Spans inside
+ * a request follow the request's span: sampled if it is, recorded but not sampled if it
+ * is only recorded for tail sampling.
+ */
+public final class RouteSampler implements Sampler {
+
+    private final TracingPolicy defaultPolicy;
+
+    public RouteSampler(TracingPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+            Attributes attributes, List<LinkData> parentLinks)
+    {
+        Span parentSpan = Span.fromContext(parentContext);
+        SpanContext parent = parentSpan.getSpanContext();
+        if (parent.isValid() && !parent.isRemote()) {
+            if (parent.isSampled()) {
+                return SamplingResult.recordAndSample();
+            }
+            return parentSpan.isRecording() ? SamplingResult.recordOnly() : SamplingResult.drop();
+        }
+
+        TracingPolicy policy = parentContext.get(TracingPolicy.CONTEXT_KEY);
+        if (policy == null) {
+            policy = defaultPolicy;
+        }
+        boolean sampled = parent.isValid()
+                ? parent.isSampled()
+                : policy.headSampler().shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks)
+                        .getDecision() == SamplingDecision.RECORD_AND_SAMPLE;
+        if (sampled) {
+            return SamplingResult.recordAndSample();
+        }
+        return policy.isTailSampled() ? SamplingResult.recordOnly() : SamplingResult.drop();
+    }
+
+    @Override
+    public String getDescription() {
+        return "RouteSampler{default=" + defaultPolicy.sampleRate() + "}";
+    }
+}
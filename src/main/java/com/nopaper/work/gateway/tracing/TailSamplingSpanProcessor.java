@@ -0,0 +1,104 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 10:14:26 am
+ * @git
+ */
+package com.nopaper.work.gateway.tracing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * Passes sampled spans straight on to the exporting processor, and holds back the spans
+ * of requests that were only recorded for tail sampling until the request's span ends.
+ * If {@link GatewayTracing} marked that span with {@link #KEEP}, the request and every
+ * span held back for it are passed on; otherwise they are dropped.
+ * <p>
+ * The spans of a request are the children of its span, so they are held back by their
+ * parent's span id. Spans whose request never ends are given up after a minute, and at
+ * most {@code maxPendingRequests} requests are held back at once.
+ */
+public final class TailSamplingSpanProcessor implements SpanProcessor {
+
+    /** Set on the span of a request that was not sampled but is to be exported. */
+    static final AttributeKey<Boolean> KEEP = AttributeKey.booleanKey("gateway.tail_sampled");
+
+    private static final Duration MAX_PENDING_TIME = Duration.ofMinutes(1);
+
+    private final SpanProcessor delegate;
+    private final Cache<String, List<ReadableSpan>> pending;
+
+    /**
+     * @param delegate Exports what it is given, sampled or not.
+     */
+    public TailSamplingSpanProcessor(SpanProcessor delegate, long maxPendingRequests) {
+        this.delegate = delegate;
+        this.pending = Caffeine.newBuilder()
+                .maximumSize(maxPendingRequests)
+                .expireAfterWrite(MAX_PENDING_TIME)
+                .build();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext context = span.getSpanContext();
+        if (context.isSampled()) {
+            delegate.onEnd(span);
+            return;
+        }
+        SpanContext parent = span.getParentSpanContext();
+        if (parent.isValid() && !parent.isRemote()) {
+            pending.asMap().compute(parent.getSpanId(), (parentId, spans) -> {
+                List<ReadableSpan> held = spans != null ? spans : new ArrayList<>(4);
+                held.add(span);
+                return held;
+            });
+            return;
+        }
+        List<ReadableSpan> children = pending.asMap().remove(context.getSpanId());
+        if (Boolean.TRUE.equals(span.getAttribute(KEEP))) {
+            if (children != null) {
+                children.forEach(delegate::onEnd);
+            }
+            delegate.onEnd(span);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.invalidateAll();
+        return delegate.shutdown();
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 9:48:10 am
+ * @git
+ */
+package com.nopaper.work.gateway.tracing;
+
+import java.time.Duration;
+
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * How the requests of one route are sampled for tracing.
+ * <p>
+ * Head sampling decides when the request arrives: a request whose caller sampled its
+ * trace is always traced, one whose caller did not is not, and a request that starts a
+ * trace is traced at {@code sampleRate}, by its trace id so that every service that
+ * samples at the same rate agrees. Tail sampling decides when the request is done: a
+ * request head sampling passed over is still recorded if the route keeps slow or failed
+ * requests, and exported if it turns out to be one.
+ *
+ * @param sampleRate     Share of requests starting a trace that are traced, from 0 to 1.
+ * @param keepSlowerThan Keeps requests that took at least this long; {@code null} keeps none for being slow.
+ * @param keepErrors     Keeps requests that failed or were answered with a 5xx status.
+ * @param headSampler    Samples at {@code sampleRate} by trace id; built once per policy.
+ */
+public record TracingPolicy(double sampleRate, Duration keepSlowerThan, boolean keepErrors, Sampler headSampler) {
+
+    /** Key of the tracing policy JSON in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "tracing";
+
+    /** Carries the policy of the request to {@link RouteSampler} in the parent context of its span. */
+    static final ContextKey<TracingPolicy> CONTEXT_KEY = ContextKey.named("gateway-tracing-policy");
+
+    public TracingPolicy(double sampleRate, Duration keepSlowerThan, boolean keepErrors) {
+        this(sampleRate, keepSlowerThan, keepErrors, Sampler.traceIdRatioBased(sampleRate));
+    }
+
+    /** Whether requests that head sampling passes over are recorded, for tail sampling to look at. */
+    public boolean isTailSampled() {
+        return keepSlowerThan != null || keepErrors;
+    }
+
+    /** Whether a request that was recorded but not sampled is exported all the same. */
+    public boolean keeps(long durationNanos, boolean failed) {
+        return keepErrors && failed || keepSlowerThan != null && durationNanos >= keepSlowerThan.toNanos();
+    }
+}
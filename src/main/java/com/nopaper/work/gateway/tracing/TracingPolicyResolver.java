@@ -0,0 +1,91 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 9:55:37 am
+ * @git
+ */
+package com.nopaper.work.gateway.tracing;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nopaper.work.gateway.configurations.RoutePolicyCache;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+
+/**
+ * Parses the {@code tracing} column of a route and finds the tracing policy of a route,
+ * through a {@link RoutePolicyCache}.
+ * <p>
+ * The column holds JSON such as
+ * {@code {"sampleRate": 0.1, "keepSlowerThan": "500ms", "keepErrors": true}}; omitted
+ * fields, and routes without the column, take the defaults from {@code gateway.tracing.*}.
+ */
+@Component
+public class TracingPolicyResolver {
+
+    private record PolicyDocument(Double sampleRate, String keepSlowerThan, Boolean keepErrors) {}
+
+    private final ObjectReader documentReader;
+    private final TracingPolicy defaultPolicy;
+    private final RoutePolicyCache<TracingPolicy> policies;
+
+    public TracingPolicyResolver(
+            ObjectMapper objectMapper,
+            RoutePolicyCaches policyCaches,
+            @Value("${gateway.tracing.sample-rate:0.01}") double sampleRate,
+            @Value("${gateway.tracing.keep-slower-than:}") String keepSlowerThan,
+            @Value("${gateway.tracing.keep-errors:false}") boolean keepErrors)
+    {
+        this.documentReader = objectMapper.readerFor(PolicyDocument.class);
+        this.defaultPolicy = policy(sampleRate,
+                StringUtils.hasText(keepSlowerThan) ? DurationStyle.detectAndParse(keepSlowerThan) : null, keepErrors);
+        this.policies = policyCaches.create(TracingPolicy.METADATA_KEY, this::parse, defaultPolicy, defaultPolicy);
+    }
+
+    /** Tracing policy of routes without one of their own. */
+    public TracingPolicy defaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /** Tracing policy of the route. */
+    public TracingPolicy resolve(Route route) {
+        return policies.resolve(route);
+    }
+
+    /**
+     * Parses a {@code tracing} column.
+     *
+     * @throws IllegalArgumentException if the JSON or one of its values is invalid.
+     */
+    public TracingPolicy parse(String json) {
+        try {
+            PolicyDocument document = documentReader.readValue(json);
+            return policy(
+                    document.sampleRate() != null ? document.sampleRate() : defaultPolicy.sampleRate(),
+                    document.keepSlowerThan() != null
+                            ? DurationStyle.detectAndParse(document.keepSlowerThan())
+                            : defaultPolicy.keepSlowerThan(),
+                    document.keepErrors() != null ? document.keepErrors() : defaultPolicy.keepErrors());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed tracing policy: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static TracingPolicy policy(double sampleRate, Duration keepSlowerThan, boolean keepErrors) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("Trace sample rate must be between 0 and 1, not " + sampleRate);
+        }
+        if (keepSlowerThan != null && keepSlowerThan.isNegative()) {
+            throw new IllegalArgumentException("Tracing keepSlowerThan must not be negative");
+        }
+        return new TracingPolicy(sampleRate, keepSlowerThan, keepErrors);
+    }
+}
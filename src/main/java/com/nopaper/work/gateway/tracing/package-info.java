@@ -0,0 +1,10 @@
+/**
+ * @package com.nopaper.work.gateway.tracing -> gateway
+ * @author saikatbarman
+ * @date 2026 19-Oct-2026 9:02:44 am
+ * @git 
+ */
+/**
+ * 
+ */
+package com.nopaper.work.gateway.tracing;
@@ -0,0 +1,31 @@
+/**
+ * @package com.nopaper.work.gateway.transformer -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 9:31:12 pm
+ * @git
+ */
+package com.nopaper.work.gateway.transformer;
+
+import java.io.IOException;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Precompiled serialization of a response envelope: writes the envelope fields
+ * straight to a {@link JsonGenerator}, typically with pre-encoded
+ * {@link com.fasterxml.jackson.core.io.SerializedString}s, instead of building an
+ * envelope object and serializing it through Jackson bean introspection.
+ * <p>
+ * The body goes between the prefix and the suffix, as the value of the field whose
+ * name the prefix wrote last.
+ */
+public interface EnvelopePlan {
+
+    /** Writes the envelope up to and including the name of the body field. */
+    void writePrefix(JsonGenerator generator, ServerWebExchange exchange) throws IOException;
+
+    /** Writes the fields after the body and closes the envelope. */
+    void writeSuffix(JsonGenerator generator, ServerWebExchange exchange) throws IOException;
+}
@@ -0,0 +1,42 @@
+/**
+ * @package com.nopaper.work.gateway.transformer -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 9:36:50 pm
+ * @git
+ */
+package com.nopaper.work.gateway.transformer;
+
+import java.io.IOException;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * A {@link ResponseTransformer} backed by an {@link EnvelopePlan}. Its
+ * {@link #transform} result serializes itself through the plan.
+ */
+record PlannedTransformer(EnvelopePlan envelopePlan) implements ResponseTransformer {
+
+    @Override
+    public Object transform(ServerWebExchange exchange, JsonNode originalBody) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+                envelopePlan.writePrefix(generator, exchange);
+                generator.writeTree(originalBody);
+                envelopePlan.writeSuffix(generator, exchange);
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+                    throws IOException {
+                serialize(generator, provider);
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * @package com.nopaper.work.gateway.transformer -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 8:48:05 pm
+ * @git
+ */
+package com.nopaper.work.gateway.transformer;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+
+/**
+ * How {@code StandardResponseFilter} treats the successful responses of one route.
+ * Responses outside the policy are passed through untouched.
+ *
+ * @param wrap           Whether responses are wrapped at all.
+ * @param contentTypes   Content types that are wrapped; wildcards such as {@code application/*+json} are allowed.
+ * @param maxBufferBytes Largest body that is read into memory to be wrapped; larger bodies are passed through.
+ * @param profile        Compliance profile to use, or {@code null} to take it from the request.
+ */
+public record ResponsePolicy(boolean wrap, List<MediaType> contentTypes, long maxBufferBytes, String profile) {
+
+    /** Key of the policy JSON in {@code RouteDefinition} metadata. */
+    public static final String METADATA_KEY = "response_policy";
+
+    public static final List<MediaType> JSON_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.valueOf("application/*+json"));
+
+    public ResponsePolicy {
+        contentTypes = List.copyOf(contentTypes);
+    }
+
+    /** Whether a response with this content type is wrapped. */
+    public boolean appliesTo(MediaType contentType) {
+        if (!wrap || contentType == null) {
+            return false;
+        }
+        for (MediaType allowed : contentTypes) {
+            if (allowed.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * @package com.nopaper.work.gateway.transformer -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 8:55:37 pm
+ * @git
+ */
+package com.nopaper.work.gateway.transformer;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nopaper.work.gateway.configurations.RoutePolicyCache;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+
+/**
+ * Parses the {@code response_policy} column of a route and finds the policy of the
+ * route an exchange was matched to, through a {@link RoutePolicyCache}.
+ * <p>
+ * The column holds JSON such as
+ * {@code {"wrap": true, "contentTypes": ["application/json"], "maxBufferSize": "2MB", "profile": "OWASP"}};
+ * omitted fields take the defaults.
+ */
+@Component
+public class ResponsePolicyResolver {
+
+    private record PolicyDocument(Boolean wrap, List<String> contentTypes, String maxBufferSize, String profile) {}
+
+    private final ObjectReader documentReader;
+    private final ResponsePolicy defaultPolicy;
+    private final RoutePolicyCache<ResponsePolicy> policies;
+
+    public ResponsePolicyResolver(
+            ObjectMapper objectMapper,
+            RoutePolicyCaches policyCaches,
+            @Value("${gateway.response.max-buffer-size:10MB}") DataSize maxBufferSize)
+    {
+        this.documentReader = objectMapper.readerFor(PolicyDocument.class);
+        this.defaultPolicy = new ResponsePolicy(true, ResponsePolicy.JSON_TYPES, maxBufferSize.toBytes(), null);
+        this.policies = policyCaches.create(ResponsePolicy.METADATA_KEY, this::parse, defaultPolicy, defaultPolicy);
+    }
+
+    /** Policy of routes that do not have one: wrap JSON responses up to the default buffer size. */
+    public ResponsePolicy defaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /** Policy of the route the exchange was matched to. */
+    public ResponsePolicy resolve(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? policies.resolve(route) : defaultPolicy;
+    }
+
+    /**
+     * Parses a {@code response_policy} column.
+     *
+     * @throws IllegalArgumentException if the JSON or one of its values is invalid.
+     */
+    public ResponsePolicy parse(String json) {
+        try {
+            PolicyDocument document = documentReader.readValue(json);
+            return new ResponsePolicy(
+                    document.wrap() == null || document.wrap(),
+                    document.contentTypes() != null
+                            ? document.contentTypes().stream().map(MediaType::parseMediaType).toList()
+                            : defaultPolicy.contentTypes(),
+                    document.maxBufferSize() != null
+                            ? DataSize.parse(document.maxBufferSize()).toBytes()
+                            : defaultPolicy.maxBufferBytes(),
+                    document.profile());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed response policy: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -17,4 +17,13 @@ import org.springframework.web.server.ServerWebExchange;
 @FunctionalInterface
 public interface ResponseTransformer {
     Object transform(ServerWebExchange exchange, JsonNode originalBody);
-}
\ No newline at end of file
+
+    // Precompiled serialization of the envelope, or null to serialize the result of transform()
+    default EnvelopePlan envelopePlan() {
+        return null;
+    }
+
+    static ResponseTransformer of(EnvelopePlan envelopePlan) {
+        return new PlannedTransformer(envelopePlan);
+    }
+}
@@ -10,24 +10,63 @@ package com.nopaper.work.gateway.transformer;
  * 
  */
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
-import java.util.Optional;
 
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registry of the {@link TransformerProfile}s declared as beans. The transformer of an
+ * exchange is resolved once and cached as an exchange attribute.
+ */
 @Component
-@RequiredArgsConstructor
 public class ResponseTransformerFactory {
 
+    public static final String DEFAULT_PROFILE = "DEFAULT";
+    public static final String PROFILE_HEADER = "X-Compliance-Profile";
+
+    private static final String TRANSFORMER_ATTR = ResponseTransformerFactory.class.getName() + ".transformer";
+
+    // Case-insensitive lookups without upper-casing the header on every request
+    private final Map<String, ResponseTransformer> transformers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final ResponseTransformer defaultTransformer;
+
+    public ResponseTransformerFactory(List<TransformerProfile> profiles) {
+        for (TransformerProfile profile : profiles) {
+            if (transformers.putIfAbsent(profile.name(), profile.transformer()) != null) {
+                throw new IllegalStateException("Duplicate response transformer profile: " + profile.name());
+            }
+        }
+        this.defaultTransformer = transformers.get(DEFAULT_PROFILE);
+        if (defaultTransformer == null) {
+            throw new IllegalStateException("No response transformer profile named " + DEFAULT_PROFILE);
+        }
+    }
+
+    /**
+     * Resolves the transformer of an exchange, from the route's profile if it has one
+     * and from the {@code X-Compliance-Profile} header otherwise, and caches it on the exchange.
+     */
+    public ResponseTransformer resolve(ServerWebExchange exchange, String routeProfile) {
+        String profile = routeProfile != null ? routeProfile : exchange.getRequest().getHeaders().getFirst(PROFILE_HEADER);
+        ResponseTransformer transformer = getTransformer(profile);
+        exchange.getAttributes().put(TRANSFORMER_ATTR, transformer);
+        return transformer;
+    }
+
     public ResponseTransformer getTransformer(ServerWebExchange exchange) {
-        String complianceProfile = Optional.ofNullable(
-            exchange.getRequest().getHeaders().getFirst("X-Compliance-Profile")
-        ).orElse("DEFAULT");
-
-        return switch (complianceProfile.toUpperCase()) {
-            case "OWASP" -> StandardTransformers::owaspTransformer;
-            case "LTI" -> StandardTransformers::ltiTransformer;
-            default -> StandardTransformers::defaultTransformer;
-        };
+        ResponseTransformer cached = exchange.getAttribute(TRANSFORMER_ATTR);
+        return cached != null ? cached : resolve(exchange, null);
+    }
+
+    // Unknown or missing profiles fall back to the default envelope
+    public ResponseTransformer getTransformer(String complianceProfile) {
+        if (complianceProfile == null) {
+            return defaultTransformer;
+        }
+        ResponseTransformer transformer = transformers.get(complianceProfile);
+        return transformer != null ? transformer : defaultTransformer;
     }
-}
\ No newline at end of file
+}
@@ -10,19 +10,133 @@ package com.nopaper.work.gateway.transformer;
  * 
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.nopaper.work.gateway.constants.GatewayConstant;
 import com.nopaper.work.gateway.dto.ApiResponse;
 import com.nopaper.work.gateway.dto.templates.LtiApiResponse;
 import com.nopaper.work.gateway.dto.templates.OwaspSecureApiResponse;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+
+import java.io.IOException;
+import java.time.Instant;
 import java.util.UUID;
 
 @Component
 public class StandardTransformers {
 
+    // Pre-encoded names and constant values of the envelopes, in the field order of the DTOs
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString STATUS_CODE = new SerializedString("statusCode");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString TRACE_IDENTITY = new SerializedString("trace_identity");
+    private static final SerializedString PROCESSED = new SerializedString("Request processed successfully");
+    private static final SerializedString PAYLOAD = new SerializedString("payload");
+    private static final SerializedString CORRELATION_ID = new SerializedString("correlationId");
+    private static final SerializedString SUCCESS = new SerializedString("Success");
+    private static final SerializedString LTI_SUCCESS = new SerializedString("lti_success");
+    private static final SerializedString LTI_MESSAGE = new SerializedString("lti_message");
+    private static final SerializedString LTI_PAYLOAD = new SerializedString("lti_payload");
+    private static final SerializedString COMPLETED = new SerializedString("Completed");
+
+    // Same output as defaultTransformer: ApiResponse, nulls omitted
+    private static final EnvelopePlan DEFAULT_PLAN = new EnvelopePlan() {
+        @Override
+        public void writePrefix(JsonGenerator generator, ServerWebExchange exchange) throws IOException {
+            int statusCode = exchange.getResponse().getStatusCode().value();
+            HttpStatus status = HttpStatus.resolve(statusCode);
+            generator.writeStartObject();
+            generator.writeFieldName(TIMESTAMP);
+            generator.writeString(Instant.now().toString());
+            generator.writeFieldName(STATUS_CODE);
+            generator.writeNumber(statusCode);
+            if (status != null) {
+                generator.writeFieldName(STATUS);
+                generator.writeString(status.name());
+            }
+            generator.writeFieldName(MESSAGE);
+            generator.writeString(PROCESSED);
+            generator.writeFieldName(DATA);
+        }
+
+        @Override
+        public void writeSuffix(JsonGenerator generator, ServerWebExchange exchange) throws IOException {
+            UUID traceId = getTraceId(exchange);
+            if (traceId != null) {
+                generator.writeFieldName(TRACE_IDENTITY);
+                generator.writeString(traceId.toString());
+            }
+            generator.writeEndObject();
+        }
+    };
+
+    // Same output as owaspTransformer: OwaspSecureApiResponse
+    private static final EnvelopePlan OWASP_PLAN = new EnvelopePlan() {
+        @Override
+        public void writePrefix(JsonGenerator generator, ServerWebExchange exchange) throws IOException {
+            generator.writeStartObject();
+            generator.writeFieldName(MESSAGE);
+            generator.writeString(SUCCESS);
+            generator.writeFieldName(PAYLOAD);
+        }
+
+        @Override
+        public void writeSuffix(JsonGenerator generator, ServerWebExchange exchange) throws IOException {
+            UUID traceId = getTraceId(exchange);
+            generator.writeFieldName(CORRELATION_ID);
+            if (traceId != null) {
+                generator.writeString(traceId.toString());
+            } else {
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+        }
+    };
+
+    // Same output as ltiTransformer: LtiApiResponse
+    private static final EnvelopePlan LTI_PLAN = new EnvelopePlan() {
+        @Override
+        public void writePrefix(JsonGenerator generator, ServerWebExchange exchange) throws IOException {
+            generator.writeStartObject();
+            generator.writeFieldName(LTI_SUCCESS);
+            generator.writeBoolean(true);
+            generator.writeFieldName(LTI_MESSAGE);
+            generator.writeString(COMPLETED);
+            generator.writeFieldName(LTI_PAYLOAD);
+        }
+
+        @Override
+        public void writeSuffix(JsonGenerator generator, ServerWebExchange exchange) throws IOException {
+            generator.writeEndObject();
+        }
+    };
+
+    public static final TransformerProfile DEFAULT = new TransformerProfile(ResponseTransformerFactory.DEFAULT_PROFILE, ResponseTransformer.of(DEFAULT_PLAN));
+    public static final TransformerProfile OWASP = new TransformerProfile("OWASP", ResponseTransformer.of(OWASP_PLAN));
+    public static final TransformerProfile LTI = new TransformerProfile("LTI", ResponseTransformer.of(LTI_PLAN));
+
+    @Bean
+    TransformerProfile defaultTransformerProfile() {
+        return DEFAULT;
+    }
+
+    @Bean
+    TransformerProfile owaspTransformerProfile() {
+        return OWASP;
+    }
+
+    @Bean
+    TransformerProfile ltiTransformerProfile() {
+        return LTI;
+    }
+
     // Default transformer using the existing ApiResponse
     public static Object defaultTransformer(ServerWebExchange exchange, JsonNode body) {
         return ApiResponse.builder()
@@ -53,12 +167,6 @@ public class StandardTransformers {
     }
 
     private static UUID getTraceId(ServerWebExchange exchange) {
-        Object traceIdAttr = exchange.getAttributes().get("requestId");
-        if (traceIdAttr instanceof String) {
-            try {
-                return UUID.fromString((String) traceIdAttr);
-            } catch (Exception e) { /* ignore */ }
-        }
-        return null;
+        return exchange.getAttribute(GatewayConstant.REQUEST_ID_ATTR);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+/**
+ * @package com.nopaper.work.gateway.transformer -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 8:10:41 pm
+ * @git
+ */
+package com.nopaper.work.gateway.transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * The serialized envelope of a response, split around the place where the upstream
+ * body goes, so the body can be streamed between {@link #prefix()} and {@link #suffix()}
+ * without being parsed.
+ * <p>
+ * Transformers with an {@link EnvelopePlan} are rendered by running the plan.
+ * Any other {@link ResponseTransformer} is applied to {@link #BODY_PLACEHOLDER}
+ * instead of the real body, and the serialized placeholder marks where to split.
+ */
+public final class StreamingEnvelope {
+
+    private static final String PLACEHOLDER = "__gateway_body_" + UUID.randomUUID().toString().replace("-", "") + "__";
+    private static final byte[] QUOTED_PLACEHOLDER = ('"' + PLACEHOLDER + '"').getBytes(StandardCharsets.US_ASCII);
+
+    /** Pass this to a transformer in place of the body when rendering a streaming envelope. */
+    public static final JsonNode BODY_PLACEHOLDER = TextNode.valueOf(PLACEHOLDER);
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    private StreamingEnvelope(byte[] prefix, byte[] suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /** Renders the envelope of a transformer for one exchange. */
+    public static StreamingEnvelope render(ObjectMapper objectMapper, ResponseTransformer transformer,
+            ServerWebExchange exchange) throws IOException {
+        EnvelopePlan plan = transformer.envelopePlan();
+        if (plan == null) {
+            return render(objectMapper, transformer.transform(exchange, BODY_PLACEHOLDER));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            plan.writePrefix(generator, exchange);
+            // An empty raw value stands in for the body so the generator places the separators that follow it
+            generator.writeRawValue("");
+            generator.flush();
+            byte[] prefix = out.toByteArray();
+            out.reset();
+            plan.writeSuffix(generator, exchange);
+            generator.flush();
+            return new StreamingEnvelope(prefix, out.toByteArray());
+        }
+    }
+
+    /**
+     * Serializes an envelope built around {@link #BODY_PLACEHOLDER}.
+     *
+     * @throws IllegalArgumentException if the envelope does not contain the placeholder.
+     */
+    public static StreamingEnvelope render(ObjectMapper objectMapper, Object envelope) throws JsonProcessingException {
+        byte[] serialized = objectMapper.writeValueAsBytes(envelope);
+        int at = indexOf(serialized, QUOTED_PLACEHOLDER);
+        if (at < 0) {
+            throw new IllegalArgumentException("The envelope does not contain the response body");
+        }
+        return new StreamingEnvelope(
+                Arrays.copyOfRange(serialized, 0, at),
+                Arrays.copyOfRange(serialized, at + QUOTED_PLACEHOLDER.length, serialized.length));
+    }
+
+    /** Bytes written before the body. */
+    public byte[] prefix() {
+        return prefix;
+    }
+
+    /** Bytes written after the body. */
+    public byte[] suffix() {
+        return suffix;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        outer:
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * @package com.nopaper.work.gateway.transformer -> gateway
+ * @author saikatbarman
+ * @date 2026 18-Oct-2026 9:40:26 pm
+ * @git
+ */
+package com.nopaper.work.gateway.transformer;
+
+/**
+ * A named response transformer. Declare one as a bean to make it available to
+ * {@link ResponseTransformerFactory}, selected by a route's response policy or by
+ * the {@code X-Compliance-Profile} header. Names are case-insensitive.
+ */
+public record TransformerProfile(String name, ResponseTransformer transformer) {}
@@ -0,0 +1,102 @@
+package com.nopaper.work.gateway.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+class CachedResponseTests {
+
+	private static final ResponseCachePolicy POLICY = new ResponseCachePolicy(Duration.ofSeconds(60),
+			Duration.ofSeconds(10), List.of("Accept-Language"), 1024 * 1024);
+	private static final byte[] BODY = "{\"items\":[]}".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void freshnessFollowsCacheControlOverThePolicy() {
+		CachedResponse byPolicy = CachedResponse.of(200, new HttpHeaders(), BODY, POLICY, 0);
+		assertTrue(byPolicy.isFresh(59_999));
+		assertFalse(byPolicy.isFresh(60_000));
+		assertTrue(byPolicy.isServableStale(69_999));
+		assertFalse(byPolicy.isServableStale(70_000));
+
+		CachedResponse byMaxAge = CachedResponse.of(200, headers("Cache-Control", "max-age=5"), BODY, POLICY, 0);
+		assertFalse(byMaxAge.isFresh(5_000));
+
+		CachedResponse bySharedMaxAge = CachedResponse.of(200,
+				headers("Cache-Control", "max-age=5, s-maxage=20, stale-while-revalidate=1"), BODY, POLICY, 0);
+		assertTrue(bySharedMaxAge.isFresh(19_999));
+		assertFalse(bySharedMaxAge.isServableStale(21_000));
+
+		CachedResponse mustRevalidate = CachedResponse.of(200, headers("Cache-Control", "must-revalidate"), BODY, POLICY, 0);
+		assertFalse(mustRevalidate.isServableStale(60_000));
+	}
+
+	@Test
+	void refusesResponsesThatMustNotBeShared() {
+		assertNull(CachedResponse.of(200, headers("Cache-Control", "no-store"), BODY, POLICY, 0));
+		assertNull(CachedResponse.of(200, headers("Cache-Control", "private, max-age=60"), BODY, POLICY, 0));
+		assertNull(CachedResponse.of(200, headers("Set-Cookie", "session=1"), BODY, POLICY, 0));
+		assertNull(CachedResponse.of(200, headers("Vary", "Accept-Encoding"), BODY, POLICY, 0));
+		assertNull(CachedResponse.of(200, headers("Vary", "*"), BODY, POLICY, 0));
+		assertNotNull(CachedResponse.of(200, headers("Vary", "accept-language"), BODY, POLICY, 0));
+		// Nothing to revalidate with, so a response that is never fresh is of no use
+		assertNull(CachedResponse.of(200, headers("Cache-Control", "no-cache"), BODY, POLICY, 0));
+		assertNotNull(CachedResponse.of(200, headers("Cache-Control", "no-cache", "ETag", "\"1\""), BODY, POLICY, 0));
+	}
+
+	@Test
+	void doesNotStorePerResponseHeaders() {
+		HttpHeaders headers = headers("Content-Type", "application/json", "Content-Length", "12", "Date", "today",
+				"X-RateLimit-Remaining", "3", "Connection", "keep-alive");
+		CachedResponse entry = CachedResponse.of(200, headers, BODY, POLICY, 0);
+		assertEquals(List.of("Content-Type"), List.copyOf(entry.headers().keySet()));
+	}
+
+	@Test
+	void revalidationUpdatesHeadersAndRestartsFreshness() {
+		CachedResponse entry = CachedResponse.of(200, headers("ETag", "\"1\"", "Cache-Control", "max-age=1"), BODY,
+				POLICY, 0);
+		assertTrue(entry.hasValidators());
+		assertTrue(entry.isKept(20_000));
+
+		CachedResponse revalidated = entry.revalidated(headers("Cache-Control", "max-age=30", "ETag", "\"1\""), POLICY,
+				20_000);
+		assertTrue(revalidated.isFresh(49_999));
+		assertArrayEquals(BODY, revalidated.body());
+		assertEquals("max-age=30", revalidated.headers().getCacheControl());
+
+		assertNull(entry.revalidated(headers("Cache-Control", "no-store"), POLICY, 20_000));
+	}
+
+	@Test
+	void survivesTheRoundTripThroughBytes() throws Exception {
+		CachedResponse entry = CachedResponse.of(203, headers("ETag", "\"1\"", "Content-Type", "application/json"),
+				BODY, POLICY, 1_000);
+		CachedResponse read = CachedResponse.fromBytes(entry.toBytes());
+		assertEquals(203, read.status());
+		assertEquals(entry.headers(), read.headers());
+		assertArrayEquals(BODY, read.body());
+		assertEquals(1_000, read.storedAt());
+		assertEquals(entry.keepUntil(), read.keepUntil());
+		assertTrue(read.isFresh(60_999));
+		assertFalse(read.isFresh(61_000));
+		assertTrue(read.isServableStale(70_999));
+	}
+
+	private static HttpHeaders headers(String... namesAndValues) {
+		HttpHeaders headers = new HttpHeaders();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			headers.add(namesAndValues[i], namesAndValues[i + 1]);
+		}
+		return headers;
+	}
+}
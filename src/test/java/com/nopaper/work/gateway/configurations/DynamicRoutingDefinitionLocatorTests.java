@@ -0,0 +1,123 @@
+package com.nopaper.work.gateway.configurations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.cache.ResponseCachePolicyResolver;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.nopaper.work.gateway.entity.Routes;
+import com.nopaper.work.gateway.ratelimit.RateLimitPolicyResolver;
+import com.nopaper.work.gateway.repository.RouteRepository;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+import com.nopaper.work.gateway.transformer.ResponsePolicyResolver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class DynamicRoutingDefinitionLocatorTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final RoutePolicyCaches policyCaches = new RoutePolicyCaches();
+	private final RouteRepository repository = mock(RouteRepository.class);
+	@SuppressWarnings("unchecked")
+	private final ReactiveRedisTemplate<String, String> redis = mock(ReactiveRedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final ReactiveValueOperations<String, String> values = mock(ReactiveValueOperations.class);
+	// Expires at once, so that every read starts a background reload
+	private final DynamicRoutingDefinitionLocator locator = new DynamicRoutingDefinitionLocator(repository,
+			new RouteDefinitionCompiler(objectMapper,
+					new ResponsePolicyResolver(objectMapper, policyCaches, DataSize.ofMegabytes(10)),
+					new ResponseCachePolicyResolver(objectMapper, policyCaches, Duration.ofSeconds(60), Duration.ZERO, DataSize.ofMegabytes(1)),
+					new RateLimitPolicyResolver(objectMapper, policyCaches),
+					new TracingPolicyResolver(objectMapper, policyCaches, 0.01, "", false), "hybridRateLimiter"),
+			redis, objectMapper, new SimpleMeterRegistry(), event -> {},
+			Duration.ofSeconds(60), Duration.ZERO, Duration.ofSeconds(10), Duration.ofMillis(250));
+
+	DynamicRoutingDefinitionLocatorTests() {
+		when(redis.opsForValue()).thenReturn(values);
+		when(values.get(GatewayConstant.GATEWAY_ROUTES_VERSION_KEY)).thenReturn(Mono.just("1"));
+		// Rows come without a compiled form, which is written back
+		when(repository.updateCompiledDefinition(any(), any(), any(), any())).thenReturn(Mono.just(1));
+	}
+
+	@Test
+	void concurrentCallersShareOneReload() throws JsonProcessingException {
+		Sinks.One<String> cached = Sinks.one();
+		when(values.get(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY)).thenReturn(cached.asMono());
+
+		List<List<RouteDefinition>> results = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			locator.getRouteDefinitions().collectList().subscribe(results::add);
+		}
+		cached.tryEmitValue(cachedRoutes(1, route("a")));
+
+		assertEquals(10, results.size());
+		results.forEach(routes -> assertEquals(List.of("a"), ids(routes)));
+		verify(values, times(1)).get(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY);
+		verify(repository, never()).findAll();
+	}
+
+	@Test
+	void aReloadDoesNotUndoAChangeAppliedWhileItRan() throws JsonProcessingException {
+		Sinks.One<String> reloaded = Sinks.one();
+		when(values.get(GatewayConstant.GATEWAY_ROUTES_CACHE_KEY))
+				.thenReturn(Mono.just(cachedRoutes(1, route("a"))), reloaded.asMono());
+		locator.getRouteDefinitions().blockLast();
+		assertEquals(1, locator.currentSnapshot().version());
+
+		// Starts a reload that reads version 1 and waits for the shared cache
+		locator.getRouteDefinitions().blockLast();
+		when(repository.findByRouteId("b")).thenReturn(Mono.just(row("b")));
+		locator.applyChange(new RouteChangeEvent(RouteChangeEvent.Type.UPSERT, "b", 2)).block();
+		assertEquals(2, locator.currentSnapshot().version());
+
+		reloaded.tryEmitValue(cachedRoutes(1, route("a")));
+
+		assertEquals(2, locator.currentSnapshot().version());
+		assertEquals(List.of("a", "b"), ids(locator.currentSnapshot().routes()));
+	}
+
+	private String cachedRoutes(long version, RouteDefinition... routes) throws JsonProcessingException {
+		return objectMapper.writeValueAsString(Map.of("version", version, "routes", List.of(routes)));
+	}
+
+	private static RouteDefinition route(String id) {
+		RouteDefinition route = new RouteDefinition();
+		route.setId(id);
+		route.setUri(URI.create("http://" + id + ":8080"));
+		return route;
+	}
+
+	private static Routes row(String id) {
+		Routes row = new Routes();
+		row.setRouteId(id);
+		row.setUri("http://" + id + ":8080");
+		row.setPredicates("[{\"name\":\"Path\",\"args\":{\"_genkey_0\":\"/" + id + "/**\"}}]");
+		row.setEnabled(true);
+		return row;
+	}
+
+	private static List<String> ids(List<RouteDefinition> routes) {
+		return routes.stream().map(RouteDefinition::getId).toList();
+	}
+}
@@ -0,0 +1,87 @@
+package com.nopaper.work.gateway.configurations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.cache.ResponseCachePolicyResolver;
+import com.nopaper.work.gateway.entity.Routes;
+import com.nopaper.work.gateway.ratelimit.RateLimitPolicyResolver;
+import com.nopaper.work.gateway.tracing.TracingPolicyResolver;
+import com.nopaper.work.gateway.transformer.ResponsePolicyResolver;
+
+class RouteDefinitionCompilerTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final RoutePolicyCaches policyCaches = new RoutePolicyCaches();
+	private final RouteDefinitionCompiler compiler = new RouteDefinitionCompiler(objectMapper,
+			new ResponsePolicyResolver(objectMapper, policyCaches, DataSize.ofMegabytes(10)),
+			new ResponseCachePolicyResolver(objectMapper, policyCaches, Duration.ofSeconds(60), Duration.ZERO, DataSize.ofMegabytes(1)),
+			new RateLimitPolicyResolver(objectMapper, policyCaches),
+			new TracingPolicyResolver(objectMapper, policyCaches, 0.01, "", false), "hybridRateLimiter");
+
+	@Test
+	void readsCurrentRowsFromTheirCompiledForm() {
+		Routes route = compiler.prepareForWrite(route());
+		// Marks the stored form, so that a recompile would show
+		route.setCompiledDefinition(route.getCompiledDefinition().replace("/api/orders/**", "/stored/**"));
+		String readHash = route.getDefinitionHash();
+
+		RouteDefinition definition = compiler.load(route).block();
+
+		assertEquals("/stored/**", definition.getPredicates().get(0).getArgs().get("_genkey_0"));
+		assertFalse(compiler.isStale(route, readHash));
+	}
+
+	@Test
+	void compilesRowsWrittenByAnOlderCompilerAgain() {
+		Routes route = compiler.prepareForWrite(route());
+		// As stored before the rate limiter filter was added to the compiled form
+		route.setCompiledDefinition(route.getCompiledDefinition().replace("RequestRateLimiter", "Legacy"));
+		route.setDefinitionHash("0".repeat(64));
+		String readHash = route.getDefinitionHash();
+
+		RouteDefinition definition = compiler.load(route).block();
+
+		assertEquals("RequestRateLimiter", definition.getFilters().get(1).getName());
+		assertTrue(compiler.isStale(route, readHash));
+		assertEquals(compiler.hash(route), route.getDefinitionHash());
+		assertTrue(route.getCompiledDefinition().contains("RequestRateLimiter"));
+	}
+
+	@Test
+	void compilesRowsEditedByHandAgain() {
+		Routes route = compiler.prepareForWrite(route());
+		compiler.load(route).block();
+		String readHash = route.getDefinitionHash();
+		route.setUri("lb://ORDER-SERVICE-V2");
+
+		RouteDefinition definition = compiler.load(route).block();
+
+		assertEquals("lb://ORDER-SERVICE-V2", definition.getUri().toString());
+		assertTrue(compiler.isStale(route, readHash));
+		assertNotEquals(readHash, route.getDefinitionHash());
+	}
+
+	private static Routes route() {
+		Routes route = new Routes();
+		route.setRouteId("order-service");
+		route.setUri("lb://ORDER-SERVICE");
+		route.setPredicates("[{\"name\":\"Path\",\"args\":{\"_genkey_0\":\"/api/orders/**\"}}]");
+		route.setFilters("[{\"name\":\"StripPrefix\",\"args\":{\"parts\":\"1\"}}]");
+		route.setRateLimitEnabled(true);
+		route.setRateLimitReplenishRate(10);
+		route.setRateLimitBurstCapacity(20);
+		route.setKeyResolverName("ipKeyResolver");
+		route.setEnabled(true);
+		return route;
+	}
+}
@@ -0,0 +1,68 @@
+package com.nopaper.work.gateway.configurations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+
+import reactor.core.publisher.Flux;
+
+class RoutePolicyCachesTests {
+
+	private final RoutePolicyCaches caches = new RoutePolicyCaches();
+	private final AtomicInteger parsed = new AtomicInteger();
+	private final RoutePolicyCache<Integer> cache = caches.create("limit", this::parse, -1, 0);
+
+	@Test
+	void parsesAgainOnlyWhenTheMetadataChanges() {
+		assertEquals(5, cache.resolve(route("orders", "5")));
+		assertEquals(5, cache.resolve(route("orders", "5")));
+		assertEquals(1, parsed.get());
+
+		assertEquals(7, cache.resolve(route("orders", "7")));
+		assertEquals(2, parsed.get());
+	}
+
+	@Test
+	void fallsBackForRoutesWithoutTheEntryOrWithAnInvalidOne() {
+		assertEquals(-1, cache.resolve(route("orders", null)));
+		assertEquals(0, cache.resolve(route("orders", "many")));
+		assertSame(0, cache.get("orders"));
+	}
+
+	@Test
+	void dropsTheEntriesOfDeletedRoutes() {
+		cache.resolve(route("orders", "5"));
+		cache.resolve(route("payments", "9"));
+		RouteLocator routeLocator = () -> Flux.just(route("orders", "5"));
+
+		caches.onRoutesRefreshed(new RefreshRoutesResultEvent(routeLocator));
+
+		assertEquals(5, cache.get("orders"));
+		assertNull(cache.get("payments"));
+		caches.retain(Set.of());
+		assertNull(cache.get("orders"));
+	}
+
+	private Integer parse(String value) {
+		parsed.incrementAndGet();
+		return Integer.valueOf(value);
+	}
+
+	private static Route route(String id, String limit) {
+		return Route.async()
+				.id(id)
+				.uri("http://" + id + ":8080")
+				.predicate(exchange -> true)
+				.metadata(limit != null ? Map.of("limit", limit) : Map.of())
+				.build();
+	}
+}
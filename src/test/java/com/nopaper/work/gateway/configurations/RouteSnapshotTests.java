@@ -0,0 +1,61 @@
+package com.nopaper.work.gateway.configurations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+class RouteSnapshotTests {
+
+	private final RouteSnapshot snapshot = new RouteSnapshot(4, List.of(route("orders", 1), route("users", 1), route("catalog", 1)), 123);
+
+	@Test
+	void replacesARouteInPlace() {
+		RouteDefinition replacement = route("users", 2);
+		RouteSnapshot next = snapshot.withRoute("users", replacement, 5);
+
+		assertEquals(List.of("orders", "users", "catalog"), ids(next));
+		assertSame(replacement, next.routes().get(1));
+		assertEquals(5, next.version());
+	}
+
+	@Test
+	void appendsANewRoute() {
+		RouteSnapshot next = snapshot.withRoute("payments", route("payments", 1), 5);
+
+		assertEquals(List.of("orders", "users", "catalog", "payments"), ids(next));
+	}
+
+	@Test
+	void removesARoute() {
+		assertEquals(List.of("orders", "catalog"), ids(snapshot.withRoute("users", null, 5)));
+		assertEquals(List.of("orders", "users", "catalog"), ids(snapshot.withRoute("payments", null, 5)), "removing an unknown route");
+	}
+
+	@Test
+	void keepsTheLoadTimeAndLeavesTheOriginalAlone() {
+		RouteSnapshot next = snapshot.withRoute("users", null, 5);
+
+		assertEquals(snapshot.loadedAtNanos(), next.loadedAtNanos());
+		assertEquals(List.of("orders", "users", "catalog"), ids(snapshot));
+		assertEquals(4, snapshot.version());
+		assertThrows(UnsupportedOperationException.class, () -> next.routes().add(route("payments", 1)));
+	}
+
+	private static List<String> ids(RouteSnapshot snapshot) {
+		return snapshot.routes().stream().map(RouteDefinition::getId).toList();
+	}
+
+	private static RouteDefinition route(String id, int order) {
+		RouteDefinition route = new RouteDefinition();
+		route.setId(id);
+		route.setUri(URI.create("lb://" + id));
+		route.setOrder(order);
+		return route;
+	}
+}
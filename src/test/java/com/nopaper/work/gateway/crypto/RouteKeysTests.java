@@ -0,0 +1,111 @@
+package com.nopaper.work.gateway.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.nopaper.work.gateway.entity.RouteKey;
+import com.nopaper.work.gateway.repository.RouteKeyRepository;
+import com.nopaper.work.gateway.repository.RouteRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RouteKeysTests {
+
+	private static final String OLD_KEY = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+	private static final String NEW_KEY = "HyAhIiMkJSYnKCkqKywtLi8wMTIzNDU2Nzg5Ojs8PT4=";
+
+	@Test
+	void hkdfMatchesRfc5869() {
+		HexFormat hex = HexFormat.of();
+		byte[] inputKey = new byte[22];
+		Arrays.fill(inputKey, (byte) 0x0b);
+		byte[] output = Hkdf.derive(inputKey, hex.parseHex("000102030405060708090a0b0c"), hex.parseHex("f0f1f2f3f4f5f6f7f8f9"), 42);
+		assertEquals("3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865",
+				hex.formatHex(output));
+	}
+
+	@Test
+	void oldVersionDecryptsUntilItsGracePeriodEnds() {
+		RouteKeySet keys = new RouteKeySet(List.of(
+				new RouteKeySet.Version(2, RouteKeys.parse(NEW_KEY), Long.MAX_VALUE),
+				new RouteKeySet.Version(1, RouteKeys.parse(OLD_KEY), 1_000)));
+		assertEquals(2, keys.active(999).id());
+		assertEquals(1, keys.find(1, 999).id());
+		assertNull(keys.find(1, 1_000));
+		assertNull(keys.find(3, 0));
+
+		RouteKeySet expired = new RouteKeySet(List.of(new RouteKeySet.Version(1, RouteKeys.parse(OLD_KEY), 1_000)));
+		assertNull(expired.active(1_000));
+	}
+
+	@Test
+	void loadsEachRouteOnceAndDerivesAKeyPerTenant() {
+		Sinks.One<RouteKey> row = Sinks.one();
+		AtomicInteger loads = new AtomicInteger();
+		RouteKeys routeKeys = routeKeys(() -> {
+			loads.incrementAndGet();
+			return row.asMono().flux();
+		});
+
+		// Requests arriving while the route is being loaded wait for the same load
+		Mono<RouteKeySet> first = routeKeys.keys("orders");
+		Mono<RouteKeySet> second = routeKeys.keys("orders");
+		row.tryEmitValue(routeKey(1, NEW_KEY, null));
+		RouteKeySet keys = first.block();
+		assertSame(keys, second.block());
+		assertEquals(1, loads.get());
+
+		RouteKeySet.Version active = keys.active(System.currentTimeMillis());
+		assertSame(active.key(), routeKeys.key("orders", active, null));
+		assertSame(routeKeys.key("orders", active, "acme"), routeKeys.key("orders", active, "acme"));
+		assertNotEquals(routeKeys.key("orders", active, "acme"), routeKeys.key("orders", active, "globex"));
+		assertNotEquals(routeKeys.key("orders", active, "acme"), routeKeys.key("billing", active, "acme"));
+	}
+
+	@Test
+	void dropsExpiredVersionsAndNeverFallsBackToTheOldColumnOnceRotated() {
+		RouteKeys routeKeys = routeKeys(() -> Flux.just(routeKey(2, NEW_KEY, Instant.now().minusSeconds(1)),
+				routeKey(1, OLD_KEY, Instant.now().minusSeconds(60))));
+		assertTrue(routeKeys.keys("orders").block().isEmpty());
+	}
+
+	private static RouteKeys routeKeys(Supplier<Flux<RouteKey>> rows) {
+		RouteKeyRepository keyRepository = repository(RouteKeyRepository.class, rows);
+		RouteRepository routeRepository = repository(RouteRepository.class, () -> {
+			throw new AssertionError("The old encryption_key column was read");
+		});
+		return new RouteKeys(keyRepository, routeRepository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R> R repository(Class<R> type, Supplier<?> finder) {
+		return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> method.getName().startsWith("find") ? finder.get() : null);
+	}
+
+	private static RouteKey routeKey(int version, String material, Instant expiresAt) {
+		RouteKey key = new RouteKey();
+		key.setRouteId("orders");
+		key.setKeyVersion(version);
+		key.setKeyMaterial(material);
+		key.setExpiresAt(expiresAt);
+		return key;
+	}
+}
@@ -0,0 +1,137 @@
+package com.nopaper.work.gateway.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import reactor.core.publisher.Flux;
+
+class StreamingAesGcmTests {
+
+	private static final int SEGMENT = StreamingAesGcm.SEGMENT_SIZE;
+	// Version, salt and nonce prefix
+	private static final int HEADER = 1 + 32 + 7;
+	private static final DefaultDataBufferFactory FACTORY = DefaultDataBufferFactory.sharedInstance;
+
+	private final Random random = new Random(7);
+	private final SecretKey key = RouteKeys.parse("AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=");
+
+	@Test
+	void roundTripsBodiesOfAnyLengthInAnyChunks() {
+		for (int length : new int[] { 0, 1, SEGMENT - 1, SEGMENT, SEGMENT + 1, 3 * SEGMENT, 3 * SEGMENT + 100 }) {
+			for (int chunk : new int[] { 1_000, SEGMENT, 64 * 1024 }) {
+				byte[] plaintext = bytes(length);
+				byte[] ciphertext = join(StreamingAesGcm.encrypt(chunks(plaintext, chunk), key, FACTORY));
+				assertEquals(StreamingAesGcm.ciphertextLength(length), ciphertext.length, "length " + length);
+				assertEquals(length, StreamingAesGcm.plaintextLength(ciphertext.length), "length " + length);
+				// Delivered in other chunks than it was written in
+				byte[] decrypted = join(StreamingAesGcm.decrypt(chunks(ciphertext, 777), key, FACTORY));
+				assertArrayEquals(plaintext, decrypted, "length " + length + " in chunks of " + chunk);
+			}
+		}
+	}
+
+	@Test
+	void encryptsEveryBodyDifferently() {
+		byte[] plaintext = bytes(100);
+		byte[] first = join(StreamingAesGcm.encrypt(chunks(plaintext, 100), key, FACTORY));
+		byte[] second = join(StreamingAesGcm.encrypt(chunks(plaintext, 100), key, FACTORY));
+		assertEquals(first.length, second.length);
+		assertFalse(Arrays.equals(first, second));
+	}
+
+	@Test
+	void sealsEveryBodyWithAKeyOfItsOwn() {
+		byte[] plaintext = bytes(100);
+		byte[] first = join(StreamingAesGcm.encrypt(chunks(plaintext, 100), key, FACTORY));
+		byte[] second = join(StreamingAesGcm.encrypt(chunks(plaintext, 100), key, FACTORY));
+
+		byte[] firstSalt = Arrays.copyOfRange(first, 1, 33);
+		byte[] secondSalt = Arrays.copyOfRange(second, 1, 33);
+		assertFalse(Arrays.equals(firstSalt, secondSalt));
+		byte[] firstKey = StreamingAesGcm.segmentKey(key, firstSalt).getEncoded();
+		byte[] secondKey = StreamingAesGcm.segmentKey(key, secondSalt).getEncoded();
+		assertFalse(Arrays.equals(firstKey, secondKey));
+		assertFalse(Arrays.equals(key.getEncoded(), firstKey));
+		assertEquals(key.getEncoded().length, firstKey.length);
+	}
+
+	@Test
+	void authenticatesTheHeader() {
+		byte[] ciphertext = join(StreamingAesGcm.encrypt(chunks(bytes(100), 100), key, FACTORY));
+		for (int offset : new int[] { 0, 1, HEADER - 1 }) {
+			byte[] tampered = ciphertext.clone();
+			tampered[offset] ^= 1;
+			assertThrows(IllegalArgumentException.class, () -> join(StreamingAesGcm.decrypt(chunks(tampered, 100), key, FACTORY)),
+					"header byte " + offset);
+		}
+	}
+
+	@Test
+	void refusesTamperedTruncatedOrForeignBodies() {
+		byte[] ciphertext = join(StreamingAesGcm.encrypt(chunks(bytes(2 * SEGMENT + 10), 4096), key, FACTORY));
+
+		byte[] flipped = ciphertext.clone();
+		flipped[SEGMENT + 100] ^= 1;
+		assertThrows(IllegalArgumentException.class, () -> join(StreamingAesGcm.decrypt(chunks(flipped, 4096), key, FACTORY)));
+
+		// Cut at a segment boundary: the segment before it was not sealed as the last one
+		byte[] cut = Arrays.copyOf(ciphertext, HEADER + 2 * (SEGMENT + 16));
+		assertThrows(IllegalArgumentException.class, () -> join(StreamingAesGcm.decrypt(chunks(cut, 4096), key, FACTORY)));
+		assertEquals(2 * SEGMENT, StreamingAesGcm.plaintextLength(cut.length));
+
+		byte[] header = Arrays.copyOf(ciphertext, HEADER - 1);
+		assertThrows(IllegalArgumentException.class, () -> join(StreamingAesGcm.decrypt(chunks(header, 4096), key, FACTORY)));
+		assertEquals(-1, StreamingAesGcm.plaintextLength(header.length));
+		assertEquals(-1, StreamingAesGcm.plaintextLength(HEADER + SEGMENT + 16 + 10));
+
+		SecretKey other = RouteKeys.parse("AAECAwQFBgcICQoLDA0ODw==");
+		assertThrows(IllegalArgumentException.class, () -> join(StreamingAesGcm.decrypt(chunks(ciphertext, 4096), other, FACTORY)));
+	}
+
+	@Test
+	void acceptsOnlyBase64AesKeys() {
+		assertEquals(24, RouteKeys.parse("AAECAwQFBgcICQoLDA0ODxAREhMUFRYX").getEncoded().length);
+		assertThrows(IllegalArgumentException.class, () -> RouteKeys.parse("not a key"));
+		assertThrows(IllegalArgumentException.class, () -> RouteKeys.parse("AAECAwQFBgcICQoL"));
+	}
+
+	private byte[] bytes(int length) {
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+
+	private static Flux<DataBuffer> chunks(byte[] bytes, int chunk) {
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += chunk) {
+			buffers.add(FACTORY.wrap(Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + chunk))));
+		}
+		return Flux.fromIterable(buffers);
+	}
+
+	private static byte[] join(Flux<DataBuffer> buffers) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (DataBuffer buffer : buffers.toIterable()) {
+			byte[] bytes = new byte[buffer.readableByteCount()];
+			buffer.read(bytes);
+			DataBufferUtils.release(buffer);
+			out.writeBytes(bytes);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,119 @@
+package com.nopaper.work.gateway.filter;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+class JsonStreamValidatorTests {
+
+	private static final String VALUE = "{\"name\":\"Zoë\",\"tags\":[\"a\",{\"b\":null}],\"total\":12.5}";
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	@Test
+	void acceptsAValueSplitAtEveryByte() {
+		byte[] bytes = VALUE.getBytes(StandardCharsets.UTF_8);
+		byte[][] chunks = new byte[bytes.length][];
+		for (int i = 0; i < bytes.length; i++) {
+			chunks[i] = new byte[] { bytes[i] };
+		}
+		assertDoesNotThrow(() -> validate(chunks));
+	}
+
+	@Test
+	void agreesWithABlockingParserWhereverTheBodyIsSplit() throws IOException {
+		for (String body : List.of(VALUE, "[1,2]", "{\"a\":}", "{\"a\":1,}", "{\"a\" 1}", "[1,]", "[1 2]", "{\"a\":[1}", "{\"a\":1}]")) {
+			boolean valid = isValid(body);
+			byte[] bytes = utf8(body);
+			for (int at = 0; at <= bytes.length; at++) {
+				byte[] head = Arrays.copyOfRange(bytes, 0, at);
+				byte[] tail = Arrays.copyOfRange(bytes, at, bytes.length);
+				if (valid) {
+					assertDoesNotThrow(() -> validate(head, tail), body + " split at " + at);
+				} else {
+					assertThrows(IOException.class, () -> validate(head, tail), body + " split at " + at);
+				}
+			}
+		}
+	}
+
+	@Test
+	void acceptsEmptyChunksAndATopLevelScalar() {
+		assertDoesNotThrow(() -> validate(new byte[0], utf8(VALUE), new byte[0]));
+		// A number only ends with the body
+		assertDoesNotThrow(() -> validate(utf8("4"), utf8("2")));
+	}
+
+	@Test
+	void rejectsMalformedContent() {
+		assertThrows(IOException.class, () -> validate(utf8("{\"name\""), utf8("}")));
+		assertThrows(IOException.class, () -> validate(utf8("<html></html>")));
+	}
+
+	@Test
+	void rejectsAMissingValueOrTrailingCommaAtAChunkBoundary() {
+		assertThrows(IOException.class, () -> validate(utf8("{\"name\":"), utf8("}")));
+		assertThrows(IOException.class, () -> validate(utf8("{\"name\": "), utf8(" \n"), utf8("}")));
+		assertThrows(IOException.class, () -> validate(utf8("[{\"a\":1,"), utf8("}]")));
+		// The separators may also end a chunk inside a string or before what follows them
+		assertDoesNotThrow(() -> validate(utf8("{\"a,"), utf8("\":\"b:"), utf8("\","), utf8(" \"c\":{"), utf8("}}")));
+	}
+
+	@Test
+	void rejectsContentAfterTheValue() {
+		assertThrows(IOException.class, () -> validate(utf8("{\"a\":1}"), utf8(" {\"b\":2}")));
+	}
+
+	@Test
+	void rejectsAnEmptyOrTruncatedBody() {
+		assertThrows(IOException.class, () -> validate());
+		assertThrows(IOException.class, () -> validate(utf8(" \n")));
+		assertThrows(IOException.class, () -> validate(utf8("{\"tags\":[1,"), utf8("2")));
+	}
+
+	@Test
+	void leavesTheReadPositionOfBuffersAlone() throws IOException {
+		DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.wrap(utf8("<p>" + VALUE));
+		buffer.readPosition(3);
+		JsonStreamValidator validator = new JsonStreamValidator(jsonFactory);
+		validator.feed(buffer);
+		assertEquals(3, buffer.readPosition());
+		assertDoesNotThrow(validator::finish);
+	}
+
+	private void validate(byte[]... chunks) throws IOException {
+		JsonStreamValidator validator = new JsonStreamValidator(jsonFactory);
+		for (byte[] chunk : chunks) {
+			validator.feed(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOf(chunk, chunk.length)));
+		}
+		validator.finish();
+	}
+
+	private boolean isValid(String body) throws IOException {
+		try (JsonParser parser = jsonFactory.createParser(body)) {
+			while (parser.nextToken() != null) {
+				// Reads to the end of the body
+			}
+			return true;
+		} catch (JsonParseException e) {
+			return false;
+		}
+	}
+
+	private static byte[] utf8(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
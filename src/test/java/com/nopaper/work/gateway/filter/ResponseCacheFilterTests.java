@@ -0,0 +1,72 @@
+package com.nopaper.work.gateway.filter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.nopaper.work.gateway.cache.ResponseCachePolicy;
+import com.nopaper.work.gateway.cache.ResponseCachePolicyResolver;
+import com.nopaper.work.gateway.cache.ResponseCacheStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class ResponseCacheFilterTests {
+
+	private final ResponseCachePolicyResolver policyResolver = mock(ResponseCachePolicyResolver.class);
+	private final ResponseCacheStore store = mock(ResponseCacheStore.class);
+	private final GatewayFilterChain chain = mock(GatewayFilterChain.class);
+	private final ResponseCacheFilter filter = new ResponseCacheFilter(policyResolver, store, new SimpleMeterRegistry(), true, 1000);
+	private final Route route = Route.async()
+			.id("catalog")
+			.uri("http://catalog:8080")
+			.predicate(exchange -> true)
+			.build();
+
+	ResponseCacheFilterTests() {
+		when(chain.filter(any())).thenReturn(Mono.empty());
+		when(store.get(anyString())).thenReturn(Mono.empty());
+	}
+
+	@Test
+	void bypassesTheCacheForRequestsWithCredentialsItDoesNotKeyOn() {
+		policy();
+		filter.filter(exchange(HttpHeaders.COOKIE, "session=alice"), chain).block();
+		filter.filter(exchange(HttpHeaders.AUTHORIZATION, "Bearer alice"), chain).block();
+
+		verify(store, never()).get(anyString());
+	}
+
+	@Test
+	void cachesRequestsWithCredentialsItKeysOn() {
+		policy(HttpHeaders.COOKIE);
+		filter.filter(exchange(HttpHeaders.COOKIE, "session=alice"), chain).block();
+
+		verify(store).get(anyString());
+	}
+
+	private void policy(String... varyHeaders) {
+		when(policyResolver.resolve(route))
+				.thenReturn(new ResponseCachePolicy(Duration.ofSeconds(60), Duration.ZERO, List.of(varyHeaders), 1024));
+	}
+
+	private MockServerWebExchange exchange(String header, String value) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/catalog").header(header, value));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+}
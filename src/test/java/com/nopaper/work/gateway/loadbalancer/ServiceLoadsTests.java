@@ -0,0 +1,121 @@
+package com.nopaper.work.gateway.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ServiceLoadsTests {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final ServiceLoads.Settings SETTINGS = new ServiceLoads.Settings(Duration.ofSeconds(10),
+			Duration.ofSeconds(30), 3, Duration.ofSeconds(30), 50);
+
+	private final Random random = new Random(42);
+	private final List<ServiceInstance> instances = List.of(instance(1), instance(2), instance(3), instance(4));
+
+	@Test
+	void prefersFastAndIdleInstances() {
+		ServiceLoads loads = loads(0);
+		long now = 0;
+		for (int i = 0; i < 200; i++) {
+			PeakEwmaLoadBalancer.Choice choice = loads.choose(instances, now, random);
+			choice.load().start(now);
+			now += MS;
+			boolean slow = choice.instance().getPort() == 8001;
+			choice.load().finish(now, slow ? 50 * MS : 5 * MS, false);
+		}
+
+		Map<Integer, Integer> picks = picks(loads, now, 1000);
+		assertTrue(picks.getOrDefault(8001, 0) < 50, "slow instance picked " + picks.get(8001) + " times");
+
+		// A busy instance loses to an equally fast idle one
+		PeakEwmaLoadBalancer.Choice busy = loads.choose(instances, now, random);
+		for (int i = 0; i < 10; i++) {
+			busy.load().start(now);
+		}
+		picks = picks(loads, now, 1000);
+		assertTrue(picks.getOrDefault(busy.instance().getPort(), 0) < 100, "busy instance picked " + picks);
+	}
+
+	@Test
+	void ejectsInstancesThatKeepFailingButNotTooManyOfThem() {
+		ServiceLoads loads = loads(0);
+		long now = 0;
+		loads.choose(instances, now, random);
+		for (int port = 8001; port <= 8004; port++) {
+			InstanceLoad load = load(loads, port, now);
+			for (int i = 0; i < SETTINGS.consecutiveFailures(); i++) {
+				load.start(now);
+				load.finish(now, MS, true);
+			}
+		}
+
+		Map<Integer, Integer> picks = picks(loads, now, 1000);
+		assertEquals(2, picks.size(), "half of the instances should stay in rotation: " + picks);
+		assertFalse(picks.containsKey(8001));
+		assertFalse(picks.containsKey(8002));
+
+		now += SETTINGS.ejection().toNanos();
+		assertEquals(4, picks(loads, now, 1000).size());
+	}
+
+	@Test
+	void warmsUpInstancesThatJoinLater() {
+		ServiceLoads loads = loads(0);
+		long now = 0;
+		List<ServiceInstance> initial = instances.subList(0, 3);
+		loads.choose(initial, now, random);
+		for (int port = 8001; port <= 8004; port++) {
+			InstanceLoad load = load(loads, port, now);
+			load.start(now);
+			load.finish(now, 5 * MS, false);
+		}
+
+		int early = picks(loads, now + 3_000 * MS, 3000).getOrDefault(8004, 0);
+		int later = picks(loads, now + 20_000 * MS, 3000).getOrDefault(8004, 0);
+		int warm = picks(loads, now + 31_000 * MS, 3000).getOrDefault(8004, 0);
+		assertTrue(early < later && later < warm, "share should grow: " + early + ", " + later + ", " + warm);
+	}
+
+	// Picks with every pick held in flight until the next round, as under steady load
+	private Map<Integer, Integer> picks(ServiceLoads loads, long now, int count) {
+		Map<Integer, Integer> picks = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			PeakEwmaLoadBalancer.Choice choice = loads.choose(instances, now, random);
+			choice.load().start(now);
+			picks.merge(choice.instance().getPort(), 1, Integer::sum);
+			choice.load().abandon();
+		}
+		return picks;
+	}
+
+	private InstanceLoad load(ServiceLoads loads, int port, long now) {
+		for (;;) {
+			PeakEwmaLoadBalancer.Choice choice = loads.choose(instances, now, random);
+			if (choice.instance().getPort() == port) {
+				return choice.load();
+			}
+		}
+	}
+
+	private static ServiceLoads loads(long now) {
+		return new ServiceLoads("orders", SETTINGS, new SimpleMeterRegistry().counter("ejections"), now);
+	}
+
+	private static ServiceInstance instance(int id) {
+		return new DefaultServiceInstance("orders-" + id, "orders", "10.0.0." + id, 8000 + id, false);
+	}
+}
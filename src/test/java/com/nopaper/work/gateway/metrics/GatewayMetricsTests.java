@@ -0,0 +1,132 @@
+package com.nopaper.work.gateway.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class GatewayMetricsTests {
+
+	private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+	@Test
+	void timesRequestsByRouteUpstreamAndStatusClass() {
+		GatewayMetrics metrics = metrics(100);
+		Route orders = route("orders", "lb://orders");
+
+		metrics.recordRequest(exchange(orders, HttpStatus.OK), TimeUnit.MILLISECONDS.toNanos(12), null);
+		metrics.recordRequest(exchange(orders, HttpStatus.CREATED), TimeUnit.MILLISECONDS.toNanos(8), null);
+		metrics.recordRequest(exchange(orders, HttpStatus.SERVICE_UNAVAILABLE), 1, null);
+		metrics.recordRequest(exchange(orders, null), 1, new ResponseStatusException(HttpStatus.NOT_FOUND));
+		metrics.recordRequest(exchange(orders, null), 1, new IllegalStateException("upstream reset"));
+		metrics.recordCancelled(exchange(orders, null), 1);
+
+		Timer ok = requests("orders", "orders", "2xx");
+		assertEquals(2, ok.count());
+		assertEquals(20, ok.totalTime(TimeUnit.MILLISECONDS), 0.001);
+		assertTrue(registry.scrape().contains("gateway_requests_seconds_bucket{route=\"orders\",status=\"2xx\",upstream=\"orders\",le=\"0.001\"}"),
+				"publishes histogram buckets from min-expected");
+		assertEquals(2, requests("orders", "orders", "5xx").count());
+		assertEquals(1, requests("orders", "orders", "4xx").count());
+		assertEquals(1, requests("orders", "orders", "cancelled").count());
+
+		metrics.recordRequest(exchange(route("billing", "http://billing:8080"), HttpStatus.OK), 1, null);
+		assertEquals(1, requests("billing", "billing:8080", "2xx").count());
+	}
+
+	@Test
+	void timesStepsUntilTheyHandTheRequestOn() {
+		GatewayMetrics metrics = metrics(100);
+		MockServerWebExchange exchange = exchange(route("orders", "lb://orders"), HttpStatus.OK);
+		GatewayFilterChain slowUpstream = ex -> Mono.delay(Duration.ofMillis(200)).then();
+
+		metrics.timeUntilHandOff(exchange, GatewayMetrics.Step.RATE_LIMIT, slowUpstream,
+				(ex, chain) -> chain.filter(ex)).block();
+		Timer rateLimit = registry.get("gateway.filter").tags("filter", "rate_limit", "route", "orders").timer();
+		assertEquals(1, rateLimit.count());
+		assertTrue(rateLimit.totalTime(TimeUnit.MILLISECONDS) < 100, "the upstream is not part of the step");
+
+		// A step that answers the request itself is timed until it has answered
+		metrics.timeUntilHandOff(exchange, GatewayMetrics.Step.BLACKLIST_CHECK, slowUpstream,
+				(ex, chain) -> Mono.delay(Duration.ofMillis(50)).then()).block();
+		Timer blacklist = registry.get("gateway.filter").tags("filter", "blacklist_check").timer();
+		assertTrue(blacklist.totalTime(TimeUnit.MILLISECONDS) >= 50);
+
+		metrics.time(exchange, GatewayMetrics.Step.RESPONSE_TRANSFORM, Mono.delay(Duration.ofMillis(20))).block();
+		Timer transform = registry.get("gateway.filter").tags("filter", "response_transform").timer();
+		assertTrue(transform.totalTime(TimeUnit.MILLISECONDS) >= 20);
+	}
+
+	@Test
+	void keepsTheTimersOfAtMostMaxRoutes() {
+		GatewayMetrics metrics = metrics(3);
+		for (int i = 0; i < 50; i++) {
+			metrics.recordRequest(exchange(route("route-" + i, "lb://service-" + i), HttpStatus.OK), 1, null);
+		}
+		assertTrue(timedRoutes() <= 3, () -> timedRoutes() + " routes timed");
+		// Every status class and step of a route is registered with it
+		assertEquals(6 * timedRoutes(), registry.find("gateway.requests").timers().size());
+		assertEquals(3 * timedRoutes(), registry.find("gateway.filter").timers().size());
+
+		// A route moved to another upstream drops the timers of the old one
+		metrics.recordRequest(exchange(route("moved", "lb://old"), HttpStatus.OK), 1, null);
+		metrics.recordRequest(exchange(route("moved", "lb://new"), HttpStatus.OK), 1, null);
+		assertNull(registry.find("gateway.requests").tags("route", "moved", "upstream", "old").timer());
+		assertEquals(1, requests("moved", "new", "2xx").count());
+	}
+
+	@Test
+	void recordsNothingWhenDisabledOrWithoutARoute() {
+		GatewayMetrics disabled = new GatewayMetrics(registry, false, true, new double[0], Duration.ofMillis(1),
+				Duration.ofSeconds(30), 100);
+		disabled.recordRequest(exchange(route("orders", "lb://orders"), HttpStatus.OK), 1, null);
+		metrics(100).recordRequest(MockServerWebExchange.from(MockServerHttpRequest.get("/unrouted")), 1, null);
+		assertTrue(registry.getMeters().isEmpty());
+	}
+
+	private GatewayMetrics metrics(long maxRoutes) {
+		return new GatewayMetrics(registry, true, true, new double[0], Duration.ofMillis(1), Duration.ofSeconds(30),
+				maxRoutes);
+	}
+
+	private long timedRoutes() {
+		return registry.find("gateway.requests").timers().stream().map(timer -> timer.getId().getTag("route")).distinct().count();
+	}
+
+	private Timer requests(String route, String upstream, String status) {
+		return registry.get("gateway.requests").tags("route", route, "upstream", upstream, "status", status).timer();
+	}
+
+	private static Route route(String id, String uri) {
+		return Route.async()
+				.id(id)
+				.uri(uri)
+				.predicate(exchange -> true)
+				.build();
+	}
+
+	private static MockServerWebExchange exchange(Route route, HttpStatus status) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/" + route.getId()));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		if (status != null) {
+			exchange.getResponse().setStatusCode(status);
+		}
+		return exchange;
+	}
+}
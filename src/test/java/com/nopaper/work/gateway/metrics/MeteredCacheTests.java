@@ -0,0 +1,54 @@
+package com.nopaper.work.gateway.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MeteredCacheTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AtomicInteger created = new AtomicInteger();
+
+	@Test
+	void createsTheValueOfANameOnce() {
+		MeteredCache<Counter> cache = cache(10);
+		assertSame(cache.get("orders"), cache.get("orders"));
+		assertEquals(1, created.get());
+		assertEquals(1, registry.find("test.requests").counters().size());
+	}
+
+	@Test
+	void removesTheMetersOfValuesBeyondMaxSize() {
+		MeteredCache<Counter> cache = cache(3);
+		for (int i = 0; i < 50; i++) {
+			cache.get("route-" + i).increment();
+		}
+		assertTrue(registry.find("test.requests").counters().size() <= 3,
+				() -> registry.find("test.requests").counters().size() + " routes metered");
+	}
+
+	@Test
+	void removesTheMetersOfNamesNotRetained() {
+		MeteredCache<Counter> cache = cache(10);
+		cache.get("orders");
+		cache.get("invoices");
+		cache.retain(Set.of("orders"));
+		assertEquals(1, registry.find("test.requests").counters().size());
+		assertEquals(1, registry.find("test.requests").tag("route", "orders").counters().size());
+	}
+
+	private MeteredCache<Counter> cache(long maxSize) {
+		return new MeteredCache<>(registry, maxSize, (name, meters) -> {
+			created.incrementAndGet();
+			return meters.add(Counter.builder("test.requests").tag("route", name).register(registry));
+		});
+	}
+}
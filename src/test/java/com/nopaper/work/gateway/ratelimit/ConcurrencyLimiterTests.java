@@ -0,0 +1,78 @@
+package com.nopaper.work.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+
+class ConcurrencyLimiterTests {
+
+	private static final String ROUTE_ID = "orders";
+	private static final String KEY = "192.0.2.7";
+
+	@Test
+	void neverHasMoreThanMaxInFlight() throws InterruptedException {
+		ConcurrencyLimiter limiter = limiter("10");
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger highest = new AtomicInteger();
+		AtomicInteger admitted = new AtomicInteger();
+		run(8, () -> {
+			for (int i = 0; i < 5000; i++) {
+				if (limiter.isAllowed(ROUTE_ID, KEY).block().isAllowed()) {
+					admitted.incrementAndGet();
+					highest.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+					Thread.onSpinWait();
+					inFlight.decrementAndGet();
+					limiter.release(ROUTE_ID, KEY);
+				}
+			}
+		});
+		assertTrue(admitted.get() > 0);
+		assertTrue(highest.get() <= 10, highest.get() + " in flight at once");
+		assertEquals(0, limiter.inFlight(ROUTE_ID, KEY));
+	}
+
+	@Test
+	void aReleaseRacingAnAcquireLosesNoPermit() throws InterruptedException {
+		// With one permit every release drops the counter to zero and retires it
+		ConcurrencyLimiter limiter = limiter("1");
+		run(4, () -> {
+			for (int i = 0; i < 20_000; i++) {
+				if (limiter.isAllowed(ROUTE_ID, KEY).block().isAllowed()) {
+					limiter.release(ROUTE_ID, KEY);
+				}
+			}
+		});
+		assertEquals(0, limiter.inFlight(ROUTE_ID, KEY));
+		assertTrue(limiter.isAllowed(ROUTE_ID, KEY).block().isAllowed());
+		assertEquals(1, limiter.inFlight(ROUTE_ID, KEY));
+	}
+
+	private static void run(int threads, Runnable work) throws InterruptedException {
+		List<Thread> started = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			started.add(Thread.ofPlatform().start(work));
+		}
+		for (Thread thread : started) {
+			thread.join();
+		}
+	}
+
+	private static ConcurrencyLimiter limiter(String maxInFlight) {
+		ConfigurationService configurationService = new ConfigurationService(new DefaultListableBeanFactory(),
+				ApplicationConversionService::getSharedInstance, () -> null);
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(configurationService);
+		limiter.onApplicationEvent(new FilterArgsEvent(ConcurrencyLimiterTests.class, ROUTE_ID,
+				Map.of(ConcurrencyLimiter.CONFIGURATION_PROPERTY_NAME + ".maxInFlight", maxInFlight)));
+		return limiter;
+	}
+}
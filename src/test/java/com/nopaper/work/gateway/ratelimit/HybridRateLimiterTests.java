@@ -0,0 +1,165 @@
+package com.nopaper.work.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+class HybridRateLimiterTests {
+
+	private static final String ROUTE_ID = "orders";
+
+	private final ReactiveStringRedisTemplate redis = mock(ReactiveStringRedisTemplate.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	// Shared counters as Redis would hold them, by key
+	private final Map<String, Long> counters = new ConcurrentHashMap<>();
+	private final AtomicLong reported = new AtomicLong();
+
+	@SuppressWarnings("unchecked")
+	HybridRateLimiterTests() {
+		when(redis.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(invocation -> {
+			List<String> keys = invocation.getArgument(1);
+			List<String> args = invocation.getArgument(2);
+			List<Long> totals = new ArrayList<>();
+			for (int i = 0; i < keys.size(); i++) {
+				long delta = Long.parseLong(args.get(i));
+				reported.addAndGet(delta);
+				totals.add(counters.merge(keys.get(i), delta, Long::sum));
+			}
+			return Flux.just(totals);
+		});
+	}
+
+	@Test
+	void syncsOnlyBucketsWithConsumptionInOneCall() {
+		HybridRateLimiter limiter = limiter(Duration.ofMinutes(2), "100", "100");
+		limiter.isAllowed(ROUTE_ID, "a").block();
+		limiter.isAllowed(ROUTE_ID, "a").block();
+		limiter.isAllowed(ROUTE_ID, "b").block();
+
+		limiter.sync().block();
+		limiter.sync().block();
+
+		ArgumentCaptor<List<String>> keys = captor();
+		ArgumentCaptor<List<String>> args = captor();
+		verify(redis, times(1)).execute(any(), keys.capture(), args.capture());
+		Map<String, String> sent = new HashMap<>();
+		for (int i = 0; i < keys.getValue().size(); i++) {
+			sent.put(keys.getValue().get(i), args.getValue().get(i));
+		}
+		assertEquals(Map.of(key("a"), "2", key("b"), "1"), sent);
+		// Counters expire after twice the idle timeout
+		assertEquals(String.valueOf(Duration.ofMinutes(4).toMillis()), args.getValue().get(2));
+	}
+
+	@Test
+	void takesWhatOtherNodesConsumedOutOfTheBucket() {
+		HybridRateLimiter limiter = limiter(Duration.ofMinutes(2), "1", "10");
+		assertEquals("9", remaining(limiter));
+		limiter.sync().block();
+
+		// Other nodes take 5 tokens before the next sync
+		counters.merge(key("a"), 5L, Long::sum);
+		assertEquals("8", remaining(limiter));
+		limiter.sync().block();
+
+		assertEquals("2", remaining(limiter));
+	}
+
+	@Test
+	void dropsIdleBucketsOnceTheirConsumptionIsSynced() {
+		HybridRateLimiter limiter = limiter(Duration.ZERO, "1", "10");
+		limiter.isAllowed(ROUTE_ID, "a").block();
+		limiter.sync().block();
+		assertEquals(1, buckets());
+		assertEquals(1, counters.get(key("a")));
+
+		limiter.sync().block();
+		assertEquals(0, buckets());
+		assertEquals("9", remaining(limiter));
+	}
+
+	@Test
+	void consumptionRacingTheRemovalOfIdleBucketsIsNotLost() throws InterruptedException {
+		HybridRateLimiter limiter = limiter(Duration.ZERO, "100000000", "100000000");
+		AtomicBoolean consuming = new AtomicBoolean(true);
+		AtomicLong allowed = new AtomicLong();
+		List<Thread> clients = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			clients.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					if (limiter.isAllowed(ROUTE_ID, "a").block().isAllowed()) {
+						allowed.incrementAndGet();
+					}
+				}
+			}));
+		}
+		Thread syncer = Thread.ofPlatform().start(() -> {
+			while (consuming.get()) {
+				limiter.sync().block();
+			}
+		});
+		for (Thread client : clients) {
+			client.join();
+		}
+		consuming.set(false);
+		syncer.join();
+		limiter.sync().block();
+
+		assertTrue(allowed.get() > 0);
+		assertEquals(allowed.get(), reported.get());
+	}
+
+	private HybridRateLimiter limiter(Duration idleTimeout, String replenishRate, String burstCapacity) {
+		ConfigurationService configurationService = new ConfigurationService(new DefaultListableBeanFactory(),
+				ApplicationConversionService::getSharedInstance, () -> null);
+		HybridRateLimiter limiter = new HybridRateLimiter(redis, configurationService, meterRegistry, 0.1,
+				Duration.ofMillis(250), idleTimeout);
+		String prefix = HybridRateLimiter.CONFIGURATION_PROPERTY_NAME;
+		limiter.onApplicationEvent(new FilterArgsEvent(this, ROUTE_ID,
+				Map.of(prefix + ".replenishRate", replenishRate, prefix + ".burstCapacity", burstCapacity)));
+		return limiter;
+	}
+
+	private static String remaining(HybridRateLimiter limiter) {
+		return limiter.isAllowed(ROUTE_ID, "a").block().getHeaders().get("X-RateLimit-Remaining");
+	}
+
+	private double buckets() {
+		return meterRegistry.get("gateway.rate_limit.buckets").gauge().value();
+	}
+
+	private static String key(String id) {
+		return HybridRateLimiter.redisKey(new HybridRateLimiter.BucketKey(ROUTE_ID, id));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ArgumentCaptor<List<String>> captor() {
+		return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+	}
+}
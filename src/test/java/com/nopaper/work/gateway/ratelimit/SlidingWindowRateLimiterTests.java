@@ -0,0 +1,99 @@
+package com.nopaper.work.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+class SlidingWindowRateLimiterTests {
+
+	private static final String ROUTE_ID = "orders";
+
+	@Test
+	void neverAdmitsMoreThanTheLimitWhenRequestsRace() throws InterruptedException {
+		// A window long enough that no slice rolls over during the test
+		SlidingWindowRateLimiter limiter = limiter("1000", "10m");
+		AtomicInteger allowed = new AtomicInteger();
+		List<Thread> clients = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			clients.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 1000; i++) {
+					if (isAllowed(limiter)) {
+						allowed.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Thread client : clients) {
+			client.join();
+		}
+		assertTrue(allowed.get() <= 1000, allowed.get() + " admitted");
+
+		// Requests refused in the race were taken back, so the rest of the limit is still there
+		while (isAllowed(limiter)) {
+			allowed.incrementAndGet();
+		}
+		assertEquals(1000, allowed.get());
+	}
+
+	@Test
+	void admitsRequestsAgainOnceTheWindowHasMovedOn() throws InterruptedException {
+		SlidingWindowRateLimiter limiter = limiter("5", "200ms");
+		for (int i = 0; i < 5; i++) {
+			assertTrue(isAllowed(limiter));
+		}
+		assertFalse(isAllowed(limiter));
+
+		Thread.sleep(500);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(isAllowed(limiter));
+		}
+		assertFalse(isAllowed(limiter));
+	}
+
+	@Test
+	void refusesRequestedTokensThatDoNotFitInASlice() {
+		Validator validator = Validation.byDefaultProvider()
+				.configure()
+				.messageInterpolator(new ParameterMessageInterpolator())
+				.buildValidatorFactory()
+				.getValidator();
+		assertTrue(validator.validate(new SlidingWindowRateLimiter.Config().setRequestedTokens(1_000_000)).isEmpty());
+		assertEquals(1, validator.validate(new SlidingWindowRateLimiter.Config().setRequestedTokens(1 << 24)).size());
+	}
+
+	@Test
+	void countsInRedisUnlessTheRouteAsksForLocalCounts() {
+		// Per-node counts would let a key through once per node
+		assertEquals(SlidingWindowRateLimiter.Mode.REDIS, new SlidingWindowRateLimiter.Config().getMode());
+	}
+
+	private static boolean isAllowed(SlidingWindowRateLimiter limiter) {
+		return limiter.isAllowed(ROUTE_ID, "192.0.2.7").block().isAllowed();
+	}
+
+	private static SlidingWindowRateLimiter limiter(String limit, String window) {
+		ConfigurationService configurationService = new ConfigurationService(new DefaultListableBeanFactory(),
+				ApplicationConversionService::getSharedInstance, () -> null);
+		SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(null, configurationService, Duration.ofMinutes(2));
+		String prefix = SlidingWindowRateLimiter.CONFIGURATION_PROPERTY_NAME;
+		limiter.onApplicationEvent(new FilterArgsEvent(SlidingWindowRateLimiterTests.class, ROUTE_ID,
+				Map.of(prefix + ".limit", limit, prefix + ".window", window, prefix + ".mode", "local")));
+		return limiter;
+	}
+}
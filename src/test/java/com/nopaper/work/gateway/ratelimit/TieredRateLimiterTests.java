@@ -0,0 +1,101 @@
+package com.nopaper.work.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+import reactor.core.publisher.Flux;
+
+class TieredRateLimiterTests {
+
+	private static final String ROUTE_ID = "orders";
+	private static final String TIERS = """
+			{"mode": "redis", "tiers": [{"name": "tenant", "key": "apiKey", "replenishRate": 1, "burstCapacity": 5},
+			                            {"name": "global", "key": "", "replenishRate": 1, "burstCapacity": 1}]}""";
+
+	private final ReactiveStringRedisTemplate redis = mock(ReactiveStringRedisTemplate.class);
+	// Tokens of each bucket as Redis would hold them, without refilling
+	private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+	private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+	private final TieredRateLimiter limiter;
+
+	@SuppressWarnings("unchecked")
+	TieredRateLimiterTests() {
+		when(redis.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(invocation -> {
+			boolean refund = !invocation.<RedisScript<?>>getArgument(0).getScriptAsString().contains("TIME");
+			List<String> keys = invocation.getArgument(1);
+			List<String> args = invocation.getArgument(2);
+			calls.add(keys);
+			long requested = Long.parseLong(args.get(0));
+			List<Long> result = new ArrayList<>();
+			if (refund) {
+				for (int i = 0; i < keys.size(); i++) {
+					result.add(tokens.merge(keys.get(i), requested, Long::sum));
+				}
+				return Flux.just(result);
+			}
+			boolean allowed = true;
+			for (int i = 0; i < keys.size(); i++) {
+				allowed &= tokens.computeIfAbsent(keys.get(i), key -> Long.parseLong(args.get(2 + 2 * keys.indexOf(key)))) >= requested;
+			}
+			result.add(allowed ? 1L : 0L);
+			for (String key : keys) {
+				result.add(allowed ? tokens.merge(key, -requested, Long::sum) : tokens.get(key));
+			}
+			return Flux.just(result);
+		});
+		RateLimitPolicyResolver policies = new RateLimitPolicyResolver(new ObjectMapper(), new RoutePolicyCaches());
+		policies.tiers(Route.async().id(ROUTE_ID).uri("lb://orders").predicate(e -> true)
+				.metadata(RateLimitTiers.METADATA_KEY, TIERS).build());
+		ConfigurationService configurationService = new ConfigurationService(new DefaultListableBeanFactory(),
+				ApplicationConversionService::getSharedInstance, () -> null);
+		limiter = new TieredRateLimiter(redis, null, policies, configurationService);
+	}
+
+	@Test
+	void tagsTheBucketsOfEachKeyWithThatKey() {
+		assertTrue(limiter.isAllowed(ROUTE_ID, id("alice")).block().isAllowed());
+
+		assertEquals(List.of(List.of(key("alice", "tenant")), List.of(key("*", "global"))), calls);
+	}
+
+	@Test
+	void handsBackTheTokensOfTiersThatAdmittedARefusedRequest() {
+		assertTrue(limiter.isAllowed(ROUTE_ID, id("alice")).block().isAllowed());
+		// The global tier is used up, so bob's tenant bucket gets its token back
+		assertFalse(limiter.isAllowed(ROUTE_ID, id("bob")).block().isAllowed());
+
+		assertEquals(5L, tokens.get(key("bob", "tenant")));
+		assertEquals(4L, tokens.get(key("alice", "tenant")));
+	}
+
+	private static String id(String tenant) {
+		return tenant + CompositeKeyResolver.TIER_SEPARATOR + "*";
+	}
+
+	private static String key(String tag, String tier) {
+		return GatewayConstant.RATE_LIMIT_KEY_PREFIX + "{" + tag + "}." + tier;
+	}
+}
@@ -0,0 +1,101 @@
+package com.nopaper.work.gateway.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.r2dbc.core.FetchSpec;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+
+import reactor.core.publisher.Mono;
+
+class RequestLogBatchRepositoryImplTests {
+
+	private final DatabaseClient databaseClient = mock(DatabaseClient.class);
+	private final GenericExecuteSpec spec = mock(GenericExecuteSpec.class);
+	private final RequestLogBatchRepositoryImpl repository = new RequestLogBatchRepositoryImpl(databaseClient);
+
+	@SuppressWarnings("unchecked")
+	RequestLogBatchRepositoryImplTests() {
+		FetchSpec<Map<String, Object>> fetch = mock(FetchSpec.class);
+		when(databaseClient.sql(any(String.class))).thenReturn(spec);
+		when(spec.bind(anyInt(), any())).thenReturn(spec);
+		when(spec.bindNull(anyInt(), any())).thenReturn(spec);
+		when(spec.fetch()).thenReturn(fetch);
+		when(fetch.rowsUpdated()).thenReturn(Mono.just(3L));
+	}
+
+	@Test
+	void numbersThePlaceholdersOfEveryRowOnFromTheLast() {
+		assertEquals(3L, repository.insertAll(List.of(log("a"), log("b"), log("c"))).block());
+
+		verify(databaseClient).sql("INSERT INTO gateway.request_logs (request_id, trace_id, http_method, uri, "
+				+ "status_code, client_ip, request_headers, response_headers, duration_ms, "
+				+ "created_by, created_date, last_modified_by, last_modified_date) VALUES "
+				+ row(1) + ", " + row(14) + ", " + row(27));
+	}
+
+	@Test
+	void bindsTheColumnsOfEveryRowInPlaceholderOrder() {
+		RequestLog first = log("a");
+		RequestLog second = log("b");
+		second.setTraceId(null);
+		second.setDurationMs(null);
+		repository.insertAll(List.of(first, second)).block();
+
+		InOrder binds = inOrder(spec);
+		binds.verify(spec).bind(0, "a");
+		binds.verify(spec).bind(1, "trace-a");
+		binds.verify(spec).bind(4, 200);
+		binds.verify(spec).bind(8, 12L);
+		binds.verify(spec).bind(12, first.getLastModifiedDate());
+		binds.verify(spec).bind(13, "b");
+		binds.verify(spec).bindNull(14, String.class);
+		binds.verify(spec).bindNull(21, Long.class);
+		binds.verify(spec).bind(25, second.getLastModifiedDate());
+	}
+
+	@Test
+	void insertsNothingForAnEmptyBatch() {
+		assertEquals(0L, repository.insertAll(List.of()).block());
+		verifyNoInteractions(databaseClient);
+	}
+
+	private static String row(int firstMarker) {
+		return IntStream.range(firstMarker, firstMarker + 13).mapToObj(marker -> "$" + marker).collect(Collectors.joining(", ", "(", ")"));
+	}
+
+	private static RequestLog log(String requestId) {
+		RequestLog log = new RequestLog();
+		log.setRequestId(requestId);
+		log.setTraceId("trace-" + requestId);
+		log.setHttpMethod("GET");
+		log.setUri("/orders");
+		log.setStatusCode(200);
+		log.setClientIp("192.0.2.7");
+		log.setRequestHeaders("{}");
+		log.setResponseHeaders("{}");
+		log.setDurationMs(12L);
+		log.setCreatedBy("gateway");
+		log.setCreatedDate(Instant.parse("2026-10-19T10:00:00Z"));
+		log.setLastModifiedBy("gateway");
+		log.setLastModifiedDate(Instant.parse("2026-10-19T10:00:01Z"));
+		return log;
+	}
+}
@@ -0,0 +1,81 @@
+package com.nopaper.work.gateway.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.nopaper.work.gateway.resilience.ResilienceGatewayFilterFactory.CircuitBreakerConfig;
+
+class CircuitBreakerTests {
+
+	private final CircuitBreakerConfig settings = new CircuitBreakerConfig()
+			.setFailureRate(0.5)
+			.setMinimumCalls(10)
+			.setWindow(Duration.ofSeconds(10))
+			.setOpenFor(Duration.ofMillis(50))
+			.setHalfOpenCalls(2);
+
+	@Test
+	void opensOnlyOnceEnoughCallsFailed() {
+		CircuitBreaker breaker = new CircuitBreaker("test");
+		for (int i = 0; i < 4; i++) {
+			breaker.onFailure(settings);
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state(), "too few calls to judge");
+
+		for (int i = 0; i < 6; i++) {
+			breaker.onSuccess(settings);
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state(), "4 of 10 failed, below the failure rate");
+
+		breaker.onFailure(settings);
+		breaker.onFailure(settings);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state(), "6 of 12 failed");
+		assertFalse(breaker.tryAcquire(settings));
+		assertTrue(breaker.remainingOpen().compareTo(Duration.ZERO) > 0);
+	}
+
+	@Test
+	void closesWithACleanWindowAfterTrialCallsSucceed() throws InterruptedException {
+		CircuitBreaker breaker = open();
+		Thread.sleep(60);
+
+		assertTrue(breaker.tryAcquire(settings));
+		assertTrue(breaker.tryAcquire(settings));
+		assertFalse(breaker.tryAcquire(settings), "only two trial calls");
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+		breaker.onSuccess(settings);
+		breaker.onSuccess(settings);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+		breaker.onFailure(settings);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state(), "earlier failures no longer count");
+	}
+
+	@Test
+	void reopensWhenATrialCallFails() throws InterruptedException {
+		CircuitBreaker breaker = open();
+		Thread.sleep(60);
+
+		assertTrue(breaker.tryAcquire(settings));
+		breaker.onCancel();
+		assertTrue(breaker.tryAcquire(settings), "a cancelled trial hands its slot back");
+		assertTrue(breaker.tryAcquire(settings));
+		breaker.onFailure(settings);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		assertFalse(breaker.tryAcquire(settings));
+	}
+
+	private CircuitBreaker open() {
+		CircuitBreaker breaker = new CircuitBreaker("test");
+		for (int i = 0; i < 10; i++) {
+			breaker.onFailure(settings);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		return breaker;
+	}
+}
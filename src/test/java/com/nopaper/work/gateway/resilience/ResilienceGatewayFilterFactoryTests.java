@@ -0,0 +1,170 @@
+package com.nopaper.work.gateway.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.nopaper.work.gateway.resilience.ResilienceGatewayFilterFactory.CircuitBreakerConfig;
+import com.nopaper.work.gateway.resilience.ResilienceGatewayFilterFactory.Config;
+import com.nopaper.work.gateway.resilience.RouteResilience.Event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class ResilienceGatewayFilterFactoryTests {
+
+	private static final String ROUTE_ID = "orders";
+	private static final String ATTEMPT_HEADER = "X-Attempt";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final RouteResilience routes = new RouteResilience(registry, 1000);
+	private final ResilienceGatewayFilterFactory factory = new ResilienceGatewayFilterFactory(routes);
+	private final AtomicInteger attempts = new AtomicInteger();
+
+	@Test
+	void keepsTheHedgeWhenItAnswersFirst() {
+		MockServerWebExchange exchange = exchange();
+		filter(hedged()).filter(exchange, chain(answer(HttpStatus.OK, Duration.ofSeconds(5)), answer(HttpStatus.OK, Duration.ZERO)))
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+		assertEquals("2", exchange.getResponse().getHeaders().getFirst(ATTEMPT_HEADER));
+		assertEquals(1, count(Event.HEDGED));
+		assertEquals(1, count(Event.HEDGE_WON));
+	}
+
+	@Test
+	void keepsThePrimaryWhenItAnswersFirst() {
+		MockServerWebExchange exchange = exchange();
+		filter(hedged()).filter(exchange, chain(answer(HttpStatus.OK, Duration.ofMillis(100)), answer(HttpStatus.OK, Duration.ofSeconds(5))))
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+		assertEquals("1", exchange.getResponse().getHeaders().getFirst(ATTEMPT_HEADER));
+		assertEquals(1, count(Event.HEDGED));
+		assertEquals(0, count(Event.HEDGE_WON));
+	}
+
+	@Test
+	void waitsForBothAttemptsBeforeAnsweringWithAFailure() {
+		MockServerWebExchange exchange = exchange();
+		filter(hedged()).filter(exchange,
+				chain(answer(HttpStatus.SERVICE_UNAVAILABLE, Duration.ofMillis(100)), answer(HttpStatus.BAD_GATEWAY, Duration.ZERO)))
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(2, attempts.get());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode(), "the attempt that failed last");
+		assertEquals(0, count(Event.HEDGE_WON));
+	}
+
+	@Test
+	void sendsNoHedgeOnceTheBudgetIsUsedUp() {
+		Config config = hedged();
+		config.getRetry().setBudget(0).setMinPerSecond(0);
+		MockServerWebExchange exchange = exchange();
+		filter(config).filter(exchange, chain(answer(HttpStatus.OK, Duration.ofMillis(200)), answer(HttpStatus.OK, Duration.ZERO)))
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(1, attempts.get());
+		assertEquals("1", exchange.getResponse().getHeaders().getFirst(ATTEMPT_HEADER));
+		assertEquals(0, count(Event.HEDGED));
+		assertEquals(1, count(Event.BUDGET_EXHAUSTED));
+	}
+
+	@Test
+	void handsBackTheTrialCallsOfARaceCalledOffAtAnyPoint() throws InterruptedException {
+		// Called off before, around and after the hedge is sent about 10ms in
+		for (long cancelAfter : List.of(0L, 5L, 9L, 10L, 11L, 12L, 15L, 30L)) {
+			Config config = hedged();
+			config.getCircuitBreaker().setEnabled(true).setHalfOpenCalls(2);
+			CircuitBreaker breaker = halfOpen(config.getCircuitBreaker());
+			Disposable call = filter(config).filter(exchange(), chain(Mono.never(), Mono.never())).subscribe();
+			Thread.sleep(cancelAfter);
+			call.dispose();
+			// A hedge being sent as the race is called off hands its permit back on the timer thread
+			Thread.sleep(50);
+
+			assertTrialCallsLeft(breaker, config.getCircuitBreaker(), 2);
+		}
+	}
+
+	/** Hedges after 10ms, once the route has seen enough fast answers. */
+	private Config hedged() {
+		Config config = new Config();
+		config.setRouteId(ROUTE_ID);
+		config.getHedge().setEnabled(true).setMinDelay(Duration.ofMillis(10)).setMinSamples(64);
+		RouteResilience.State state = routes.route(ROUTE_ID);
+		for (int i = 0; i < 64; i++) {
+			state.latency().record(Duration.ofMillis(1).toNanos());
+		}
+		return config;
+	}
+
+	private CircuitBreaker halfOpen(CircuitBreakerConfig settings) throws InterruptedException {
+		settings.setMinimumCalls(10).setOpenFor(Duration.ofMillis(20));
+		CircuitBreaker breaker = routes.route(ROUTE_ID).breaker();
+		for (int i = 0; i < 10; i++) {
+			breaker.onFailure(settings);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		Thread.sleep(30);
+		return breaker;
+	}
+
+	private static void assertTrialCallsLeft(CircuitBreaker breaker, CircuitBreakerConfig settings, int trials) {
+		for (int i = 0; i < trials; i++) {
+			assertTrue(breaker.tryAcquire(settings), "trial call " + (i + 1) + " of " + trials);
+		}
+		assertFalse(breaker.tryAcquire(settings));
+		for (int i = 0; i < trials; i++) {
+			breaker.onSuccess(settings);
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+	}
+
+	private GatewayFilter filter(Config config) {
+		return factory.apply(config);
+	}
+
+	/** Answers the n-th attempt with the n-th answer, tagging it with its number. */
+	@SafeVarargs
+	private GatewayFilterChain chain(Mono<HttpStatus>... answers) {
+		return exchange -> {
+			int attempt = attempts.incrementAndGet();
+			return answers[Math.min(attempt, answers.length) - 1].doOnNext(status -> {
+				ServerWebExchangeUtils.setAlreadyRouted(exchange);
+				exchange.getResponse().setStatusCode(status);
+				exchange.getResponse().getHeaders().set(ATTEMPT_HEADER, String.valueOf(attempt));
+			}).then();
+		};
+	}
+
+	private static Mono<HttpStatus> answer(HttpStatus status, Duration after) {
+		return Mono.delay(after).thenReturn(status);
+	}
+
+	private static MockServerWebExchange exchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/orders"));
+	}
+
+	private double count(Event event) {
+		return registry.get("gateway.resilience")
+				.tags("route", ROUTE_ID, "event", event.name().toLowerCase(Locale.ROOT))
+				.counter()
+				.count();
+	}
+}
@@ -0,0 +1,57 @@
+package com.nopaper.work.gateway.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.nopaper.work.gateway.resilience.ResilienceGatewayFilterFactory.CircuitBreakerConfig;
+import com.nopaper.work.gateway.resilience.RouteResilience.Event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RouteResilienceTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	// Meters for at most 3 routes
+	private final RouteResilience routes = new RouteResilience(registry, 3);
+
+	@Test
+	void keepsAnOpenBreakerBeyondTheMeteredRoutes() {
+		CircuitBreaker breaker = open(routes.route("orders").breaker());
+		for (int i = 0; i < 50; i++) {
+			routes.route("route-" + i).count(Event.RETRIED);
+		}
+
+		assertSame(breaker, routes.route("orders").breaker());
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		assertTrue(registry.find("gateway.circuit_breaker.state").gauges().size() <= 3);
+		assertEquals(2, registry.get("gateway.circuit_breaker.state").tag("route", "orders").gauge().value());
+	}
+
+	@Test
+	void dropsTheStateOfDeletedRoutes() {
+		RouteResilience.State orders = routes.route("orders");
+		RouteResilience.State invoices = routes.route("invoices");
+
+		routes.retain(Set.of("orders"));
+
+		assertSame(orders, routes.route("orders"));
+		assertEquals(0, registry.find("gateway.resilience").tag("route", "invoices").counters().size());
+		// A route added again with the same id starts over
+		assertNotSame(invoices, routes.route("invoices"));
+	}
+
+	private static CircuitBreaker open(CircuitBreaker breaker) {
+		CircuitBreakerConfig settings = new CircuitBreakerConfig().setMinimumCalls(10);
+		for (int i = 0; i < 10; i++) {
+			breaker.onFailure(settings);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		return breaker;
+	}
+}
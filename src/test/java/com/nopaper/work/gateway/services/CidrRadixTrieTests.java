@@ -0,0 +1,42 @@
+package com.nopaper.work.gateway.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetAddress;
+
+import org.junit.jupiter.api.Test;
+
+class CidrRadixTrieTests {
+
+	private final CidrRadixTrie trie = new CidrRadixTrie.Builder()
+			.add("10.1.0.0/16")
+			.add("192.0.2.7/32")
+			.add("2001:db8::/32")
+			.add("::ffff:198.51.100.0/120")
+			.build();
+
+	@Test
+	void matchesIpv4Ranges() throws Exception {
+		assertEquals("10.1.0.0/16", trie.match(InetAddress.getByName("10.1.255.3")));
+		assertEquals("192.0.2.7/32", trie.match(InetAddress.getByName("192.0.2.7")));
+		assertNull(trie.match(InetAddress.getByName("10.2.0.1")));
+		assertNull(trie.match(InetAddress.getByName("192.0.2.8")));
+	}
+
+	@Test
+	void matchesIpv6AndMappedRanges() throws Exception {
+		assertEquals("2001:db8::/32", trie.match(InetAddress.getByName("2001:db8:ffff::1")));
+		assertNull(trie.match(InetAddress.getByName("2001:db9::1")));
+		assertEquals("::ffff:198.51.100.0/120", trie.match(InetAddress.getByName("198.51.100.42")));
+	}
+
+	@Test
+	void rejectsMalformedRanges() {
+		CidrRadixTrie.Builder builder = new CidrRadixTrie.Builder();
+		assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0.0/33"));
+		assertThrows(IllegalArgumentException.class, () -> builder.add("example.com/8"));
+		assertThrows(IllegalArgumentException.class, () -> builder.add("10.0.0.0"));
+	}
+}
@@ -0,0 +1,62 @@
+package com.nopaper.work.gateway.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.junit.jupiter.api.Test;
+
+class IpAddressBloomFilterTests {
+
+	@Test
+	void findsEveryAddressAdded() throws UnknownHostException {
+		IpAddressBloomFilter filter = new IpAddressBloomFilter(10_000, 0.001);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(ipv4(i));
+		}
+		filter.put(InetAddress.getByName("2001:db8::7"));
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain(ipv4(i)));
+		}
+		assertTrue(filter.mightContain(InetAddress.getByName("2001:db8::7")));
+		assertFalse(filter.mightContain(InetAddress.getByName("2001:db8::8")));
+	}
+
+	@Test
+	void keepsToRoughlyTheConfiguredFalsePositiveRate() throws UnknownHostException {
+		IpAddressBloomFilter filter = new IpAddressBloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(ipv4(i));
+		}
+		int falsePositives = 0;
+		for (int i = 10_000; i < 110_000; i++) {
+			if (filter.mightContain(ipv4(i))) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+	}
+
+	@Test
+	void countsAnAddressAddedAgainOnlyOnce() throws UnknownHostException {
+		IpAddressBloomFilter filter = new IpAddressBloomFilter(2, 0.001);
+		// As the overlapping incremental refreshes do
+		for (int refresh = 0; refresh < 5; refresh++) {
+			filter.put(ipv4(1));
+			filter.put(ipv4(2));
+		}
+		assertEquals(2, filter.size());
+		assertFalse(filter.isOverCapacity());
+
+		filter.put(ipv4(3));
+		assertTrue(filter.isOverCapacity());
+	}
+
+	private static InetAddress ipv4(int i) throws UnknownHostException {
+		return InetAddress.getByAddress(new byte[] { 10, (byte) (i >>> 16), (byte) (i >>> 8), (byte) i });
+	}
+}
@@ -0,0 +1,186 @@
+package com.nopaper.work.gateway.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+
+class RequestLogSpoolTests {
+
+	private static final int SEGMENT_SIZE = 4096;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void rollsOverToNewSegmentsAndRefusesEntriesOnceFull() throws IOException {
+		RequestLogSpool spool = new RequestLogSpool(directory, SEGMENT_SIZE, 3);
+		int appended = 0;
+		while (spool.append(entry(appended))) {
+			appended++;
+		}
+		assertEquals(3, spool.segmentCount());
+		assertEquals(3, segmentFiles());
+		assertTrue(appended > 3 * (SEGMENT_SIZE / 200), "only " + appended + " entries fit");
+
+		// Read across segment boundaries, in order and without gaps
+		List<String> ids = new ArrayList<>();
+		RequestLogSpool.Batch batch;
+		while (!(batch = spool.read(7)).isEmpty()) {
+			batch.logs().forEach(log -> ids.add(log.getRequestId()));
+			spool.acknowledge(batch.end());
+		}
+		assertEquals(appended, ids.size());
+		for (int i = 0; i < appended; i++) {
+			assertEquals("request-" + i, ids.get(i));
+		}
+		// Shipped segments are deleted, which makes room again
+		assertEquals(1, spool.segmentCount());
+		assertEquals(1, segmentFiles());
+		assertTrue(spool.append(entry(appended)));
+	}
+
+	@Test
+	void replaysEntriesThatWereNotAcknowledged() throws IOException {
+		RequestLogSpool spool = new RequestLogSpool(directory, SEGMENT_SIZE, 8);
+		for (int i = 0; i < 50; i++) {
+			spool.append(entry(i));
+		}
+		RequestLogSpool.Batch shipped = spool.read(20);
+		spool.acknowledge(shipped.end());
+		spool.read(20);
+		// Crashes without closing or acknowledging the second batch
+
+		RequestLogSpool recovered = new RequestLogSpool(directory, SEGMENT_SIZE, 8);
+		RequestLogSpool.Batch replayed = recovered.read(100);
+		assertEquals(30, replayed.logs().size());
+		assertEquals("request-20", replayed.logs().get(0).getRequestId());
+		RequestLog last = replayed.logs().get(29);
+		assertEquals("request-49", last.getRequestId());
+		assertEquals(200, last.getStatusCode());
+		assertEquals(Instant.ofEpochSecond(1_700_000_049, 123), last.getCreatedDate());
+		assertEquals(null, last.getDurationMs());
+	}
+
+	@Test
+	void dropsARecordTornByACrashAndAppendsInItsPlace() throws IOException {
+		RequestLogSpool spool = new RequestLogSpool(directory, SEGMENT_SIZE, 8);
+		spool.append(entry(0));
+		spool.append(entry(1));
+		spool.read(10);
+		corruptLastRecord();
+
+		RequestLogSpool recovered = new RequestLogSpool(directory, SEGMENT_SIZE, 8);
+		assertEquals(List.of("request-0"), ids(recovered.read(10)));
+		recovered.append(entry(2));
+		assertEquals(List.of("request-0", "request-2"), ids(recovered.read(10)));
+	}
+
+	@Test
+	void recoversACheckpointAheadOfTheSegmentsOnDisk() throws IOException {
+		RequestLogSpool spool = new RequestLogSpool(directory, SEGMENT_SIZE, 8);
+		spool.append(entry(0));
+		spool.acknowledge(spool.read(10).end());
+		// The checkpoint names a segment that was never written
+		Files.writeString(directory.resolve("checkpoint"), "5 128");
+
+		RequestLogSpool recovered = new RequestLogSpool(directory, SEGMENT_SIZE, 8);
+		assertEquals(1, recovered.segmentCount());
+		assertTrue(recovered.read(10).isEmpty());
+		recovered.append(entry(1));
+		assertEquals(List.of("request-1"), ids(recovered.read(10)));
+	}
+
+	@Test
+	void readsWhileOtherThreadsAppend() throws Exception {
+		RequestLogSpool spool = new RequestLogSpool(directory, 64 * 1024, 64);
+		int threads = 4;
+		int perThread = 500;
+		List<Thread> writers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int first = t * perThread;
+			writers.add(Thread.ofPlatform().start(() -> {
+				for (int i = first; i < first + perThread; i++) {
+					try {
+						assertTrue(spool.append(entry(i)));
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			}));
+		}
+		boolean[] seen = new boolean[threads * perThread];
+		int read = 0;
+		while (read < seen.length) {
+			RequestLogSpool.Batch batch = spool.read(100);
+			for (RequestLog log : batch.logs()) {
+				int id = Integer.parseInt(log.getRequestId().substring("request-".length()));
+				assertFalse(seen[id], "read twice: " + id);
+				seen[id] = true;
+				read++;
+			}
+			spool.acknowledge(batch.end());
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		assertTrue(spool.read(100).isEmpty());
+	}
+
+	private static RequestLog entry(int i) {
+		RequestLog entry = new RequestLog();
+		entry.setRequestId("request-" + i);
+		entry.setTraceId("trace-" + i);
+		entry.setHttpMethod("GET");
+		entry.setUri("/api/orders/" + i);
+		entry.setStatusCode(200);
+		entry.setClientIp("192.0.2.7");
+		entry.setRequestHeaders("{\"accept\":\"application/json\"}");
+		entry.setCreatedDate(Instant.ofEpochSecond(1_700_000_000 + i, 123));
+		return entry;
+	}
+
+	private static List<String> ids(RequestLogSpool.Batch batch) {
+		return batch.logs().stream().map(RequestLog::getRequestId).toList();
+	}
+
+	private long segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().startsWith("segment-")).count();
+		}
+	}
+
+	// Flips a payload byte of the last record of the only segment, as if the crash came mid-write
+	private void corruptLastRecord() throws IOException {
+		Path segment;
+		try (Stream<Path> files = Files.list(directory)) {
+			segment = files.filter(path -> path.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+		}
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			int offset = 0;
+			int last = 0;
+			int length;
+			while ((length = file.getInt(offset)) > 0) {
+				last = offset;
+				offset += 8 + length;
+			}
+			file.put(last + 8, (byte) (file.get(last + 8) ^ 1));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.nopaper.work.gateway.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.nopaper.work.gateway.entity.RequestLog;
+import com.nopaper.work.gateway.repository.RequestLogRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class RequestLogWriterTests {
+
+	@TempDir
+	Path directory;
+
+	private final RequestLogRepository repository = mock(RequestLogRepository.class);
+	private final List<String> shipped = new CopyOnWriteArrayList<>();
+
+	@Test
+	void shipsEntriesHandedOffByRequestThreadsInOrder() throws InterruptedException {
+		when(repository.insertAll(anyList())).thenAnswer(invocation -> {
+			List<RequestLog> batch = invocation.getArgument(0);
+			batch.forEach(entry -> shipped.add(entry.getRequestId()));
+			return Mono.just((long) batch.size());
+		});
+		// Segments of 8KB, so the spool thread rolls over many times
+		RequestLogWriter writer = new RequestLogWriter(repository, new SimpleMeterRegistry(), 10_000, 100, Duration.ofMillis(50),
+				RequestLogWriter.OverflowPolicy.DROP, 10, true, directory, DataSize.ofKilobytes(8), 1000);
+		writer.start();
+		int threads = 4;
+		int perThread = 1000;
+		List<Thread> requests = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			String thread = "t" + t;
+			requests.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < perThread; i++) {
+					assertTrue(writer.enqueue(entry(thread + "-" + i)));
+				}
+			}));
+		}
+		for (Thread request : requests) {
+			request.join();
+		}
+		writer.stop();
+
+		assertEquals(threads * perThread, shipped.size());
+		// Each request thread's entries arrive in the order it handed them off
+		Map<String, Integer> next = new HashMap<>();
+		for (String id : shipped) {
+			String thread = id.substring(0, id.indexOf('-'));
+			int sequence = Integer.parseInt(id.substring(id.indexOf('-') + 1));
+			assertEquals(next.getOrDefault(thread, 0), sequence, id);
+			next.put(thread, sequence + 1);
+		}
+	}
+
+	private static RequestLog entry(String requestId) {
+		RequestLog entry = new RequestLog();
+		entry.setRequestId(requestId);
+		entry.setHttpMethod("GET");
+		entry.setUri("/api/orders");
+		entry.setStatusCode(200);
+		return entry;
+	}
+}
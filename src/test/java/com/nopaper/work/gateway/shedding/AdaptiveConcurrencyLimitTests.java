@@ -0,0 +1,63 @@
+package com.nopaper.work.gateway.shedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(20);
+
+	@Test
+	void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 200, 1.5);
+		for (int i = 0; i < 200; i++) {
+			limit.onSample(FAST, limit.limit(), false);
+		}
+		int grown = limit.limit();
+		assertTrue(grown > 20, "limit should grow under load at steady latency, was " + grown);
+
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(FAST * 5, limit.limit(), false);
+		}
+		assertTrue(limit.limit() < grown / 2, "limit should back off when latency rises, was " + limit.limit());
+	}
+
+	@Test
+	void doesNotGrowWhenMostlyIdle() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 200, 1.5);
+		for (int i = 0; i < 200; i++) {
+			limit.onSample(FAST, 1, false);
+		}
+		assertEquals(20, limit.limit());
+	}
+
+	@Test
+	void shedsLowerPrioritiesFirst() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 5, 200, 1.5);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limit.tryAcquire(RequestPriority.SHEDDABLE.share()) >= 0);
+		}
+		assertEquals(-1, limit.tryAcquire(RequestPriority.SHEDDABLE.share()));
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limit.tryAcquire(RequestPriority.NORMAL.share()) >= 0);
+		}
+		assertEquals(-1, limit.tryAcquire(RequestPriority.NORMAL.share()));
+		assertTrue(limit.tryAcquire(RequestPriority.CRITICAL.share()) >= 0);
+		assertEquals(-1, limit.tryAcquire(RequestPriority.CRITICAL.share()));
+
+		limit.release();
+		assertTrue(limit.tryAcquire(RequestPriority.CRITICAL.share()) >= 0);
+		assertEquals(10, limit.inFlight());
+	}
+
+	@Test
+	void backsOffOnDrops() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 5, 200, 1.5);
+		limit.onSample(FAST, 100, true);
+		assertEquals(90, limit.limit());
+	}
+}
@@ -0,0 +1,51 @@
+package com.nopaper.work.gateway.shedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimitsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	// Gauges for at most 3 routes and 3 services
+	private final AdaptiveConcurrencyLimits limits = new AdaptiveConcurrencyLimits(registry, 10, 1, 100, 1.5, 3);
+
+	@Test
+	void keepsTheRequestsInFlightOfEveryRouteBeyondTheMeteredOnes() {
+		AdaptiveConcurrencyLimit orders = limits.route("orders");
+		assertTrue(orders.tryAcquire(1) >= 0);
+		for (int i = 0; i < 50; i++) {
+			limits.route("route-" + i);
+			limits.upstream("service-" + i);
+		}
+
+		assertSame(orders, limits.route("orders"));
+		assertEquals(1, orders.inFlight());
+		assertTrue(registry.find("gateway.concurrency.in_flight").tag("scope", "route").gauges().size() <= 3);
+		assertEquals(1, registry.get("gateway.concurrency.in_flight").tags("scope", "route", "name", "orders").gauge().value());
+	}
+
+	@Test
+	void dropsTheLimitsOfDeletedRoutesAndServices() {
+		AdaptiveConcurrencyLimit orders = limits.route("orders");
+		AdaptiveConcurrencyLimit service = limits.upstream("orders-service");
+		AdaptiveConcurrencyLimit invoices = limits.route("invoices");
+		limits.upstream("invoices-service");
+
+		limits.retain(Set.of("orders"), Set.of("orders-service"));
+
+		assertSame(orders, limits.route("orders"));
+		assertSame(service, limits.upstream("orders-service"));
+		assertEquals(0, registry.find("gateway.concurrency.limit").tags("scope", "route", "name", "invoices").gauges().size());
+		// A route added again with the same id starts over
+		assertNotSame(invoices, limits.route("invoices"));
+		assertEquals(0, registry.find("gateway.concurrency.limit").tags("scope", "upstream", "name", "invoices-service").gauges().size());
+	}
+}
@@ -0,0 +1,275 @@
+package com.nopaper.work.gateway.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nopaper.work.gateway.configurations.RoutePolicyCaches;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+import com.sun.net.httpserver.HttpServer;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import reactor.core.publisher.Mono;
+
+class GatewayTracingTests {
+
+	private static final String CALLER_TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+	private static final String CALLER_SPAN_ID = "00f067aa0ba902b7";
+
+	private final List<SpanData> exported = new CopyOnWriteArrayList<>();
+
+	@Test
+	void continuesTheCallersTraceAndHandsItUpstream() {
+		GatewayTracing tracing = tracing("0", "", false);
+		MockServerWebExchange exchange = exchange("traceparent", "00-" + CALLER_TRACE_ID + "-" + CALLER_SPAN_ID + "-01");
+
+		Span request = tracing.startRequest(exchange, route(null));
+		assertTrue(request.getSpanContext().isSampled(), "the caller's decision wins over the sample rate");
+		assertEquals(CALLER_TRACE_ID, exchange.getAttribute(GatewayConstant.TRACE_ID_ATTR));
+
+		HttpHeaders upstream = new HttpHeaders();
+		tracing.traceUpstream(exchange, answer(HttpStatus.OK, () -> tracing.inject(exchange, upstream))).block();
+		tracing.endRequest(exchange, request, null, System.nanoTime());
+
+		SpanData server = span("orders");
+		SpanData client = span("upstream");
+		assertEquals(SpanKind.SERVER, server.getKind());
+		assertEquals(CALLER_SPAN_ID, server.getParentSpanId());
+		assertEquals(SpanKind.CLIENT, client.getKind());
+		assertEquals(server.getSpanId(), client.getParentSpanId());
+		assertEquals(200L, client.getAttributes().get(GatewayTracing.HTTP_STATUS));
+		// The upstream continues from the gateway's call, not from the caller
+		assertEquals("00-" + CALLER_TRACE_ID + "-" + client.getSpanId() + "-01", upstream.getFirst("traceparent"));
+	}
+
+	@Test
+	void stepsEndWhenTheyHandTheRequestOn() {
+		GatewayTracing tracing = tracing("1", "", false);
+		MockServerWebExchange exchange = exchange();
+		Span request = tracing.startRequest(exchange, route(null));
+		AtomicInteger stepsEndedBeforeHandOff = new AtomicInteger();
+
+		tracing.traceUntilHandOff(exchange, "rate limit", answer(HttpStatus.OK, () -> stepsEndedBeforeHandOff.set(exported.size())),
+				(ex, chain) -> chain.filter(ex)).block();
+		assertEquals(1, stepsEndedBeforeHandOff.get());
+
+		// A step that answers the request itself ends with it and records its answer
+		tracing.traceUntilHandOff(exchange, "blacklist check", answer(HttpStatus.OK, () -> {}), (ex, chain) -> {
+			ex.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+			return ex.getResponse().setComplete();
+		}).block();
+		tracing.endRequest(exchange, request, null, System.nanoTime());
+
+		assertEquals(403L, span("blacklist check").getAttributes().get(GatewayTracing.HTTP_STATUS));
+		assertEquals(request.getSpanContext().getSpanId(), span("rate limit").getParentSpanId());
+	}
+
+	@Test
+	void requestsThatAreNotSampledRecordNothing() {
+		GatewayTracing tracing = tracing("0", "", false);
+		MockServerWebExchange exchange = exchange(GatewayConstant.TRACE_ID_HEADER, "legacy-trace");
+
+		Span request = tracing.startRequest(exchange, route(null));
+		assertFalse(request.isRecording());
+		// Logged under the id the caller gave, as there is no trace to look it up in
+		assertNull(exchange.getAttribute(GatewayConstant.TRACE_ID_ATTR));
+		Mono<String> work = Mono.just("body");
+		assertSame(work, tracing.trace(exchange, "response transform", work));
+		GatewayFilterChain chain = answer(HttpStatus.OK, () -> {});
+		tracing.traceUpstream(exchange, chain).block();
+		tracing.endRequest(exchange, request, null, System.nanoTime());
+		assertTrue(exported.isEmpty());
+
+		// The upstream still learns that the trace was not sampled
+		HttpHeaders upstream = new HttpHeaders();
+		tracing.inject(exchange, upstream);
+		assertTrue(upstream.getFirst("traceparent").endsWith("-00"), upstream.getFirst("traceparent"));
+	}
+
+	@Test
+	void tailSamplingKeepsOnlyFailedAndSlowRequests() {
+		GatewayTracing tracing = tracing("0", "", false);
+		Route route = route("{\"sampleRate\":0,\"keepErrors\":true,\"keepSlowerThan\":\"1s\"}");
+
+		MockServerWebExchange ok = exchange();
+		Span fast = tracing.startRequest(ok, route);
+		assertTrue(fast.isRecording());
+		assertFalse(fast.getSpanContext().isSampled());
+		tracing.traceUpstream(ok, answer(HttpStatus.OK, () -> {})).block();
+		tracing.endRequest(ok, fast, null, System.nanoTime());
+		assertTrue(exported.isEmpty());
+
+		MockServerWebExchange failed = exchange();
+		Span failing = tracing.startRequest(failed, route);
+		tracing.traceUpstream(failed, answer(HttpStatus.SERVICE_UNAVAILABLE, () -> {})).block();
+		tracing.endRequest(failed, failing, null, System.nanoTime());
+		assertEquals(2, exported.size());
+		assertEquals(StatusCode.ERROR, span("orders").getStatus().getStatusCode());
+		assertEquals(span("orders").getSpanId(), span("upstream").getParentSpanId());
+
+		exported.clear();
+		MockServerWebExchange slow = exchange();
+		Span slowRequest = tracing.startRequest(slow, route);
+		tracing.endRequest(slow, slowRequest, null, System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
+		assertEquals(List.of("orders"), exported.stream().map(SpanData::getName).toList());
+	}
+
+	@Test
+	void exportsInBatchesToAnOtlpCollector() throws IOException {
+		HttpServer collector = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		List<String> contentTypes = new CopyOnWriteArrayList<>();
+		collector.createContext("/v1/traces", http -> {
+			contentTypes.add(http.getRequestHeaders().getFirst("Content-Type"));
+			http.getRequestBody().readAllBytes();
+			http.sendResponseHeaders(200, -1);
+			http.close();
+		});
+		collector.start();
+		try {
+			OtlpHttpSpanExporter exporter = OtlpHttpSpanExporter.builder()
+					.setEndpoint("http://127.0.0.1:" + collector.getAddress().getPort() + "/v1/traces")
+					.build();
+			BatchSpanProcessor batch = BatchSpanProcessor.builder(exporter)
+					.setExportUnsampledSpans(true)
+					.setMaxExportBatchSize(10)
+					.setScheduleDelay(Duration.ofMinutes(1))
+					.build();
+			Tracing traced = tracing(batch, resolver("1", "", false));
+			SdkTracerProvider provider = traced.provider();
+			GatewayTracing tracing = traced.tracing();
+			for (int i = 0; i < 25; i++) {
+				MockServerWebExchange exchange = exchange();
+				Span request = tracing.startRequest(exchange, route(null));
+				tracing.endRequest(exchange, request, null, System.nanoTime());
+			}
+			assertTrue(provider.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+			assertEquals(3, contentTypes.size());
+			assertEquals("application/x-protobuf", contentTypes.get(0));
+			provider.shutdown().join(10, TimeUnit.SECONDS);
+		} finally {
+			collector.stop(0);
+		}
+	}
+
+	@Test
+	void rejectsInvalidPolicies() {
+		TracingPolicyResolver resolver = new TracingPolicyResolver(new ObjectMapper(), new RoutePolicyCaches(), 0.01, "", false);
+		assertThrows(IllegalArgumentException.class, () -> resolver.parse("{\"sampleRate\":1.5}"));
+		assertThrows(IllegalArgumentException.class, () -> resolver.parse("{\"keepSlowerThan\":\"-1s\"}"));
+		assertThrows(IllegalArgumentException.class, () -> resolver.parse("{\"sampleRate\":"));
+		TracingPolicy policy = resolver.parse("{\"keepErrors\":true}");
+		assertEquals(0.01, policy.sampleRate());
+		assertTrue(policy.isTailSampled());
+	}
+
+	private SpanExporter collector() {
+		return new SpanExporter() {
+			@Override
+			public CompletableResultCode export(Collection<SpanData> spans) {
+				exported.addAll(spans);
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode flush() {
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode shutdown() {
+				return CompletableResultCode.ofSuccess();
+			}
+		};
+	}
+
+	private SpanData span(String name) {
+		List<SpanData> named = new ArrayList<>(exported.stream().filter(span -> span.getName().equals(name)).toList());
+		assertEquals(1, named.size(), () -> "spans named " + name + " in " + exported);
+		return named.get(0);
+	}
+
+	private GatewayTracing tracing(String sampleRate, String keepSlowerThan, boolean keepErrors) {
+		SpanProcessor exporting = SimpleSpanProcessor.builder(collector()).setExportUnsampledSpans(true).build();
+		return tracing(exporting, resolver(sampleRate, keepSlowerThan, keepErrors)).tracing();
+	}
+
+	private record Tracing(SdkTracerProvider provider, GatewayTracing tracing) {}
+
+	private static Tracing tracing(SpanProcessor exporting, TracingPolicyResolver resolver) {
+		SdkTracerProvider provider = SdkTracerProvider.builder()
+				.setSampler(new RouteSampler(resolver.defaultPolicy()))
+				.addSpanProcessor(new TailSamplingSpanProcessor(exporting, 100))
+				.build();
+		OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+				.setTracerProvider(provider)
+				.setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+				.build();
+		return new Tracing(provider, new GatewayTracing(openTelemetry, resolver, true));
+	}
+
+	private static TracingPolicyResolver resolver(String sampleRate, String keepSlowerThan, boolean keepErrors) {
+		return new TracingPolicyResolver(new ObjectMapper(), new RoutePolicyCaches(), Double.parseDouble(sampleRate), keepSlowerThan, keepErrors);
+	}
+
+	private static Route route(String tracing) {
+		return Route.async()
+				.id("orders")
+				.uri("http://orders:8080")
+				.predicate(exchange -> true)
+				.metadata(tracing != null ? Map.of(TracingPolicy.METADATA_KEY, tracing) : Map.of())
+				.build();
+	}
+
+	private static MockServerWebExchange exchange(String... headerPairs) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/orders/1")
+				.remoteAddress(new InetSocketAddress("10.0.0.1", 40000));
+		for (int i = 0; i < headerPairs.length; i += 2) {
+			request.header(headerPairs[i], headerPairs[i + 1]);
+		}
+		return MockServerWebExchange.from(request);
+	}
+
+	/** End of the chain: runs {@code call}, then answers with {@code status}. */
+	private static GatewayFilterChain answer(HttpStatus status, Runnable call) {
+		return exchange -> Mono.fromRunnable(() -> {
+			call.run();
+			exchange.getResponse().setStatusCode(status);
+		});
+	}
+}
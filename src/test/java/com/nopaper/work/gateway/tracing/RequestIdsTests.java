@@ -0,0 +1,64 @@
+package com.nopaper.work.gateway.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class RequestIdsTests {
+
+	@Test
+	void makesVersion7IdsOfTheCurrentTime() {
+		long before = System.currentTimeMillis();
+		UUID id = RequestIds.next();
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		assertTrue(RequestIds.timestamp(id) >= before && RequestIds.timestamp(id) <= System.currentTimeMillis() + 1);
+		assertEquals(id, UUID.fromString(id.toString()));
+	}
+
+	@Test
+	void idsOfAThreadStrictlyIncreaseEvenWithinAMillisecond() {
+		// Far more ids than the counter holds in one millisecond
+		UUID previous = RequestIds.next();
+		for (int i = 0; i < 100_000; i++) {
+			UUID id = RequestIds.next();
+			assertTrue(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+					previous + " then " + id);
+			// Text sorts the same way, as databases and log tools compare it
+			assertTrue(id.toString().compareTo(previous.toString()) > 0);
+			previous = id;
+		}
+	}
+
+	@Test
+	void threadsNeverMakeTheSameId() throws InterruptedException {
+		Set<UUID> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 20_000; i++) {
+					ids.add(RequestIds.next());
+				}
+			}));
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(8 * 20_000, ids.size());
+	}
+}
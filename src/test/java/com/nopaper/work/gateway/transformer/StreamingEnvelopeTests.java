@@ -0,0 +1,86 @@
+package com.nopaper.work.gateway.transformer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nopaper.work.gateway.constants.GatewayConstant;
+
+class StreamingEnvelopeTests {
+
+	private static final List<String> BODIES = List.of("{\"id\":1,\"tags\":[\"a\",\"b\"]}", "[]", "\"text\"", "null", "{}");
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders"));
+
+	StreamingEnvelopeTests() {
+		exchange.getResponse().setStatusCode(HttpStatus.OK);
+		exchange.getAttributes().put(GatewayConstant.REQUEST_ID_ATTR, UUID.randomUUID());
+	}
+
+	@Test
+	void wrapsBodiesAsTheStandardTransformersDo() throws IOException {
+		Map<TransformerProfile, ResponseTransformer> profiles = Map.of(
+				StandardTransformers.DEFAULT, StandardTransformers::defaultTransformer,
+				StandardTransformers.OWASP, StandardTransformers::owaspTransformer,
+				StandardTransformers.LTI, StandardTransformers::ltiTransformer);
+		for (Map.Entry<TransformerProfile, ResponseTransformer> profile : profiles.entrySet()) {
+			StreamingEnvelope envelope = StreamingEnvelope.render(objectMapper, profile.getKey().transformer(), exchange);
+			for (String body : BODIES) {
+				JsonNode expected = objectMapper.valueToTree(profile.getValue().transform(exchange, objectMapper.readTree(body)));
+				assertEquals(withoutTimestamp(expected), withoutTimestamp(stream(envelope, body)), profile.getKey().name() + " of " + body);
+			}
+		}
+	}
+
+	@Test
+	void splitsEnvelopesOfOtherTransformersAtTheBody() throws IOException {
+		ResponseTransformer transformer = (exchange, body) -> {
+			Map<String, Object> envelope = new LinkedHashMap<>();
+			envelope.put("before", 1);
+			envelope.put("body", body);
+			envelope.put("after", List.of(2, 3));
+			return envelope;
+		};
+		StreamingEnvelope envelope = StreamingEnvelope.render(objectMapper, transformer, exchange);
+		for (String body : BODIES) {
+			assertEquals(objectMapper.valueToTree(transformer.transform(exchange, objectMapper.readTree(body))), stream(envelope, body));
+		}
+	}
+
+	@Test
+	void refusesAnEnvelopeWithoutTheBody() {
+		assertThrows(IllegalArgumentException.class, () -> StreamingEnvelope.render(objectMapper, Map.of("data", "none")));
+	}
+
+	/** Parses the envelope with the body streamed in between, a byte at a time as it might arrive. */
+	private JsonNode stream(StreamingEnvelope envelope, String body) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(envelope.prefix());
+		for (byte b : body.getBytes(StandardCharsets.UTF_8)) {
+			out.write(b);
+		}
+		out.write(envelope.suffix());
+		return objectMapper.readTree(out.toByteArray());
+	}
+
+	private static JsonNode withoutTimestamp(JsonNode envelope) {
+		((ObjectNode) envelope).remove("timestamp");
+		return envelope;
+	}
+}